@@ -8,8 +8,27 @@ import java.util.Iterator;
 
 import javax.imageio.metadata.IIOMetadataNode;
 
-/** Represents an image, with easy access to animation parameters */
+/**
+ * Represents an image, with easy access to animation parameters. Large animations are streamed: only the first frame is decoded up front,
+ * and other frames are decoded into a small look-ahead window as playback {@link #advanceTo(int) advances}, then released. The reader
+ * that a streaming image decodes with is held open until the image is {@link #close() closed}.
+ */
 public class ImageData implements Iterable<Image> {
+	/** Animations whose decoded frames would take more than this many bytes are streamed instead of decoded up front */
+	public static final int STREAMING_THRESHOLD = 16 * 1024 * 1024;
+
+	/** The number of frames after the current one that a streaming image keeps decoded */
+	public static final int LOOK_AHEAD = 3;
+
+	/** The maximum number of bytes of scaled frames that each image keeps */
+	public static final int SCALED_BUDGET = 8 * 1024 * 1024;
+
+	private static final java.util.concurrent.ExecutorService DECODER = java.util.concurrent.Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "Quick Image Decoder");
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	private Image [] theImages;
 
 	private int [] theDelays;
@@ -24,6 +43,66 @@ public class ImageData implements Iterable<Image> {
 
 	private Boolean hasTransparency;
 
+	private boolean isSubsampled;
+
+	private boolean isStreaming;
+
+	/** The reader to decode frames with, or null if all frames are decoded or the image has been closed */
+	private javax.imageio.ImageReader theReader;
+
+	/** Re-opens the reader of a streaming image after it has been closed. May be null. */
+	private java.util.concurrent.Callable<javax.imageio.ImageReader> theReopener;
+
+	private Object theDecodeLock;
+
+	private Point [] theFrameSizes;
+
+	private java.util.BitSet theQueued;
+
+	private volatile int thePlayIndex;
+
+	private volatile int theDisplayedIndex;
+
+	/** The most recent error decoding a frame of a streaming image */
+	private volatile Exception theDecodeError;
+
+	/** The graphics configuration that each frame has been converted for */
+	private java.awt.GraphicsConfiguration [] theFrameConfigs;
+
+	private java.util.LinkedHashMap<ScaledKey, java.lang.ref.SoftReference<BufferedImage>> theScaled;
+
+	private long theScaledSize;
+
+	private static class ScaledKey {
+		final int index;
+
+		final int width;
+
+		final int height;
+
+		final Object interpolation;
+
+		ScaledKey(int idx, int w, int h, Object interp) {
+			index = idx;
+			width = w;
+			height = h;
+			interpolation = interp;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof ScaledKey))
+				return false;
+			ScaledKey key = (ScaledKey) o;
+			return key.index == index && key.width == width && key.height == height && java.util.Objects.equals(key.interpolation, interpolation);
+		}
+
+		@Override
+		public int hashCode() {
+			return ((index * 31 + width) * 31 + height) * 31 + java.util.Objects.hashCode(interpolation);
+		}
+	}
+
 	/** @param img The image to wrap. If the image is animated, the new ImageData will see it as a single frame. */
 	public ImageData(Image img) {
 		theImages = new Image[] {img};
@@ -34,13 +113,56 @@ public class ImageData implements Iterable<Image> {
 		theHeight = -1;
 	}
 
+	/**
+	 * @param img A frame decoded at a reduced resolution
+	 * @param width The width of the full-resolution image that the frame was decoded from
+	 * @param height The height of the full-resolution image that the frame was decoded from
+	 */
+	public ImageData(Image img, int width, int height) {
+		this(img);
+		theWidth = width;
+		theHeight = height;
+		isSubsampled = img.getWidth(null) != width || img.getHeight(null) != height;
+	}
+
+	private ImageData(Image [] images, int [] delays, Point [] offsets, int width, int height, int size, boolean transparent) {
+		theImages = images;
+		theDelays = delays;
+		theOffsets = offsets;
+		theWidth = width;
+		theHeight = height;
+		theSize = size;
+		hasTransparency = transparent;
+	}
+
 	/**
 	 * @param reader The image reader that is reading the image
 	 * @throws java.io.IOException If an error occurs reading the image
 	 */
 	public ImageData(javax.imageio.ImageReader reader) throws java.io.IOException {
+		this(reader, null);
+	}
+
+	/**
+	 * @param reader The image reader that is reading the image. If the image is {@link #isStreaming() streaming}, the image keeps the
+	 *        reader to decode frames with, and the reader must be released with {@link #close()}. Otherwise the caller may release the
+	 *        reader as soon as this constructor returns.
+	 * @param reopen Creates a new reader for the same image, so that a streaming image may continue decoding after it has been
+	 *        {@link #close() closed}. May be null.
+	 * @throws java.io.IOException If an error occurs reading the image
+	 */
+	public ImageData(javax.imageio.ImageReader reader, java.util.concurrent.Callable<javax.imageio.ImageReader> reopen)
+		throws java.io.IOException {
+		theReopener = reopen;
 		String format = reader.getFormatName();
-		int count = reader.getNumImages(false);
+		int count;
+		try {
+			count = reader.getNumImages(true);
+		} catch(IllegalStateException e) {
+			count = reader.getNumImages(false);
+		}
+		if(count > 1 && initStreaming(reader, format, count))
+			return;
 		ArrayList<Image> images = null;
 		org.qommons.IntList delays = null;
 		ArrayList<Point> offsets = null;
@@ -85,6 +207,180 @@ public class ImageData implements Iterable<Image> {
 		}
 	}
 
+	/**
+	 * Prepares this image to decode its frames on demand, if they are large enough to warrant it
+	 *
+	 * @param reader The image reader that is reading the image
+	 * @param format The format of the image
+	 * @param count The number of frames in the image
+	 * @return Whether this image will stream its frames
+	 * @throws java.io.IOException If an error occurs reading the image
+	 */
+	private boolean initStreaming(javax.imageio.ImageReader reader, String format, int count) throws java.io.IOException {
+		Point [] sizes = new Point[count];
+		long total = 0;
+		for(int i = 0; i < count; i++) {
+			sizes[i] = new Point(reader.getWidth(i), reader.getHeight(i));
+			total += sizes[i].x * (long) sizes[i].y * 4;
+		}
+		if(total <= STREAMING_THRESHOLD)
+			return false;
+		theImages = new Image[count];
+		theDelays = new int[count];
+		theOffsets = new Point[count];
+		theFrameSizes = sizes;
+		for(int i = 0; i < count; i++) {
+			if(sizes[i].x > theWidth)
+				theWidth = sizes[i].x;
+			if(sizes[i].y > theHeight)
+				theHeight = sizes[i].y;
+			theDelays[i] = getDelay(reader, format, i);
+			theOffsets[i] = getOffset(reader, format, i);
+		}
+		theSize = (LOOK_AHEAD + 2) * theWidth * theHeight * 4;
+		theQueued = new java.util.BitSet(count);
+		theDecodeLock = new Object();
+		theReader = reader;
+		isStreaming = true;
+		theImages[0] = reader.read(0); // Decode the first frame so it can be shown right away
+		return true;
+	}
+
+	/** @return Whether this image decodes its frames on demand */
+	public boolean isStreaming() {
+		return isStreaming;
+	}
+
+	/**
+	 * Releases the reader that a streaming image decodes its frames with and closes the stream it reads from. Frames that are already
+	 * decoded remain available. If more frames are needed afterward, the reader is re-opened if the image was created with a way to do so.
+	 * Does nothing for images that are not streaming.
+	 */
+	public void close() {
+		if(!isStreaming)
+			return;
+		synchronized(theDecodeLock) {
+			if(theReader != null) {
+				closeReader(theReader);
+				theReader = null;
+			}
+		}
+	}
+
+	/**
+	 * Disposes of an image reader and closes the stream it was reading from
+	 *
+	 * @param reader The reader to close
+	 */
+	public static void closeReader(javax.imageio.ImageReader reader) {
+		Object input = reader.getInput();
+		reader.dispose();
+		if(input instanceof java.io.Closeable) {
+			try {
+				((java.io.Closeable) input).close();
+			} catch(java.io.IOException e) {
+				// Nothing more can be done with the stream
+			}
+		}
+	}
+
+	/**
+	 * @param index The index of the frame to check
+	 * @return Whether the given frame is decoded and available without blocking
+	 */
+	public boolean isDecoded(int index) {
+		if(!isStreaming)
+			return true;
+		synchronized(this) {
+			return theImages[index] != null;
+		}
+	}
+
+	/**
+	 * Tells this image that the given frame is being played. For streaming images, this begins decoding the frames after it in the
+	 * background and releases frames that are no longer needed.
+	 *
+	 * @param index The index of the frame being played
+	 */
+	public void advanceTo(int index) {
+		if(!isStreaming)
+			return;
+		thePlayIndex = index;
+		synchronized(this) {
+			for(int i = 0; i < theImages.length; i++)
+				if(theImages[i] != null && !isInWindow(i))
+					theImages[i] = null;
+			for(int i = 0; i <= LOOK_AHEAD; i++)
+				queueDecode((index + i) % theImages.length);
+		}
+	}
+
+	/** Decodes a frame in the background unless it is already decoded or queued. Must be called while synchronized on this image. */
+	private void queueDecode(int frame) {
+		if(theImages[frame] != null || theQueued.get(frame))
+			return;
+		theQueued.set(frame);
+		DECODER.execute(() -> {
+			try {
+				if(isInWindow(frame) && !isDecoded(frame))
+					decode(frame);
+			} finally {
+				synchronized(this) {
+					theQueued.clear(frame);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Tells this image which frame is being displayed. A streaming image keeps that frame decoded even after playback has moved past it,
+	 * so that it can be shown again while the next frame is still decoding.
+	 *
+	 * @param index The index of the frame being displayed
+	 */
+	public void setDisplayed(int index) {
+		theDisplayedIndex = index;
+	}
+
+	private boolean isInWindow(int index) {
+		if(index == theDisplayedIndex)
+			return true;
+		int distance = index - thePlayIndex;
+		if(distance < 0)
+			distance += theImages.length;
+		return distance <= LOOK_AHEAD;
+	}
+
+	private Image decode(int index) {
+		BufferedImage img;
+		try {
+			synchronized(theDecodeLock) {
+				if(theReader == null) {
+					if(theReopener == null)
+						return null; // Closed
+					theReader = theReopener.call();
+				}
+				img = theReader.read(index);
+			}
+		} catch(Exception e) {
+			theDecodeError = new java.io.IOException("Could not decode frame " + index, e);
+			return null;
+		}
+		synchronized(this) {
+			if(isInWindow(index))
+				theImages[index] = img;
+		}
+		return img;
+	}
+
+	/**
+	 * @return The most recent error decoding a frame of this {@link #isStreaming() streaming} image, or null if no frame has failed to
+	 *         decode. Frames that fail to decode are not available, so widgets displaying this image should report the error.
+	 */
+	public Exception getDecodeError() {
+		return theDecodeError;
+	}
+
 	/** @return Approximately how many bytes of memory this image holds */
 	public int getSize() {
 		if(theSize < 0)
@@ -100,6 +396,14 @@ public class ImageData implements Iterable<Image> {
 		return theSize;
 	}
 
+	/**
+	 * @return Whether this image's frame was decoded at a lower resolution than the image's {@link #getWidth() width} and
+	 *         {@link #getHeight() height}. Coordinates in the image must be scaled to the frame's size when drawing it.
+	 */
+	public boolean isSubsampled() {
+		return isSubsampled;
+	}
+
 	/** @return The maximum width of all the frames in this image */
 	public int getWidth() {
 		if(theWidth < 0)
@@ -136,8 +440,21 @@ public class ImageData implements Iterable<Image> {
 			hasTransparency = Boolean.FALSE;
 			int w = getWidth();
 			int h = getHeight();
+			if(isStreaming) {
+				for(Point size : theFrameSizes)
+					if(size.x != w || size.y != h)
+						hasTransparency = Boolean.TRUE;
+				Image first = get(0);
+				if(first == null) {
+					hasTransparency = null; // Assume transparency until the first frame is decoded
+					return true;
+				}
+				if(!(first instanceof BufferedImage) || ((BufferedImage) first).getColorModel().hasAlpha())
+					hasTransparency = Boolean.TRUE;
+				return hasTransparency;
+			}
 			for(Image img : theImages) {
-				if(img.getWidth(null) != w || img.getHeight(null) != h) {
+				if(!isSubsampled && (img.getWidth(null) != w || img.getHeight(null) != h)) {
 					hasTransparency = Boolean.TRUE; // If this animation's images are not all the same size, its background will need to
 					// be rendered under it as if it had transparent pixels
 					break;
@@ -165,15 +482,161 @@ public class ImageData implements Iterable<Image> {
 
 	@Override
 	public Iterator<Image> iterator() {
-		return org.qommons.IterableUtils.iterator(theImages, true);
+		if(!isStreaming)
+			return org.qommons.IterableUtils.iterator(theImages, true);
+		return new Iterator<Image>() {
+			private int theIndex;
+
+			@Override
+			public boolean hasNext() {
+				return theIndex < theImages.length;
+			}
+
+			@Override
+			public Image next() {
+				if(theIndex >= theImages.length)
+					throw new java.util.NoSuchElementException();
+				int index = theIndex++;
+				Image img;
+				synchronized(ImageData.this) {
+					img = theImages[index];
+				}
+				return img != null ? img : decode(index);
+			}
+		};
 	}
 
 	/**
+	 * Gets a frame without blocking, so that it may be called while painting. If a frame of a {@link #isStreaming() streaming} image is not
+	 * {@link #isDecoded(int) decoded}, it is decoded in the background and null is returned, so the caller can paint a placeholder and
+	 * paint again once the frame is available.
+	 *
 	 * @param index The index of the frame to get
-	 * @return The frame in this image at the given index
+	 * @return The frame in this image at the given index, or null if the frame is still being decoded
 	 */
 	public Image get(int index) {
-		return theImages[index];
+		synchronized(this) {
+			Image img = theImages[index];
+			if(img == null && isStreaming)
+				queueDecode(index);
+			return img;
+		}
+	}
+
+	/**
+	 * Gets a frame in a format that can be drawn quickly to a surface. Unless this image is {@link #isStreaming() streaming}, the frame is
+	 * converted once and the converted frame replaces the original.
+	 *
+	 * @param index The index of the frame to get
+	 * @param gc The configuration of the surface that the frame will be drawn to
+	 * @return The frame, converted to the surface's preferred format, or null if the frame is still being decoded (see {@link #get(int)})
+	 */
+	public Image get(int index, java.awt.GraphicsConfiguration gc) {
+		if(isStreaming || gc == null)
+			return get(index);
+		Image src;
+		synchronized(this) {
+			if(theFrameConfigs == null)
+				theFrameConfigs = new java.awt.GraphicsConfiguration[theImages.length];
+			src = theImages[index];
+			if(theFrameConfigs[index] == gc)
+				return src;
+		}
+		int w = src.getWidth(null);
+		int h = src.getHeight(null);
+		if(w <= 0 || h <= 0)
+			return src; // Not loaded
+		boolean translucent = !(src instanceof BufferedImage) || ((BufferedImage) src).getColorModel().hasAlpha();
+		BufferedImage converted = createCompatible(gc, w, h, translucent);
+		java.awt.Graphics2D graphics = converted.createGraphics();
+		try {
+			graphics.setComposite(java.awt.AlphaComposite.Src);
+			graphics.drawImage(src, 0, 0, null);
+		} finally {
+			graphics.dispose();
+		}
+		synchronized(this) {
+			if(theImages[index] == src) {
+				theImages[index] = converted;
+				theFrameConfigs[index] = gc;
+			}
+		}
+		return converted;
+	}
+
+	/**
+	 * Gets a frame scaled to a given size. Scaled frames are cached, so repeatedly drawing a frame at the same size does not scale it each
+	 * time. When a smooth interpolation is requested, large reductions are done in several halving steps for better quality.
+	 *
+	 * @param index The index of the frame to get
+	 * @param width The width to scale the frame to
+	 * @param height The height to scale the frame to
+	 * @param interpolation The {@link java.awt.RenderingHints#KEY_INTERPOLATION interpolation} to scale with. May be null.
+	 * @param gc The configuration of the surface that the frame will be drawn to
+	 * @return The scaled frame, or null if scaled frames of this image are not cached at the given size
+	 */
+	public Image getScaled(int index, int width, int height, Object interpolation, java.awt.GraphicsConfiguration gc) {
+		if(isStreaming || width <= 0 || height <= 0 || (long) width * height * 4 > SCALED_BUDGET)
+			return null;
+		ScaledKey key = new ScaledKey(index, width, height, interpolation);
+		synchronized(this) {
+			if(theScaled == null)
+				theScaled = new java.util.LinkedHashMap<>(8, .75f, true);
+			java.lang.ref.SoftReference<BufferedImage> ref = theScaled.get(key);
+			BufferedImage scaled = ref == null ? null : ref.get();
+			if(scaled != null)
+				return scaled;
+		}
+		Image src = get(index, gc);
+		if(src == null || src.getWidth(null) <= 0 || src.getHeight(null) <= 0)
+			return null;
+		boolean translucent = !(src instanceof BufferedImage) || ((BufferedImage) src).getColorModel().hasAlpha();
+		BufferedImage scaled = scale(src, width, height, interpolation, gc, translucent);
+		synchronized(this) {
+			java.lang.ref.SoftReference<BufferedImage> old = theScaled.put(key, new java.lang.ref.SoftReference<>(scaled));
+			if(old == null)
+				theScaledSize += (long) width * height * 4;
+			java.util.Iterator<ScaledKey> iter = theScaled.keySet().iterator();
+			while(theScaledSize > SCALED_BUDGET && iter.hasNext()) {
+				ScaledKey evict = iter.next();
+				iter.remove();
+				theScaledSize -= (long) evict.width * evict.height * 4;
+			}
+		}
+		return scaled;
+	}
+
+	private static BufferedImage scale(Image src, int width, int height, Object interpolation, java.awt.GraphicsConfiguration gc,
+		boolean translucent) {
+		boolean progressive = interpolation != null && interpolation != java.awt.RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR;
+		Image current = src;
+		int w = src.getWidth(null);
+		int h = src.getHeight(null);
+		do {
+			w = progressive && w / 2 >= width ? w / 2 : width;
+			h = progressive && h / 2 >= height ? h / 2 : height;
+			BufferedImage step = createCompatible(gc, w, h, translucent);
+			java.awt.Graphics2D graphics = step.createGraphics();
+			try {
+				if(interpolation != null)
+					graphics.setRenderingHint(java.awt.RenderingHints.KEY_INTERPOLATION, interpolation);
+				graphics.setComposite(java.awt.AlphaComposite.Src);
+				graphics.drawImage(current, 0, 0, w, h, null);
+			} finally {
+				graphics.dispose();
+			}
+			current = step;
+		} while(w != width || h != height);
+		return (BufferedImage) current;
+	}
+
+	private static BufferedImage createCompatible(java.awt.GraphicsConfiguration gc, int w, int h, boolean translucent) {
+		if(gc != null) {
+			BufferedImage img = gc.createCompatibleImage(w, h, translucent ? java.awt.Transparency.TRANSLUCENT : java.awt.Transparency.OPAQUE);
+			if(!translucent || img.isAlphaPremultiplied())
+				return img;
+		}
+		return new BufferedImage(w, h, translucent ? BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_RGB);
 	}
 
 	/**
@@ -192,6 +655,76 @@ public class ImageData implements Iterable<Image> {
 		return theOffsets[index];
 	}
 
+	/**
+	 * Writes this image's decoded frames in a form that can be read back quickly with {@link #read(java.nio.ByteBuffer)}
+	 *
+	 * @param out The stream to write to
+	 * @throws java.io.IOException If an error occurs writing the data or if this image is {@link #isStreaming() streaming}
+	 */
+	public void write(java.io.OutputStream out) throws java.io.IOException {
+		if(isStreaming)
+			throw new java.io.IOException("Streaming images are not persisted");
+		java.io.DataOutputStream dataOut = new java.io.DataOutputStream(out);
+		dataOut.writeInt(theImages.length);
+		dataOut.writeBoolean(hasTransparency());
+		dataOut.writeInt(getWidth());
+		dataOut.writeInt(getHeight());
+		for(int i = 0; i < theImages.length; i++) {
+			if(!(theImages[i] instanceof BufferedImage))
+				throw new java.io.IOException("Frame " + i + " is not decoded");
+			BufferedImage img = (BufferedImage) theImages[i];
+			int w = img.getWidth();
+			int h = img.getHeight();
+			dataOut.writeInt(w);
+			dataOut.writeInt(h);
+			dataOut.writeInt(theDelays[i]);
+			dataOut.writeInt(theOffsets[i].x);
+			dataOut.writeInt(theOffsets[i].y);
+			java.nio.ByteBuffer pixels = java.nio.ByteBuffer.allocate(w * 4);
+			int [] row = new int[w];
+			for(int y = 0; y < h; y++) {
+				img.getRGB(0, y, w, 1, row, 0, w);
+				pixels.clear();
+				pixels.asIntBuffer().put(row);
+				dataOut.write(pixels.array());
+			}
+		}
+		dataOut.flush();
+	}
+
+	/**
+	 * @param data Data written by {@link #write(java.io.OutputStream)}
+	 * @return The image represented by the data
+	 * @throws java.io.IOException If the data is not valid
+	 */
+	public static ImageData read(java.nio.ByteBuffer data) throws java.io.IOException {
+		try {
+			int count = data.getInt();
+			boolean transparent = data.get() != 0;
+			int width = data.getInt();
+			int height = data.getInt();
+			Image [] images = new Image[count];
+			int [] delays = new int[count];
+			Point [] offsets = new Point[count];
+			int size = 0;
+			for(int i = 0; i < count; i++) {
+				int w = data.getInt();
+				int h = data.getInt();
+				delays[i] = data.getInt();
+				offsets[i] = new Point(data.getInt(), data.getInt());
+				BufferedImage img = new BufferedImage(w, h, transparent ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+				int [] pixels = ((java.awt.image.DataBufferInt) img.getRaster().getDataBuffer()).getData();
+				data.asIntBuffer().get(pixels);
+				data.position(data.position() + pixels.length * 4);
+				images[i] = img;
+				size += w * h * 4;
+			}
+			return new ImageData(images, delays, offsets, width, height, size, transparent);
+		} catch(java.nio.BufferUnderflowException | IllegalArgumentException e) {
+			throw new java.io.IOException("Invalid image data", e);
+		}
+	}
+
 	private static int getDelay(javax.imageio.ImageReader reader, String format, int index) throws java.io.IOException {
 		if(format.toLowerCase().contains("gif")) {
 			org.w3c.dom.Node root = reader.getImageMetadata(index).getAsTree("javax_imageio_gif_image_1.0");
@@ -0,0 +1,28 @@
+package org.quick.base.model;
+
+import org.observe.collect.ObservableList;
+
+/**
+ * Supplies hierarchical data to a {@link org.quick.base.widget.Tree}. Children are only requested for nodes that are expanded.
+ *
+ * @param <N> The type of nodes in the tree
+ */
+public interface QuickTreeModel<N> {
+	/** @return The root node of the tree */
+	N getRoot();
+
+	/**
+	 * @param node The node to get the children of
+	 * @return The children of the node. The tree listens to the list for changes once the node has been expanded.
+	 */
+	ObservableList<? extends N> getChildren(N node);
+
+	/**
+	 * @param node The node to check
+	 * @return Whether the node is known to have no children. Nodes that are not leaves may still turn out to have no children when they are
+	 *         expanded.
+	 */
+	default boolean isLeaf(N node) {
+		return false;
+	}
+}
@@ -5,7 +5,10 @@ import java.awt.image.BufferedImage;
 
 import org.quick.core.QuickCache.CacheException;
 
-/** Renders a raised, round, button-looking texture over an element */
+/**
+ * Renders a raised, round, button-looking texture over an element. The corners and edge shading are rasterized once for each combination
+ * of corner size, lighting and colors and cached, so painting the texture is just a few image draws.
+ */
 public class RaisedRoundTexture implements org.quick.core.style.Texture
 {
 	private static class CornerRender
@@ -67,50 +70,102 @@ public class RaisedRoundTexture implements org.quick.core.style.Texture
 		}
 	}
 
-	private static class CornerRenderKey
+	/** Identifies a rasterized texture. Light source and shading are quantized so that near-identical styles share a rendering. */
+	private static class NineSliceKey
 	{
-		final float source;
+		final int wRad;
 
-		final float maxShading;
+		final int hRad;
 
-		final int radius;
+		final int source;
 
-		CornerRenderKey(float src, float maxShade, int rad)
+		final int maxShading;
+
+		final int bgRGB;
+
+		final int lightRGB;
+
+		final int shadowRGB;
+
+		NineSliceKey(int wRadius, int hRadius, float src, float maxShade, int bg, int light, int shadow)
 		{
-			source = src;
-			maxShading = maxShade;
-			radius = rad;
+			wRad = wRadius;
+			hRad = hRadius;
+			source = Math.round(src);
+			maxShading = Math.round(maxShade * 100);
+			bgRGB = bg;
+			lightRGB = light;
+			shadowRGB = shadow;
 		}
 
 		@Override
 		public boolean equals(Object o)
 		{
-			if(!(o instanceof CornerRenderKey))
+			if(!(o instanceof NineSliceKey))
 				return false;
-			CornerRenderKey key = (CornerRenderKey) o;
-			return Math.abs(key.source - source) <= 1 && Math.abs(key.maxShading - maxShading) <= .01f;
+			NineSliceKey key = (NineSliceKey) o;
+			return key.wRad == wRad && key.hRad == hRad && key.source == source && key.maxShading == maxShading && key.bgRGB == bgRGB
+				&& key.lightRGB == lightRGB && key.shadowRGB == shadowRGB;
 		}
 
 		@Override
 		public int hashCode()
 		{
-			return Float.floatToIntBits(source) ^ Float.floatToIntBits(maxShading);
+			int hash = wRad;
+			hash = hash * 31 + hRad;
+			hash = hash * 31 + source;
+			hash = hash * 31 + maxShading;
+			hash = hash * 31 + bgRGB;
+			hash = hash * 31 + lightRGB;
+			hash = hash * 31 + shadowRGB;
+			return hash;
+		}
+	}
+
+	/**
+	 * The finished corners and edge shading of the texture, rasterized into a single premultiplied atlas. The corners occupy the four
+	 * quadrants of the atlas, the top and bottom edges are the middle column and the left and right edges are the middle row.
+	 */
+	private static class NineSlice
+	{
+		final BufferedImage atlas;
+
+		/** Views of the corners in the atlas, clockwise from the top-left */
+		final BufferedImage [] corners;
+
+		/** Views of the edges in the atlas: top, right, bottom, left */
+		final BufferedImage [] edges;
+
+		NineSlice(BufferedImage img, int wRad, int hRad)
+		{
+			atlas = img;
+			corners = new BufferedImage[] {img.getSubimage(0, 0, wRad, hRad), img.getSubimage(wRad + 1, 0, wRad, hRad),
+				img.getSubimage(wRad + 1, hRad + 1, wRad, hRad), img.getSubimage(0, hRad + 1, wRad, hRad)};
+			edges = new BufferedImage[] {img.getSubimage(wRad, 0, 1, hRad), img.getSubimage(wRad + 1, hRad, wRad, 1),
+				img.getSubimage(wRad, hRad + 1, 1, hRad), img.getSubimage(0, hRad, wRad, 1)};
 		}
 	}
 
-	private static org.quick.core.QuickCache.CacheItemType<CornerRenderKey, CornerRender, RuntimeException> cornerRendering = new org.quick.core.QuickCache.CacheItemType<CornerRenderKey, CornerRender, RuntimeException>() {
+	private static final int [][][] ROTATIONS = new int[][][] {null, new int[][] {new int[] {0, 1}, new int[] {-1, 0}},
+		new int[][] {new int[] {-1, 0}, new int[] {0, -1}}, new int[][] {new int[] {0, -1}, new int[] {1, 0}}};
+
+	private static org.quick.core.QuickCache.CacheItemType<NineSliceKey, NineSlice, RuntimeException> nineSliceRendering = new org.quick.core.QuickCache.CacheItemType<NineSliceKey, NineSlice, RuntimeException>() {
 		@Override
-		public CornerRender generate(org.quick.core.QuickEnvironment env, CornerRenderKey key) throws RuntimeException
+		public NineSlice generate(org.quick.core.QuickEnvironment env, NineSliceKey key) throws RuntimeException
 		{
-			CornerRender ret = new CornerRender(key.radius);
-			ret.render(key.source, key.maxShading);
-			return ret;
+			return rasterize(key);
 		}
 
 		@Override
-		public int size(CornerRender value)
+		public int size(NineSlice value)
 		{
-			return value.getRadius() * value.getRadius() * 2 + 16;
+			return value.atlas.getWidth() * value.atlas.getHeight() * 4 + 64;
+		}
+
+		@Override
+		public boolean spillsToSoftReference()
+		{
+			return true;
 		}
 	};
 
@@ -136,181 +191,167 @@ public class RaisedRoundTexture implements org.quick.core.style.Texture
 			wRad = w / 2;
 		if(hRad * 2 > h)
 			hRad = h / 2;
-		// The radius of the corner render we get needs to be either at least the width or height radius for good resolution.
-		int maxRad = wRad;
-		if(hRad > maxRad)
-			maxRad = hRad;
+		if(wRad == 0 || hRad == 0)
+			return;
 		float source = element.getStyle().get(org.quick.core.style.LightedStyle.lightSource).get().floatValue();
 		float maxShading = element.getStyle().get(org.quick.core.style.LightedStyle.maxShadingAmount).get().floatValue();
 		Color light = element.getStyle().get(org.quick.core.style.LightedStyle.lightColor).get();
 		Color shadow = element.getStyle().get(org.quick.core.style.LightedStyle.shadowColor).get();
-		int bgRGB = bg.getRGB();
-		int lightRGB = light.getRGB() & 0xffffff;
-		int shadowRGB = shadow.getRGB() & 0xffffff;
-		if(wRad == 0 || hRad == 0)
-			return;
-		BufferedImage cornerBgImg = new BufferedImage(wRad, hRad, BufferedImage.TYPE_4BYTE_ABGR);
-		BufferedImage cornerShadeImg = new BufferedImage(wRad, hRad, BufferedImage.TYPE_4BYTE_ABGR);
-		BufferedImage tbEdgeImg = new BufferedImage(1, hRad, BufferedImage.TYPE_4BYTE_ABGR);
-		BufferedImage lrEdgeImg = new BufferedImage(wRad, 1, BufferedImage.TYPE_4BYTE_ABGR);
-		int [][][] rot = new int[4][][];
-		rot[0] = null;
-		rot[1] = new int[][] {new int[] {0, 1}, new int[] {-1, 0}};
-		rot[2] = new int[][] {new int[] {-1, 0}, new int[] {0, -1}};
-		rot[3] = new int[][] {new int[] {0, -1}, new int[] {1, 0}};
-		for(int i = 0; i < 4; i++)
+		NineSliceKey key = new NineSliceKey(wRad, hRad, source, maxShading, bg.getRGB(), light.getRGB() & 0xffffff,
+			shadow.getRGB() & 0xffffff);
+		NineSlice slice;
+		try {
+			slice = element.getDocument().getEnvironment().getCache().getForPaint(element, nineSliceRendering, key);
+		} catch (CacheException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			else
+				throw (Error) e.getCause();
+		}
+		if(slice == null)
 		{
-			float tempSource = source - 90 * i;
-			while(tempSource < 0)
-				tempSource += 360;
-			int keyRadius = maxRad * 3 + 3; // Scale up the key to make the buttons prettier
-			CornerRenderKey key = new CornerRenderKey(tempSource, maxShading, keyRadius);
-			org.quick.core.QuickEnvironment env = element.getDocument().getEnvironment();
-			CornerRender cr;
+			// Still rasterizing. Fill in the unshaded corners for now. The element will be repainted when the texture is ready.
+			graphics.setColor(bg);
+			java.awt.Shape preClip = graphics.getClip();
+			if(area != null)
+				graphics.clipRect(area.x, area.y, area.width, area.height);
 			try {
-				cr = env.getCache().getAndWait(env, cornerRendering, key, true);
-				if (cr.getRadius() < maxRad) {
-					// Regenerate with a big enough radius
-					env.getCache().remove(cornerRendering, key);
-					cr = env.getCache().getAndWait(env, cornerRendering, key, true);
-				}
-			} catch (CacheException e) {
-				if (e.getCause() instanceof RuntimeException)
-					throw (RuntimeException) e.getCause();
-				else
-					throw (Error) e.getCause();
+				graphics.fillRoundRect(0, 0, w, h, wRad * 2, hRad * 2);
+			} finally {
+				graphics.setClip(preClip);
 			}
+			return;
+		}
 
-			// Draw the corner
-			int renderX = 0, renderY = 0;
-			switch (i)
-			{
-			case 0:
-				renderX = 0;
-				renderY = 0;
-				break;
-			case 1:
-				renderX = w - wRad - 1;
-				renderY = 0;
-				break;
-			case 2:
-				renderX = w - wRad - 1;
-				renderY = h - hRad - 1;
-				break;
-			case 3:
-				renderX = 0;
-				renderY = h - hRad - 1;
-				break;
-			}
-			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		for(int i = 0; i < 4; i++)
+		{
+			int renderX = (i == 1 || i == 2) ? w - wRad - 1 : 0;
+			int renderY = (i == 2 || i == 3) ? h - hRad - 1 : 0;
 			if(area == null
 				|| (area.x <= renderX + wRad && area.x + area.width >= renderX && area.y <= renderY + hRad && area.y + area.height >= renderY))
-			{
+				graphics.drawImage(slice.corners[i], renderX, renderY, null);
+		}
+		if(w > wRad * 2)
+		{
+			if(area == null || !(area.y > hRad || area.y + area.height < 0 || area.x > w - wRad || area.x + area.width < wRad))
+				graphics.drawImage(slice.edges[0], wRad, 0, w - wRad * 2, hRad, null);
+			if(area == null || !(area.y > h || area.y + area.height < h - hRad || area.x > w - wRad || area.x + area.width < wRad))
+				graphics.drawImage(slice.edges[2], wRad, h - hRad, w - wRad * 2, hRad, null);
+		}
+		if(h > hRad * 2)
+		{
+			if(area == null || !(area.y > h - hRad || area.y + area.height < hRad || area.x > w || area.x + area.width < w - wRad))
+				graphics.drawImage(slice.edges[1], w - wRad, hRad, wRad, h - hRad * 2, null);
+			if(area == null || !(area.y > h - hRad || area.y + area.height < hRad || area.x > wRad || area.x + area.width < 0))
+				graphics.drawImage(slice.edges[3], 0, hRad, wRad, h - hRad * 2, null);
+		}
+	}
+
+	/**
+	 * Rasterizes the corners and edge shading for a texture
+	 *
+	 * @param key The key of the texture to render
+	 * @return The rendered nine-slice atlas
+	 */
+	static NineSlice rasterize(NineSliceKey key)
+	{
+		int wRad = key.wRad;
+		int hRad = key.hRad;
+		int atlasW = wRad * 2 + 1;
+		int [] pixels = new int[atlasW * (hRad * 2 + 1)];
+		// The radius of the corner render needs to be at least the width or height radius for good resolution.
+		// Scale it up further to make the buttons prettier.
+		int crRadius = Math.max(wRad, hRad) * 3 + 3;
+		for(int i = 0; i < 4; i++)
+		{
+			float tempSource = key.source - 90 * i;
+			while(tempSource < 0)
+				tempSource += 360;
+			CornerRender cr = new CornerRender(crRadius);
+			cr.render(tempSource, key.maxShading / 100f);
+			int r = cr.getRadius();
+			int [][] rot = ROTATIONS[i];
+
+			// The corner
+			int offX = (i == 1 || i == 2) ? wRad + 1 : 0;
+			int offY = (i == 2 || i == 3) ? hRad + 1 : 0;
+			for(int y = 0; y < hRad; y++)
 				for(int x = 0; x < wRad; x++)
-					for(int y = 0; y < hRad; y++)
+				{
+					int crX = Math.round(x * r * 1.0f / wRad);
+					int crY = Math.round(y * r * 1.0f / hRad);
+					if(rot != null)
 					{
-						int crX = x, crY = y;
-						crX = Math.round(crX * cr.getRadius() * 1.0f / wRad);
-						crY = Math.round(crY * cr.getRadius() * 1.0f / hRad);
-						if(rot[i] != null)
-						{
-							int preCrX = crX;
-							crX = rot[i][0][0] * crX + rot[i][0][1] * crY;
-							crY = rot[i][1][0] * preCrX + rot[i][1][1] * crY;
-						}
-						if(crX < 0)
-							crX += cr.getRadius();
-						else if(crX >= cr.getRadius())
-							crX = cr.getRadius() - 1;
-						if(crY < 0)
-							crY += cr.getRadius();
-						else if(crY >= cr.getRadius())
-							crY = cr.getRadius() - 1;
-
-						if(cr.contains(crX, crY))
-							cornerBgImg.setRGB(x, y, bgRGB);
-						else
-							cornerBgImg.setRGB(x, y, 0);
-
-						int alpha = cr.getShadeAmount(crX, crY);
-						if(alpha > 0)
-							cornerShadeImg.setRGB(x, y, lightRGB | (alpha << 24));
-						else if(alpha < 0)
-							cornerShadeImg.setRGB(x, y, shadowRGB | ((-alpha) << 24));
-						else
-							cornerShadeImg.setRGB(x, y, 0);
+						int preCrX = crX;
+						crX = rot[0][0] * crX + rot[0][1] * crY;
+						crY = rot[1][0] * preCrX + rot[1][1] * crY;
 					}
-				if(!graphics.drawImage(cornerBgImg, renderX, renderY, renderX + wRad, renderY + hRad, 0, 0, wRad, hRad, null))
-					cornerBgImg = new BufferedImage(wRad, hRad, BufferedImage.TYPE_4BYTE_ABGR);
-				if(!graphics.drawImage(cornerShadeImg, renderX, renderY, renderX + wRad, renderY + hRad, 0, 0, wRad, hRad, null))
-					cornerShadeImg = new BufferedImage(wRad, hRad, BufferedImage.TYPE_4BYTE_ABGR);
-			}
+					if(crX < 0)
+						crX += r;
+					else if(crX >= r)
+						crX = r - 1;
+					if(crY < 0)
+						crY += r;
+					else if(crY >= r)
+						crY = r - 1;
+					int bgPixel = cr.contains(crX, crY) ? key.bgRGB : 0;
+					pixels[(offY + y) * atlasW + offX + x] = over(shade(key, cr.getShadeAmount(crX, crY)), bgPixel);
+				}
 
-			// Corner drawn, now draw the edge
+			// The edge
 			switch (i)
 			{
 			case 0:
-				if(area != null && (area.y > hRad || area.y + area.height < 0 || area.x > w - wRad || area.x + area.width < wRad))
-					break;
 				for(int y = 0; y < hRad; y++)
-				{
-					tbEdgeImg.setRGB(0, y, 0);
-					int crY = (int)(y * cr.getRadius() * 1.0f / hRad);
-					int alpha = cr.getShadeAmount(cr.getRadius(), crY);
-					if(alpha > 0)
-						tbEdgeImg.setRGB(0, y, lightRGB | (alpha << 24));
-					else if(alpha < 0)
-						tbEdgeImg.setRGB(0, y, shadowRGB | ((-alpha) << 24));
-				}
-				graphics.drawImage(tbEdgeImg, wRad, 0, w - wRad, hRad, 0, 0, 1, hRad, null);
+					pixels[y * atlasW + wRad] = shade(key, cr.getShadeAmount(r, (int) (y * r * 1.0f / hRad)));
 				break;
 			case 1:
-				if(area != null && (area.y > h - hRad || area.y + area.height < hRad || area.x > w || area.x + area.width < w - wRad))
-					break;
 				for(int x = 0; x < wRad; x++)
-				{
-					lrEdgeImg.setRGB(x, 0, 0);
-					int crY = (int) ((wRad - x - 1) * cr.getRadius() * 1.0f / wRad) + 1;
-					int alpha = cr.getShadeAmount(cr.getRadius(), crY);
-					if(alpha > 0)
-						lrEdgeImg.setRGB(x, 0, lightRGB | (alpha << 24));
-					else if(alpha < 0)
-						lrEdgeImg.setRGB(x, 0, shadowRGB | ((-alpha) << 24));
-				}
-				graphics.drawImage(lrEdgeImg, w - wRad, hRad, w, h - hRad, 0, 0, wRad, 1, null);
+					pixels[hRad * atlasW + wRad + 1 + x] = shade(key, cr.getShadeAmount(r, (int) ((wRad - x - 1) * r * 1.0f / wRad) + 1));
 				break;
 			case 2:
-				if(area != null && (area.y > h || area.y + area.height < h - hRad || area.x > w - wRad || area.x + area.width < wRad))
-					break;
 				for(int y = 0; y < hRad; y++)
-				{
-					tbEdgeImg.setRGB(0, y, 0);
-					int crY = (int) ((hRad - y - 1) * cr.getRadius() * 1.0f / hRad) + 1;
-					int alpha = cr.getShadeAmount(cr.getRadius(), crY);
-					if(alpha > 0)
-						tbEdgeImg.setRGB(0, y, lightRGB | (alpha << 24));
-					else if(alpha < 0)
-						tbEdgeImg.setRGB(0, y, shadowRGB | ((-alpha) << 24));
-				}
-				graphics.drawImage(tbEdgeImg, wRad, h - hRad, w - wRad, h, 0, 0, 1, hRad, null);
+					pixels[(hRad + 1 + y) * atlasW + wRad] = shade(key,
+						cr.getShadeAmount(r, (int) ((hRad - y - 1) * r * 1.0f / hRad) + 1));
 				break;
 			case 3:
-				if(area != null && (area.y > h - hRad || area.y + area.height < hRad || area.x > wRad || area.x + area.width < 0))
-					break;
 				for(int x = 0; x < wRad; x++)
-				{
-					lrEdgeImg.setRGB(x, 0, 0);
-					int crY = (int)(x * cr.getRadius() * 1.0f / wRad);
-					int alpha = cr.getShadeAmount(cr.getRadius(), crY);
-					if(alpha > 0)
-						lrEdgeImg.setRGB(x, 0, lightRGB | (alpha << 24));
-					else if(alpha < 0)
-						lrEdgeImg.setRGB(x, 0, shadowRGB | ((-alpha) << 24));
-				}
-				graphics.drawImage(lrEdgeImg, 0, hRad, wRad, h - hRad, 0, 0, wRad, 1, null);
+					pixels[hRad * atlasW + x] = shade(key, cr.getShadeAmount(r, (int) (x * r * 1.0f / wRad)));
 				break;
 			}
 		}
+		BufferedImage atlas = new BufferedImage(atlasW, hRad * 2 + 1, BufferedImage.TYPE_INT_ARGB_PRE);
+		atlas.setRGB(0, 0, atlasW, hRad * 2 + 1, pixels, 0, atlasW);
+		return new NineSlice(atlas, wRad, hRad);
+	}
+
+	private static int shade(NineSliceKey key, int alpha)
+	{
+		if(alpha > 0)
+			return key.lightRGB | (alpha << 24);
+		else if(alpha < 0)
+			return key.shadowRGB | ((-alpha) << 24);
+		else
+			return 0;
+	}
+
+	/** Composites one non-premultiplied ARGB pixel over another */
+	private static int over(int top, int bottom)
+	{
+		int topA = top >>> 24;
+		if(topA == 255 || bottom == 0)
+			return top;
+		if(topA == 0)
+			return bottom;
+		int botA = (bottom >>> 24) * (255 - topA) / 255;
+		int outA = topA + botA;
+		if(outA == 0)
+			return 0;
+		int r = (((top >> 16) & 0xff) * topA + ((bottom >> 16) & 0xff) * botA) / outA;
+		int g = (((top >> 8) & 0xff) * topA + ((bottom >> 8) & 0xff) * botA) / outA;
+		int b = ((top & 0xff) * topA + (bottom & 0xff) * botA) / outA;
+		return (outA << 24) | (r << 16) | (g << 8) | b;
 	}
 
 	private void fill(Graphics2D graphics, int x, int y, int w, int h, Rectangle area) {
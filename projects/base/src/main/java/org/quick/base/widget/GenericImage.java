@@ -26,7 +26,10 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 		resize
 	}
 
-	/** An animator that repaints this GenericImage when the image is animated */
+	/**
+	 * An animator that repaints this GenericImage when the image is animated. It also drives the decoding of {@link ImageData#isStreaming()
+	 * streaming} images.
+	 */
 	public class ImageAnimator implements org.quick.motion.Animation {
 		private volatile boolean isStopped;
 
@@ -35,9 +38,11 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 			ImageData img = getDisplayedImage();
 			if(img == null || isStopped)
 				return true;
+			checkDecoding(img);
 			int total = 0;
 			for(int i = 0; i < img.getImageCount(); i++) {
 				if(time < total) {
+					img.advanceTo(i);
 					setImageIndex(i);
 					break;
 				}
@@ -50,6 +55,7 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 				total = 0;
 				for(int i = 0; i < img.getImageCount(); i++) {
 					if(time < total) {
+						img.advanceTo(i);
 						setImageIndex(i);
 						break;
 					}
@@ -87,23 +93,41 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 		}
 	}
 
+	/** How long, in milliseconds, the validator of an image loaded over HTTP is trusted before the server is asked for it again */
+	private static final long VALIDATOR_MAX_AGE = 5 * 60 * 1000;
+
+	/** A validator for an image loaded over HTTP and the time until which it is trusted */
+	private static final class CheckedValidator {
+		final String validator;
+
+		final long expires;
+
+		CheckedValidator(String v, long exp) {
+			validator = v;
+			expires = exp;
+		}
+	}
+
+	/** Validators of HTTP images for this process, by URL, so that reading a warm entry from the disk cache doesn't cost a request */
+	private static final java.util.concurrent.ConcurrentHashMap<String, CheckedValidator> HTTP_VALIDATORS = new java.util.concurrent.ConcurrentHashMap<>();
+
 	/** The cache type to load images from URLs */
 	public static final org.quick.core.QuickCache.CacheItemType<URL, ImageData, java.io.IOException> cacheType;
 
 	static {
-		cacheType = new org.quick.core.QuickCache.CacheItemType<URL, ImageData, java.io.IOException>() {
+		cacheType = new org.quick.core.QuickCache.PersistentItemType<URL, ImageData, java.io.IOException>() {
 			@Override
 			public ImageData generate(org.quick.core.QuickEnvironment env, URL key) throws java.io.IOException {
-				javax.imageio.stream.ImageInputStream imInput = javax.imageio.ImageIO.createImageInputStream(key.openStream());
-				if(imInput == null)
-					throw new java.io.IOException("File format not recognized: " + key.getPath());
-				java.util.Iterator<javax.imageio.ImageReader> readers = javax.imageio.ImageIO.getImageReaders(imInput);
-				if(!readers.hasNext())
-					throw new java.io.IOException("File format not recognized: " + key.getPath());
-				javax.imageio.ImageReader reader = readers.next();
-				synchronized(reader) {
-					reader.setInput(imInput);
-					return new ImageData(reader);
+				javax.imageio.ImageReader reader = openReader(key);
+				ImageData data = null;
+				try {
+					synchronized(reader) {
+						data = new ImageData(reader, () -> openReader(key));
+					}
+					return data;
+				} finally {
+					if(data == null || !data.isStreaming())
+						ImageData.closeReader(reader);
 				}
 			}
 
@@ -114,7 +138,196 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 					return 0;
 				return size;
 			}
+
+			@Override
+			public boolean spillsToSoftReference() {
+				return true;
+			}
+
+			@Override
+			public double getBudgetShare() {
+				return .5;
+			}
+
+			@Override
+			public void evicted(ImageData value) {
+				value.close();
+			}
+
+			@Override
+			public String getPersistentKey(URL key) {
+				return "quick-image:" + key.toExternalForm();
+			}
+
+			@Override
+			public String getValidator(URL key) throws java.io.IOException {
+				if("file".equals(key.getProtocol())) {
+					java.io.File file;
+					try {
+						file = new java.io.File(key.toURI());
+					} catch(java.net.URISyntaxException | IllegalArgumentException e) {
+						throw new java.io.IOException("Could not resolve file " + key, e);
+					}
+					return file.lastModified() + ":" + file.length();
+				}
+				String url = key.toExternalForm();
+				CheckedValidator checked = HTTP_VALIDATORS.get(url);
+				long now = System.currentTimeMillis();
+				if(checked != null && checked.expires > now)
+					return checked.validator;
+				java.net.URLConnection conn = key.openConnection();
+				if(!(conn instanceof java.net.HttpURLConnection))
+					return null; // Other resources, e.g. on the class path, are deployed with the application and don't change
+				String validator = checkValidator(key, (java.net.HttpURLConnection) conn);
+				HTTP_VALIDATORS.put(url, new CheckedValidator(validator, now + VALIDATOR_MAX_AGE));
+				return validator;
+			}
+
+			private String checkValidator(URL key, java.net.HttpURLConnection http) throws java.io.IOException {
+				try {
+					http.setRequestMethod("HEAD");
+					if(http.getResponseCode() >= 400)
+						throw new java.io.IOException("Could not check " + key + ": " + http.getResponseCode());
+					String etag = http.getHeaderField("ETag");
+					if(etag != null)
+						return "etag:" + etag;
+					long modified = http.getLastModified();
+					if(modified > 0)
+						return "modified:" + modified;
+					throw new java.io.IOException("No validator for " + key); // Can't tell if it changed, so don't persist it
+				} finally {
+					http.disconnect();
+				}
+			}
+
+			@Override
+			public void write(ImageData value, java.io.OutputStream out) throws java.io.IOException {
+				value.write(out);
+			}
+
+			@Override
+			public ImageData read(URL key, java.nio.ByteBuffer data) throws java.io.IOException {
+				return ImageData.read(data);
+			}
+		};
+	}
+
+	/** Identifies an image decoded at a reduced resolution that is at least large enough to fill a given size */
+	private static final class TieredKey {
+		final URL location;
+
+		final int width;
+
+		final int height;
+
+		TieredKey(URL loc, int w, int h) {
+			location = loc;
+			width = w;
+			height = h;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof TieredKey))
+				return false;
+			TieredKey key = (TieredKey) o;
+			return key.location.equals(location) && key.width == width && key.height == height;
+		}
+
+		@Override
+		public int hashCode() {
+			return (location.hashCode() * 31 + width) * 31 + height;
+		}
+	}
+
+	/** The smallest resolution tier that images are decoded at */
+	private static final int MIN_TIER = 64;
+
+	/** Thrown by {@link #tieredCacheType} for animations, which must be loaded at full resolution from {@link #cacheType} instead */
+	private static class AnimatedImageException extends java.io.IOException {
+		AnimatedImageException(URL location) {
+			super(location + " is animated and cannot be decoded at a reduced resolution");
+		}
+	}
+
+	/**
+	 * Loads still images subsampled to a resolution tier. Animations are not decoded here, but fail with an {@link AnimatedImageException}
+	 * so that the widget can request them from the full resolution {@link #cacheType cache type} itself.
+	 */
+	private static final org.quick.core.QuickCache.CacheItemType<TieredKey, ImageData, java.io.IOException> tieredCacheType = new org.quick.core.QuickCache.CacheItemType<TieredKey, ImageData, java.io.IOException>() {
+		@Override
+		public ImageData generate(org.quick.core.QuickEnvironment env, TieredKey key) throws java.io.IOException {
+			javax.imageio.ImageReader reader = openReader(key.location);
+			java.awt.image.BufferedImage img = null;
+			int w = 0, h = 0;
+			try {
+				synchronized(reader) {
+					int count = reader.getNumImages(false);
+					if(count < 0)
+						count = reader.getNumImages(true);
+					if(count == 1) {
+						w = reader.getWidth(0);
+						h = reader.getHeight(0);
+						int subsampling = 1;
+						while(w / (subsampling * 2) >= key.width && h / (subsampling * 2) >= key.height)
+							subsampling *= 2;
+						javax.imageio.ImageReadParam param = reader.getDefaultReadParam();
+						param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+						img = reader.read(0, param);
+					}
+				}
+			} finally {
+				ImageData.closeReader(reader);
+			}
+			if(img == null)
+				throw new AnimatedImageException(key.location);
+			return new ImageData(img, w, h);
+		}
+
+		@Override
+		public int size(ImageData value) {
+			return cacheType.size(value);
+		}
+
+		@Override
+		public boolean spillsToSoftReference() {
+			return true;
+		}
+
+		@Override
+		public double getBudgetShare() {
+			return .25;
+		}
+	};
+
+	private static javax.imageio.ImageReader openReader(URL location) throws java.io.IOException {
+		java.io.InputStream in = location.openStream();
+		// Closing an image input stream doesn't close the stream it reads from
+		javax.imageio.stream.ImageInputStream imInput = new javax.imageio.stream.MemoryCacheImageInputStream(in) {
+			@Override
+			public void close() throws java.io.IOException {
+				try {
+					super.close();
+				} finally {
+					in.close();
+				}
+			}
 		};
+		java.util.Iterator<javax.imageio.ImageReader> readers = javax.imageio.ImageIO.getImageReaders(imInput);
+		if(!readers.hasNext()) {
+			imInput.close();
+			throw new java.io.IOException("File format not recognized: " + location.getPath());
+		}
+		javax.imageio.ImageReader reader = readers.next();
+		reader.setInput(imInput);
+		return reader;
+	}
+
+	private static int getTier(int size) {
+		int tier = MIN_TIER;
+		while(tier < size)
+			tier *= 2;
+		return tier;
 	}
 
 	volatile boolean isLoading;
@@ -123,6 +336,9 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 
 	volatile URL theLocation;
 
+	/** The resolution tier most recently requested for the image at {@link #theLocation}, or null for full resolution */
+	volatile TieredKey theTier;
+
 	volatile ImageData theImage;
 
 	volatile ImageData theLoadingImage;
@@ -139,6 +355,13 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 
 	private int theImageIndex;
 
+	private int thePaintedIndex;
+
+	/** Whether the last paint showed a placeholder because no frame of a streaming image was decoded */
+	private volatile boolean isFramePending;
+
+	private Exception theReportedDecodeError;
+
 	private ImageAnimator theAnimator;
 
 	private ImageData thePreDisplayed;
@@ -196,6 +419,7 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 				} catch (org.quick.core.QuickException e) {
 					msg().error("Could not retrieve image load failed icon", e);
 				}
+			events().filterMap(org.quick.core.event.BoundsChangedEvent.bounds).act(event -> checkResolution());
 		}, org.quick.core.QuickConstants.CoreStage.INIT_SELF.toString(), 1);
 		theHResizePolicy = ImageResizePolicy.lockIfEmpty;
 		theVResizePolicy = ImageResizePolicy.lockIfEmpty;
@@ -207,7 +431,8 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 	}
 
 	/**
-	 * Sets this widget's image via URL
+	 * Sets this widget's image via URL. If this widget resizes its image in both dimensions and already has a size, still images are
+	 * decoded at a reduced resolution sufficient for that size, and decoded again at a higher resolution if this widget grows.
 	 *
 	 * @param location The URL for the image file
 	 */
@@ -216,22 +441,41 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 		isLoading = true;
 		theLoadError = null;
 		theImage = null;
-		getDocument().getEnvironment().getCache().get(getDocument().getEnvironment(), cacheType, location,
-			new org.quick.core.QuickCache.ItemReceiver<URL, ImageData>() {
+		TieredKey tier = getDesiredTier(location);
+		theTier = tier;
+		if(tier == null)
+			load(cacheType, location, location, null);
+		else
+			load(tieredCacheType, tier, location, tier);
+	}
+
+	private <K> void load(org.quick.core.QuickCache.CacheItemType<K, ImageData, java.io.IOException> type, K key, URL location,
+		TieredKey tier) {
+		getDocument().getEnvironment().getCache().get(getDocument().getEnvironment(), type, key,
+			new org.quick.core.QuickCache.ItemReceiver<K, ImageData>() {
 				@Override
-				public void itemGenerated(URL key, ImageData value) {
-					if (!key.equals(theLocation))
+				public void itemGenerated(K k, ImageData value) {
+					if (!location.equals(theLocation) || theTier != tier)
 						return;
 					theImage = value;
 					isLoading = false;
 					imageChanged();
+					checkResolution();
 				}
 
 				@Override
-				public void errorOccurred(URL key, Throwable exception, boolean firstReport) {
-					if (!key.equals(theLocation))
+				public void errorOccurred(K k, Throwable exception, boolean firstReport) {
+					if (!location.equals(theLocation) || theTier != tier)
+						return;
+					if (exception instanceof AnimatedImageException) {
+						// Animations are always decoded at full resolution
+						theTier = null;
+						load(cacheType, location, location, null);
 						return;
-					msg().error("Could not load image from " + key, exception);
+					}
+					msg().error("Could not load image from " + location, exception);
+					if (theImage != null)
+						return; // Failed to load a higher resolution. Keep the one we have.
 					theLoadError = exception;
 					isLoading = false;
 					imageChanged();
@@ -239,6 +483,38 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 			});
 	}
 
+	/**
+	 * @param location The location of the image
+	 * @return The resolution tier that the image should be decoded at to fill this widget, or null if it should be decoded at full
+	 *         resolution
+	 */
+	private TieredKey getDesiredTier(URL location) {
+		if(theHResizePolicy != ImageResizePolicy.resize || theVResizePolicy != ImageResizePolicy.resize)
+			return null;
+		int w = bounds().getWidth();
+		int h = bounds().getHeight();
+		if(w <= 0 || h <= 0)
+			return null;
+		return new TieredKey(location, getTier(w), getTier(h));
+	}
+
+	/** Loads this widget's image at a higher resolution if it has grown beyond the resolution it was decoded at */
+	void checkResolution() {
+		URL location = theLocation;
+		TieredKey current = theTier;
+		if(location == null || current == null || isLoading)
+			return; // No image location, already at full resolution or still loading
+		TieredKey desired = getDesiredTier(location);
+		if(desired == null) {
+			theTier = null;
+			load(cacheType, location, location, null);
+		} else if(desired.width > current.width || desired.height > current.height) {
+			TieredKey larger = new TieredKey(location, Math.max(desired.width, current.width), Math.max(desired.height, current.height));
+			theTier = larger;
+			load(tieredCacheType, larger, location, larger);
+		}
+	}
+
 	/** @return The image that this widget should render */
 	public ImageData getImage() {
 		return theImage;
@@ -286,6 +562,8 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 			if(anim != null)
 				anim.stop();
 			theImageIndex = 0;
+			thePaintedIndex = 0;
+			isFramePending = false;
 			thePreDisplayed = img;
 			if(img.getImageCount() > 1) {
 				theAnimator = new ImageAnimator();
@@ -310,6 +588,7 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 		theHResizePolicy = policy;
 		sizeNeedsChanged();
 		repaint(null, false);
+		checkResolution();
 	}
 
 	/** @return The policy that this widget follows when it is resized vertically */
@@ -326,6 +605,7 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 		theVResizePolicy = policy;
 		sizeNeedsChanged();
 		repaint(null, false);
+		checkResolution();
 	}
 
 	/**
@@ -440,6 +720,19 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 		}
 	}
 
+	/** Reports frames of a streaming image that failed to decode, and repaints once a frame is decoded after a placeholder was painted */
+	void checkDecoding(ImageData img) {
+		Exception error = img.getDecodeError();
+		if(error != null && error != theReportedDecodeError) {
+			theReportedDecodeError = error;
+			msg().error(error.getMessage(), error.getCause());
+		}
+		if(isFramePending && img.isDecoded(theImageIndex % img.getImageCount())) {
+			isFramePending = false;
+			repaint(null, true);
+		}
+	}
+
 	@Override
 	public void paintSelf(Graphics2D graphics, Rectangle area) {
 		super.paintSelf(graphics, area);
@@ -448,6 +741,12 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 			return;
 		int imgIdx = theImageIndex;
 		imgIdx %= img.getImageCount();
+		if(!img.isDecoded(imgIdx) && thePaintedIndex < img.getImageCount() && img.isDecoded(thePaintedIndex))
+			imgIdx = thePaintedIndex; // The frame is still decoding. Show the last frame again rather than stall the paint.
+		thePaintedIndex = imgIdx;
+		// If no frame is decoded yet, only the background is painted as a placeholder and the animator repaints when the frame is ready
+		isFramePending = !img.isDecoded(imgIdx);
+		img.setDisplayed(imgIdx);
 		int h = img.getHeight();
 		java.awt.Point off = img.getOffset(imgIdx);
 		switch (theVResizePolicy) {
@@ -508,7 +807,34 @@ public class GenericImage extends org.quick.core.LayoutContainer {
 		int imgY2, Rectangle area, int imgIdx) {
 		if(area != null && (area.x >= gfxX2 || area.x + area.width <= gfxX1 || area.y >= gfxY2 || area.y + area.height <= gfxY1))
 			return;
-		graphics.drawImage(img.get(imgIdx), gfxX1, gfxY1, gfxX2, gfxY2, imgX1, imgY1, imgX2, imgY2, null);
+		java.awt.GraphicsConfiguration gc = graphics.getDeviceConfiguration();
+		Image frame = img.get(imgIdx, gc);
+		if(frame == null)
+			return; // Still decoding
+		if(img.isSubsampled()) {
+			// Map from the full-resolution image's coordinates to the decoded frame's
+			int frameW = frame.getWidth(null);
+			int frameH = frame.getHeight(null);
+			imgX1 = imgX1 * frameW / img.getWidth();
+			imgX2 = imgX2 * frameW / img.getWidth();
+			imgY1 = imgY1 * frameH / img.getHeight();
+			imgY2 = imgY2 * frameH / img.getHeight();
+		}
+		if(imgX1 == 0 && imgY1 == 0 && imgX2 == frame.getWidth(null) && imgY2 == frame.getHeight(null)) {
+			// Drawing the whole frame. Blit it directly or use a cached scaled copy rather than scaling on every paint.
+			int gfxW = gfxX2 - gfxX1;
+			int gfxH = gfxY2 - gfxY1;
+			if(gfxW == imgX2 && gfxH == imgY2) {
+				graphics.drawImage(frame, gfxX1, gfxY1, null);
+				return;
+			}
+			Image scaled = img.getScaled(imgIdx, gfxW, gfxH, graphics.getRenderingHint(java.awt.RenderingHints.KEY_INTERPOLATION), gc);
+			if(scaled != null) {
+				graphics.drawImage(scaled, gfxX1, gfxY1, null);
+				return;
+			}
+		}
+		graphics.drawImage(frame, gfxX1, gfxY1, gfxX2, gfxY2, imgX1, imgY1, imgX2, imgY2, null);
 	}
 
 	private static class ProportionalSizeGuide extends org.quick.core.layout.AbstractSizeGuide {
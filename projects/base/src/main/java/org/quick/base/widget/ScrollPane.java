@@ -0,0 +1,286 @@
+package org.quick.base.widget;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+import org.quick.core.QuickConstants;
+import org.quick.core.QuickElement;
+import org.quick.core.QuickElementCapture;
+import org.quick.core.event.ScrollEvent;
+import org.quick.core.layout.AbstractSizeGuide;
+import org.quick.core.layout.SimpleSizeGuide;
+import org.quick.core.layout.SizeGuide;
+import org.quick.util.QuickUtils;
+
+/**
+ * Displays a viewport onto a single content element which may be larger than the pane. The content is rendered into a retained surface
+ * the size of the viewport. When the pane scrolls, the still-valid pixels of the surface are moved with {@link Graphics2D#copyArea(int,
+ * int, int, int, int, int) copyArea} and only the newly exposed strips of the content are painted. Repaints of the content are redirected
+ * to this pane so that they invalidate only the damaged area of the surface.
+ */
+public class ScrollPane extends QuickElement {
+	/** The distance, in pixels, a {@link ScrollEvent.ScrollType#UNIT unit} scroll moves by */
+	public static final int UNIT_SCROLL = 40;
+
+	private final Object theSurfaceLock;
+
+	private int theScrollX;
+
+	private int theScrollY;
+
+	private BufferedImage theSurface;
+
+	/** The area of the surface that needs to be painted, in this pane's coordinates. Null if the surface is valid. */
+	private Rectangle theDirtyArea;
+
+	/** The distance the valid content of the surface needs to be moved before it is next painted */
+	private int theBlitX;
+
+	private int theBlitY;
+
+	/** Creates a scroll pane */
+	public ScrollPane() {
+		theSurfaceLock = new Object();
+		life().runWhen(() -> {
+			events().filterMap(ScrollEvent.scroll).act(evt -> {
+				if (evt.isUsed())
+					return;
+				int amount;
+				if (evt.getScrollType() == ScrollEvent.ScrollType.BLOCK)
+					amount = evt.getAmount() * (evt.isVertical() ? bounds().getHeight() : bounds().getWidth());
+				else
+					amount = evt.getAmount() * UNIT_SCROLL;
+				boolean scrolled;
+				if (evt.isVertical())
+					scrolled = scrollTo(theScrollX, theScrollY + amount);
+				else
+					scrolled = scrollTo(theScrollX + amount, theScrollY);
+				if (scrolled)
+					evt.use();
+			});
+		}, QuickConstants.CoreStage.INITIALIZED.toString(), 1);
+	}
+
+	/** @return The element this pane scrolls, or null if it has no content */
+	public QuickElement getContent() {
+		return ch().isEmpty() ? null : ch().get(0);
+	}
+
+	/** @return The distance, in pixels, this pane is scrolled from the left edge of its content */
+	public int getScrollX() {
+		return theScrollX;
+	}
+
+	/** @return The distance, in pixels, this pane is scrolled from the top edge of its content */
+	public int getScrollY() {
+		return theScrollY;
+	}
+
+	/**
+	 * @param x The distance, in pixels, to scroll from the left edge of the content
+	 * @param y The distance, in pixels, to scroll from the top edge of the content
+	 * @return Whether the scroll position changed. The position is clamped so that the viewport stays within the content.
+	 */
+	public boolean scrollTo(int x, int y) {
+		QuickElement content = getContent();
+		if (content == null)
+			return false;
+		x = clamp(x, content.bounds().getWidth() - bounds().getWidth());
+		y = clamp(y, content.bounds().getHeight() - bounds().getHeight());
+		int dx = theScrollX - x;
+		int dy = theScrollY - y;
+		if (dx == 0 && dy == 0)
+			return false;
+		synchronized(theSurfaceLock) {
+			theScrollX = x;
+			theScrollY = y;
+			theBlitX += dx;
+			theBlitY += dy;
+			// Damage that hasn't been painted yet moves with the content
+			if (theDirtyArea != null)
+				theDirtyArea.translate(dx, dy);
+		}
+		// Moving the content repaints this pane, which blits the surface
+		content.bounds().setBounds(-x, -y, content.bounds().getWidth(), content.bounds().getHeight());
+		return true;
+	}
+
+	private static int clamp(int scroll, int max) {
+		if (scroll > max)
+			scroll = max;
+		return scroll < 0 ? 0 : scroll;
+	}
+
+	@Override
+	public SizeGuide getWSizer() {
+		QuickElement content = getContent();
+		return content == null ? new SimpleSizeGuide() : new ScrollingSizeGuide(content.getWSizer());
+	}
+
+	@Override
+	public SizeGuide getHSizer() {
+		QuickElement content = getContent();
+		return content == null ? new SimpleSizeGuide() : new ScrollingSizeGuide(content.getHSizer());
+	}
+
+	@Override
+	protected void doLayout() {
+		QuickElement content = getContent();
+		if (bounds().isEmpty() || content == null) {
+			super.doLayout();
+			return;
+		}
+		int w = bounds().getWidth();
+		int h = bounds().getHeight();
+		int contentW = Math.max(w, content.getWSizer().getPreferred(h, false));
+		int contentH = Math.max(h, content.getHSizer().getPreferred(contentW, false));
+		int x = clamp(theScrollX, contentW - w);
+		int y = clamp(theScrollY, contentH - h);
+		synchronized(theSurfaceLock) {
+			theScrollX = x;
+			theScrollY = y;
+			invalidate(null);
+		}
+		content.bounds().setBounds(-x, -y, contentW, contentH);
+		super.doLayout();
+	}
+
+	@Override
+	protected boolean descendantNeedsRepaint(QuickElement descendant, Rectangle area, boolean now, Runnable... postActions) {
+		Rectangle paneArea;
+		if (area == null)
+			paneArea = new Rectangle(0, 0, descendant.bounds().getWidth(), descendant.bounds().getHeight());
+		else
+			paneArea = new Rectangle(area);
+		paneArea = QuickUtils.relative(paneArea, descendant, this);
+		if (paneArea == null)
+			return false;
+		paneArea = paneArea.intersection(new Rectangle(0, 0, bounds().getWidth(), bounds().getHeight()));
+		if (paneArea.isEmpty())
+			return true; // Not in view
+		synchronized(theSurfaceLock) {
+			invalidate(paneArea);
+		}
+		repaint(paneArea, now, postActions);
+		return true;
+	}
+
+	/** @param area The area of the surface to invalidate, in this pane's coordinates, or null to invalidate the whole surface */
+	private void invalidate(Rectangle area) {
+		if (area == null)
+			area = new Rectangle(0, 0, bounds().getWidth(), bounds().getHeight());
+		if (theDirtyArea == null)
+			theDirtyArea = new Rectangle(area);
+		else
+			theDirtyArea.add(area);
+	}
+
+	@Override
+	public QuickElementCapture [] paintChildren(Graphics2D graphics, Rectangle area) {
+		int w = bounds().getWidth();
+		int h = bounds().getHeight();
+		if (w <= 0 || h <= 0 || getContent() == null)
+			return super.paintChildren(graphics, area);
+		BufferedImage surface;
+		QuickElementCapture [] captures;
+		synchronized(theSurfaceLock) {
+			if (theSurface == null || theSurface.getWidth() != w || theSurface.getHeight() != h) {
+				theSurface = graphics.getDeviceConfiguration().createCompatibleImage(w, h, Transparency.TRANSLUCENT);
+				theBlitX = theBlitY = 0;
+				invalidate(null);
+			} else if (theBlitX != 0 || theBlitY != 0)
+				blit(w, h);
+			surface = theSurface;
+			Rectangle dirty = theDirtyArea == null ? null : theDirtyArea.intersection(new Rectangle(0, 0, w, h));
+			theDirtyArea = null;
+			Graphics2D surfaceGraphics = surface.createGraphics();
+			try {
+				surfaceGraphics.setRenderingHints(graphics.getRenderingHints());
+				if (dirty != null && !dirty.isEmpty()) {
+					surfaceGraphics.setComposite(AlphaComposite.Clear);
+					surfaceGraphics.fillRect(dirty.x, dirty.y, dirty.width, dirty.height);
+					surfaceGraphics.setComposite(AlphaComposite.SrcOver);
+					surfaceGraphics.clipRect(dirty.x, dirty.y, dirty.width, dirty.height);
+				} else
+					dirty = new Rectangle(); // Nothing to paint, but the captures are still needed to locate events
+				captures = super.paintChildren(surfaceGraphics, dirty);
+			} finally {
+				surfaceGraphics.dispose();
+			}
+		}
+		Rectangle draw = new Rectangle(0, 0, w, h);
+		if (area != null)
+			draw = draw.intersection(area);
+		if (!draw.isEmpty())
+			graphics.drawImage(surface, draw.x, draw.y, draw.x + draw.width, draw.y + draw.height, draw.x, draw.y, draw.x + draw.width,
+				draw.y + draw.height, null);
+		return captures;
+	}
+
+	/** Moves the still-valid content of the surface by the pending scroll distance and invalidates the exposed strips */
+	private void blit(int w, int h) {
+		int dx = theBlitX;
+		int dy = theBlitY;
+		theBlitX = theBlitY = 0;
+		if (Math.abs(dx) >= w || Math.abs(dy) >= h) {
+			invalidate(null);
+			return;
+		}
+		Graphics2D surfaceGraphics = theSurface.createGraphics();
+		try {
+			surfaceGraphics.copyArea(0, 0, w, h, dx, dy);
+		} finally {
+			surfaceGraphics.dispose();
+		}
+		if (dy > 0)
+			invalidate(new Rectangle(0, 0, w, dy));
+		else if (dy < 0)
+			invalidate(new Rectangle(0, h + dy, w, -dy));
+		if (dx > 0)
+			invalidate(new Rectangle(0, 0, dx, h));
+		else if (dx < 0)
+			invalidate(new Rectangle(w + dx, 0, -dx, h));
+	}
+
+	/** Allows the pane to be shrunk to any size, preferring the size of its content */
+	private static class ScrollingSizeGuide extends AbstractSizeGuide {
+		private final SizeGuide theContentGuide;
+
+		ScrollingSizeGuide(SizeGuide contentGuide) {
+			theContentGuide = contentGuide;
+		}
+
+		@Override
+		public int getMin(int crossSize, boolean csMax) {
+			return 0;
+		}
+
+		@Override
+		public int getMinPreferred(int crossSize, boolean csMax) {
+			return 0;
+		}
+
+		@Override
+		public int getPreferred(int crossSize, boolean csMax) {
+			return theContentGuide.getPreferred(crossSize, csMax);
+		}
+
+		@Override
+		public int getMaxPreferred(int crossSize, boolean csMax) {
+			return Integer.MAX_VALUE;
+		}
+
+		@Override
+		public int getMax(int crossSize, boolean csMax) {
+			return Integer.MAX_VALUE;
+		}
+
+		@Override
+		public int getBaseline(int size) {
+			return theContentGuide.getBaseline(size);
+		}
+	}
+}
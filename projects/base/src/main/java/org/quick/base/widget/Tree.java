@@ -1,594 +1,369 @@
-//package org.quick.base.widget;
-//
-//import java.awt.*;
-//import java.util.ArrayList;
-//
-//import org.observe.Observable;
-//import org.observe.ObservableValue;
-//import org.observe.SettableValue;
-//import org.observe.assoc.ObservableTree;
-//import org.quick.base.model.TreePath;
-//import org.quick.base.model.TreePathSet;
-//import org.quick.base.model.TreeSelectionModel;
-//import org.quick.core.*;
-//import org.quick.core.event.MouseEvent;
-//import org.quick.core.layout.LayoutGuideType;
-//import org.quick.core.layout.SizeGuide;
-//import org.quick.core.prop.QuickAttribute;
-//import org.quick.core.prop.QuickProperty;
-//import org.quick.core.prop.QuickPropertyType;
-//import org.quick.core.style.LayoutStyle;
-//import org.quick.core.style.Size;
-//import org.quick.core.style.StyleAttribute;
-//import org.quick.core.tags.Template;
-//
-//import prisms.lang.Type;
-//
-///** A graphical display of hierarchical data */
-//@Template(location = "../../../../tree.quick")
-//public class Tree extends QuickTemplate {
-//	/** Styles specific to trees */
-//	public static final class TreeStyle implements org.quick.core.style.StyleDomain {
-//		private StyleAttribute<?> [] theAttributes;
-//
-//		private TreeStyle() {
-//			theAttributes = new StyleAttribute[0];
-//		}
-//
-//		private void register(StyleAttribute<?> attr) {
-//			theAttributes = org.qommons.ArrayUtils.add(theAttributes, attr);
-//		}
-//
-//		private static final TreeStyle instance;
-//
-//		/** The indent of the each tree level, in pixels */
-//		public static final StyleAttribute<Long> indent;
-//
-//		/** The thickness of the trace lines, in pixels */
-//		public static final StyleAttribute<Long> traceThickness;
-//
-//		/** The color of the trace lines */
-//		public static final StyleAttribute<Color> traceColor;
-//
-//		/** The length of the dashes in the trace lines */
-//		public static final StyleAttribute<Double> traceDashLength;
-//
-//		/** The distance between dashes in the trace lines */
-//		public static final StyleAttribute<Double> traceDashInterim;
-//
-//		static {
-//			instance = new TreeStyle();
-//			indent = new StyleAttribute<>(instance, "indent", QuickProperty.intAttr, 10L, new QuickProperty.ComparableValidator<>(0L, 1000L));
-//			instance.register(indent);
-//			traceThickness = new StyleAttribute<>(instance, "trace-thickness", QuickProperty.intAttr, 1L,
-//				new QuickProperty.ComparableValidator<>(0L, 1000L));
-//			instance.register(traceThickness);
-//			traceColor = new StyleAttribute<>(instance, "trace-thickness", QuickProperty.colorAttr, new Color(0, 0, 0));
-//			instance.register(traceColor);
-//			traceDashLength = new StyleAttribute<>(instance, "trace-dash-length", QuickProperty.floatAttr, 3d,
-//				new QuickProperty.ComparableValidator<>(1d, 1000d));
-//			instance.register(traceDashLength);
-//			traceDashInterim = new StyleAttribute<>(instance, "trace-dash-interim", QuickProperty.floatAttr, 3d,
-//				new QuickProperty.ComparableValidator<>(0d, 1000d));
-//			instance.register(traceDashInterim);
-//		}
-//
-//		/** @return The style domain for all tree styles */
-//		public static TreeStyle getDomainInstance() {
-//			return instance;
-//		}
-//
-//		@Override
-//		public String getName() {
-//			return "tree-style";
-//		}
-//
-//		@Override
-//		public java.util.Iterator<StyleAttribute<?>> iterator() {
-//			return org.qommons.ArrayUtils.iterator(theAttributes, true);
-//		}
-//	}
-//
-//	public static final QuickPropertyType<ObservableTree<?>> modelType = new QuickProperty.PrismsParsedPropertyType<>(new Type(
-//		ObservableTree.class, new Type(Object.class, true)));
-//	public static final QuickPropertyType<TreeSelectionModel<?>> selectionType = new QuickProperty.PrismsParsedPropertyType<>(
-//		new Type(TreeSelectionModel.class, new Type(Object.class, true)));
-//	public static final QuickPropertyType<TreePathSet<?>> expansionType = new QuickProperty.PrismsParsedPropertyType<>(new Type(
-//		TreePathSet.class, new Type(Object.class, true)));
-//
-//	public static final QuickAttribute<ObservableTree<?>> model = new QuickAttribute<>("model", modelType);
-//	public static final QuickAttribute<TreeSelectionModel<?>> selection = new QuickAttribute<>("selection", selectionType);
-//	public static final QuickAttribute<TreePathSet<?>> expansion = new QuickAttribute<>("expansion", expansionType);
-//
-//	private TreePath<?> theHoverNode;
-//
-//	/** Creates a tree */
-//	public Tree() {
-//		/* TODO
-//		 * * Add attribute and element listeners to re-render when anything changes
-//		 * * Add model listeners to re-render when the model changes
-//		 * * Need to manage selection
-//		 * * Need to manage expansion
-//		 */
-//		life().runWhen(
-//			() -> {
-//				Object wanter = new Object();
-//				atts().require(wanter, model);
-//				try {
-//					atts().require(wanter, selection, new org.quick.base.model.impl.DefaultTreeSelectionModel<>(new Type(Object.class)));
-//					atts().require(wanter, expansion, new org.quick.base.model.impl.DefaultTreePathSet<>(new Type(Object.class)));
-//				} catch(QuickException e) {
-//					msg().error("Should not happen!", e);
-//				}
-//				events().filterMap(MouseEvent.mouse.addTypes(MouseEvent.MouseEventType.moved)).act(evt -> hover(evt.getPosition(this)));
-//				org.quick.core.style.QuickStyle ss = getStyle().getSelf();
-//				Observable.or(ss.get(TreeStyle.indent).value(), ss.get(LayoutStyle.margin).value(), ss.get(LayoutStyle.padding).value())
-//					.act(value -> {
-//						relayout(false);
-//					});
-//				Observable.or(ss.get(TreeStyle.traceThickness).value(), ss.get(TreeStyle.traceColor).value(),
-//					ss.get(TreeStyle.traceDashLength).value(), ss.get(TreeStyle.traceDashInterim).value()).act(value -> {
-//					repaint(null, false);
-//				});
-//				((TreePathSet<Object>) atts().get(expansion)).add(new TreePath<>((ObservableTree<Object>) atts().get(model)));
-//			}, QuickConstants.CoreStage.INITIALIZED.toString(), 1);
-//	}
-//
-//	@Override
-//	public SizeGuide getWSizer() {
-//		int indent = getStyle().getSelf().get(TreeStyle.indent).get().intValue();
-//		Size margin = getStyle().getSelf().get(LayoutStyle.margin).get();
-//		Size padding = getStyle().getSelf().get(LayoutStyle.padding).get();
-//		ObservableTree<?> treeModel = atts().get(model);
-//		return new HSizeGuide(treeModel, indent, margin, padding, atts().get(selection), atts().get(expansion), getRenderer(), getHover(),
-//			getEditor());
-//	}
-//
-//	@Override
-//	public SizeGuide getHSizer() {
-//		int indent = getStyle().getSelf().get(TreeStyle.indent).get().intValue();
-//		Size margin = getStyle().getSelf().get(LayoutStyle.margin).get();
-//		Size padding = getStyle().getSelf().get(LayoutStyle.padding).get();
-//		ObservableTree<?> treeModel = atts().get(model);
-//		return new VSizeGuide(treeModel, indent, margin, padding, atts().get(selection), atts().get(expansion), getRenderer(), getHover(),
-//			getEditor());
-//	}
-//
-//	@Override
-//	public void doLayout() {
-//		ObservableTree<?> treeModel = atts().get(model);
-//		TreeSelectionModel<?> select = atts().get(selection);
-//		TreePathSet<?> expand = atts().get(expansion);
-//		ValueRenderer<Object> renderer = (ValueRenderer<Object>) getRenderer();
-//		ValueRenderer<Object> hover = (ValueRenderer<Object>) getHover();
-//		ValueRenderer<Object> editor = (ValueRenderer<Object>) getEditor();
-//		TreePath<?> [] rows = getRows(treeModel, select, expand, renderer, hover, editor);
-//		int indent = getStyle().getSelf().get(TreeStyle.indent).get().intValue();
-//		Size margin = getStyle().getSelf().get(LayoutStyle.margin).get();
-//		Size padding = getStyle().getSelf().get(LayoutStyle.padding).get();
-//
-//		int width = getBounds().getWidth();
-//		int height = getBounds().getHeight();
-//
-//		int y = margin.evaluate(height);
-//		boolean editDone = select.getAnchor() == null;
-//		boolean hoverDone = theHoverNode == null;
-//		for(TreePath<?> row : rows) {
-//			if(editDone && hoverDone)
-//				break;
-//
-//			int rowHeight;
-//			ValueRenderer<?> render = null;
-//			if(row.equals(select.getAnchor())) {
-//				render = editor;
-//				rowHeight = editor.bounds().getVertical().getGuide().getPreferred(Integer.MAX_VALUE, true);
-//				editDone = true;
-//			} else if(row.equals(theHoverNode)) {
-//				render = hover;
-//				rowHeight = editor.bounds().getVertical().getGuide().getPreferred(Integer.MAX_VALUE, true);
-//				hoverDone = true;
-//			} else {
-//				renderer.renderFor(row.target(), select.contains(row), false);
-//				rowHeight = renderer.bounds().getVertical().getGuide().getPreferred(Integer.MAX_VALUE, true);
-//			}
-//			if(render != null) {
-//				int x = margin.evaluate(width) + (row.size() - 1) * indent;
-//				SizeGuide hGuide = render.bounds().getHorizontal().getGuide();
-//				int rowSpace = width - (row.size() - 1) * indent - margin.evaluate(width) * 2;
-//				int min = hGuide.getMin(rowHeight, false);
-//				int rowWidth;
-//				if(rowSpace < min)
-//					rowWidth = min;
-//				else {
-//					int maxPref = hGuide.getMaxPreferred(rowHeight, false);
-//					if(rowSpace <= maxPref)
-//						rowWidth = rowSpace;
-//					else
-//						rowWidth = maxPref;
-//				}
-//				render.bounds().setBounds(x, y, rowWidth, rowHeight);
-//			}
-//
-//			y += rowHeight + padding.evaluate(height);
-//		}
-//		Image expandImg = getExpand();
-//		Image collapseImg = getCollapse();
-//		expandImg.getBounds().setBounds(width, height, expandImg.getImage().getWidth(), expandImg.getImage().getHeight());
-//		collapseImg.getBounds().setBounds(width, height, collapseImg.getImage().getWidth(), collapseImg.getImage().getHeight());
-//	}
-//
-//	@Override
-//	public QuickElementCapture [] paintChildren(Graphics2D graphics, Rectangle area) {
-//		ObservableTree<?> treeModel = atts().get(model);
-//		TreeSelectionModel<?> select = atts().get(selection);
-//		TreePathSet<?> expand = atts().get(expansion);
-//		ValueRenderer<Object> renderer = (ValueRenderer<Object>) getRenderer();
-//		ValueRenderer<Object> hover = (ValueRenderer<Object>) getHover();
-//		ValueRenderer<Object> editor = (ValueRenderer<Object>) getEditor();
-//		Image expandImg = getExpand();
-//		Image collapseImg = getCollapse();
-//		TreePath<?> [] rows = getRows(treeModel, select, expand, renderer, hover, editor);
-//		int indent = getStyle().getSelf().get(TreeStyle.indent).get().intValue();
-//		Size margin = getStyle().getSelf().get(LayoutStyle.margin).get();
-//		int padding = getStyle().getSelf().get(LayoutStyle.padding).get().evaluate(bounds().getHeight());
-//		Color traceColor = getStyle().getSelf().get(TreeStyle.traceColor).get();
-//		int traceThickness = getStyle().getSelf().get(TreeStyle.traceThickness).get().intValue();
-//		float dashLength = getStyle().getSelf().get(TreeStyle.traceDashLength).get().floatValue();
-//		float dashInterim = getStyle().getSelf().get(TreeStyle.traceDashInterim).get().floatValue();
-//
-//		QuickElementCapture selectedCapture = null;
-//		int y = margin.evaluate(bounds().getHeight());
-//		try {
-//			for(TreePath<?> row : rows) {
-//				if(area != null && y >= area.y + area.height)
-//					break;
-//
-//				ValueRenderer<Object> render;
-//				if(row.equals(select.getAnchor())) {
-//					render = editor;
-//				} else if(row.equals(theHoverNode)) {
-//					render = hover;
-//				} else {
-//					render = renderer;
-//					render.renderFor(row.target(), false, false);
-//				}
-//
-//				Rectangle childArea = render.bounds().getBounds();
-//				int childX = margin.evaluate(bounds().getWidth()) + indent * (row.size() - 1);
-//				childArea.x = childX;
-//				childArea.y = y;
-//				childArea = childArea.intersection(area);
-//				childArea.x -= childX;
-//				childArea.y -= y;
-//				// Draw the expand/collapse icon and trace lines
-//				if(row.size() > 1) { // No icon or trace lines to draw for root node
-//					Image icon = expand.contains(row) ? collapseImg : expandImg;
-//					Rectangle iconArea = icon.bounds().getBounds();
-//					int iconDX = (indent - icon.bounds().getWidth()) / 2;
-//					int iconX = iconDX + (row.size() - 2) * indent;
-//					iconArea.x = iconX;
-//					int iconDY = (childArea.height - icon.bounds().getHeight()) / 2;
-//					int iconY = y + iconDY;
-//					iconArea.y = iconY;
-//					iconArea = iconArea.intersection(area);
-//					iconArea.x -= iconX;
-//					iconArea.y -= iconY;
-//					graphics.translate(iconX, iconY);
-//					icon.paint(graphics, iconArea);
-//					if(traceColor.getAlpha() > 0 && traceThickness > 0) {
-//						BasicStroke stroke;
-//						if(dashInterim == 0)
-//							stroke = new BasicStroke(traceThickness);
-//						else
-//							stroke = new BasicStroke(traceThickness, 0, 0, 1, new float[] {dashLength, dashInterim}, 0);
-//						Stroke oldStroke = graphics.getStroke();
-//						Color oldColor = graphics.getColor();
-//						graphics.setStroke(stroke);
-//						graphics.setColor(traceColor);
-//						try {
-//							// Draw trace lines
-//							if(iconDY > 0)// Vertical line from the top-middle of the icon up to the top of the cell
-//								graphics.drawLine(icon.bounds().getWidth() / 2, -1, icon.bounds().getWidth() / 2, -(iconDY + padding + 1));
-//							if(iconDX > 0) // Horizontal line from right-middle of the icon to the edge of the renderer
-//								graphics.drawLine(icon.bounds().getWidth(), icon.bounds().getHeight() / 2, icon.bounds().getWidth()
-//									+ iconDX, icon.bounds().getHeight() / 2);
-//						} finally {
-//							graphics.setStroke(oldStroke);
-//							graphics.setColor(oldColor);
-//						}
-//					}
-//					graphics.translate(-iconX, -iconY);
-//				}
-//				graphics.translate(childX, y);
-//				QuickElementCapture capture= render.paint(graphics, childArea);
-//				graphics.translate(-childX, -y);
-//				if(row.equals(select.getAnchor()))
-//					selectedCapture=capture;
-//				y += childArea.height;
-//				y += padding;
-//			}
-//		} finally {
-//			renderer.bounds().setBounds(0, 0, 0, 0);
-//		}
-//		return selectedCapture == null ? new QuickElementCapture[0] : new QuickElementCapture[] {selectedCapture};
-//	}
-//
-//	public ValueRenderer<?> getRenderer() {
-//		return (ValueRenderer<?>) getElement(getTemplate().getAttachPoint("renderer"));
-//	}
-//
-//	public ValueRenderer<?> getHover() {
-//		ValueRenderer<?> ret = (ValueRenderer<?>) getElement(getTemplate().getAttachPoint("hover"));
-//		if(ret == null)
-//			ret = getRenderer();
-//		return ret;
-//	}
-//
-//	public ValueRenderer<?> getEditor() {
-//		ValueRenderer<?> ret = (ValueRenderer<?>) getElement(getTemplate().getAttachPoint("editor"));
-//		if(ret == null)
-//			ret = getHover();
-//		return ret;
-//	}
-//
-//	@Override
-//	protected boolean isStamp(QuickElement child) {
-//		AttachPoint role = child.atts().get(getTemplate().role);
-//		return role != null && (role.name.equals("renderer") || role.name.equals("hover"));
-//	}
-//
-//	public TreePath<?> getHoverNode() {
-//		return theHoverNode;
-//	}
-//
-//	protected Image getExpand() {
-//		return (Image) getElement(getTemplate().getAttachPoint("expand"));
-//	}
-//
-//	protected Image getCollapse() {
-//		return (Image) getElement(getTemplate().getAttachPoint("collapse"));
-//	}
-//
-//	private void hover(Point point) {
-//		ValueRenderer<?> hover = getHover();
-//		int hoverMinY = hover.bounds().getY();
-//		int hoverMaxY = hoverMinY + hover.bounds().getHeight();
-//		// TODO Don't forget to fire the exited event on the old hover node if it's not the editing node (happens automatically for editing
-//		// node)
-//		if(point.y < hoverMinY) {
-//			// TODO Search backwards until we find the next hover node
-//			relayout(false);
-//			// TODO Don't forget to fire the entered event on the new hover node if it's not the editing node (happens automatically for
-//			// editing node)
-//		} else if(point.y >= hoverMaxY) {
-//			// TODO Search forwards until we find the next hover node
-//			relayout(false);
-//			// TODO Don't forget to fire the entered event on the new hover node if it's not the editing node (happens automatically for
-//			// editing node)
-//		}
-//		// TODO Propagate the hover event to the hover node. May need to do all the subsequent todos in post-runnables given to the relayout
-//		// method
-//	}
-//
-//	public TreePath<?> [] getRows() {
-//		return getRows(atts().get(model), atts().get(selection), atts().get(expansion), getRenderer(), getHover(), getEditor());
-//	}
-//
-//	private TreePath<?> [] getRows(ObservableTree<?> treeModel, TreeSelectionModel<?> select, TreePathSet<?> expand, ValueRenderer<?> rend,
-//		ValueRenderer<?> hov, ValueRenderer<?> ed) {
-//		ArrayList<TreePath<Object>> ret = new ArrayList<>();
-//		addNodeRow(ret, (ObservableTree<Object>) treeModel, new ArrayList<>(), expand);
-//		return ret.toArray(new TreePath[ret.size()]);
-//	}
-//
-//	private void addNodeRow(ArrayList<TreePath<Object>> ret, ObservableTree<Object> node, ArrayList<ObservableTree<Object>> path,
-//		TreePathSet<?> expand) {
-//		path.add(node);
-//		TreePath<Object> tp = new TreePath<>(path);
-//		ret.add(tp);
-//		if(expand.contains(tp)) {
-//			for(ObservableTree<Object> child : node.getChildren())
-//				addNodeRow(ret, child, path, expand);
-//		}
-//	}
-//
-//	private ValueRenderer<?> getRendererFor(TreePath<?> path, TreeSelectionModel<?> select, ValueRenderer<?> render,
-//		ValueRenderer<?> hover, ValueRenderer<?> edit) {
-//		if(path.equals(select.getAnchor()))
-//			return edit;
-//		else if(path.equals(getHoverNode()))
-//			return hover;
-//		else {
-//			((ValueRenderer<Object>) render).renderFor(readOnly(path.target()), select.contains(path), false);
-//			return render;
-//		}
-//	}
-//
-//	private static <T> ObservableValue<T> readOnly(ObservableValue<T> target) {
-//		if(!(target instanceof SettableValue))
-//			return target;
-//		else
-//			return ((SettableValue<T>) target).unsettable();
-//	}
-//
-//	private class HSizeGuide implements SizeGuide {
-//		private final ObservableTree<?> theModel;
-//
-//		private final int theIndent;
-//
-//		private final Size theMargin;
-//
-//		private final TreeSelectionModel<?> theSelection;
-//
-//		private final TreePathSet<?> theExpansion;
-//
-//		private final ValueRenderer<Object> theRender;
-//
-//		private final ValueRenderer<Object> theHover;
-//
-//		private final ValueRenderer<Object> theEdit;
-//
-//		public HSizeGuide(ObservableTree<?> treeModel, int indent, Size margin, Size padding, TreeSelectionModel<?> select,
-//			TreePathSet<?> expand, ValueRenderer<?> rend, ValueRenderer<?> hov, ValueRenderer<?> ed) {
-//			theModel = treeModel;
-//			theIndent = indent;
-//			theMargin = margin;
-//			theSelection = select;
-//			theExpansion = expand;
-//			theRender = (ValueRenderer<Object>) rend;
-//			theHover = (ValueRenderer<Object>) hov;
-//			theEdit = (ValueRenderer<Object>) ed;
-//		}
-//
-//		@Override
-//		public int getMin(int crossSize, boolean csMax) {
-//			return get(LayoutGuideType.min, crossSize, csMax);
-//		}
-//
-//		@Override
-//		public int getMinPreferred(int crossSize, boolean csMax) {
-//			return get(LayoutGuideType.minPref, crossSize, csMax);
-//		}
-//
-//		@Override
-//		public int getPreferred(int crossSize, boolean csMax) {
-//			return get(LayoutGuideType.pref, crossSize, csMax);
-//		}
-//
-//		@Override
-//		public int getMaxPreferred(int crossSize, boolean csMax) {
-//			return get(LayoutGuideType.maxPref, crossSize, csMax);
-//		}
-//
-//		@Override
-//		public int getMax(int crossSize, boolean csMax) {
-//			return get(LayoutGuideType.max, crossSize, csMax);
-//		}
-//
-//		@Override
-//		public int get(LayoutGuideType type, int crossSize, boolean csMax) {
-//			TreePath<?> [] rows = getRows();
-//			int max = 0;
-//			for(TreePath<?> row : rows) {
-//				ValueRenderer<?> render = getRendererFor(row);
-//				int size = render.getBounds().getHorizontal().getGuide()
-//					.get(type, render.getBounds().getVertical().getGuide().getPreferred(Integer.MAX_VALUE, true), false);
-//				size += theIndent * (row.size() - 1);
-//				if(size > max)
-//					max = size;
-//			}
-//			max += theMargin.evaluate(max) * 2;
-//			return max;
-//		}
-//
-//		@Override
-//		public int getBaseline(int size) {
-//			TreePath<Object> path = new TreePath<>((ObservableTree<Object>) theModel);
-//			ValueRenderer<?> rend = getRendererFor(path);
-//			return rend.getBounds().getHorizontal().getGuide().getBaseline(size);
-//		}
-//
-//		private TreePath<?> [] getRows() {
-//			return Tree.this.getRows(theModel, theSelection, theExpansion, theRender, theHover, theEdit);
-//		}
-//
-//		private ValueRenderer<?> getRendererFor(TreePath<?> path) {
-//			return Tree.this.getRendererFor(path, theSelection, theRender, theHover, theEdit);
-//		}
-//	}
-//
-//	private class VSizeGuide implements SizeGuide {
-//		private final ObservableTree<?> theModel;
-//
-//		private final int theIndent;
-//
-//		private final Size theMargin;
-//
-//		private final Size thePadding;
-//
-//		private final TreeSelectionModel<?> theSelection;
-//
-//		private final TreePathSet<?> theExpansion;
-//
-//		private final ValueRenderer<Object> theRender;
-//
-//		private final ValueRenderer<Object> theHover;
-//
-//		private final ValueRenderer<Object> theEdit;
-//
-//		public VSizeGuide(ObservableTree<?> treeModel, int indent, Size margin, Size padding, TreeSelectionModel<?> select,
-//			TreePathSet<?> expand, ValueRenderer<?> rend, ValueRenderer<?> hov, ValueRenderer<?> ed) {
-//			theModel = treeModel;
-//			theIndent = indent;
-//			theMargin = margin;
-//			thePadding = padding;
-//			theSelection = select;
-//			theExpansion = expand;
-//			theRender = (ValueRenderer<Object>) rend;
-//			theHover = (ValueRenderer<Object>) hov;
-//			theEdit = (ValueRenderer<Object>) ed;
-//		}
-//
-//		@Override
-//		public int getMin(int crossSize, boolean csMax) {
-//			return get(LayoutGuideType.min, crossSize, csMax);
-//		}
-//
-//		@Override
-//		public int getMinPreferred(int crossSize, boolean csMax) {
-//			return get(LayoutGuideType.minPref, crossSize, csMax);
-//		}
-//
-//		@Override
-//		public int getPreferred(int crossSize, boolean csMax) {
-//			return get(LayoutGuideType.pref, crossSize, csMax);
-//		}
-//
-//		@Override
-//		public int getMaxPreferred(int crossSize, boolean csMax) {
-//			return get(LayoutGuideType.maxPref, crossSize, csMax);
-//		}
-//
-//		@Override
-//		public int getMax(int crossSize, boolean csMax) {
-//			return get(LayoutGuideType.max, crossSize, csMax);
-//		}
-//
-//		@Override
-//		public int get(LayoutGuideType type, int crossSize, boolean csMax) {
-//			if(type == LayoutGuideType.max)
-//				return Integer.MAX_VALUE;
-//			else
-//				type = LayoutGuideType.pref;
-//			TreePath<?> [] rows = getRows();
-//			int height = bounds().getHeight();
-//			int sum = 0;
-//			for(int r = 0; r < rows.length; r++) {
-//				ValueRenderer<?> renderer = getRendererFor(rows[r]);
-//				int rowCrossSize = crossSize - (rows[r].size() - 1) * theIndent;
-//				sum = SizeGuide.add(sum, renderer.bounds().getVertical().getGuide().get(type, rowCrossSize, csMax));
-//				if(r > 0)
-//					sum = SizeGuide.add(sum, thePadding.evaluate(height));
-//				if(sum == Integer.MAX_VALUE)
-//					break;
-//			}
-//			sum += theMargin.evaluate(sum) * 2;
-//			return sum;
-//		}
-//
-//		@Override
-//		public int getBaseline(int size) {
-//			TreePath<Object> path = new TreePath<>((ObservableTree<Object>) theModel);
-//			ValueRenderer<?> rend = getRendererFor(path);
-//			return rend.getBounds().getVertical().getGuide().getBaseline(size);
-//		}
-//
-//		private TreePath<?> [] getRows() {
-//			return Tree.this.getRows(theModel, theSelection, theExpansion, theRender, theHover, theEdit);
-//		}
-//
-//		private ValueRenderer<?> getRendererFor(TreePath<?> path) {
-//			return Tree.this.getRendererFor(path, theSelection, theRender, theHover, theEdit);
-//		}
-//	}
-//}
+package org.quick.base.widget;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import org.observe.Subscription;
+import org.observe.collect.ObservableList;
+import org.quick.base.model.QuickTreeModel;
+import org.quick.core.QuickConstants;
+import org.quick.core.event.MouseEvent;
+import org.quick.core.prop.QuickAttribute;
+import org.quick.core.prop.QuickPropertyType;
+import org.quick.core.style.FontStyle;
+import org.quick.core.tags.AcceptAttribute;
+import org.quick.core.tags.QuickElementType;
+
+/**
+ * A graphical display of hierarchical data. The rows of the tree are a flattened view of its expanded nodes which is updated incrementally
+ * when nodes are expanded or collapsed and when the model's children change. Each loaded node keeps a Fenwick tree of its children's row
+ * counts, so the node for a row is found in O(depth * log(children)) time without flattening the tree. Children are only requested from the
+ * model when a node is first expanded, and only the rows in the viewport have elements.
+ */
+@QuickElementType(attributes = { //
+	@AcceptAttribute(declaringClass = Tree.class, field = "model", required = true), //
+	@AcceptAttribute(declaringClass = Tree.class, field = "indent", defaultValue = "16")//
+})
+public class Tree extends VirtualContainer {
+	/** The model supplying the tree's data */
+	public static final QuickAttribute<QuickTreeModel<?>> model = QuickAttribute
+		.build("model", QuickPropertyType.forTypeInstance((Class<QuickTreeModel<?>>) (Class<?>) QuickTreeModel.class, null)).build();
+
+	/** The indent of each tree level, in pixels. The expand/collapse control of each row is drawn in the indent before it. */
+	public static final QuickAttribute<Integer> indent = QuickAttribute.build("indent", QuickPropertyType.integer).build();
+
+	/** A node in the tree that has been reached by expansion */
+	private class Node {
+		final Object value;
+
+		final Node parent;
+
+		final int depth;
+
+		int indexInParent;
+
+		boolean isExpanded;
+
+		/** The number of rows this node occupies: itself, plus the rows of its children if it is expanded */
+		int rowCount;
+
+		/** Null until the node is first expanded */
+		Node [] children;
+
+		/** A Fenwick tree over the row counts of the children, maintained whether this node is expanded or not */
+		int [] childRows;
+
+		Subscription childSubscription;
+
+		Node(Object val, Node par) {
+			value = val;
+			parent = par;
+			depth = par == null ? 0 : par.depth + 1;
+			rowCount = 1;
+		}
+
+		boolean isLeaf() {
+			return (children != null && children.length == 0) || theModel.isLeaf(value);
+		}
+
+		void load() {
+			ObservableList<?> list = theModel.getChildren(value);
+			setChildren(list);
+			childSubscription = list.simpleChanges().act(cause -> {
+				synchronized(theLock) {
+					if (childSubscription == null)
+						return; // Disposed
+					setChildren(list);
+				}
+				relayout(false);
+			});
+		}
+
+		void setChildren(List<?> values) {
+			IdentityHashMap<Object, Node> old = new IdentityHashMap<>();
+			if (children != null)
+				for (Node child : children)
+					old.put(child.value, child);
+			Node [] newChildren = new Node[values.size()];
+			int i = 0;
+			for (Object childValue : values) {
+				Node child = old.remove(childValue);
+				if (child == null)
+					child = new Node(childValue, this);
+				child.indexInParent = i;
+				newChildren[i++] = child;
+			}
+			for (Node removed : old.values())
+				removed.dispose();
+			int oldSum = children == null ? 0 : prefix(children.length);
+			children = newChildren;
+			childRows = new int[children.length + 1];
+			for (i = 0; i < children.length; i++) {
+				childRows[i + 1] += children[i].rowCount;
+				int next = (i + 1) + ((i + 1) & -(i + 1));
+				if (next <= children.length)
+					childRows[next] += childRows[i + 1];
+			}
+			if (isExpanded) {
+				int delta = prefix(children.length) - oldSum;
+				rowCount += delta;
+				propagate(this, delta);
+			}
+		}
+
+		void dispose() {
+			if (childSubscription != null) {
+				childSubscription.unsubscribe();
+				childSubscription = null;
+			}
+			if (children != null)
+				for (Node child : children)
+					child.dispose();
+		}
+
+		/** Adds to the row count of a child in the Fenwick tree */
+		void add(int child, int delta) {
+			for (int i = child + 1; i < childRows.length; i += i & -i)
+				childRows[i] += delta;
+		}
+
+		/** @return The total row count of the first <code>count</code> children */
+		int prefix(int count) {
+			int sum = 0;
+			for (int i = count; i > 0; i -= i & -i)
+				sum += childRows[i];
+			return sum;
+		}
+
+		/** @return The index of the child containing the given row, relative to the first child's row */
+		int find(int row) {
+			int pos = 0;
+			for (int step = Integer.highestOneBit(children.length); step > 0; step >>= 1) {
+				if (pos + step <= children.length && childRows[pos + step] <= row) {
+					pos += step;
+					row -= childRows[pos];
+				}
+			}
+			return pos;
+		}
+	}
+
+	private final Object theLock;
+
+	private QuickTreeModel<Object> theModel;
+
+	private Node theRoot;
+
+	/** Creates a tree */
+	public Tree() {
+		theLock = new Object();
+		life().runWhen(() -> {
+			atts().getHolder(model).act(evt -> setModel((QuickTreeModel<Object>) evt.getValue()));
+			atts().getHolder(indent).noInit().act(evt -> relayout(false));
+			events().filterMap(MouseEvent.mouse.down().left()).act(evt -> {
+				Point pos = evt.getPosition(this);
+				int row = getIndexAt(pos.y);
+				if (row < 0)
+					return;
+				int inset = getRowInset(row);
+				if (pos.x < inset && pos.x >= inset - getIndent() && toggle(row))
+					evt.use();
+			});
+		}, QuickConstants.CoreStage.INITIALIZED.toString(), 1);
+	}
+
+	private void setModel(QuickTreeModel<Object> treeModel) {
+		synchronized(theLock) {
+			if (theRoot != null)
+				theRoot.dispose();
+			theModel = treeModel;
+			if (treeModel == null)
+				theRoot = null;
+			else {
+				theRoot = new Node(treeModel.getRoot(), null);
+				expand(theRoot);
+			}
+		}
+		if (!setScrollOffset(0))
+			relayout(false);
+	}
+
+	/** @return The indent of each tree level, in pixels */
+	public int getIndent() {
+		return Math.max(0, atts().get(indent, 16));
+	}
+
+	@Override
+	public int getItemCount() {
+		synchronized(theLock) {
+			return theRoot == null ? 0 : theRoot.rowCount;
+		}
+	}
+
+	@Override
+	protected void runLayoutPass(Runnable pass) {
+		// Keep the rows from changing between reading the row count and reading the rows
+		synchronized(theLock) {
+			pass.run();
+		}
+	}
+
+	@Override
+	protected Object getItem(int index) {
+		return getValueAt(index);
+	}
+
+	@Override
+	protected int getRowInset(int index) {
+		return (getDepth(index) + 1) * getIndent();
+	}
+
+	/**
+	 * @param row The index of the row
+	 * @return The model node displayed in the given row
+	 */
+	public Object getValueAt(int row) {
+		synchronized(theLock) {
+			return nodeAt(row).value;
+		}
+	}
+
+	/**
+	 * @param row The index of the row
+	 * @return The depth of the node displayed in the given row. The root has depth 0.
+	 */
+	public int getDepth(int row) {
+		synchronized(theLock) {
+			return nodeAt(row).depth;
+		}
+	}
+
+	/**
+	 * @param row The index of the row
+	 * @return Whether the node displayed in the given row is expanded
+	 */
+	public boolean isExpanded(int row) {
+		synchronized(theLock) {
+			return nodeAt(row).isExpanded;
+		}
+	}
+
+	/**
+	 * @param row The index of the row
+	 * @param expanded Whether the node displayed in the given row should be expanded
+	 * @return Whether the expansion of the node changed
+	 */
+	public boolean setExpanded(int row, boolean expanded) {
+		boolean changed;
+		synchronized(theLock) {
+			Node node = nodeAt(row);
+			changed = expanded ? expand(node) : collapse(node);
+		}
+		if (changed)
+			relayout(false);
+		return changed;
+	}
+
+	/**
+	 * Expands the node displayed in the given row if it is collapsed, or collapses it if it is expanded
+	 *
+	 * @param row The index of the row
+	 * @return Whether the expansion of the node changed
+	 */
+	public boolean toggle(int row) {
+		boolean changed;
+		synchronized(theLock) {
+			Node node = nodeAt(row);
+			changed = node.isExpanded ? collapse(node) : expand(node);
+		}
+		if (changed)
+			relayout(false);
+		return changed;
+	}
+
+	private Node nodeAt(int row) {
+		if (theRoot == null || row < 0 || row >= theRoot.rowCount)
+			throw new IndexOutOfBoundsException(row + " of " + (theRoot == null ? 0 : theRoot.rowCount));
+		Node node = theRoot;
+		while (row > 0) {
+			row--;
+			int child = node.find(row);
+			row -= node.prefix(child);
+			node = node.children[child];
+		}
+		return node;
+	}
+
+	private boolean expand(Node node) {
+		if (node.isExpanded || node.isLeaf())
+			return false;
+		if (node.children == null)
+			node.load();
+		node.isExpanded = true;
+		int delta = node.prefix(node.children.length);
+		node.rowCount += delta;
+		propagate(node, delta);
+		return true;
+	}
+
+	private boolean collapse(Node node) {
+		if (!node.isExpanded)
+			return false;
+		int delta = node.rowCount - 1;
+		node.isExpanded = false;
+		node.rowCount = 1;
+		propagate(node, -delta);
+		return true;
+	}
+
+	/** Updates the row counts of a node's ancestors after the node's row count has changed */
+	private static void propagate(Node node, int delta) {
+		if (delta == 0)
+			return;
+		for (Node parent = node.parent; parent != null; node = parent, parent = parent.parent) {
+			parent.add(node.indexInParent, delta);
+			if (!parent.isExpanded)
+				break;
+			parent.rowCount += delta;
+		}
+	}
+
+	@Override
+	public void paintSelf(Graphics2D graphics, Rectangle area) {
+		super.paintSelf(graphics, area);
+		int indentSize = getIndent();
+		int boxSize = indentSize / 2;
+		if (boxSize < 3)
+			return;
+		Color color = getStyle().get(FontStyle.color).get();
+		Color preColor = graphics.getColor();
+		graphics.setColor(color);
+		try {
+			synchronized(theLock) {
+				int rowCount = theRoot == null ? 0 : theRoot.rowCount;
+				forEachRow((element, row) -> {
+					if (row >= rowCount)
+						return;
+					Node node = nodeAt(row);
+					if (node.isLeaf())
+						return;
+					// Draw a box with a plus or minus in it centered in the indent before the row
+					int x = node.depth * indentSize + (indentSize - boxSize) / 2;
+					int y = element.bounds().getY() + (element.bounds().getHeight() - boxSize) / 2;
+					if (area != null && !area.intersects(x, y, boxSize + 1, boxSize + 1))
+						return;
+					graphics.drawRect(x, y, boxSize, boxSize);
+					graphics.drawLine(x + 2, y + boxSize / 2, x + boxSize - 2, y + boxSize / 2);
+					if (!node.isExpanded)
+						graphics.drawLine(x + boxSize / 2, y + 2, x + boxSize / 2, y + boxSize - 2);
+				});
+			}
+		} finally {
+			graphics.setColor(preColor);
+		}
+	}
+}
@@ -0,0 +1,401 @@
+package org.quick.base.widget;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ObjIntConsumer;
+
+import org.quick.core.QuickConstants;
+import org.quick.core.QuickElement;
+import org.quick.core.QuickTextElement;
+import org.quick.core.event.ScrollEvent;
+import org.quick.core.layout.SimpleSizeGuide;
+import org.quick.core.layout.SizeGuide;
+import org.quick.core.prop.QuickAttribute;
+import org.quick.core.prop.QuickPropertyType;
+import org.quick.core.tags.AcceptAttribute;
+import org.quick.core.tags.QuickElementType;
+
+/**
+ * Displays a sequence of items in rows stacked vertically. Only the rows in the viewport, plus a few {@link #overscan} rows on either side,
+ * are backed by elements. Rows scrolled out of view are recycled to display newly exposed items, so the number of elements depends on the
+ * size of the viewport and not on the number of items. The total extent is estimated from the average height of the rows that have been
+ * measured.
+ */
+@QuickElementType(attributes = { //
+	@AcceptAttribute(declaringClass = VirtualContainer.class, field = "overscan", defaultValue = "2")//
+})
+public abstract class VirtualContainer extends QuickElement {
+	/** Creates and populates the elements that display the items in a {@link VirtualContainer} */
+	public interface RowFactory {
+		/** @return A new element to display items in */
+		QuickElement createRow();
+
+		/**
+		 * @param row An element created by {@link #createRow()}, which may previously have displayed a different item
+		 * @param item The item for the row to display
+		 * @param index The index of the item among the container's items
+		 */
+		void bind(QuickElement row, Object item, int index);
+	}
+
+	/** Displays each item as its {@link String#valueOf(Object) string value} in a {@link QuickTextElement} */
+	public static final RowFactory TEXT_ROWS = new RowFactory() {
+		@Override
+		public QuickElement createRow() {
+			return new QuickTextElement();
+		}
+
+		@Override
+		public void bind(QuickElement row, Object item, int index) {
+			((QuickTextElement) row).setText(String.valueOf(item));
+		}
+	};
+
+	/** The number of rows to keep laid out above and below the viewport so that small scrolls do not need to bind new rows */
+	public static final QuickAttribute<Integer> overscan = QuickAttribute.build("overscan", QuickPropertyType.integer).build();
+
+	/** The row height to assume before any rows have been measured */
+	private static final int DEFAULT_ROW_HEIGHT = 20;
+
+	/** The number of measurements the row height estimate is averaged over. Older measurements decay as new ones are made. */
+	private static final int ESTIMATE_WINDOW = 1024;
+
+	/** The number of rows a {@link ScrollEvent.ScrollType#UNIT unit} scroll moves by */
+	private static final int UNIT_SCROLL_ROWS = 3;
+
+	/** The number of rows this container prefers to show */
+	private static final int PREFERRED_ROWS = 10;
+
+	private static class Row {
+		final QuickElement element;
+
+		int index;
+
+		Object item;
+
+		boolean isMeasured;
+
+		Row(QuickElement el) {
+			element = el;
+			index = -1;
+		}
+	}
+
+	private final ArrayList<Row> theRows;
+
+	private RowFactory theRowFactory;
+
+	private int theScrollOffset;
+
+	private long theMeasuredHeight;
+
+	private int theMeasuredRows;
+
+	/** Creates a virtual container */
+	protected VirtualContainer() {
+		theRows = new ArrayList<>();
+		theRowFactory = TEXT_ROWS;
+		life().runWhen(() -> {
+			atts().getHolder(overscan).noInit().act(evt -> relayout(false));
+			events().filterMap(ScrollEvent.scroll).act(evt -> {
+				if (evt.isUsed() || !evt.isVertical())
+					return;
+				int delta;
+				if (evt.getScrollType() == ScrollEvent.ScrollType.BLOCK)
+					delta = evt.getAmount() * bounds().getHeight();
+				else
+					delta = evt.getAmount() * UNIT_SCROLL_ROWS * getEstimatedRowHeight();
+				if (setScrollOffset(theScrollOffset + delta))
+					evt.use();
+			});
+		}, QuickConstants.CoreStage.INITIALIZED.toString(), 1);
+	}
+
+	/** @return The factory creating the elements that display this container's items */
+	public RowFactory getRowFactory() {
+		return theRowFactory;
+	}
+
+	/**
+	 * @param factory The factory to create the elements that display this container's items
+	 * @return This container, for chaining
+	 */
+	public VirtualContainer setRowFactory(RowFactory factory) {
+		if (factory == null)
+			throw new NullPointerException("Row factory cannot be null");
+		if (theRowFactory == factory)
+			return this;
+		theRowFactory = factory;
+		for (Row row : theRows)
+			getChildManager().remove(row.element);
+		theRows.clear();
+		relayout(false);
+		return this;
+	}
+
+	/** @return The number of items in this container */
+	public abstract int getItemCount();
+
+	/**
+	 * @param index The index of the item to get
+	 * @return The item at the given index
+	 */
+	protected abstract Object getItem(int index);
+
+	/**
+	 * @param index The index of an item
+	 * @return The distance to inset the row displaying the item from the left edge of this container
+	 */
+	protected int getRowInset(int index) {
+		return 0;
+	}
+
+	/**
+	 * Performs a layout pass. The pass reads the item count and a number of items and insets in turn, so a subclass whose items may change
+	 * on other threads should override this to run the pass while holding the lock that guards its items.
+	 *
+	 * @param pass The layout pass to perform
+	 */
+	protected void runLayoutPass(Runnable pass) {
+		pass.run();
+	}
+
+	/**
+	 * @param y The y-coordinate to check, relative to this container
+	 * @return The index of the item displayed at the given position, or -1 if no item is displayed there
+	 */
+	public int getIndexAt(int y) {
+		for (Row row : theRows)
+			if (row.index >= 0 && y >= row.element.bounds().getY() && y < row.element.bounds().getY() + row.element.bounds().getHeight())
+				return row.index;
+		return -1;
+	}
+
+	/**
+	 * @param index The index of the item to get the row for
+	 * @return The element displaying the given item, or null if the item is not in or near the viewport
+	 */
+	public QuickElement getRowElement(int index) {
+		for (Row row : theRows)
+			if (row.index == index)
+				return row.element;
+		return null;
+	}
+
+	/** @param action The action to perform on the element and index of each item that is in or near the viewport */
+	protected void forEachRow(ObjIntConsumer<QuickElement> action) {
+		for (Row row : theRows)
+			if (row.index >= 0)
+				action.accept(row.element, row.index);
+	}
+
+	/** @return The number of elements this container currently uses to display its rows, including spares kept for recycling */
+	public int getRowElementCount() {
+		return theRows.size();
+	}
+
+	/** @return The average height of the rows this container has measured, or a default if no rows have been measured yet */
+	public int getEstimatedRowHeight() {
+		if (theMeasuredRows == 0)
+			return DEFAULT_ROW_HEIGHT;
+		return Math.max(1, (int) Math.round(theMeasuredHeight * 1.0 / theMeasuredRows));
+	}
+
+	/** @return The estimated height of all the rows in this container */
+	public int getEstimatedExtent() {
+		return (int) Math.min(Integer.MAX_VALUE, (long) getItemCount() * getEstimatedRowHeight());
+	}
+
+	/** @return The distance, in pixels, that this container is scrolled from its top */
+	public int getScrollOffset() {
+		return theScrollOffset;
+	}
+
+	/**
+	 * @param offset The distance, in pixels, to scroll this container from its top. This will be clamped to the scrollable range.
+	 * @return Whether the scroll offset changed
+	 */
+	public boolean setScrollOffset(int offset) {
+		offset = clampOffset(offset);
+		if (offset == theScrollOffset)
+			return false;
+		theScrollOffset = offset;
+		relayout(false);
+		return true;
+	}
+
+	/**
+	 * Scrolls this container so that the given item is at the top of the viewport, as far as the estimated extent allows
+	 *
+	 * @param index The index of the item to scroll to
+	 * @return Whether the scroll offset changed
+	 */
+	public boolean scrollToIndex(int index) {
+		return setScrollOffset((int) Math.min(Integer.MAX_VALUE, (long) index * getEstimatedRowHeight()));
+	}
+
+	private int clampOffset(int offset) {
+		int max = getEstimatedExtent() - bounds().getHeight();
+		if (offset > max)
+			offset = max;
+		return offset < 0 ? 0 : offset;
+	}
+
+	@Override
+	public SizeGuide getWSizer() {
+		int min = 0;
+		int pref = 0;
+		for (Row row : theRows) {
+			if (row.index < 0)
+				continue;
+			SizeGuide rowSizer = row.element.getWSizer();
+			int rowHeight = row.element.bounds().getHeight();
+			min = Math.max(min, rowSizer.getMin(rowHeight, false));
+			pref = Math.max(pref, rowSizer.getPreferred(rowHeight, false));
+		}
+		return new SimpleSizeGuide(min, min, pref, Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public SizeGuide getHSizer() {
+		int pref = (int) Math.min(getEstimatedExtent(), (long) PREFERRED_ROWS * getEstimatedRowHeight());
+		return new SimpleSizeGuide(0, 0, pref, Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+	@Override
+	protected void doLayout() {
+		if (bounds().isEmpty())
+			return;
+		runLayoutPass(() -> {
+			theScrollOffset = clampOffset(theScrollOffset);
+			int gap = layoutRows();
+			if (gap > 0 && theScrollOffset > 0) {
+				// The estimate put the last item above the bottom of the viewport. Scroll up so the last row is at the bottom.
+				theScrollOffset = Math.max(0, theScrollOffset - gap);
+				layoutRows();
+			}
+		});
+		super.doLayout();
+	}
+
+	/**
+	 * Binds and positions the rows for the items in the viewport and overscan, recycling rows that are no longer needed
+	 *
+	 * @return The space between the bottom of the last item and the bottom of the viewport, or 0 if the last item is not in
+	 *         view
+	 */
+	private int layoutRows() {
+		int count = getItemCount();
+		int width = bounds().getWidth();
+		int height = bounds().getHeight();
+		int over = Math.max(0, atts().get(overscan, 2));
+		int rowHeight = getEstimatedRowHeight();
+		int first = count == 0 ? 0 : (int) Math.min(count - 1, theScrollOffset / rowHeight);
+
+		TreeMap<Integer, Row> bound = new TreeMap<>();
+		ArrayDeque<Row> free = new ArrayDeque<>();
+		for (Row row : theRows) {
+			if (row.index >= 0 && row.index < count)
+				bound.put(row.index, row);
+			else
+				free.add(row);
+		}
+		// Rows above the overscan can't be needed
+		Map<Integer, Row> above = bound.headMap(first - over);
+		free.addAll(above.values());
+		above.clear();
+
+		// Lay out the rows in the viewport and the overscan below it
+		int top = (int) ((long) first * rowHeight - theScrollOffset);
+		int y = top;
+		int index = first;
+		int below = 0;
+		for (; index < count; index++) {
+			if (y >= height && below++ >= over)
+				break;
+			Row row = claim(bound, free, index, getItem(index));
+			int inset = getRowInset(index);
+			int h = measure(row, width - inset);
+			row.element.bounds().setBounds(inset, y, width - inset, h);
+			y += h;
+		}
+		int gap = index == count && y < height ? height - y : 0;
+		// Rows after the last one laid out aren't needed
+		Map<Integer, Row> after = bound.tailMap(first);
+		free.addAll(after.values());
+		after.clear();
+
+		// Lay out the overscan above the viewport
+		y = top;
+		for (index = first - 1; index >= 0 && index >= first - over; index--) {
+			Row row = claim(bound, free, index, getItem(index));
+			int inset = getRowInset(index);
+			int h = measure(row, width - inset);
+			y -= h;
+			row.element.bounds().setBounds(inset, y, width - inset, h);
+		}
+
+		free.addAll(bound.values());
+		// Keep a few spares for recycling, but release the rest
+		int spares = 0;
+		for (Row row : free) {
+			row.index = -1;
+			row.item = null;
+			if (spares++ < over + 1)
+				row.element.bounds().setBounds(0, 0, 0, 0);
+			else {
+				theRows.remove(row);
+				getChildManager().remove(row.element);
+			}
+		}
+		return gap;
+	}
+
+	/**
+	 * @param bound The rows currently bound to items, by index
+	 * @param free The rows that may be rebound
+	 * @param index The index of the item to get a row for
+	 * @param item The item to get a row for
+	 * @return A row displaying the given item
+	 */
+	private Row claim(TreeMap<Integer, Row> bound, ArrayDeque<Row> free, int index, Object item) {
+		Row row = bound.remove(index);
+		if (row == null)
+			row = free.poll();
+		if (row == null && !bound.isEmpty() && bound.lastKey() > index)
+			row = bound.pollLastEntry().getValue(); // The row displaying the furthest item is the least likely to be needed
+		if (row == null) {
+			row = new Row(theRowFactory.createRow());
+			theRows.add(row);
+			getChildManager().add(row.element);
+		}
+		if (row.index != index || row.item != item) {
+			theRowFactory.bind(row.element, item, index);
+			row.index = index;
+			row.item = item;
+			row.isMeasured = false;
+		}
+		return row;
+	}
+
+	/**
+	 * @param row The row to measure
+	 * @param width The width of the row
+	 * @return The height of the row. The first measurement of a row after it is bound contributes to the row height estimate.
+	 */
+	private int measure(Row row, int width) {
+		int rowHeight = row.element.getHSizer().getPreferred(width, false);
+		if (!row.isMeasured) {
+			row.isMeasured = true;
+			theMeasuredHeight += rowHeight;
+			theMeasuredRows++;
+			if (theMeasuredRows > ESTIMATE_WINDOW) {
+				theMeasuredHeight /= 2;
+				theMeasuredRows /= 2;
+			}
+		}
+		return rowHeight;
+	}
+}
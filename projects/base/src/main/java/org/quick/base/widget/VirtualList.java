@@ -0,0 +1,66 @@
+package org.quick.base.widget;
+
+import org.observe.Subscription;
+import org.observe.collect.ObservableList;
+import org.qommons.Transaction;
+import org.quick.core.QuickConstants;
+import org.quick.core.prop.QuickAttribute;
+import org.quick.core.prop.QuickPropertyType;
+import org.quick.core.tags.AcceptAttribute;
+import org.quick.core.tags.QuickElementType;
+
+/** A {@link VirtualContainer} that displays the items of an {@link ObservableList} */
+@QuickElementType(attributes = { //
+	@AcceptAttribute(declaringClass = VirtualList.class, field = "items")//
+})
+public class VirtualList extends VirtualContainer {
+	/** The list of items to display */
+	public static final QuickAttribute<ObservableList<?>> items = QuickAttribute
+		.build("items", QuickPropertyType.forTypeInstance((Class<ObservableList<?>>) (Class<?>) ObservableList.class, null)).build();
+
+	private ObservableList<?> theModel;
+
+	private Subscription theModelSubscription;
+
+	/** Creates a virtual list */
+	public VirtualList() {
+		life().runWhen(() -> {
+			atts().getHolder(items).act(evt -> setModel(evt.getValue()));
+		}, QuickConstants.CoreStage.INITIALIZED.toString(), 1);
+	}
+
+	@Override
+	public int getItemCount() {
+		ObservableList<?> model = theModel;
+		return model == null ? 0 : model.size();
+	}
+
+	@Override
+	protected void runLayoutPass(Runnable pass) {
+		ObservableList<?> model = theModel;
+		if (model == null) {
+			pass.run();
+			return;
+		}
+		try (Transaction t = model.lock(false, null)) {
+			pass.run();
+		}
+	}
+
+	@Override
+	protected Object getItem(int index) {
+		return theModel.get(index);
+	}
+
+	private void setModel(ObservableList<?> model) {
+		if (theModelSubscription != null) {
+			theModelSubscription.unsubscribe();
+			theModelSubscription = null;
+		}
+		theModel = model;
+		if (model != null)
+			theModelSubscription = model.simpleChanges().act(cause -> relayout(false));
+		if (!setScrollOffset(0))
+			relayout(false);
+	}
+}
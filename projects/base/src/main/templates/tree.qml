@@ -1,13 +0,0 @@
-<?xml version="1.0" encoding="UTF-8"?>
-
-<template>
-	<head>
-	</head>
-	<body>
-		<value-renderer template-attach-point="renderer" template-external="true" template-required="true" />
-		<value-renderer template-attach-point="hover" template-external="true" />
-		<value-renderer template-attach-point="editor" template-external="true" />
-		<image src="base:tree-expand-icon" template-attach-point="expand" template-default="true" />
-		<image src="base:tree-collapse-icon" template-attach-point="collapse" template-default="true" />
-	</body>
-</template>
@@ -0,0 +1,67 @@
+package org.quick.base.widget;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+import org.quick.core.QuickDocument;
+import org.quick.core.QuickElement;
+import org.quick.core.QuickEnvironment;
+import org.quick.core.QuickTextElement;
+import org.quick.core.parser.QuickContentCreator;
+import org.quick.core.parser.QuickParseException;
+import org.quick.core.prop.QuickAttribute;
+
+/** Tests building documents with a {@link QuickContentCreator} in parallel mode */
+public class ParallelContentTest {
+	/**
+	 * Tests that a document built in parallel has the same elements, attributes and text as the same document built serially
+	 *
+	 * @throws IOException If the Quick document needed by the test cannot be found or read
+	 * @throws QuickParseException If the Quick document needed by the test cannot be parsed
+	 */
+	@Test
+	public void testParallelMatchesSerial() throws QuickParseException, IOException {
+		URL location = ParallelContentTest.class.getResource("parallelContent.qml");
+		QuickDocument serial = org.quick.QuickTestUtils.parseDoc(location, QuickEnvironment.build().withDefaults()//
+			.withLoadParallelism(1).build());
+		QuickDocument parallel = org.quick.QuickTestUtils.parseDoc(location, QuickEnvironment.build().withDefaults()//
+			.withLoadParallelism(4).setContentCreator(new QuickContentCreator(1)).build());
+		assertSameContent(serial.getRoot(), parallel.getRoot());
+	}
+
+	private static void assertSameContent(QuickElement expected, QuickElement actual) {
+		assertEquals(expected.getClass(), actual.getClass());
+		assertEquals(expected.getNamespace(), actual.getNamespace());
+		assertEquals(expected.getTagName(), actual.getTagName());
+		if (expected instanceof QuickTextElement)
+			assertEquals(((QuickTextElement) expected).getText(), ((QuickTextElement) actual).getText());
+		assertEquals(describeAttributes(expected), describeAttributes(actual));
+		List<? extends QuickElement> expectedChildren = expected.getPhysicalChildren();
+		List<? extends QuickElement> actualChildren = actual.getPhysicalChildren();
+		assertEquals(expectedChildren.size(), actualChildren.size());
+		for (int i = 0; i < expectedChildren.size(); i++)
+			assertSameContent(expectedChildren.get(i), actualChildren.get(i));
+	}
+
+	/** Describes an element's attribute values. Values that are not simple data, e.g. layouts, are compared by type. */
+	private static Map<String, String> describeAttributes(QuickElement element) {
+		Map<String, String> description = new TreeMap<>();
+		for (QuickAttribute<?> att : element.atts().getAllAttributes()) {
+			Object value = element.atts().get(att);
+			String desc;
+			if (value == null || value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+				|| value instanceof Enum || value instanceof java.awt.Color)
+				desc = String.valueOf(value);
+			else
+				desc = value.getClass().getName();
+			description.put(att.getName(), desc);
+		}
+		return description;
+	}
+}
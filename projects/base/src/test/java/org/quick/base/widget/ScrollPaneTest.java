@@ -0,0 +1,162 @@
+package org.quick.base.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.quick.core.QuickDocument;
+import org.quick.core.QuickElement;
+import org.quick.core.layout.SimpleSizeGuide;
+import org.quick.core.layout.SizeGuide;
+
+/** Tests the retained surface of {@link ScrollPane} */
+public class ScrollPaneTest {
+	private static final int HIGHLIGHT = 0xff00ff;
+
+	/** Paints each row in a color unique to the row and records the areas it is asked to paint */
+	static class TestContent extends QuickElement {
+		final List<Rectangle> painted = new ArrayList<>();
+
+		int highlightStart;
+
+		int highlightEnd;
+
+		/** Whether to ignore the paint area and paint the entire element, as some textures do */
+		boolean paintsEverything;
+
+		@Override
+		protected void doLayout() {}
+
+		@Override
+		public SizeGuide getWSizer() {
+			return new SimpleSizeGuide();
+		}
+
+		@Override
+		public SizeGuide getHSizer() {
+			return new SimpleSizeGuide();
+		}
+
+		@Override
+		public void paintSelf(Graphics2D graphics, Rectangle area) {
+			painted.add(new Rectangle(area));
+			if (paintsEverything)
+				area = new Rectangle(0, 0, bounds().getWidth(), bounds().getHeight());
+			for (int y = area.y; y < area.y + area.height; y++) {
+				graphics.setColor(new Color(colorOf(y)));
+				graphics.fillRect(area.x, y, area.width, 1);
+			}
+		}
+
+		int colorOf(int row) {
+			return row >= highlightStart && row < highlightEnd ? HIGHLIGHT : row;
+		}
+	}
+
+	private TestContent theContent;
+
+	private ScrollPane thePane;
+
+	private BufferedImage theImage;
+
+	private void createPane() {
+		QuickDocument doc = org.quick.QuickTestUtils.createDocument();
+		// Layout is asynchronous, so it is disabled to keep the surface under the test's control
+		thePane = new ScrollPane() {
+			@Override
+			protected void doLayout() {}
+		};
+		thePane.init(doc, null, doc.cv(), null, null, null);
+		theContent = new TestContent();
+		theContent.init(doc, null, doc.cv(), thePane, null, null);
+		theContent.initChildren(Collections.emptyList());
+		thePane.initChildren(Arrays.asList(theContent));
+		thePane.postCreate();
+		thePane.bounds().setBounds(0, 0, 100, 100);
+		theContent.bounds().setBounds(0, 0, 100, 400);
+		theImage = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+	}
+
+	private List<Rectangle> paint() {
+		theContent.painted.clear();
+		Graphics2D graphics = theImage.createGraphics();
+		try {
+			thePane.paintChildren(graphics, null);
+		} finally {
+			graphics.dispose();
+		}
+		return new ArrayList<>(theContent.painted);
+	}
+
+	private void assertShowsContent() {
+		for (int y = 0; y < 100; y++)
+			assertEquals("Row " + y, theContent.colorOf(y + thePane.getScrollY()), theImage.getRGB(50, y) & 0xffffff);
+	}
+
+	/** Tests that scrolling moves the painted content and paints only the exposed strip */
+	@Test
+	public void testBlit() {
+		createPane();
+		assertEquals(Arrays.asList(new Rectangle(0, 0, 100, 100)), paint());
+		assertShowsContent();
+
+		assertTrue(paint().isEmpty());
+		assertShowsContent();
+
+		assertTrue(thePane.scrollTo(0, 30));
+		assertEquals(Arrays.asList(new Rectangle(0, 100, 100, 30)), paint());
+		assertShowsContent();
+
+		assertTrue(thePane.scrollTo(0, 10));
+		assertEquals(Arrays.asList(new Rectangle(0, 10, 100, 20)), paint());
+		assertShowsContent();
+	}
+
+	/** Tests that content painting outside the damaged area cannot overwrite the valid part of the surface */
+	@Test
+	public void testPaintClippedToDirtyArea() {
+		createPane();
+		paint();
+		int [] before = new int[100];
+		for (int y = 0; y < 100; y++)
+			before[y] = theImage.getRGB(50, y) & 0xffffff;
+
+		theContent.paintsEverything = true;
+		theContent.highlightStart = 0;
+		theContent.highlightEnd = 400;
+		theContent.repaint(new Rectangle(0, 10, 100, 10), false);
+		assertEquals(Arrays.asList(new Rectangle(0, 10, 100, 10)), paint());
+		for (int y = 0; y < 100; y++) {
+			int expected = y >= 10 && y < 20 ? HIGHLIGHT : before[y];
+			assertEquals("Row " + y, expected, theImage.getRGB(50, y) & 0xffffff);
+		}
+	}
+
+	/** Tests that damage to the content which hasn't been painted yet moves with the content when the pane scrolls */
+	@Test
+	public void testDirtyAreaScrolls() {
+		createPane();
+		paint();
+		thePane.scrollTo(0, 30);
+		paint();
+
+		theContent.highlightStart = 60;
+		theContent.highlightEnd = 70;
+		theContent.repaint(new Rectangle(0, 60, 100, 10), false);
+		assertTrue(thePane.scrollTo(0, 40));
+		// The damaged rows and the exposed strip are painted together
+		assertEquals(Arrays.asList(new Rectangle(0, 60, 100, 80)), paint());
+		assertShowsContent();
+		for (int y = 20; y < 30; y++)
+			assertEquals("Row " + y, HIGHLIGHT, theImage.getRGB(50, y) & 0xffffff);
+	}
+}
@@ -0,0 +1,62 @@
+package org.quick.base.widget;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.quick.core.LayoutContainer;
+import org.quick.core.QuickDocument;
+import org.quick.core.QuickElement;
+import org.quick.core.parser.QuickParseException;
+import org.quick.core.style.StyleAttributes;
+
+/** Tests elements created from several instances of the same template */
+public class TemplateInstancesTest {
+	/**
+	 * Tests that an attribute whose values are mutable objects, here a layout, gets its own value in each instance of a template even
+	 * though the template's structure is shared
+	 *
+	 * @throws IOException If the Quick document needed by the test cannot be found or read
+	 * @throws QuickParseException If the Quick document needed by the test cannot be parsed
+	 */
+	@Test
+	public void testInstancesDoNotShareMutableValues() throws QuickParseException, IOException {
+		QuickDocument doc = org.quick.QuickTestUtils.parseDoc(TemplateInstancesTest.class.getResource("templateInstances.qml"));
+		TextField first = (TextField) doc.getRoot().getPhysicalChildren().get(0);
+		TextField second = (TextField) doc.getRoot().getPhysicalChildren().get(1);
+		LayoutContainer firstText = (LayoutContainer) first.getValueElement().getParent().get();
+		LayoutContainer secondText = (LayoutContainer) second.getValueElement().getParent().get();
+		assertNotNull(firstText.getLayout());
+		assertNotNull(secondText.getLayout());
+		assertNotSame(firstText.getLayout(), secondText.getLayout());
+	}
+
+	/**
+	 * Tests that an attribute whose values are immutable, here the style of a border's content pane, is parsed once and its value shared by
+	 * every instance of a template
+	 *
+	 * @throws IOException If the Quick document needed by the test cannot be found or read
+	 * @throws QuickParseException If the Quick document needed by the test cannot be parsed
+	 */
+	@Test
+	public void testInstancesShareImmutableValues() throws QuickParseException, IOException {
+		QuickDocument doc = org.quick.QuickTestUtils.parseDoc(TemplateInstancesTest.class.getResource("templateInstances.qml"));
+		TextField first = (TextField) doc.getRoot().getPhysicalChildren().get(0);
+		TextField second = (TextField) doc.getRoot().getPhysicalChildren().get(1);
+		Block firstContent = getBorder(first.getValueElement()).getContentPane();
+		Block secondContent = getBorder(second.getValueElement()).getContentPane();
+		assertNotSame(firstContent, secondContent);
+		assertNotNull(firstContent.atts().get(StyleAttributes.style));
+		assertSame(firstContent.atts().getHolder(StyleAttributes.style).getContainedObservable(),
+			secondContent.atts().getHolder(StyleAttributes.style).getContainedObservable());
+	}
+
+	private static BorderPane getBorder(QuickElement element) {
+		while (!(element instanceof BorderPane))
+			element = element.getParent().get();
+		return (BorderPane) element;
+	}
+}
@@ -0,0 +1,150 @@
+package org.quick.base.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.observe.collect.ObservableList;
+import org.quick.base.model.QuickTreeModel;
+import org.quick.core.QuickDocument;
+import org.quick.core.QuickElement;
+import org.quick.core.QuickException;
+
+/** Tests the row bookkeeping of {@link Tree} as nodes are expanded and collapsed and as the model's children change */
+public class TreeTest {
+	/** A tree model over a hierarchy of elements, whose child lists are observable and modifiable */
+	static class ElementTreeModel implements QuickTreeModel<QuickElement> {
+		private final QuickElement theRoot;
+
+		ElementTreeModel(QuickElement root) {
+			theRoot = root;
+		}
+
+		@Override
+		public QuickElement getRoot() {
+			return theRoot;
+		}
+
+		@Override
+		public ObservableList<QuickElement> getChildren(QuickElement node) {
+			return (ObservableList<QuickElement>) node.ch();
+		}
+	}
+
+	private QuickDocument theDoc;
+
+	private QuickElement node(QuickElement parent, QuickElement... children) {
+		QuickElement node = new QuickElement() {};
+		node.init(theDoc, null, theDoc.cv(), parent, null, null);
+		node.initChildren(Arrays.asList(children));
+		return node;
+	}
+
+	private Tree createTree(QuickElement root) throws QuickException {
+		Tree tree = new Tree();
+		tree.init(theDoc, null, theDoc.cv(), null, null, null);
+		tree.initChildren(Collections.emptyList());
+		tree.atts().set(Tree.model, new ElementTreeModel(root));
+		tree.postCreate();
+		return tree;
+	}
+
+	private static void assertRows(Tree tree, QuickElement... expected) {
+		List<Object> rows = new ArrayList<>();
+		for (int i = 0; i < tree.getItemCount(); i++)
+			rows.add(tree.getValueAt(i));
+		assertEquals(Arrays.asList(expected), rows);
+	}
+
+	/**
+	 * Tests expanding and collapsing nodes, including collapsing a node whose descendants are expanded
+	 *
+	 * @throws QuickException If the tree's model cannot be set
+	 */
+	@Test
+	public void testExpandCollapse() throws QuickException {
+		theDoc = org.quick.QuickTestUtils.createDocument();
+		QuickElement a1 = node(null);
+		QuickElement a2 = node(null);
+		QuickElement a = node(null, a1, a2);
+		QuickElement b1 = node(null);
+		QuickElement b = node(null, b1);
+		QuickElement c = node(null);
+		QuickElement root = node(null, a, b, c);
+		Tree tree = createTree(root);
+
+		// The root is expanded initially
+		assertRows(tree, root, a, b, c);
+		assertEquals(0, tree.getDepth(0));
+		assertEquals(1, tree.getDepth(2));
+
+		assertTrue(tree.setExpanded(1, true));
+		assertFalse(tree.setExpanded(1, true));
+		assertRows(tree, root, a, a1, a2, b, c);
+		assertEquals(2, tree.getDepth(3));
+
+		assertTrue(tree.toggle(4));
+		assertRows(tree, root, a, a1, a2, b, b1, c);
+		assertTrue(tree.isExpanded(4));
+
+		assertTrue(tree.setExpanded(1, false));
+		assertRows(tree, root, a, b, b1, c);
+		assertFalse(tree.isExpanded(1));
+
+		// Collapsing the root hides the expanded descendants, which are restored when it is expanded again
+		assertTrue(tree.toggle(0));
+		assertRows(tree, root);
+		assertTrue(tree.toggle(0));
+		assertRows(tree, root, a, b, b1, c);
+		assertTrue(tree.toggle(1));
+		assertRows(tree, root, a, a1, a2, b, b1, c);
+	}
+
+	/**
+	 * Tests that changes to the model's child lists are reflected in the rows, whether the changed node is expanded or not
+	 *
+	 * @throws QuickException If the tree's model cannot be set
+	 */
+	@Test
+	public void testChildChanges() throws QuickException {
+		theDoc = org.quick.QuickTestUtils.createDocument();
+		QuickElement a1 = node(null);
+		QuickElement a = node(null, a1);
+		QuickElement b1 = node(null);
+		QuickElement b = node(null, b1);
+		QuickElement root = node(null, a, b);
+		Tree tree = createTree(root);
+		tree.setExpanded(2, true);
+		tree.setExpanded(1, true);
+		assertRows(tree, root, a, a1, b, b1);
+
+		// Add to an expanded node
+		QuickElement a2 = node(a);
+		((ObservableList<QuickElement>) a.ch()).add(a2);
+		assertRows(tree, root, a, a1, a2, b, b1);
+
+		// Remove an expanded node
+		((ObservableList<QuickElement>) root.ch()).remove(a);
+		assertRows(tree, root, b, b1);
+
+		// Change the children of a loaded, collapsed node
+		tree.setExpanded(1, false);
+		QuickElement b2 = node(b);
+		((ObservableList<QuickElement>) b.ch()).add(0, b2);
+		assertRows(tree, root, b);
+		tree.setExpanded(1, true);
+		assertRows(tree, root, b, b2, b1);
+
+		// Add a node before expanded siblings
+		QuickElement c = node(root);
+		((ObservableList<QuickElement>) root.ch()).add(0, c);
+		assertRows(tree, root, c, b, b2, b1);
+		assertEquals(2, tree.getDepth(3));
+	}
+}
@@ -0,0 +1,172 @@
+package org.quick.base.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.junit.Test;
+import org.quick.core.QuickDocument;
+import org.quick.core.QuickElement;
+import org.quick.core.layout.SimpleSizeGuide;
+import org.quick.core.layout.SizeGuide;
+
+/** Tests the row recycling and extent estimate of {@link VirtualContainer} */
+public class VirtualContainerTest {
+	/** A row with a fixed height */
+	static class FixedRow extends QuickElement {
+		int height;
+
+		@Override
+		protected void doLayout() {}
+
+		@Override
+		public SizeGuide getHSizer() {
+			return new SimpleSizeGuide(height, height, height, height, height);
+		}
+	}
+
+	/** A container of numbered items whose rows alternate between two heights, and which is only laid out when the test says so */
+	static class TestContainer extends VirtualContainer {
+		final int evenHeight;
+
+		final int oddHeight;
+
+		int itemCount;
+
+		int binds;
+
+		TestContainer(int count, int even, int odd) {
+			itemCount = count;
+			evenHeight = even;
+			oddHeight = odd;
+		}
+
+		RowFactory createRowFactory() {
+			return new RowFactory() {
+				@Override
+				public QuickElement createRow() {
+					return new FixedRow();
+				}
+
+				@Override
+				public void bind(QuickElement row, Object item, int index) {
+					((FixedRow) row).height = index % 2 == 0 ? evenHeight : oddHeight;
+					binds++;
+				}
+			};
+		}
+
+		@Override
+		public int getItemCount() {
+			return itemCount;
+		}
+
+		@Override
+		protected Object getItem(int index) {
+			return Integer.valueOf(index);
+		}
+
+		@Override
+		protected void doLayout() {
+			// Layout is asynchronous, so it is disabled to keep the rows under the test's control
+		}
+
+		void layoutNow() {
+			super.doLayout();
+		}
+	}
+
+	private static TestContainer createContainer(int count, int even, int odd) {
+		QuickDocument doc = org.quick.QuickTestUtils.createDocument();
+		TestContainer container = new TestContainer(count, even, odd);
+		container.init(doc, null, doc.cv(), null, null, null);
+		container.initChildren(Collections.emptyList());
+		container.postCreate();
+		container.setRowFactory(container.createRowFactory());
+		container.bounds().setBounds(0, 0, 100, 100);
+		container.layoutNow();
+		return container;
+	}
+
+	private static Set<QuickElement> rowElements(VirtualContainer container) {
+		Set<QuickElement> elements = Collections.newSetFromMap(new IdentityHashMap<>());
+		elements.addAll(container.ch());
+		return elements;
+	}
+
+	/** Tests that the number of row elements depends on the viewport and not on the number of items, and that rows are reused */
+	@Test
+	public void testRecycling() {
+		TestContainer container = createContainer(1000, 10, 10);
+		// 10 rows in the viewport and 2 rows of overscan below it
+		assertEquals(12, container.binds);
+		assertEquals(12, container.getRowElementCount());
+		assertEquals(0, container.getIndexAt(5));
+		assertEquals(9, container.getIndexAt(95));
+		assertNotNull(container.getRowElement(11));
+		assertNull(container.getRowElement(12));
+
+		// A small scroll binds only the newly exposed row; the row scrolled out is kept as overscan
+		container.binds = 0;
+		assertTrue(container.setScrollOffset(10));
+		container.layoutNow();
+		assertEquals(1, container.binds);
+		assertEquals(1, container.getIndexAt(5));
+		assertNotNull(container.getRowElement(0));
+		assertEquals(-10, container.getRowElement(0).bounds().getY());
+
+		// With overscan on both sides, 14 rows are needed
+		assertTrue(container.setScrollOffset(5000));
+		container.layoutNow();
+		assertEquals(500, container.getIndexAt(5));
+		assertEquals(0, container.getRowElement(500).bounds().getY());
+		assertNull(container.getRowElement(0));
+		assertEquals(14, container.getRowElementCount());
+		Set<QuickElement> elements = rowElements(container);
+
+		// A long scroll rebinds the existing rows without creating any
+		container.binds = 0;
+		assertTrue(container.setScrollOffset(6000));
+		container.layoutNow();
+		assertEquals(14, container.binds);
+		assertEquals(600, container.getIndexAt(5));
+		assertEquals(elements, rowElements(container));
+
+		// Scrolling to the end puts the last row at the bottom of the viewport
+		assertTrue(container.scrollToIndex(999));
+		container.layoutNow();
+		assertEquals(9900, container.getScrollOffset());
+		assertEquals(90, container.getRowElement(999).bounds().getY());
+		assertTrue(elements.containsAll(rowElements(container)));
+	}
+
+	/** Tests that the extent is estimated from the rows that have been measured */
+	@Test
+	public void testExtentEstimate() {
+		TestContainer container = createContainer(1000, 10, 30);
+		// Rows 0-5 fill the viewport and rows 6-7 are overscan, 4 of each height
+		assertEquals(8, container.binds);
+		assertEquals(20, container.getEstimatedRowHeight());
+		assertEquals(20000, container.getEstimatedExtent());
+		assertEquals(200, container.getHSizer().getPreferred(100, false));
+
+		// Re-laying out rows that are already bound doesn't count them again
+		container.layoutNow();
+		assertEquals(8, container.binds);
+		assertEquals(20, container.getEstimatedRowHeight());
+
+		container.itemCount = 5;
+		assertEquals(100, container.getEstimatedExtent());
+		container.itemCount = 0;
+		assertEquals(0, container.getEstimatedExtent());
+		container.layoutNow();
+		assertEquals(-1, container.getIndexAt(5));
+		// Only the spares are kept
+		assertEquals(3, container.getRowElementCount());
+	}
+}
@@ -0,0 +1,17 @@
+<quick>
+	<body layout="base:simple" xmlns:base="../../../../../QuickRegistry.xml">
+		<base:block layout="base:simple" style="bg.color=green" width="100%" top="0" height="50%">
+			<base:label left="0" top="0" height="25%">First label</base:label>
+			<base:block layout="base:simple" left="0" right="100%" top="25%" height="75%">
+				<base:label right="100%" top="0">Second label</base:label>
+				<base:text-field />
+			</base:block>
+		</base:block>
+		<base:block layout="base:simple" top="50%" height="50%">
+			<base:label left="0" top="0">Third label</base:label>
+			<base:button left="0" top="50%">Button text</base:button>
+			Some text
+		</base:block>
+		<base:label style="font.weight=bold">Fourth label</base:label>
+	</body>
+</quick>
@@ -0,0 +1,6 @@
+<quick>
+	<body xmlns:base="../../../../../QuickRegistry.xml">
+		<base:text-field />
+		<base:text-field />
+	</body>
+</quick>
@@ -48,7 +48,7 @@ public class QuickBrowser extends javax.swing.JPanel {
 		theMessageListener = msg -> {
 			printMessage(msg);
 		};
-		for (QuickMessage msg : theContentPane.getEnvironment().msg())
+		for (QuickMessage msg : theContentPane.getEnvironment().msg().allMessages())
 			printMessage(msg);
 	}
 
@@ -3,6 +3,7 @@ package org.quick.browser;
 
 import java.awt.Cursor;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.KeyEvent;
@@ -15,17 +16,26 @@ import org.quick.core.QuickDocument;
 import org.quick.core.QuickDocument.GraphicsGetter;
 import org.quick.core.QuickEnvironment;
 import org.quick.core.QuickHeadSection;
+import org.quick.core.QuickRendering;
 import org.quick.core.event.KeyBoardEvent.KeyCode;
 import org.quick.core.event.MouseEvent.MouseEventType;
 import org.quick.core.parser.QuickParseException;
 import org.quick.core.parser.SimpleParseEnv;
 
-/** An AWT component that renders a Quick document */
+/**
+ * An AWT component that renders a Quick document. The pane presents the document's {@link QuickDocument#getRender() rendering} itself,
+ * repainting only the areas reported as changed by the document, so each update is copied to the screen once.
+ */
 public class QuickContentPane extends java.awt.Component {
+	/** The default minimum interval, in milliseconds, between layouts of the document while the pane is resized in live resize mode */
+	public static final int DEFAULT_LIVE_RESIZE_INTERVAL = 100;
+
 	private QuickEnvironment theEnvironment;
 	private QuickDocument theContent;
-	private BufferedImage theBuffer;
 	private GraphicsGetter theGraphics;
+	private boolean isLiveResize;
+	private final javax.swing.Timer theResizeTimer;
+	private long theLastLayout;
 	private GraphicsGetter theDebugGraphics;
 	private final SimpleObservable<Object> theDispose;
 
@@ -33,12 +43,19 @@ public class QuickContentPane extends java.awt.Component {
 	public QuickContentPane() {
 		super();
 		theDispose = new SimpleObservable<>();
+		theResizeTimer = new javax.swing.Timer(DEFAULT_LIVE_RESIZE_INTERVAL, evt -> layoutContent());
+		theResizeTimer.setRepeats(false);
 		refreshEnvironment();
 		setFocusable(true);
 		theGraphics = new GraphicsGetter() {
 			@Override
 			public Graphics2D getGraphics() {
-				return (Graphics2D) theBuffer.getGraphics();
+				return null; // The document's rendering is presented directly
+			}
+
+			@Override
+			public boolean presentsRender() {
+				return true;
 			}
 
 			@Override
@@ -46,6 +63,16 @@ public class QuickContentPane extends java.awt.Component {
 				repaint();
 			}
 
+			@Override
+			public void updated(int x, int y, int w, int h) {
+				QuickRendering render = theContent == null ? null : theContent.getRender();
+				if (isLiveResize && render != null
+					&& (render.getImage().getWidth() != getWidth() || render.getImage().getHeight() != getHeight()))
+					repaint(); // The rendering is being stretched over the whole pane
+				else
+					repaint(x, y, w, h);
+			}
+
 			@Override
 			public void setCursor(Cursor cursor) {
 				QuickContentPane.this.setCursor(cursor);
@@ -55,12 +82,20 @@ public class QuickContentPane extends java.awt.Component {
 			@Override
 			public void componentResized(ComponentEvent e) {
 				super.componentResized(e);
-				BufferedImage newBuffer = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_4BYTE_ABGR);
-				if (theBuffer != null)
-					newBuffer.getGraphics().drawImage(theBuffer, 0, 0, null);
-				theBuffer = newBuffer;
-				if (getContent() != null)
+				if (getContent() == null)
+					return;
+				if (!isLiveResize) {
+					// Rebound events for the document coalesce, so the document is laid out once the resize settles
 					getContent().setSize(getWidth(), getHeight());
+					return;
+				}
+				long sinceLayout = System.currentTimeMillis() - theLastLayout;
+				if (sinceLayout >= theResizeTimer.getDelay())
+					layoutContent();
+				else if (!theResizeTimer.isRunning()) {
+					theResizeTimer.setInitialDelay((int) (theResizeTimer.getDelay() - sinceLayout));
+					theResizeTimer.start();
+				}
 			}
 		});
 		addMouseListener(new java.awt.event.MouseListener() {
@@ -130,6 +165,48 @@ public class QuickContentPane extends java.awt.Component {
 		theDebugGraphics = graphics;
 	}
 
+	/** @return Whether this pane is in live resize mode */
+	public boolean isLiveResize() {
+		return isLiveResize;
+	}
+
+	/**
+	 * In live resize mode, the document is laid out at a reduced rate while the pane is being resized, and the last rendering is scaled to
+	 * fill the pane in between. Otherwise, the document is laid out once the resize settles.
+	 *
+	 * @param liveResize Whether this pane should be in live resize mode
+	 * @return This pane
+	 */
+	public QuickContentPane setLiveResize(boolean liveResize) {
+		isLiveResize = liveResize;
+		return this;
+	}
+
+	/** @return The minimum interval, in milliseconds, between layouts of the document while the pane is resized in live resize mode */
+	public int getLiveResizeInterval() {
+		return theResizeTimer.getDelay();
+	}
+
+	/**
+	 * @param interval The minimum interval, in milliseconds, between layouts of the document while the pane is resized in live resize
+	 *        mode. This should be greater than {@link org.quick.core.QuickEventQueue.ReboundEvent#SETTLE_TIME}, or layouts will be
+	 *        discarded until the resize settles.
+	 * @return This pane
+	 */
+	public QuickContentPane setLiveResizeInterval(int interval) {
+		if (interval <= 0)
+			throw new IllegalArgumentException("Live resize interval must be positive: " + interval);
+		theResizeTimer.setDelay(interval);
+		return this;
+	}
+
+	private void layoutContent() {
+		theResizeTimer.stop();
+		theLastLayout = System.currentTimeMillis();
+		if (getContent() != null)
+			getContent().setSize(getWidth(), getHeight());
+	}
+
 	/** @return The environment that this content creator uses */
 	public QuickEnvironment getEnvironment() {
 		return theEnvironment;
@@ -187,8 +264,28 @@ public class QuickContentPane extends java.awt.Component {
 
 	@Override
 	public void paint(java.awt.Graphics g) {
-		if (theGraphics != null)
-			g.drawImage(theBuffer, 0, 0, null);
+		QuickDocument doc = theContent;
+		if (doc == null)
+			return;
+		QuickRendering render;
+		do {
+			render = doc.getRender();
+			if (render == null)
+				return;
+		} while (!render.acquire()); // Replaced while we were getting it
+		try {
+			BufferedImage image = render.getImage();
+			int w = image.getWidth(), h = image.getHeight();
+			if (isLiveResize && (getWidth() != w || getHeight() != h)) {
+				// The document hasn't been laid out at this size yet. Stretch the last rendering to fill the pane until it is.
+				if (g instanceof Graphics2D)
+					((Graphics2D) g).setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.drawImage(image, 0, 0, getWidth(), getHeight(), 0, 0, w, h, null);
+			} else
+				g.drawImage(image, 0, 0, null); // Only the clip, i.e. the area being repainted, is copied
+		} finally {
+			render.release();
+		}
 	}
 
 	/*@Override
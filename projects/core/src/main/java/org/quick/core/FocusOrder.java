@@ -0,0 +1,272 @@
+package org.quick.core;
+
+/**
+ * Maintains the focus traversal order of a document as a linked list of its focusable elements, so that the next or previous element to
+ * focus is found in constant time. The traversal order visits each element's children in z-order before the element itself.
+ *
+ * The list is updated incrementally as subtrees are added to or removed from the document, as elements are re-ordered by z-index and as
+ * elements become focusable or not. Elements only store whether they are attached to the document. The links are kept here, for the
+ * focusable elements only.
+ */
+class FocusOrder {
+	/** The neighbors of an element in the traversal order */
+	private static class Link {
+		QuickElement previous;
+
+		QuickElement next;
+	}
+
+	private final java.util.IdentityHashMap<QuickElement, Link> theLinks;
+
+	private QuickElement theHead;
+
+	private QuickElement theTail;
+
+	/** @param root The root of the document whose focus order to maintain */
+	FocusOrder(QuickElement root) {
+		theLinks = new java.util.IdentityHashMap<>();
+		insert(root);
+	}
+
+	/** @return The first element in the traversal order, or null if no element is focusable */
+	synchronized QuickElement getFirst() {
+		return theHead;
+	}
+
+	/** @return The last element in the traversal order, or null if no element is focusable */
+	synchronized QuickElement getLast() {
+		return theTail;
+	}
+
+	/**
+	 * @param element The element to get the next element for, typically the focused element. This need not be focusable.
+	 * @return The next focusable element after the given element, wrapping around to the first focusable element. May be the element
+	 *         itself if it is the only focusable element. Null if no element is focusable.
+	 */
+	synchronized QuickElement next(QuickElement element) {
+		QuickElement next;
+		Link link = theLinks.get(element);
+		if (link != null)
+			next = link.next;
+		else if (element.isFocusAttached)
+			next = after(element);
+		else
+			next = null;
+		return next != null ? next : theHead;
+	}
+
+	/**
+	 * @param element The element to get the previous element for, typically the focused element. This need not be focusable.
+	 * @return The previous focusable element before the given element, wrapping around to the last focusable element. May be the element
+	 *         itself if it is the only focusable element. Null if no element is focusable.
+	 */
+	synchronized QuickElement previous(QuickElement element) {
+		QuickElement previous;
+		Link link = theLinks.get(element);
+		if (link != null)
+			previous = link.previous;
+		else if (element.isFocusAttached)
+			previous = before(element);
+		else
+			previous = null;
+		return previous != null ? previous : theTail;
+	}
+
+	/**
+	 * Called when a child is added to an element
+	 *
+	 * @param parent The parent element
+	 * @param child The child that was added
+	 */
+	synchronized void childAdded(QuickElement parent, QuickElement child) {
+		if (parent.isFocusAttached && !child.isFocusAttached)
+			insert(child);
+	}
+
+	/**
+	 * Called when a child is removed from its parent
+	 *
+	 * @param child The child that was removed
+	 */
+	synchronized void childRemoved(QuickElement child) {
+		if (child.isFocusAttached)
+			remove(child);
+	}
+
+	/**
+	 * Called when an element's z-index changes, which may change its place in the traversal order
+	 *
+	 * @param element The element whose z-index changed
+	 */
+	synchronized void reordered(QuickElement element) {
+		if (!element.isFocusAttached)
+			return;
+		remove(element);
+		insert(element);
+	}
+
+	/**
+	 * Called when an element's {@link QuickElement#isFocusable() focusability} changes
+	 *
+	 * @param element The element that has become focusable or unfocusable
+	 */
+	synchronized void focusableChanged(QuickElement element) {
+		if (!element.isFocusAttached || element.isFocusable() == theLinks.containsKey(element))
+			return;
+		if (theLinks.containsKey(element))
+			unlink(element);
+		else {
+			// An element follows its own descendants
+			theLinks.put(element, new Link());
+			link(element, element, after(element));
+		}
+	}
+
+	/** Adds an element and its descendants to the traversal order */
+	private void insert(QuickElement element) {
+		QuickElement [] chain = new QuickElement[2];
+		attach(element, chain);
+		if (chain[0] != null)
+			link(chain[0], chain[1], after(element));
+	}
+
+	/**
+	 * Marks an element and its descendants as attached and links its focusable elements together in traversal order
+	 *
+	 * @param element The element to attach
+	 * @param chain The first and last elements of the chain being built
+	 */
+	private void attach(QuickElement element, QuickElement [] chain) {
+		element.isFocusAttached = true;
+		for (QuickElement child : element.getChildManager().getZOrder())
+			attach(child, chain);
+		if (element.isFocusable()) {
+			Link link = new Link();
+			link.previous = chain[1];
+			theLinks.put(element, link);
+			if (chain[1] != null)
+				theLinks.get(chain[1]).next = element;
+			else
+				chain[0] = element;
+			chain[1] = element;
+		}
+	}
+
+	/** Removes an element and its descendants from the traversal order */
+	private void remove(QuickElement element) {
+		element.isFocusAttached = false;
+		if (theLinks.containsKey(element))
+			unlink(element);
+		for (QuickElement child : element.getChildManager())
+			if (child.isFocusAttached)
+				remove(child);
+	}
+
+	/** Links a chain of elements into the list before the given element, or at the end of the list if it is null */
+	private void link(QuickElement first, QuickElement last, QuickElement before) {
+		QuickElement previous = before == null ? theTail : theLinks.get(before).previous;
+		theLinks.get(first).previous = previous;
+		theLinks.get(last).next = before;
+		if (previous == null)
+			theHead = first;
+		else
+			theLinks.get(previous).next = first;
+		if (before == null)
+			theTail = last;
+		else
+			theLinks.get(before).previous = last;
+	}
+
+	private void unlink(QuickElement element) {
+		Link link = theLinks.remove(element);
+		if (link.previous == null)
+			theHead = link.next;
+		else
+			theLinks.get(link.previous).next = link.next;
+		if (link.next == null)
+			theTail = link.previous;
+		else
+			theLinks.get(link.next).previous = link.previous;
+	}
+
+	/** @return The first focusable element after the given element and all of its descendants, or null if there is none */
+	private QuickElement after(QuickElement element) {
+		QuickElement parent = element.getParent().get();
+		for (; parent != null && parent.isFocusAttached; element = parent, parent = parent.getParent().get()) {
+			QuickElement [] siblings = siblings(parent, element);
+			boolean found = false;
+			for (QuickElement sibling : siblings) {
+				if (found) {
+					QuickElement first = first(sibling);
+					if (first != null)
+						return first;
+				} else if (sibling == element)
+					found = true;
+			}
+			if (theLinks.containsKey(parent))
+				return parent;
+		}
+		return null;
+	}
+
+	/** @return The last focusable element before the given element, which is not itself in the traversal order, or null if there is none */
+	private QuickElement before(QuickElement element) {
+		QuickElement [] children = element.getChildManager().getReverseZOrder();
+		for (QuickElement child : children) {
+			QuickElement last = last(child);
+			if (last != null)
+				return last;
+		}
+		QuickElement parent = element.getParent().get();
+		for (; parent != null && parent.isFocusAttached; element = parent, parent = parent.getParent().get()) {
+			QuickElement [] siblings = siblings(parent, element);
+			boolean found = false;
+			for (int i = siblings.length - 1; i >= 0; i--) {
+				if (found) {
+					QuickElement last = last(siblings[i]);
+					if (last != null)
+						return last;
+				} else if (siblings[i] == element)
+					found = true;
+			}
+		}
+		return null;
+	}
+
+	/** @return The first element in the traversal order in the given element's subtree */
+	private QuickElement first(QuickElement element) {
+		if (!element.isFocusAttached)
+			return null;
+		for (QuickElement child : element.getChildManager().getZOrder()) {
+			QuickElement first = first(child);
+			if (first != null)
+				return first;
+		}
+		return theLinks.containsKey(element) ? element : null;
+	}
+
+	/** @return The last element in the traversal order in the given element's subtree */
+	private QuickElement last(QuickElement element) {
+		if (!element.isFocusAttached)
+			return null;
+		if (theLinks.containsKey(element))
+			return element;
+		for (QuickElement child : element.getChildManager().getReverseZOrder()) {
+			QuickElement last = last(child);
+			if (last != null)
+				return last;
+		}
+		return null;
+	}
+
+	/** @return The children of the given parent in z-order, making sure the z-order includes the given child */
+	private static QuickElement [] siblings(QuickElement parent, QuickElement child) {
+		QuickElement [] siblings = parent.getChildManager().getZOrder();
+		for (QuickElement sibling : siblings)
+			if (sibling == child)
+				return siblings;
+		// The cached z-order may not have caught up with the child being added
+		parent.getChildManager().invalidateZOrder();
+		return parent.getChildManager().getZOrder();
+	}
+}
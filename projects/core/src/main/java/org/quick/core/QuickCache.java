@@ -1,11 +1,29 @@
 package org.quick.core;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-
-import org.qommons.ThreadPoolWorker;
-import org.qommons.Worker;
-
-/** Enables caching of resources in Quick */
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enables caching of resources in Quick. The cache's {@link #setTotalBudget(long) total memory budget} is divided among the types of cached
+ * item, so that large items of one type cannot evict small, frequently used items of another. A type may be given its own
+ * {@link #setBudget(CacheItemType, long) budget} or {@link CacheItemType#getBudgetShare() reserve} a share of the total by default, and
+ * the other types share what remains of the total equally. When a type's budget is full, a new item is only admitted if it has been
+ * requested more often recently than each of the least-recently-used items it would replace.
+ */
 public class QuickCache {
 	/**
 	 * Represents a type of item that can be cached
@@ -28,6 +46,79 @@ public class QuickCache {
 		 * @return The size, in bytes, of the given cached value
 		 */
 		int size(V value);
+
+		/**
+		 * @return Whether values of this type that are evicted from the cache should be kept softly reachable, so they may be recovered
+		 *         without being generated again until the garbage collector needs the memory. This is useful for large values such as
+		 *         pixel data.
+		 */
+		default boolean spillsToSoftReference() {
+			return false;
+		}
+
+		/**
+		 * @return The fraction of the cache's {@link QuickCache#getTotalBudget() total budget} that this type is given by default, or 0 if
+		 *         this type shares what remains of the total with the other types without budgets of their own. Types with large values
+		 *         should reserve a share, so that their budget does not shrink and evict their items each time a new type is used.
+		 */
+		default double getBudgetShare() {
+			return 0;
+		}
+
+		/**
+		 * Called when a value is evicted from the cache or is not admitted to it. Code that retrieved the value earlier may still be using
+		 * it, and the cache may recover it if this type {@link #spillsToSoftReference() spills}, so the value must remain usable. It may
+		 * release resources, such as open streams, that it can acquire again when needed.
+		 *
+		 * @param value The value that was evicted
+		 */
+		default void evicted(V value) {
+		}
+	}
+
+	/**
+	 * A type of item that may be stored in the cache's {@link QuickCache#setDiskCache(QuickDiskCache) disk tier}, so that it need not be
+	 * generated again after the process restarts
+	 *
+	 * @param <K> The key type for the cached item type
+	 * @param <V> The value type for the cached item type
+	 * @param <E> The type of exception that may be thrown when this item type generates a value
+	 */
+	public interface PersistentItemType<K, V, E extends Exception> extends CacheItemType<K, V, E> {
+		/**
+		 * @param key The key of the item
+		 * @return A string identifying the item across processes, unique among all persistent item types, or null if the item should not
+		 *         be persisted
+		 */
+		String getPersistentKey(K key);
+
+		/**
+		 * The persistent key identifies an item, but not the version of its source. The validator is stored with the persisted item and
+		 * the item is only read back if the validator still matches.
+		 *
+		 * @param key The key of the item
+		 * @return A string that changes whenever the item's source changes, e.g. a hash of its content, an ETag or a modification time. Null
+		 *         if the source never changes.
+		 * @throws IOException If the source cannot be checked. The persisted item is not used in this case.
+		 */
+		default String getValidator(K key) throws IOException {
+			return null;
+		}
+
+		/**
+		 * @param value The value to persist
+		 * @param out The stream to write the value to
+		 * @throws IOException If the value cannot be written
+		 */
+		void write(V value, OutputStream out) throws IOException;
+
+		/**
+		 * @param key The key of the item
+		 * @param data The persisted data, as written by {@link #write(Object, OutputStream)}
+		 * @return The value read from the data
+		 * @throws IOException If the data cannot be read
+		 */
+		V read(K key, ByteBuffer data) throws IOException;
 	}
 
 	/**
@@ -70,6 +161,84 @@ public class QuickCache {
 		}
 	}
 
+	/** A snapshot of the statistics for one type of item in a cache */
+	public static class CacheStats {
+		private final long theHits;
+		private final long theMisses;
+		private final long theSpillHits;
+		private final long theDiskHits;
+		private final long theEvictions;
+		private final long theRejections;
+		private final int theEntryCount;
+		private final long theSize;
+		private final long theBudget;
+
+		CacheStats(long hits, long misses, long spillHits, long diskHits, long evictions, long rejections, int entryCount, long size,
+			long budget) {
+			theHits = hits;
+			theMisses = misses;
+			theSpillHits = spillHits;
+			theDiskHits = diskHits;
+			theEvictions = evictions;
+			theRejections = rejections;
+			theEntryCount = entryCount;
+			theSize = size;
+			theBudget = budget;
+		}
+
+		/** @return The number of requests for items that were in the cache or being generated */
+		public long getHits() {
+			return theHits;
+		}
+
+		/** @return The number of requests for items that needed to be generated */
+		public long getMisses() {
+			return theMisses;
+		}
+
+		/** @return The number of requests for items that had been evicted but were recovered from a soft reference */
+		public long getSpillHits() {
+			return theSpillHits;
+		}
+
+		/** @return The number of misses that were satisfied from the disk tier instead of being generated */
+		public long getDiskHits() {
+			return theDiskHits;
+		}
+
+		/** @return The number of items evicted to make room for others */
+		public long getEvictions() {
+			return theEvictions;
+		}
+
+		/** @return The number of generated items that were not admitted to the cache */
+		public long getRejections() {
+			return theRejections;
+		}
+
+		/** @return The number of items currently in the cache, including those being generated */
+		public int getEntryCount() {
+			return theEntryCount;
+		}
+
+		/** @return The total size, in bytes, of the items currently in the cache */
+		public long getSize() {
+			return theSize;
+		}
+
+		/** @return The memory budget, in bytes, for the item type */
+		public long getBudget() {
+			return theBudget;
+		}
+
+		@Override
+		public String toString() {
+			return "hits=" + theHits + ", misses=" + theMisses + ", spillHits=" + theSpillHits + ", diskHits=" + theDiskHits
+				+ ", evictions=" + theEvictions
+				+ ", rejections=" + theRejections + ", entries=" + theEntryCount + ", size=" + theSize + "/" + theBudget;
+		}
+	}
+
 	private static class CacheKey<K, V, E extends Exception> {
 		private CacheItemType<K, V, E> theType;
 
@@ -83,12 +252,24 @@ public class QuickCache {
 
 		final ArrayList<ItemReceiver<K, V>> theReceivers;
 
+		final CompletableFuture<V> theFuture;
+
+		/** The size charged against the type's budget, set when the item is admitted */
+		long theSize;
+
+		/**
+		 * Elements that painted while the item was loading, to repaint when it is available. Null until an element paints, and again
+		 * once the elements have been repainted. Guarded by this key.
+		 */
+		java.util.Set<QuickElement> thePaintWaiters;
+
 		CacheKey(CacheItemType<K, V, E> type, K key) {
 			if (type == null || key == null)
 				throw new NullPointerException();
 			theType = type;
 			theKey = key;
 			theReceivers = new ArrayList<>();
+			theFuture = new CompletableFuture<>();
 			isLoading = true;
 		}
 
@@ -114,33 +295,401 @@ public class QuickCache {
 		}
 	}
 
-	private org.qommons.DemandCache<CacheKey<?, ?, ?>, CacheKey<?, ?, ?>> theInternalCache;
+	/**
+	 * A count-min sketch of how often keys have been requested, with small saturating counters that are halved periodically so that the
+	 * sketch favors recent history
+	 */
+	private static class FrequencySketch {
+		private static final int [] SEEDS = new int[] {0x97cb3127, 0xb3c4ad05, 0xc2b2ae35, 0x27d4eb2f};
+
+		private static final int MAX_COUNT = 15;
+
+		private final byte [][] theCounts;
+
+		private final int theMask;
+
+		private final int theSampleSize;
+
+		private int theAdditions;
+
+		FrequencySketch(int width) {
+			theCounts = new byte[SEEDS.length][width];
+			theMask = width - 1;
+			theSampleSize = width * 10;
+		}
+
+		void increment(Object key) {
+			int hash = key.hashCode();
+			boolean added = false;
+			for (int i = 0; i < SEEDS.length; i++) {
+				int idx = index(hash, i);
+				if (theCounts[i][idx] < MAX_COUNT) {
+					theCounts[i][idx]++;
+					added = true;
+				}
+			}
+			if (added && ++theAdditions >= theSampleSize)
+				age();
+		}
+
+		int frequency(Object key) {
+			int hash = key.hashCode();
+			int freq = MAX_COUNT;
+			for (int i = 0; i < SEEDS.length; i++)
+				freq = Math.min(freq, theCounts[i][index(hash, i)]);
+			return freq;
+		}
+
+		private int index(int hash, int row) {
+			int h = hash * SEEDS[row];
+			h ^= h >>> 16;
+			return h & theMask;
+		}
+
+		private void age() {
+			for (byte [] row : theCounts)
+				for (int i = 0; i < row.length; i++)
+					row[i] >>= 1;
+			theAdditions /= 2;
+		}
+	}
+
+	/** A soft reference to an evicted value that remembers its key so it can be purged once cleared */
+	private static class SpillReference extends SoftReference<Object> {
+		final Object key;
+
+		SpillReference(Object k, Object value, ReferenceQueue<Object> queue) {
+			super(value, queue);
+			key = k;
+		}
+	}
+
+	/** The cached items of a single type. All access is synchronized on the segment. */
+	private static class TypeSegment {
+		/** The size charged for a cached generation error */
+		private static final int ERROR_SIZE = 64;
+
+		final CacheItemType<?, ?, ?> type;
+
+		final LinkedHashMap<Object, CacheKey<?, ?, ?>> entries;
+
+		final FrequencySketch sketch;
+
+		final HashMap<Object, SpillReference> spilled;
+
+		final ReferenceQueue<Object> spillQueue;
+
+		long budget;
+
+		long size;
+
+		long hits;
+
+		long misses;
+
+		long spillHits;
+
+		long diskHits;
+
+		long evictions;
+
+		long rejections;
+
+		TypeSegment(CacheItemType<?, ?, ?> t, long bgt) {
+			type = t;
+			budget = bgt;
+			entries = new LinkedHashMap<>(16, .75f, true);
+			sketch = new FrequencySketch(1024);
+			if (t.spillsToSoftReference()) {
+				spilled = new HashMap<>();
+				spillQueue = new ReferenceQueue<>();
+			} else {
+				spilled = null;
+				spillQueue = null;
+			}
+		}
+
+		/** Called when an item has finished generating or has been recovered from a spill */
+		void admit(CacheKey<?, ?, ?> entry) {
+			if (entries.get(entry.getKey()) != entry)
+				return; // Removed while generating
+			long entrySize;
+			if (entry.theError != null)
+				entrySize = ERROR_SIZE;
+			else
+				entrySize = Math.max(0, ((CacheItemType<?, Object, ?>) type).size(entry.theValue));
+			entry.theSize = entrySize;
+			if (entrySize > budget) {
+				reject(entry);
+				return;
+			}
+			if (size + entrySize > budget) {
+				// Choose all the victims before evicting any, so that nothing is evicted for a candidate that is not admitted
+				int candidateFreq = sketch.frequency(entry.getKey());
+				ArrayList<CacheKey<?, ?, ?>> victims = new ArrayList<>();
+				long freed = 0;
+				for (CacheKey<?, ?, ?> victim : entries.values()) {
+					if (size - freed + entrySize <= budget)
+						break;
+					if (victim == entry || victim.isLoading)
+						continue;
+					if (candidateFreq <= sketch.frequency(victim.getKey())) {
+						reject(entry);
+						return;
+					}
+					victims.add(victim);
+					freed += victim.theSize;
+				}
+				if (size - freed + entrySize > budget) {
+					reject(entry);
+					return;
+				}
+				for (CacheKey<?, ?, ?> victim : victims) {
+					entries.remove(victim.getKey());
+					size -= victim.theSize;
+					evictions++;
+					spill(victim);
+				}
+			}
+			size += entrySize;
+		}
+
+		private void reject(CacheKey<?, ?, ?> entry) {
+			entries.remove(entry.getKey());
+			rejections++;
+			spill(entry);
+		}
+
+		void remove(CacheKey<?, ?, ?> entry) {
+			if (!entry.isLoading)
+				size -= entry.theSize;
+			if (spilled != null)
+				spilled.remove(entry.getKey());
+		}
+
+		private void spill(CacheKey<?, ?, ?> entry) {
+			if (entry.theError != null || entry.theValue == null)
+				return;
+			((CacheItemType<?, Object, ?>) type).evicted(entry.theValue);
+			if (spilled == null)
+				return;
+			spilled.put(entry.getKey(), new SpillReference(entry.getKey(), entry.theValue, spillQueue));
+		}
+
+		/**
+		 * @param key The key to recover the value of
+		 * @param remove Whether to remove the value from the spilled values, i.e. because it is being re-admitted
+		 * @return The spilled value for the key, if it has not been reclaimed
+		 */
+		Object unspill(Object key, boolean remove) {
+			if (spilled == null)
+				return null;
+			SpillReference ref;
+			while ((ref = (SpillReference) spillQueue.poll()) != null) {
+				if (spilled.get(ref.key) == ref)
+					spilled.remove(ref.key);
+			}
+			ref = remove ? spilled.remove(key) : spilled.get(key);
+			return ref == null ? null : ref.get();
+		}
+
+		CacheStats getStats() {
+			return new CacheStats(hits, misses, spillHits, diskHits, evictions, rejections, entries.size(), size, budget);
+		}
+	}
+
+	/** The default number of threads used to generate cached items */
+	public static final int DEFAULT_WORKER_COUNT = 4;
+
+	/** The default total memory budget, in bytes, shared by all types of cached item */
+	public static final long DEFAULT_BUDGET = 100000000L;
+
+	private final ConcurrentHashMap<CacheItemType<?, ?, ?>, TypeSegment> theSegments;
 
-	private final Object theOuterLock;
+	private final ConcurrentHashMap<CacheItemType<?, ?, ?>, Long> theBudgets;
 
-	private Worker theWorker;
+	private volatile long theTotalBudget;
+
+	private final ThreadPoolExecutor theWorker;
+
+	private volatile QuickDiskCache theDiskCache;
 
 	/** Creates a Quick cache */
 	public QuickCache() {
-		theInternalCache = new org.qommons.DemandCache<>(new org.qommons.DemandCache.Qualitizer<CacheKey<?, ?, ?>, CacheKey<?, ?, ?>>() {
-			@Override
-			public float quality(CacheKey<?, ?, ?> key, CacheKey<?, ?, ?> value) {
-				if(key.isLoading)
-					return 1000000000f;
-				else
-					return 1;
+		theSegments = new ConcurrentHashMap<>();
+		theBudgets = new ConcurrentHashMap<>();
+		theTotalBudget = DEFAULT_BUDGET;
+		AtomicInteger threadCount = new AtomicInteger();
+		theWorker = new ThreadPoolExecutor(DEFAULT_WORKER_COUNT, DEFAULT_WORKER_COUNT, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+			r -> {
+				Thread thread = new Thread(r, "Quick Cache Worker " + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		theWorker.allowCoreThreadTimeOut(true);
+	}
+
+	/** @return The number of threads this cache uses to generate items */
+	public int getWorkerCount() {
+		return theWorker.getMaximumPoolSize();
+	}
+
+	/**
+	 * @param count The number of threads this cache should use to generate items
+	 * @return This cache
+	 */
+	public QuickCache setWorkerCount(int count) {
+		if (count < 1)
+			throw new IllegalArgumentException("At least one worker is required: " + count);
+		if (count > theWorker.getMaximumPoolSize()) {
+			theWorker.setMaximumPoolSize(count);
+			theWorker.setCorePoolSize(count);
+		} else {
+			theWorker.setCorePoolSize(count);
+			theWorker.setMaximumPoolSize(count);
+		}
+		return this;
+	}
+
+	/** @return The disk tier of this cache, or null if this cache is memory-only */
+	public QuickDiskCache getDiskCache() {
+		return theDiskCache;
+	}
+
+	/**
+	 * @param diskCache The disk tier for this cache to store {@link PersistentItemType persistent} items in, or null to make this cache
+	 *        memory-only
+	 * @return This cache
+	 */
+	public QuickCache setDiskCache(QuickDiskCache diskCache) {
+		theDiskCache = diskCache;
+		return this;
+	}
+
+	/** @return The memory budget, in bytes, for all the items in this cache */
+	public long getTotalBudget() {
+		return theTotalBudget;
+	}
+
+	/**
+	 * @param budget The memory budget, in bytes, for all the items in this cache. Budgets {@link #setBudget(CacheItemType, long) set} for
+	 *        individual types are taken out of this total.
+	 * @return This cache
+	 */
+	public QuickCache setTotalBudget(long budget) {
+		theTotalBudget = budget;
+		rebalance();
+		return this;
+	}
+
+	/**
+	 * @param type The type of item
+	 * @return The memory budget, in bytes, for items of the given type
+	 */
+	public long getBudget(CacheItemType<?, ?, ?> type) {
+		Long budget = getOwnBudget(type);
+		return budget != null ? budget : getSharedBudget(type);
+	}
+
+	/**
+	 * @param type The type of item
+	 * @return The budget {@link #setBudget(CacheItemType, long) set} for the type or {@link CacheItemType#getBudgetShare() reserved} by
+	 *         it, or null if the type shares the remaining budget
+	 */
+	private Long getOwnBudget(CacheItemType<?, ?, ?> type) {
+		Long budget = theBudgets.get(type);
+		if (budget == null && type.getBudgetShare() > 0)
+			budget = (long) (theTotalBudget * type.getBudgetShare());
+		return budget;
+	}
+
+	/**
+	 * @param type The type of item to set the budget for
+	 * @param budget The memory budget, in bytes, for items of the given type, overriding its {@link CacheItemType#getBudgetShare() default
+	 *        share}. This is taken out of the {@link #getTotalBudget() total} budget, so the more is given to one type, the less the types
+	 *        without a budget of their own share.
+	 * @return This cache
+	 */
+	public QuickCache setBudget(CacheItemType<?, ?, ?> type, long budget) {
+		theBudgets.put(type, budget);
+		rebalance();
+		return this;
+	}
+
+	/**
+	 * @param type The type of item to get the budget for, or null
+	 * @return The budget for each type that does not have its own budget, including the given type if it is not yet in the cache
+	 */
+	private long getSharedBudget(CacheItemType<?, ?, ?> type) {
+		long remaining = theTotalBudget;
+		for (Long budget : theBudgets.values())
+			remaining -= budget;
+		int sharing = 0;
+		for (CacheItemType<?, ?, ?> segmentType : theSegments.keySet()) {
+			if (theBudgets.containsKey(segmentType))
+				continue;
+			Long budget = getOwnBudget(segmentType);
+			if (budget != null)
+				remaining -= budget;
+			else
+				sharing++;
+		}
+		if (type != null && !theSegments.containsKey(type) && getOwnBudget(type) == null)
+			sharing++;
+		return Math.max(0, remaining) / Math.max(1, sharing);
+	}
+
+	/** Updates the budget of each type after the total budget or the set of types has changed */
+	private void rebalance() {
+		synchronized (theBudgets) {
+			long shared = getSharedBudget(null);
+			for (TypeSegment segment : theSegments.values()) {
+				Long budget = getOwnBudget(segment.type);
+				setSegmentBudget(segment, budget != null ? budget : shared);
 			}
+		}
+	}
 
-			@Override
-			public float size(CacheKey<?, ?, ?> key, CacheKey<?, ?, ?> value) {
-				if(key.isLoading)
-					return 0;
-				else
-					return ((CacheKey<?, Object, ?>) key).getType().size(value.theValue);
+	private static void setSegmentBudget(TypeSegment segment, long budget) {
+		synchronized (segment) {
+			segment.budget = budget;
+			Iterator<CacheKey<?, ?, ?>> iter = segment.entries.values().iterator();
+			while (segment.size > budget && iter.hasNext()) {
+				CacheKey<?, ?, ?> victim = iter.next();
+				if (victim.isLoading)
+					continue;
+				iter.remove();
+				segment.size -= victim.theSize;
+				segment.evictions++;
+				segment.spill(victim);
+			}
+		}
+	}
+
+	/**
+	 * @param type The type of item
+	 * @return The current statistics for items of the given type in this cache
+	 */
+	public CacheStats getStats(CacheItemType<?, ?, ?> type) {
+		TypeSegment segment = theSegments.get(type);
+		if (segment == null)
+			return new CacheStats(0, 0, 0, 0, 0, 0, 0, 0, getBudget(type));
+		synchronized (segment) {
+			return segment.getStats();
+		}
+	}
+
+	private TypeSegment getSegment(CacheItemType<?, ?, ?> type) {
+		TypeSegment segment = theSegments.get(type);
+		if (segment == null) {
+			TypeSegment created = new TypeSegment(type, getBudget(type));
+			segment = theSegments.putIfAbsent(type, created);
+			if (segment == null) {
+				segment = created;
+				rebalance(); // The new type takes a share of the budget
 			}
-		}, 100000000f, 60L * 60 * 1000);
-		theOuterLock = new Object();
-		theWorker = new ThreadPoolWorker("Quick Cache Worker", 4);
+		}
+		return segment;
 	}
 
 	/**
@@ -158,39 +707,34 @@ public class QuickCache {
 	 */
 	public <K, V, E extends Exception> V getAndWait(QuickEnvironment env, CacheItemType<K, V, E> type, K key, boolean generate)
 		throws CacheException {
-		Object[] reportedValue = new Object[1];
-		Throwable[] reportedException = new Throwable[1];
-		boolean[] firstThrown = new boolean[1];
-		boolean[] reported = new boolean[1];
 		if (generate) {
-			get(env, type, key, new ItemReceiver<K, V>() {
-				@Override
-				public void itemGenerated(K key2, V value) {
-					reportedValue[0] = value;
-					reported[0] = true;
-				}
-
-				@Override
-				public void errorOccurred(K key2, Throwable exception, boolean firstReport) {
-					reportedException[0] = exception;
-					firstThrown[0] = firstReport;
-					reported[0] = true;
-				}
-			});
-
-			while (!reported[0]) {
-				try {
-					Thread.sleep(25);
-				} catch (InterruptedException e) {
+			boolean [] generated = new boolean[1];
+			CacheKey<K, V, E> stored = getEntry(env, type, key, generated);
+			boolean firstThrown = generated[0] || stored.isLoading;
+			boolean interrupted = false;
+			try {
+				while (true) {
+					try {
+						return stored.theFuture.get();
+					} catch (InterruptedException e) {
+						interrupted = true;
+					} catch (ExecutionException e) {
+						throw new CacheException(e.getCause(), firstThrown);
+					}
 				}
+			} finally {
+				if (interrupted)
+					Thread.currentThread().interrupt();
 			}
-			if (reportedException[0] != null)
-				throw new CacheException(reportedException[0], firstThrown[0]);
-			else
-				return (V) reportedValue[0];
 		} else {
-			CacheKey<K, V, E> stored = (CacheKey<K, V, E>) theInternalCache.get(new CacheKey<>(type, key));
-			if (stored == null)
+			TypeSegment segment = getSegment(type);
+			CacheKey<K, V, E> stored;
+			synchronized (segment) {
+				stored = (CacheKey<K, V, E>) segment.entries.get(key);
+				if (stored == null)
+					return (V) segment.unspill(key, false);
+			}
+			if (stored.isLoading)
 				return null;
 			else if (stored.theError != null)
 				throw new CacheException(stored.theError, false);
@@ -199,6 +743,66 @@ public class QuickCache {
 		}
 	}
 
+	/**
+	 * Retrieves a cached item, generating it in the background if it is not cached. If the item is already available, the returned future
+	 * is already complete, so {@link CompletableFuture#getNow(Object) getNow} may be used as a synchronous fast path.
+	 *
+	 * @param <K> The type of key for the cached item
+	 * @param <V> The type of value for the cached item
+	 * @param <E> The type of exception that may be thrown when generating the cached item
+	 * @param env The Quick environment to use to generate the value
+	 * @param type The type of the cached item to get
+	 * @param key The key of the cached item to get
+	 * @return A future that completes with the cached value, or exceptionally with the error thrown generating it
+	 */
+	public <K, V, E extends Exception> CompletableFuture<V> getAsync(QuickEnvironment env, CacheItemType<K, V, E> type, K key) {
+		CompletableFuture<V> future = getEntry(env, type, key, null).theFuture;
+		if (future.isDone())
+			return future;
+		return future.thenApply(v -> v); // Don't let callers cancel or complete the shared future
+	}
+
+	/**
+	 * Retrieves a cached item for use in painting an element without blocking. If the item is not yet available, null is returned so that
+	 * the caller can render a placeholder, and the element is repainted when the item becomes available.
+	 *
+	 * @param <K> The type of key for the cached item
+	 * @param <V> The type of value for the cached item
+	 * @param <E> The type of exception that may be thrown when generating the cached item
+	 * @param element The element being painted
+	 * @param type The type of the cached item to get
+	 * @param key The key of the cached item to get
+	 * @return The cached value, or null if it is still being generated
+	 * @throws CacheException If an exception occurred generating the cache value
+	 */
+	public <K, V, E extends Exception> V getForPaint(QuickElement element, CacheItemType<K, V, E> type, K key) throws CacheException {
+		CacheKey<K, V, E> stored = getEntry(element.getDocument().getEnvironment(), type, key, null);
+		if (!stored.theFuture.isDone()) {
+			boolean first;
+			synchronized (stored) {
+				first = stored.thePaintWaiters == null;
+				if (first)
+					stored.thePaintWaiters = java.util.Collections.newSetFromMap(new java.util.IdentityHashMap<>());
+				stored.thePaintWaiters.add(element);
+			}
+			// Elements are painted repeatedly while the item loads. Only register one callback for all of them.
+			if (first)
+				stored.theFuture.whenComplete((value, err) -> {
+					ArrayList<QuickElement> waiters;
+					synchronized (stored) {
+						waiters = new ArrayList<>(stored.thePaintWaiters);
+						stored.thePaintWaiters = null;
+					}
+					for (QuickElement waiter : waiters)
+						waiter.repaint(null, false);
+				});
+			return null;
+		}
+		if (stored.theError != null)
+			throw new CacheException(stored.theError, false);
+		return stored.theValue;
+	}
+
 	/**
 	 * An asynchronous get method
 	 *
@@ -211,20 +815,8 @@ public class QuickCache {
 	 * @param receiver A receiver to be notified when the cached item is available. May be null.
 	 */
 	public <K, V, E extends Exception> void get(QuickEnvironment env, CacheItemType<K, V, E> type, K key, ItemReceiver<K, V> receiver) {
-		CacheKey<K, V, E> cacheKey = new CacheKey<>(type, key);
-		CacheKey<K, V, E> stored = (CacheKey<K, V, E>) theInternalCache.get(cacheKey);
-		boolean needsGen = stored == null;
-		if (needsGen) {
-			synchronized(theOuterLock) {
-				stored = (CacheKey<K, V, E>) theInternalCache.get(cacheKey);
-				needsGen = stored == null;
-				if (needsGen) {
-					stored = cacheKey;
-					theInternalCache.put(cacheKey, stored);
-					startGet(env, stored);
-				}
-			}
-		}
+		boolean [] generated = new boolean[1];
+		CacheKey<K, V, E> stored = getEntry(env, type, key, generated);
 		if (stored.isLoading && receiver != null) {
 			synchronized(stored.theReceivers) {
 				if(stored.isLoading) {
@@ -233,12 +825,47 @@ public class QuickCache {
 				}
 			}
 		}
+		if (receiver == null)
+			return;
 		if (stored.theError != null)
-			receiver.errorOccurred(key, stored.theError, needsGen);
+			receiver.errorOccurred(key, stored.theError, generated[0]);
 		else
 			receiver.itemGenerated(key, stored.theValue);
 	}
 
+	private <K, V, E extends Exception> CacheKey<K, V, E> getEntry(QuickEnvironment env, CacheItemType<K, V, E> type, K key,
+		boolean [] generated) {
+		TypeSegment segment = getSegment(type);
+		CacheKey<K, V, E> stored;
+		boolean needsGen = false;
+		synchronized (segment) {
+			segment.sketch.increment(key);
+			stored = (CacheKey<K, V, E>) segment.entries.get(key);
+			if (stored != null)
+				segment.hits++;
+			else {
+				stored = new CacheKey<>(type, key);
+				segment.entries.put(key, stored);
+				V spilled = (V) segment.unspill(key, true);
+				if (spilled != null) {
+					segment.spillHits++;
+					stored.theValue = spilled;
+					stored.isLoading = false;
+					stored.theFuture.complete(spilled);
+					segment.admit(stored);
+				} else {
+					segment.misses++;
+					needsGen = true;
+				}
+			}
+		}
+		if (needsGen)
+			startGet(env, stored);
+		if (generated != null)
+			generated[0] = needsGen;
+		return stored;
+	}
+
 	/**
 	 * @param <K> The type of key for the cached item
 	 * @param <V> The type of value for the cached item
@@ -247,36 +874,89 @@ public class QuickCache {
 	 * @return The value cached for the given type and key that was removed
 	 */
 	public <K, V> V remove(CacheItemType<K, V, ?> type, K key) {
-		CacheKey<K, V, ?> cacheKey = new CacheKey<>(type, key);
-		return (V) theInternalCache.remove(cacheKey);
+		TypeSegment segment = theSegments.get(type);
+		if (segment == null)
+			return null;
+		CacheKey<K, V, ?> removed;
+		synchronized (segment) {
+			removed = (CacheKey<K, V, ?>) segment.entries.remove(key);
+			if (removed == null)
+				return null;
+			segment.remove(removed);
+		}
+		return removed.theValue;
+	}
+
+	private <K, V, E extends Exception> V generate(QuickEnvironment env, CacheKey<K, V, E> key) throws E {
+		QuickDiskCache disk = theDiskCache;
+		String persistentKey = null;
+		String validator = null;
+		PersistentItemType<K, V, E> persistentType = null;
+		if (disk != null && key.getType() instanceof PersistentItemType) {
+			persistentType = (PersistentItemType<K, V, E>) key.getType();
+			persistentKey = persistentType.getPersistentKey(key.getKey());
+			if (persistentKey != null) {
+				try {
+					validator = persistentType.getValidator(key.getKey());
+				} catch (IOException | RuntimeException e) {
+					persistentKey = null; // Can't tell whether the persisted item is current
+				}
+			}
+		}
+		if (persistentKey != null) {
+			try {
+				ByteBuffer data = disk.read(persistentKey, validator);
+				if (data != null) {
+					V value = persistentType.read(key.getKey(), data);
+					TypeSegment segment = getSegment(key.getType());
+					synchronized (segment) {
+						segment.diskHits++;
+					}
+					return value;
+				}
+			} catch (IOException | RuntimeException e) {
+				disk.remove(persistentKey); // Unreadable. Generate it again.
+			}
+		}
+		V value = key.getType().generate(env, key.getKey());
+		if (persistentKey != null) {
+			PersistentItemType<K, V, E> pType = persistentType;
+			try {
+				disk.write(persistentKey, validator, out -> pType.write(value, out));
+			} catch (IOException | RuntimeException e) {
+				// The disk tier is only an optimization. The value has been generated, so just don't persist it.
+			}
+		}
+		return value;
 	}
 
 	private <K, V, E extends Exception> void startGet(final QuickEnvironment env, final CacheKey<K, V, E> key) {
-		theWorker.run(() -> {
+		theWorker.execute(() -> {
 			try {
-				key.theValue = key.getType().generate(env, key.getKey());
+				key.theValue = generate(env, key);
 			} catch(Throwable e) {
 				key.theError = e;
 			} finally {
-				try {
-					synchronized(key.theReceivers) {
-						for(ItemReceiver<K, V> receiver : key.theReceivers)
-							if(key.theError != null)
-								receiver.errorOccurred(key.getKey(), key.theError, true);
-							else
-								receiver.itemGenerated(key.getKey(), key.theValue);
-					}
-				} finally {
+				TypeSegment segment = getSegment(key.getType());
+				ArrayList<ItemReceiver<K, V>> receivers;
+				synchronized(key.theReceivers) {
+					// Receivers added after this point are notified directly by get
 					key.isLoading = false;
+					receivers = new ArrayList<>(key.theReceivers);
+					key.theReceivers.clear();
 				}
-			}
-		}, new Worker.ErrorListener() {
-			@Override
-			public void error(Error error) {
-			}
-
-			@Override
-			public void runtime(RuntimeException ex) {
+				synchronized (segment) {
+					segment.admit(key);
+				}
+				if(key.theError != null)
+					key.theFuture.completeExceptionally(key.theError);
+				else
+					key.theFuture.complete(key.theValue);
+				for(ItemReceiver<K, V> receiver : receivers)
+					if(key.theError != null)
+						receiver.errorOccurred(key.getKey(), key.theError, true);
+					else
+						receiver.itemGenerated(key.getKey(), key.theValue);
 			}
 		});
 	}
@@ -0,0 +1,274 @@
+package org.quick.core;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, on-disk second tier for a {@link QuickCache}. Each entry is stored in a file named by a hash of its key (not of its content)
+ * and large entries are read back through a memory map. Since the key alone does not say whether the entry's source has changed, each
+ * entry is stored with a validator, e.g. a hash of the source's content, an ETag or a modification time, which must match when the entry
+ * is read. When the total size of the entries exceeds the maximum, the least-recently-used entries are deleted.
+ * <p>
+ * On some platforms, e.g. Windows, a file cannot be deleted or replaced while it is memory-mapped, and a mapping is only released when
+ * its buffer is garbage-collected. So small entries are copied into memory when they are read, and entries that cannot be deleted are
+ * hidden from reads and deleted by a later write.
+ * </p>
+ */
+public class QuickDiskCache {
+	/** Writes the content of a disk cache entry */
+	public interface EntryWriter {
+		/**
+		 * @param out The stream to write the entry's content to
+		 * @throws IOException If an error occurs writing the content
+		 */
+		void write(OutputStream out) throws IOException;
+	}
+
+	private static final String SUFFIX = ".qc";
+
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	/** The age, in milliseconds, after which a temporary file is assumed to be left over from a write that did not finish */
+	private static final long ORPHAN_AGE = 60000;
+
+	private static final int MAGIC = 0x51434332; // QCC2
+
+	/** Entries up to this size, in bytes, are copied into memory when read. Larger entries are memory-mapped. */
+	private static final int COPY_THRESHOLD = 1024 * 1024;
+
+	private final File theDirectory;
+
+	private final long theMaxSize;
+
+	private final AtomicLong theSize;
+
+	private final Object theCleanLock;
+
+	/** Entries that could not be deleted, e.g. because they were still mapped. They are deleted by a later write. */
+	private final java.util.Set<File> theUndeleted;
+
+	/**
+	 * Opens a disk cache, deleting any temporary files left in the directory by writes that did not finish, e.g. because the process was
+	 * killed
+	 *
+	 * @param directory The directory to store the cache's entries in. It is created when the first entry is written if it does not exist.
+	 * @param maxSize The maximum total size, in bytes, of the cache's entries
+	 */
+	public QuickDiskCache(File directory, long maxSize) {
+		theDirectory = directory;
+		theMaxSize = maxSize;
+		theCleanLock = new Object();
+		theUndeleted = java.util.concurrent.ConcurrentHashMap.newKeySet();
+		// Files that are still recent may belong to a write in progress in another process sharing the directory
+		long orphaned = System.currentTimeMillis() - ORPHAN_AGE;
+		File [] temps = directory.listFiles((dir, name) -> name.endsWith(TEMP_SUFFIX));
+		if (temps != null)
+			for (File temp : temps)
+				if (temp.lastModified() < orphaned)
+					temp.delete();
+		long size = 0;
+		for (File file : listEntries())
+			size += file.length();
+		theSize = new AtomicLong(size);
+	}
+
+	/** @return The directory that this cache stores its entries in */
+	public File getDirectory() {
+		return theDirectory;
+	}
+
+	/** @return The maximum total size, in bytes, of this cache's entries */
+	public long getMaxSize() {
+		return theMaxSize;
+	}
+
+	/** @return The approximate total size, in bytes, of this cache's entries */
+	public long getSize() {
+		return theSize.get();
+	}
+
+	/**
+	 * @param key The key of the entry to read
+	 * @param validator The current validator of the entry's source, or null if the source does not change
+	 * @return A read-only buffer over the entry's content, or null if there is no entry for the key or the entry was written with a
+	 *         different validator
+	 * @throws IOException If an error occurs reading the entry
+	 */
+	public ByteBuffer read(String key, String validator) throws IOException {
+		File file = getFile(key);
+		if (theUndeleted.contains(file))
+			return null; // Removed, but still on disk
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size <= COPY_THRESHOLD) {
+				buffer = ByteBuffer.allocate((int) size);
+				while (buffer.hasRemaining() && channel.read(buffer) >= 0) {}
+				buffer.flip();
+			} else
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		} catch (FileNotFoundException | NoSuchFileException e) {
+			return null;
+		}
+		file.setLastModified(System.currentTimeMillis()); // Mark the entry as recently used
+		if (buffer.remaining() < 8 || buffer.getInt() != MAGIC)
+			throw new IOException("Corrupt cache entry for " + key);
+		byte [] storedKey = new byte[buffer.getInt()];
+		if (storedKey.length > buffer.remaining())
+			throw new IOException("Corrupt cache entry for " + key);
+		buffer.get(storedKey);
+		if (!Arrays.equals(storedKey, key.getBytes(StandardCharsets.UTF_8)))
+			return null; // Hash collision
+		if (buffer.remaining() < 4)
+			throw new IOException("Corrupt cache entry for " + key);
+		byte [] storedValidator = new byte[buffer.getInt()];
+		if (storedValidator.length > buffer.remaining())
+			throw new IOException("Corrupt cache entry for " + key);
+		buffer.get(storedValidator);
+		if (!Arrays.equals(storedValidator, validatorBytes(validator)))
+			return null; // The source has changed since the entry was written
+		return buffer.slice().asReadOnlyBuffer();
+	}
+
+	/**
+	 * Creates or replaces an entry in this cache
+	 *
+	 * @param key The key of the entry to write
+	 * @param validator The current validator of the entry's source, or null if the source does not change
+	 * @param writer Writes the content of the entry
+	 * @throws IOException If an error occurs writing the entry
+	 */
+	public void write(String key, String validator, EntryWriter writer) throws IOException {
+		if (!theDirectory.isDirectory() && !theDirectory.mkdirs() && !theDirectory.isDirectory())
+			throw new IOException("Could not create cache directory " + theDirectory);
+		File file = getFile(key);
+		File temp = File.createTempFile(file.getName(), TEMP_SUFFIX, theDirectory);
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				byte [] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(MAGIC);
+				out.writeInt(keyBytes.length);
+				out.write(keyBytes);
+				byte [] validatorBytes = validatorBytes(validator);
+				out.writeInt(validatorBytes.length);
+				out.write(validatorBytes);
+				writer.write(out);
+			}
+			long oldSize = file.length();
+			try {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				// The existing entry may be mapped by a reader. Hide it, since it was written for an outdated source.
+				if (file.exists())
+					delete(file);
+				throw e;
+			}
+			theUndeleted.remove(file);
+			if (!theUndeleted.isEmpty())
+				retryDeletes();
+			if (theSize.addAndGet(file.length() - oldSize) > theMaxSize)
+				cleanUp();
+		} finally {
+			temp.delete();
+		}
+	}
+
+	/**
+	 * @param key The key of the entry to remove
+	 * @return Whether an entry existed for the key and was removed
+	 */
+	public boolean remove(String key) {
+		File file = getFile(key);
+		long size = file.length();
+		if (!file.exists() || !delete(file))
+			return false;
+		theSize.addAndGet(-size);
+		return true;
+	}
+
+	/**
+	 * @param file The entry file to delete
+	 * @return Whether the file was deleted. If not, it is hidden from reads and deleted by a later write.
+	 */
+	private boolean delete(File file) {
+		if (file.delete() || !file.exists()) {
+			theUndeleted.remove(file);
+			return true;
+		}
+		theUndeleted.add(file);
+		return false;
+	}
+
+	/** Attempts again to delete entries that could not be deleted before */
+	private void retryDeletes() {
+		for (File file : theUndeleted) {
+			long size = file.length();
+			if (file.delete() || !file.exists()) {
+				if (theUndeleted.remove(file))
+					theSize.addAndGet(-size);
+			}
+		}
+	}
+
+	/** Deletes the least-recently-used entries until this cache is comfortably within its maximum size */
+	private void cleanUp() {
+		synchronized (theCleanLock) {
+			if (theSize.get() <= theMaxSize)
+				return;
+			File [] entries = listEntries();
+			long [] modified = new long[entries.length];
+			Integer [] order = new Integer[entries.length];
+			long size = 0;
+			for (int i = 0; i < entries.length; i++) {
+				modified[i] = entries[i].lastModified();
+				order[i] = i;
+				size += entries[i].length();
+			}
+			Arrays.sort(order, Comparator.comparingLong(i -> modified[i]));
+			long target = theMaxSize * 3 / 4; // Leave some room so that every write doesn't trigger a clean up
+			for (int i = 0; i < order.length && size > target; i++) {
+				File entry = entries[order[i]];
+				long entrySize = entry.length();
+				if (delete(entry))
+					size -= entrySize;
+			}
+			theSize.set(size);
+		}
+	}
+
+	private static byte [] validatorBytes(String validator) {
+		return validator == null ? new byte[0] : validator.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private File [] listEntries() {
+		File [] files = theDirectory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+		return files == null ? new File[0] : files;
+	}
+
+	private File getFile(String key) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported", e);
+		}
+		byte [] hash = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+		StringBuilder name = new StringBuilder(hash.length * 2 + SUFFIX.length());
+		for (byte b : hash) {
+			name.append(Character.forDigit((b >> 4) & 0xf, 16));
+			name.append(Character.forDigit(b & 0xf, 16));
+		}
+		return new File(theDirectory, name.append(SUFFIX).toString());
+	}
+}
@@ -49,6 +49,26 @@ public class QuickDocument implements QuickParseEnv {
 		/** Informs this getter that its graphics have been updated */
 		void updated();
 
+		/**
+		 * Informs this getter that an area of the document's {@link QuickDocument#getRender() rendering} has been updated
+		 *
+		 * @param x The x-coordinate of the updated area
+		 * @param y The y-coordinate of the updated area
+		 * @param w The width of the updated area
+		 * @param h The height of the updated area
+		 */
+		default void updated(int x, int y, int w, int h) {
+			updated();
+		}
+
+		/**
+		 * @return Whether this getter presents the document's {@link QuickDocument#getRender() rendering} itself. If true, the document
+		 *         does not copy its rendering into this getter's {@link #getGraphics() graphics}, but only reports the areas that changed.
+		 */
+		default boolean presentsRender() {
+			return false;
+		}
+
 		/** @param cursor The cursor to set over the document */
 		void setCursor(Cursor cursor);
 	}
@@ -82,6 +102,7 @@ public class QuickDocument implements QuickParseEnv {
 	private ScrollPolicy theScrollPolicy;
 
 	private QuickElement theFocus;
+	private final FocusOrder theFocusOrder;
 	private ObservableValue<QuickElement> theObservableFocus;
 	private Observer<ObservableValueEvent<QuickElement>> theFocusController;
 
@@ -105,6 +126,11 @@ public class QuickDocument implements QuickParseEnv {
 
 	private volatile QuickRendering theRendering;
 
+	/** The rendering that was replaced by the current one. Its image is recycled when it is replaced in turn. */
+	private QuickRendering theRetiredRendering;
+
+	private java.awt.image.BufferedImage theSpareBuffer;
+
 	private GraphicsGetter theGraphics;
 
 	private GraphicsGetter theDebugGraphics;
@@ -141,6 +167,7 @@ public class QuickDocument implements QuickParseEnv {
 			.build();
 		theAwtToolkit = java.awt.Toolkit.getDefaultToolkit();
 		theMessageCenter = new QuickMessageCenter(env, this, null);
+		env.msg().addDocument(this);
 		theDocumentStyle = DocumentStyleSheet.build(this);
 		theScrollPolicy = ScrollPolicy.MOUSE;
 		thePressedButtons = new org.qommons.ConcurrentHashSet<>();
@@ -148,6 +175,7 @@ public class QuickDocument implements QuickParseEnv {
 		theButtonsLock = new Object();
 		theKeysLock = new Object();
 		theRoot = new BodyElement();
+		theFocusOrder = new FocusOrder(theRoot);
 		theRenderListeners = new java.util.concurrent.ConcurrentLinkedQueue<>();
 
 		theObservableFocus = new org.observe.DefaultObservableValue<QuickElement>() {
@@ -204,6 +232,25 @@ public class QuickDocument implements QuickParseEnv {
 			theGraphics.updated();
 	}
 
+	/**
+	 * Informs the provider of this document's graphics that an area of it has been updated
+	 *
+	 * @param x The x-coordinate of the updated area
+	 * @param y The y-coordinate of the updated area
+	 * @param w The width of the updated area
+	 * @param h The height of the updated area
+	 */
+	public void graphicsUpdated(int x, int y, int w, int h) {
+		if (theGraphics != null)
+			theGraphics.updated(x, y, w, h);
+	}
+
+	/** @return Whether the provider of this document's graphics presents the document's rendering itself */
+	public boolean isRenderPresented() {
+		GraphicsGetter graphics = theGraphics;
+		return graphics != null && graphics.presentsRender();
+	}
+
 	/** @param graphics The getter for graphics to be used in debugging (drawn piece-wise instead of in batches) */
 	public void setDebugGraphics(GraphicsGetter graphics) {
 		theDebugGraphics = graphics;
@@ -296,6 +343,11 @@ public class QuickDocument implements QuickParseEnv {
 		return theObservableFocus;
 	}
 
+	/** @return The focus traversal order of this document's elements */
+	FocusOrder getFocusOrder() {
+		return theFocusOrder;
+	}
+
 	/** @return The policy that this document uses to dispatch scroll events */
 	public ScrollPolicy getScrollPolicy() {
 		return theScrollPolicy;
@@ -316,17 +368,48 @@ public class QuickDocument implements QuickParseEnv {
 		QuickEventQueue.get().scheduleEvent(new QuickEventQueue.ReboundEvent(theRoot, new java.awt.Rectangle(0, 0, width, height)), true);
 	}
 
-	/** @return The most recent rendering of this document */
+	/**
+	 * @return The most recent rendering of this document. A rendering's image is reused for a new rendering once the rendering has been
+	 *         replaced twice, so code that reads the image off the event thread must {@link QuickRendering#acquire() acquire} the
+	 *         rendering first.
+	 */
 	public QuickRendering getRender() {
 		return theRendering;
 	}
 
 	void setRender(QuickRendering render) {
+		QuickRendering old = theRendering;
+		if(old != null && old != render) {
+			if(theRetiredRendering != null)
+				theSpareBuffer = theRetiredRendering.recycle();
+			theRetiredRendering = old;
+		}
 		theRendering = render;
 		for(RenderListener listener : theRenderListeners)
 			listener.renderUpdate(this);
 	}
 
+	/**
+	 * @param width The width of the rendering
+	 * @param height The height of the rendering
+	 * @return A new rendering for this document, drawn into a recycled image if one is available
+	 */
+	QuickRendering createRender(int width, int height) {
+		java.awt.image.BufferedImage spare = theSpareBuffer;
+		theSpareBuffer = null;
+		return new QuickRendering(width, height, spare);
+	}
+
+	/**
+	 * @param render The rendering to copy
+	 * @return A copy of the rendering, drawn into a recycled image if one is available
+	 */
+	QuickRendering copyRender(QuickRendering render) {
+		java.awt.image.BufferedImage spare = theSpareBuffer;
+		theSpareBuffer = null;
+		return render.copy(spare);
+	}
+
 	/**
 	 * Renders this Quick document in a graphics context
 	 *
@@ -531,11 +614,19 @@ public class QuickDocument implements QuickParseEnv {
 	}
 
 	private void focusByMouse(QuickEventPositionCapture capture, UserEvent cause, java.util.List<QuickEventQueue.Event> events) {
-		for(QuickEventPositionCapture mec : capture.iterate(true))
-			if(mec.getElement().isFocusable()) {
-				setFocus(mec.getElement(), cause);
-				return;
-			}
+		QuickElement focusable = findFocusable(capture);
+		if(focusable != null)
+			setFocus(focusable, cause);
+	}
+
+	/** @return The first focusable element in the capture, visiting each element's children before the element itself */
+	private static QuickElement findFocusable(QuickEventPositionCapture capture) {
+		for(int c = 0; c < capture.getChildCount(); c++) {
+			QuickElement found = findFocusable(capture.getChild(c));
+			if(found != null)
+				return found;
+		}
+		return capture.getElement().isFocusable() ? capture.getElement() : null;
 	}
 
 	/**
@@ -566,74 +657,31 @@ public class QuickDocument implements QuickParseEnv {
 	}
 
 	/**
-	 * Moves this document's focus to the focusable widget previous to the currently focused widget
+	 * Moves this document's focus to the focusable widget previous to the currently focused widget, wrapping around to the last focusable
+	 * widget
 	 *
 	 * @param cause The user event triggering the focus change, if any
 	 */
 	public void backupFocus(UserEvent cause) {
 		if(theFocus == null)
 			return;
-		if(searchFocus(theFocus, cause, false))
-			return;
-		/* If we get here, then there was no previous focusable element. We must wrap around to the last focusable element. */
-		QuickElement deepest = getDeepestElement(theRoot, false);
-		searchFocus(deepest, cause, false);
+		QuickElement previous = theFocusOrder.previous(theFocus);
+		if(previous != null)
+			setFocus(previous, cause);
 	}
 
 	/**
-	 * Moves this document's focus to the focusable widget after the currently focused widget
+	 * Moves this document's focus to the focusable widget after the currently focused widget, wrapping around to the first focusable
+	 * widget
 	 *
 	 * @param cause The user event triggering the focus change, if any
 	 */
 	public void advanceFocus(UserEvent cause) {
 		if(theFocus == null)
 			return;
-		if(searchFocus(theFocus, cause, true))
-			return;
-		/* If we get here, then there was no next focusable element. We must wrap around to the first focusable element. */
-		QuickElement deepest = getDeepestElement(theRoot, true);
-		searchFocus(deepest, cause, true);
-	}
-
-	boolean searchFocus(QuickElement el, UserEvent cause, boolean forward) {
-		QuickElement lastChild = theFocus;
-		QuickElement parent = theFocus.getParent().get();
-		while(parent != null) {
-			QuickElement[] children = parent.getPhysicalChildren().sortByZ().toArray();
-			if(!forward) {
-				ArrayUtils.reverse(children);
-			}
-			boolean foundLastChild = false;
-			for(int c = 0; c < children.length; c++)
-				if(foundLastChild) {
-					QuickElement deepest = getDeepestElement(children[c], forward);
-					if(deepest != children[c]) {
-						// Do searchFocus from this deep element
-						parent = deepest;
-						break;
-					} else if(children[c].isFocusable()) {
-						setFocus(children[c], cause);
-						return true;
-					}
-				} else if(children[c] == lastChild)
-					foundLastChild = true;
-			if(parent.isFocusable()) {
-				setFocus(parent, cause);
-				return true;
-			}
-			lastChild = parent;
-			parent = parent.getParent().get();
-		}
-		return false;
-	}
-
-	static QuickElement getDeepestElement(QuickElement root, boolean first) {
-		while(!root.ch().isEmpty())
-			if(first)
-				root = root.ch().get(0);
-			else
-				root = root.ch().last();
-		return root;
+		QuickElement next = theFocusOrder.next(theFocus);
+		if(next != null)
+			setFocus(next, cause);
 	}
 
 	/**
@@ -39,13 +39,22 @@ import com.google.common.reflect.TypeToken;
 		@State(name = States.FOCUS_NAME, priority = States.FOCUS_PRIORITY),
 		@State(name = States.TEXT_SELECTION_NAME, priority = States.TEXT_SELECTION_PRIORITY)})
 public abstract class QuickElement implements QuickParseEnv {
+	/** Every element starts with an empty "this" model, so they can all share one */
+	private static final QuickAppModel EMPTY_SELF_MODEL = QuickAppModel.empty("this");
+
+	/**
+	 * The minimum area, in pixels, of a child that is painted in parallel with its siblings when the environment
+	 * {@link QuickEnvironment#isPaintingInParallel() paints in parallel}
+	 */
+	public static final int PARALLEL_PAINT_MIN_AREA = 128 * 128;
+
 	private final QuickLifeCycleManager theLifeCycleManager;
 
 	private QuickLifeCycleManager.Controller theLifeCycleController;
 
-	private final StateEngine theStateEngine;
+	private volatile StateEngine theStateEngine;
 
-	private final QuickMessageCenter theMessageCenter;
+	private volatile QuickMessageCenter theMessageCenter;
 
 	private final QuickEventManager theEvents;
 
@@ -69,13 +78,14 @@ public abstract class QuickElement implements QuickParseEnv {
 
 	private final ChildList theChildren;
 
-	private final ElementList<QuickElement> theExposedChildren;
+	private ElementList<QuickElement> theExposedChildren;
 
 	private final QuickElementStyle theStyle;
 
-	private final StyleChangeObservable theDefaultStyleListener;
+	private volatile StyleChangeObservable theDefaultStyleListener;
 
-	private final CoreStateControllers theStateControllers;
+	/** Created with {@link #theStateEngine} */
+	private CoreStateControllers theStateControllers;
 
 	private int theZ;
 
@@ -87,10 +97,16 @@ public abstract class QuickElement implements QuickParseEnv {
 
 	private boolean isFocusable;
 
+	/** Whether this element is connected to its document's root, so that it is tracked in the focus order. Maintained by the FocusOrder. */
+	boolean isFocusAttached;
+
 	private long thePaintDirtyTime;
 
 	private long theLayoutDirtyTime;
 
+	/** The surface that this element's parent paints it into when painting in parallel. Reused between paints. */
+	private java.lang.ref.SoftReference<java.awt.image.BufferedImage> theParallelSurface;
+
 	/** Creates a Quick element */
 	public QuickElement() {
 		theParent = new org.observe.SimpleSettableValue<>(TypeToken.of(QuickElement.class), true);
@@ -98,13 +114,10 @@ public abstract class QuickElement implements QuickParseEnv {
 			if (evt.getOldValue() != null)
 				evt.getOldValue().theChildren.remove(QuickElement.this);
 		});
-		theMessageCenter = new QuickMessageCenter(null, null, this);
 		theLifeCycleManager = new QuickLifeCycleManager(this, (Controller controller) -> {
 			theLifeCycleController = controller;
 		}, CoreStage.READY.toString());
-		theStateEngine = new StateEngine(this);
 		theEvents = new QuickEventManager(this);
-		theStateControllers = new CoreStateControllers();
 		String lastStage = null;
 		for(CoreStage stage : CoreStage.values())
 			if(stage != CoreStage.OTHER && stage != CoreStage.READY) {
@@ -113,15 +126,9 @@ public abstract class QuickElement implements QuickParseEnv {
 			}
 		theBounds = new ElementBounds(this);
 		theChildren = new ChildList(this);
-		theExposedChildren = theChildren.immutable();
 		theAttributeManager = new AttributeManager(this);
 		theStyle = new QuickElementStyle(this);
-		theSelfModel = QuickAppModel.empty("this");
-		theDefaultStyleListener = new StyleChangeObservable(theStyle);
-		theDefaultStyleListener.watch(BackgroundStyle.getDomainInstance(), LightedStyle.getDomainInstance());
-		theDefaultStyleListener.act(evt -> {
-			repaint(null, false);
-		});
+		theSelfModel = EMPTY_SELF_MODEL;
 		theChildren.onOrderedElement(el -> {
 			el.subscribe(new Observer<ObservableValueEvent<QuickElement>>() {
 				@Override
@@ -167,39 +174,47 @@ public abstract class QuickElement implements QuickParseEnv {
 		theLifeCycleManager.runWhen(() -> {
 			repaint(null, false);
 		}, CoreStage.INIT_SELF.toString(), 2);
-		addAnnotatedStates();
 		addStateListeners();
 		theLifeCycleController.advance(CoreStage.PARSE_SELF.toString());
 	}
 
-	private void addAnnotatedStates() {
+	private void addAnnotatedStates(StateEngine engine) {
 		for (QuickState state : QuickTagUtils.getStatesFor(getClass())) {
 			try {
-				theStateEngine.addState(state);
+				engine.addState(state);
 			} catch(IllegalArgumentException e) {
 				msg().warn(e.getMessage(), "state", state);
 			}
 		}
 	}
 
+	/**
+	 * Sets one of the core states. Since the state engine is created the first time it is needed, a state is not deactivated if the engine
+	 * has not been created yet, as no state can be active then.
+	 */
+	private void setCoreState(java.util.function.Function<CoreStateControllers, StateEngine.StateController> state, boolean active,
+		Object cause) {
+		if (!active && theStateEngine == null)
+			return;
+		getStateEngine();
+		state.apply(theStateControllers).set(active, cause);
+	}
+
 	private void addStateListeners() {
-		theStateControllers.clicked = theStateEngine.control(States.CLICK);
-		theStateControllers.rightClicked = theStateEngine.control(States.RIGHT_CLICK);
-		theStateControllers.middleClicked = theStateEngine.control(States.MIDDLE_CLICK);
-		theStateControllers.hovered = theStateEngine.control(States.HOVER);
-		theStateControllers.focused = theStateEngine.control(States.FOCUS);
-		events().filterMap(MouseEvent.mouse).act(event -> {
+		// Moves and clicks don't affect state, so don't listen to them. This lets mouse moves skip elements that don't care about them.
+		events().filterMap(MouseEvent.mouse.addTypes(MouseEvent.MouseEventType.pressed, MouseEvent.MouseEventType.released,
+			MouseEvent.MouseEventType.entered, MouseEvent.MouseEventType.exited)).act(event -> {
 			switch (event.getType()) {
 			case pressed:
 				switch (event.getButton()) {
 				case left:
-					theStateControllers.clicked.set(true, event);
+					setCoreState(c -> c.clicked, true, event);
 					break;
 				case right:
-					theStateControllers.rightClicked.set(true, event);
+					setCoreState(c -> c.rightClicked, true, event);
 					break;
 				case middle:
-					theStateControllers.middleClicked.set(true, event);
+					setCoreState(c -> c.middleClicked, true, event);
 					break;
 				default:
 					break;
@@ -208,13 +223,13 @@ public abstract class QuickElement implements QuickParseEnv {
 			case released:
 				switch (event.getButton()) {
 				case left:
-					theStateControllers.clicked.set(false, event);
+					setCoreState(c -> c.clicked, false, event);
 					break;
 				case right:
-					theStateControllers.rightClicked.set(false, event);
+					setCoreState(c -> c.rightClicked, false, event);
 					break;
 				case middle:
-					theStateControllers.middleClicked.set(false, event);
+					setCoreState(c -> c.middleClicked, false, event);
 					break;
 				default:
 					break;
@@ -225,17 +240,17 @@ public abstract class QuickElement implements QuickParseEnv {
 			case moved:
 				break;
 			case entered:
-				theStateControllers.hovered.set(true, event);
+				setCoreState(c -> c.hovered, true, event);
 				for(org.quick.core.event.MouseEvent.ButtonType button : theDocument.getPressedButtons()) {
 					switch (button) {
 					case left:
-						theStateControllers.clicked.set(true, event);
+						setCoreState(c -> c.clicked, true, event);
 						break;
 					case right:
-						theStateControllers.rightClicked.set(true, event);
+						setCoreState(c -> c.rightClicked, true, event);
 						break;
 					case middle:
-						theStateControllers.middleClicked.set(true, event);
+						setCoreState(c -> c.middleClicked, true, event);
 						break;
 					default:
 						break;
@@ -243,15 +258,15 @@ public abstract class QuickElement implements QuickParseEnv {
 				}
 				break;
 			case exited:
-				theStateControllers.clicked.set(false, event);
-				theStateControllers.rightClicked.set(false, event);
-				theStateControllers.middleClicked.set(false, event);
-				theStateControllers.hovered.set(false, event);
+				setCoreState(c -> c.clicked, false, event);
+				setCoreState(c -> c.rightClicked, false, event);
+				setCoreState(c -> c.middleClicked, false, event);
+				setCoreState(c -> c.hovered, false, event);
 				break;
 			}
 		});
 		events().filterMap(FocusEvent.focusEvent).act(event -> {
-			theStateControllers.focused.set(event.isFocus(), event);
+			setCoreState(c -> c.focused, event.isFocus(), event);
 		});
 	}
 
@@ -291,9 +306,32 @@ public abstract class QuickElement implements QuickParseEnv {
 		return theTagName;
 	}
 
-	/** @return The state engine that controls this element's states */
+	/**
+	 * Returns the state engine that controls this element's states. Many elements never have an active state or a style that depends on
+	 * their state, so the engine is created the first time it is needed.
+	 *
+	 * @return The state engine that controls this element's states
+	 */
 	public StateEngine getStateEngine() {
-		return theStateEngine;
+		StateEngine engine = theStateEngine;
+		if (engine == null) {
+			synchronized (this) {
+				engine = theStateEngine;
+				if (engine == null) {
+					engine = new StateEngine(this);
+					addAnnotatedStates(engine);
+					CoreStateControllers controllers = new CoreStateControllers();
+					controllers.clicked = engine.control(States.CLICK);
+					controllers.rightClicked = engine.control(States.RIGHT_CLICK);
+					controllers.middleClicked = engine.control(States.MIDDLE_CLICK);
+					controllers.hovered = engine.control(States.HOVER);
+					controllers.focused = engine.control(States.FOCUS);
+					theStateControllers = controllers;
+					theStateEngine = engine;
+				}
+			}
+		}
+		return engine;
 	}
 
 	/**
@@ -398,7 +436,7 @@ public abstract class QuickElement implements QuickParseEnv {
 		try {
 			atts = QuickTagUtils.getAcceptedAttributes(getClass());
 		} catch (RuntimeException e) {
-			theMessageCenter.fatal("Could not parse attributes on element type " + getClass().getSimpleName() + " from annotation", e);
+			msg().fatal("Could not parse attributes on element type " + getClass().getSimpleName() + " from annotation", e);
 			return;
 		}
 		for (QuickTagUtils.AcceptedAttributeStruct<?> att : atts) {
@@ -410,7 +448,7 @@ public abstract class QuickElement implements QuickParseEnv {
 				try {
 					theAttributeManager.set(att.attribute, att.annotation.defaultValue(), this);
 				} catch (QuickException e) {
-					theMessageCenter.error("Could not set default value " + att.annotation.defaultValue() + " for attribute "
+					msg().error("Could not set default value " + att.annotation.defaultValue() + " for attribute "
 						+ att.attribute + " from annotation", e);
 				}
 		}
@@ -463,6 +501,8 @@ public abstract class QuickElement implements QuickParseEnv {
 			Rectangle paintRect = event.getValue().union(event.getOldValue());
 			repaint(paintRect, false);
 		});
+		if (theDocument != null)
+			theDocument.getFocusOrder().childAdded(this, child);
 	}
 
 	/**
@@ -473,6 +513,8 @@ public abstract class QuickElement implements QuickParseEnv {
 	protected void unregisterChild(QuickElement child) {
 		if(child.getParent() == this)
 			child.setParent(null);
+		if (theDocument != null)
+			theDocument.getFocusOrder().childRemoved(child);
 	}
 
 	/** Called to initialize an element after all the parsing and linking has been performed */
@@ -480,19 +522,28 @@ public abstract class QuickElement implements QuickParseEnv {
 		theLifeCycleController.advance(CoreStage.STARTUP.toString());
 		for(QuickElement child : theChildren)
 			child.postCreate();
-		theDefaultStyleListener.begin();
+		getDefaultStyleListener().begin();
 		theLifeCycleController.advance(CoreStage.READY.toString());
 	}
 
 	// End life cycle methods
 
 	/**
-	 * Returns a message center that allows messaging on this element
+	 * Returns a message center that allows messaging on this element. Most elements never receive messages, so the message center is
+	 * created the first time it is needed.
 	 *
 	 * @return This element's message center
 	 */
 	public QuickMessageCenter getMessageCenter() {
-		return theMessageCenter;
+		QuickMessageCenter msg = theMessageCenter;
+		if (msg == null) {
+			synchronized (this) {
+				msg = theMessageCenter;
+				if (msg == null)
+					theMessageCenter = msg = new QuickMessageCenter(null, null, this);
+			}
+		}
+		return msg;
 	}
 
 	/**
@@ -535,7 +586,7 @@ public abstract class QuickElement implements QuickParseEnv {
 
 	/** @return An list of the elements immediately contained by this element. By default, this list is immutable. */
 	public ElementList<? extends QuickElement> getPhysicalChildren() {
-		return theExposedChildren;
+		return exposedChildren();
 	}
 
 	/**
@@ -552,6 +603,12 @@ public abstract class QuickElement implements QuickParseEnv {
 	 *         children}.
 	 */
 	public ObservableList<? extends QuickElement> getLogicalChildren() {
+		return exposedChildren();
+	}
+
+	private ElementList<QuickElement> exposedChildren() {
+		if (theExposedChildren == null)
+			theExposedChildren = theChildren.immutable(); // Benign race--immutable views are interchangeable
 		return theExposedChildren;
 	}
 
@@ -575,7 +632,22 @@ public abstract class QuickElement implements QuickParseEnv {
 	 *         repaints itself.
 	 */
 	public final StyleChangeObservable getDefaultStyleListener() {
-		return theDefaultStyleListener;
+		StyleChangeObservable listener = theDefaultStyleListener;
+		if (listener == null) {
+			// Not needed until the element is ready to be painted, so elements that are built but never shown don't pay for it
+			synchronized (this) {
+				listener = theDefaultStyleListener;
+				if (listener == null) {
+					listener = new StyleChangeObservable(theStyle);
+					listener.watch(BackgroundStyle.getDomainInstance(), LightedStyle.getDomainInstance());
+					listener.act(evt -> {
+						repaint(null, false);
+					});
+					theDefaultStyleListener = listener;
+				}
+			}
+		}
+		return listener;
 	}
 
 	// Bounds methods
@@ -601,8 +673,12 @@ public abstract class QuickElement implements QuickParseEnv {
 			return;
 		theZ = z;
 		QuickElement parent = theParent.get();
-		if (parent != null)
+		if (parent != null) {
+			parent.theChildren.invalidateZOrder();
+			if (theDocument != null)
+				theDocument.getFocusOrder().reordered(this);
 			parent.repaint(new Rectangle(theBounds.getX(), theBounds.getY(), theBounds.getWidth(), theBounds.getHeight()), false);
+		}
 	}
 
 	/** @return The size policy for this item's width */
@@ -639,7 +715,11 @@ public abstract class QuickElement implements QuickParseEnv {
 
 	/** @param focusable Whether this element should be focusable */
 	protected final void setFocusable(boolean focusable) {
+		if (isFocusable == focusable)
+			return;
 		isFocusable = focusable;
+		if (theDocument != null)
+			theDocument.getFocusOrder().focusableChanged(this);
 	}
 
 	/**
@@ -762,7 +842,7 @@ public abstract class QuickElement implements QuickParseEnv {
 	 * Renders this element in a graphics context.
 	 *
 	 * @param graphics The graphics context to render this element in
-	 * @param area The area to draw
+	 * @param area The area to draw. Nothing outside this area is drawn. May be null to draw the entire element.
 	 * @return The cached bounds used to draw the element
 	 */
 	public QuickElementCapture paint(java.awt.Graphics2D graphics, Rectangle area) {
@@ -773,6 +853,8 @@ public abstract class QuickElement implements QuickParseEnv {
 		Rectangle preClip = graphics.getClipBounds();
 		try {
 			graphics.setClip(paintBounds.x, paintBounds.y, paintBounds.width, paintBounds.height);
+			if(area != null)
+				graphics.clipRect(area.x, area.y, area.width, area.height);
 			boolean visible = !((area != null && (area.width <= 0 || area.height <= 0)) || theBounds.getWidth() <= 0 || theBounds
 				.getHeight() <= 0);
 			if(visible)
@@ -814,11 +896,28 @@ public abstract class QuickElement implements QuickParseEnv {
 	public final void repaint(Rectangle area, boolean now, Runnable... postActions) {
 		if(theBounds.getWidth() <= 0 || theBounds.getHeight() <= 0)
 			return; // No point painting if there's nothing to show
+		for (QuickElement parent = theParent.get(); parent != null; parent = parent.theParent.get())
+			if (parent.descendantNeedsRepaint(this, area, now, postActions))
+				return;
 		if (thePaintDirtyTime == 0)
 			thePaintDirtyTime = System.currentTimeMillis();
 		QuickEventQueue.get().scheduleEvent(new QuickEventQueue.PaintEvent(this, area, now, postActions), now);
 	}
 
+	/**
+	 * Called when a descendant of this element needs to be repainted. An element that retains the rendering of its descendants (e.g. in an
+	 * off-screen surface) may override this to invalidate its retained rendering and repaint itself instead.
+	 *
+	 * @param descendant The descendant that needs to be repainted
+	 * @param area The area in the descendant that needs to be repainted, or null if the descendant needs to be repainted entirely
+	 * @param now Whether the descendant should be repainted immediately
+	 * @param postActions The actions to be performed after the repaint
+	 * @return Whether this element has taken over the repaint, in which case the descendant will not be repainted itself
+	 */
+	protected boolean descendantNeedsRepaint(QuickElement descendant, Rectangle area, boolean now, Runnable... postActions) {
+		return false;
+	}
+
 	/**
 	 * Renders this element's background or its content, but NOT its children. Children are rendered by
 	 * {@link #paintChildren(java.awt.Graphics2D, Rectangle)}. By default, this merely draws the element's background color.
@@ -840,29 +939,47 @@ public abstract class QuickElement implements QuickParseEnv {
 	 * @return The cached bounds used to draw each of the element's children
 	 */
 	public QuickElementCapture [] paintChildren(java.awt.Graphics2D graphics, Rectangle area) {
-		QuickElement[] children = ch().sortByZ().toArray();
+		QuickElement[] children = ch().getZOrder();
 		QuickElementCapture [] childBounds = new QuickElementCapture[children.length];
 		if(children.length == 0)
 			return childBounds;
 		if(area == null)
 			area = new Rectangle(0, 0, theBounds.getWidth(), theBounds.getHeight());
+		int areaMaxX = area.x + area.width;
+		int areaMaxY = area.y + area.height;
+		Rectangle [] childAreas = new Rectangle[children.length];
+		for(int c = 0; c < children.length; c++) {
+			// Intersect the child's bounds with the paint area without allocating intermediate rectangles
+			ElementBounds cb = children[c].theBounds;
+			int childX = cb.getX();
+			int childY = cb.getY();
+			int x1 = Math.max(childX, area.x);
+			int y1 = Math.max(childY, area.y);
+			int x2 = Math.min(childX + cb.getWidth(), areaMaxX);
+			int y2 = Math.min(childY + cb.getHeight(), areaMaxY);
+			childAreas[c] = new Rectangle(x1 - childX, y1 - childY, x2 - x1, y2 - y1);
+		}
+		ChildSurface [] surfaces = paintSurfaces(graphics, children, childAreas);
 		int translateX = 0;
 		int translateY = 0;
 		try {
 			for(int c = 0; c < children.length; c++) {
 				QuickElement child = children[c];
-				Rectangle childArea = child.theBounds.getBounds();
-				int childX = childArea.x;
-				int childY = childArea.y;
-				childArea = childArea.intersection(area);
-				childArea.x -= childX;
-				childArea.y -= childY;
+				int childX = child.theBounds.getX();
+				int childY = child.theBounds.getY();
 				translateX += childX;
 				translateY += childY;
 				graphics.translate(translateX, translateY);
 				translateX = -childX;
 				translateY = -childY;
-				childBounds[c] = child.paint(graphics, childArea);
+				if(surfaces != null && surfaces[c] != null) {
+					// Composite the separately painted child in z-order
+					Rectangle childArea = childAreas[c];
+					graphics.drawImage(surfaces[c].image, childArea.x, childArea.y, childArea.x + childArea.width,
+						childArea.y + childArea.height, 0, 0, childArea.width, childArea.height, null);
+					childBounds[c] = surfaces[c].capture;
+				} else
+					childBounds[c] = child.paint(graphics, childAreas[c]);
 			}
 		} finally {
 			if(translateX != 0 || translateY != 0)
@@ -871,6 +988,94 @@ public abstract class QuickElement implements QuickParseEnv {
 		return childBounds;
 	}
 
+	/** A child element painted into its own surface */
+	private static class ChildSurface {
+		final java.awt.image.BufferedImage image;
+
+		final QuickElementCapture capture;
+
+		ChildSurface(java.awt.image.BufferedImage img, QuickElementCapture cap) {
+			image = img;
+			capture = cap;
+		}
+	}
+
+	/**
+	 * If the environment {@link QuickEnvironment#isPaintingInParallel() paints in parallel}, paints each large child into its own surface
+	 * in parallel. The surfaces are composited in z-order by {@link #paintChildren(java.awt.Graphics2D, Rectangle)}. This gives the same
+	 * result as painting each child in turn only for {@link java.awt.AlphaComposite#SrcOver source-over} compositing, so children are
+	 * painted directly if the graphics use any other composite. Children must also paint with source-over themselves: e.g. a child that
+	 * clears pixels clears only its own surface, not what its siblings painted under it.
+	 *
+	 * @param graphics The graphics that the children are being painted into
+	 * @param children The children to paint
+	 * @param childAreas The area of each child to paint, in the child's coordinates
+	 * @return The painted surface for each child, null for children that should be painted directly, or null if no children were painted
+	 */
+	private ChildSurface [] paintSurfaces(java.awt.Graphics2D graphics, QuickElement [] children, Rectangle [] childAreas) {
+		if(children.length < 2 || theDocument == null || !theDocument.getEnvironment().isPaintingInParallel())
+			return null;
+		// Surfaces are painted at device resolution, so only simple translations can be composited without changing the result.
+		// Debug graphics are meant to be drawn piece-wise as painting happens.
+		if((graphics.getTransform().getType() & ~java.awt.geom.AffineTransform.TYPE_TRANSLATION) != 0
+			|| graphics instanceof org.quick.util.AggregateGraphics)
+			return null;
+		if(!java.awt.AlphaComposite.SrcOver.equals(graphics.getComposite()))
+			return null;
+		java.util.List<Integer> parallel = new java.util.ArrayList<>(children.length);
+		for(int c = 0; c < children.length; c++) {
+			Rectangle childArea = childAreas[c];
+			if(childArea.width <= 0 || childArea.height <= 0 || (long) childArea.width * childArea.height < PARALLEL_PAINT_MIN_AREA)
+				continue;
+			// An element that paints outside its layout bounds could draw past its surface
+			Rectangle paintBounds = children[c].getPaintBounds();
+			if(paintBounds.x != 0 || paintBounds.y != 0 || paintBounds.width != children[c].theBounds.getWidth()
+				|| paintBounds.height != children[c].theBounds.getHeight())
+				continue;
+			parallel.add(c);
+		}
+		if(parallel.size() < 2)
+			return null;
+		java.awt.RenderingHints hints = (java.awt.RenderingHints) graphics.getRenderingHints().clone();
+		java.util.List<ChildSurface> painted = theDocument.getEnvironment().paintAll(parallel, c -> {
+			Rectangle childArea = childAreas[c];
+			java.awt.image.BufferedImage img = children[c].getParallelSurface(childArea.width, childArea.height);
+			java.awt.Graphics2D surfaceGraphics = img.createGraphics();
+			try {
+				// Clear what was painted into the surface last time
+				surfaceGraphics.setComposite(java.awt.AlphaComposite.Clear);
+				surfaceGraphics.fillRect(0, 0, childArea.width, childArea.height);
+				surfaceGraphics.setComposite(java.awt.AlphaComposite.SrcOver);
+				surfaceGraphics.setRenderingHints(hints);
+				surfaceGraphics.clipRect(0, 0, childArea.width, childArea.height);
+				surfaceGraphics.translate(-childArea.x, -childArea.y);
+				return new ChildSurface(img, children[c].paint(surfaceGraphics, childArea));
+			} finally {
+				surfaceGraphics.dispose();
+			}
+		});
+		ChildSurface [] surfaces = new ChildSurface[children.length];
+		for(int i = 0; i < parallel.size(); i++)
+			surfaces[parallel.get(i)] = painted.get(i);
+		return surfaces;
+	}
+
+	/**
+	 * @param width The width of the area to paint
+	 * @param height The height of the area to paint
+	 * @return A surface at least the given size for this element's parent to paint it into
+	 */
+	private java.awt.image.BufferedImage getParallelSurface(int width, int height) {
+		java.awt.image.BufferedImage surface = theParallelSurface == null ? null : theParallelSurface.get();
+		if(surface == null || surface.getWidth() < width || surface.getHeight() < height) {
+			// Size the surface to the whole element so that it can be reused as the paint area changes
+			surface = new java.awt.image.BufferedImage(Math.max(width, theBounds.getWidth()), Math.max(height, theBounds.getHeight()),
+				java.awt.image.BufferedImage.TYPE_INT_ARGB_PRE);
+			theParallelSurface = new java.lang.ref.SoftReference<>(surface);
+		}
+		return surface;
+	}
+
 	/** @return The time since which this element has needed a paint operation */
 	public final long getPaintDirtyTime() {
 		return thePaintDirtyTime;
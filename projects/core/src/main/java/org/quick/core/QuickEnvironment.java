@@ -1,8 +1,11 @@
 package org.quick.core;
 
-import java.util.Collection;
-import java.util.Collections;
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.observe.collect.ObservableList;
 import org.quick.core.mgr.QuickMessageCenter;
@@ -40,19 +43,29 @@ public class QuickEnvironment implements QuickParseEnv {
 
 	private final QuickMessageCenter theMessageCenter;
 	private final java.util.Map<String, QuickToolkit> theToolkits;
+	private final java.util.Map<String, ToolkitLoad> theToolkitLoads;
+	/** The toolkit load being performed by the current thread, if any */
+	private final ThreadLocal<ToolkitLoad> theCurrentLoad;
 	private final QuickCache theCache;
 	private final EnvironmentStyle theStyle;
 
 	private final Object theToolkitLock;
+	private final Set<QuickToolkit> theUnregisteredToolkits;
 	private ObservableList<StyleSheet> theStyleDependencyController;
+	private ForkJoinPool theLoadPool;
+	private ForkJoinPool thePaintPool;
+	private boolean isPreloadingTemplates;
 
 	private QuickEnvironment() {
 		theMessageCenter = new QuickMessageCenter(this, null, null);
-		theToolkits = new java.util.concurrent.ConcurrentHashMap<>();
+		theToolkits = new ConcurrentHashMap<>();
+		theToolkitLoads = new ConcurrentHashMap<>();
+		theCurrentLoad = new ThreadLocal<>();
 		theCache = new QuickCache();
 		theStyleDependencyController = new org.observe.collect.impl.ObservableArrayList<>(TypeToken.of(StyleSheet.class));
 		theStyle = new EnvironmentStyle(theStyleDependencyController.immutable());
 		theToolkitLock = new Object();
+		theUnregisteredToolkits = Collections.newSetFromMap(new ConcurrentHashMap<>());
 	}
 
 	@Override
@@ -124,24 +137,227 @@ public class QuickEnvironment implements QuickParseEnv {
 	 * @throws org.quick.core.parser.QuickParseException If the toolkit cannot be parsed
 	 */
 	public QuickToolkit getToolkit(java.net.URL location) throws java.io.IOException, org.quick.core.parser.QuickParseException {
+		QuickToolkit toolkit = loadToolkit(location);
+		if (!isLoadWorker())
+			registerToolkits(Arrays.asList(toolkit));
+		return toolkit;
+	}
+
+	/**
+	 * Loads several toolkits at once. If this environment is configured with a {@link Builder#withLoadParallelism(int) load parallelism}
+	 * greater than one, toolkits that do not depend on each other are loaded and parsed in parallel. The styles of the toolkits are
+	 * registered with the environment in the same order as if they had been loaded one at a time in the given order.
+	 *
+	 * @param locations The locations of the toolkits to get
+	 * @return The toolkits at each of the given locations, in the same order
+	 * @throws IOException If any of the toolkits' resources cannot be retrieved
+	 * @throws QuickParseException If any of the toolkits cannot be parsed
+	 */
+	public List<QuickToolkit> getToolkits(List<URL> locations) throws IOException, QuickParseException {
+		List<Object> results = loadAll(locations, location -> {
+			try {
+				return loadToolkit(location);
+			} catch (IOException | QuickParseException | RuntimeException e) {
+				return e;
+			}
+		});
+		List<QuickToolkit> toolkits = new ArrayList<>(results.size());
+		for (Object result : results) {
+			if (result instanceof IOException)
+				throw (IOException) result;
+			else if (result instanceof QuickParseException)
+				throw (QuickParseException) result;
+			else if (result instanceof RuntimeException)
+				throw (RuntimeException) result;
+			toolkits.add((QuickToolkit) result);
+		}
+		if (!isLoadWorker())
+			registerToolkits(toolkits);
+		return toolkits;
+	}
+
+	/**
+	 * Performs a set of independent load operations (e.g. parsing style sheets), in parallel if this environment is configured with a
+	 * {@link Builder#withLoadParallelism(int) load parallelism} greater than one. The loader must handle its own errors.
+	 *
+	 * @param <T> The type of the inputs to load
+	 * @param <R> The type of the loaded results
+	 * @param inputs The inputs to load
+	 * @param loader The function to load each input
+	 * @return The loaded results for each input, in the same order as the inputs
+	 */
+	public <T, R> List<R> loadAll(List<? extends T> inputs, Function<? super T, ? extends R> loader) {
+		// Loads performed on behalf of a toolkit load are part of it, whatever thread they run on
+		ToolkitLoad load = theCurrentLoad.get();
+		return invokeAll(theLoadPool, inputs, input -> {
+			ToolkitLoad preLoad = theCurrentLoad.get();
+			theCurrentLoad.set(load);
+			try {
+				return loader.apply(input);
+			} finally {
+				theCurrentLoad.set(preLoad);
+			}
+		});
+	}
+
+	/** @return Whether this environment is configured to {@link Builder#withPaintParallelism(int) paint in parallel} */
+	public boolean isPaintingInParallel() {
+		return thePaintPool != null;
+	}
+
+	/**
+	 * Paints a set of independent surfaces (e.g. the renderings of sibling elements), in parallel if this environment is configured with a
+	 * {@link Builder#withPaintParallelism(int) paint parallelism} greater than one
+	 *
+	 * @param <T> The type of the inputs to paint
+	 * @param <R> The type of the painted results
+	 * @param inputs The inputs to paint
+	 * @param painter The function to paint each input
+	 * @return The painted results for each input, in the same order as the inputs
+	 */
+	public <T, R> List<R> paintAll(List<? extends T> inputs, Function<? super T, ? extends R> painter) {
+		return invokeAll(thePaintPool, inputs, painter);
+	}
+
+	private static <T, R> List<R> invokeAll(ForkJoinPool pool, List<? extends T> inputs, Function<? super T, ? extends R> fn) {
+		List<R> results = new ArrayList<>(inputs.size());
+		if (pool == null || inputs.size() < 2) {
+			for (T input : inputs)
+				results.add(fn.apply(input));
+			return results;
+		}
+		List<ForkJoinTask<R>> tasks = new ArrayList<>(inputs.size());
+		for (T input : inputs)
+			tasks.add(ForkJoinTask.adapt(() -> fn.apply(input)));
+		if (isWorker(pool))
+			ForkJoinTask.invokeAll(tasks);
+		else
+			pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+		for (ForkJoinTask<R> task : tasks)
+			results.add(task.join());
+		return results;
+	}
+
+	private QuickToolkit loadToolkit(URL location) throws IOException, QuickParseException {
 		// Need to make sure the core toolkit is loaded first
 		if(CORE_TOOLKIT != null && !CORE_TOOLKIT.equals(location))
 			getCoreToolkit();
-		QuickToolkit toolkit = theToolkits.get(location.toString());
+		String key = location.toString();
+		QuickToolkit toolkit = theToolkits.get(key);
 		if(toolkit != null)
 			return toolkit;
-		synchronized(theToolkitLock) {
-			toolkit = theToolkits.get(location.toString());
-			if(toolkit != null)
-				return toolkit;
-			toolkit = theToolkitParser.parseToolkit(location, tk -> {
-				theStyleDependencyController.add(tk.getStyle());
-				theToolkits.put(location.toString(), tk);
-			});
+		ToolkitLoad parent = theCurrentLoad.get();
+		ToolkitLoad load = new ToolkitLoad(parent);
+		ToolkitLoad existing = theToolkitLoads.putIfAbsent(key, load);
+		if (existing != null) {
+			synchronized (theToolkitLoads) {
+				// Requested while loading the toolkit itself, e.g. by a namespace in one of its style sheets. With parallel loading, the
+				// toolkit may be loading on another thread that is itself waiting for this one, so waiting would never return.
+				if (existing.isWaitedOnBy(parent)) {
+					QuickToolkit built = existing.theBuilt;
+					if (built == null)
+						throw new QuickParseException("Circular dependency on toolkit " + location);
+					return built;
+				}
+				for (ToolkitLoad ancestor = parent; ancestor != null; ancestor = ancestor.theParent)
+					ancestor.theWaits.add(existing);
+			}
+			try {
+				return existing.await();
+			} finally {
+				synchronized (theToolkitLoads) {
+					for (ToolkitLoad ancestor = parent; ancestor != null; ancestor = ancestor.theParent)
+						ancestor.theWaits.remove(existing);
+				}
+			}
+		}
+		theCurrentLoad.set(load);
+		try {
+			toolkit = theToolkitParser.parseToolkit(location, tk -> load.theBuilt = tk);
+		} catch (IOException | QuickParseException | RuntimeException e) {
+			theToolkitLoads.remove(key, load);
+			load.theResult.completeExceptionally(e);
+			throw e;
+		} finally {
+			theCurrentLoad.set(parent);
 		}
+		// Only publish the toolkit once its style sheets have been parsed
+		theToolkits.put(key, toolkit);
+		theUnregisteredToolkits.add(toolkit);
+		load.theResult.complete(toolkit);
 		return toolkit;
 	}
 
+	/** @return Whether the current thread is one of this environment's parallel load threads */
+	private boolean isLoadWorker() {
+		return isWorker(theLoadPool);
+	}
+
+	private static boolean isWorker(ForkJoinPool pool) {
+		Thread thread = Thread.currentThread();
+		return pool != null && thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) thread).getPool() == pool;
+	}
+
+	/**
+	 * Adds the styles of loaded toolkits to this environment's style. Toolkits are registered after their dependencies, in the order the
+	 * dependencies are declared, so the resulting order does not depend on which parallel load finished first. Toolkits loaded on a
+	 * parallel load thread that are not declared dependencies (e.g. those referenced only from style sheet namespaces) are registered
+	 * when they are first requested from outside the load pool.
+	 *
+	 * @param roots The toolkits that were requested
+	 */
+	private void registerToolkits(List<QuickToolkit> roots) {
+		if (theUnregisteredToolkits.isEmpty())
+			return;
+		synchronized(theToolkitLock) {
+			QuickToolkit core = CORE_TOOLKIT == null ? null : theToolkits.get(CORE_TOOLKIT.toString());
+			if (core != null)
+				registerToolkit(core);
+			for (QuickToolkit root : roots)
+				registerToolkit(root);
+		}
+	}
+
+	private void registerToolkit(QuickToolkit toolkit) {
+		if (!theUnregisteredToolkits.contains(toolkit))
+			return;
+		for (QuickToolkit dependency : toolkit.getDependencies())
+			registerToolkit(dependency);
+		if (!theUnregisteredToolkits.remove(toolkit))
+			return;
+		theStyleDependencyController.add(toolkit.getStyle());
+		if (isPreloadingTemplates)
+			preloadTemplates(toolkit);
+	}
+
+	/**
+	 * Begins generating the template structures of all templated widgets mapped in a toolkit in the background, so they are available in
+	 * the {@link #getCache() cache} by the time documents need them
+	 *
+	 * @param toolkit The toolkit to preload the templates of
+	 */
+	private void preloadTemplates(QuickToolkit toolkit) {
+		List<String> classNames = new ArrayList<>();
+		for (String tagName : toolkit.getTagNames())
+			classNames.add(toolkit.getMappedClass(tagName));
+		Runnable preload = () -> {
+			for (String className : classNames) {
+				Class<? extends QuickTemplate> type;
+				try {
+					type = toolkit.loadClass(className, QuickTemplate.class);
+				} catch (QuickException e) {
+					continue; // Not a template or not loadable--problems will be reported when the type is used
+				}
+				if (type.getAnnotation(org.quick.core.tags.Template.class) != null)
+					theCache.get(this, QuickTemplate.TemplateStructure.TEMPLATE_STRUCTURE_CACHE_TYPE, type, null);
+			}
+		};
+		if (theLoadPool != null)
+			theLoadPool.execute(preload);
+		else
+			preload.run();
+	}
+
 	/** @return The toolkit containing the core Quick classes */
 	public QuickToolkit getCoreToolkit() {
 		if(CORE_TOOLKIT == null)
@@ -155,6 +371,61 @@ public class QuickEnvironment implements QuickParseEnv {
 		}
 	}
 
+	private static class ToolkitLoad {
+		/** The load that requested this one, e.g. for a toolkit that depends on this one. Null if requested from outside a load. */
+		final ToolkitLoad theParent;
+		final CompletableFuture<QuickToolkit> theResult;
+		/** The toolkit, once it has been built but possibly before its style sheets have been parsed */
+		volatile QuickToolkit theBuilt;
+		/**
+		 * The loads on other threads that this load or a load it requested is waiting for, once per wait. Guarded by the environment's
+		 * toolkit loads map.
+		 */
+		final List<ToolkitLoad> theWaits;
+
+		ToolkitLoad(ToolkitLoad parent) {
+			theParent = parent;
+			theResult = new CompletableFuture<>();
+			theWaits = new ArrayList<>(1);
+		}
+
+		/**
+		 * @param waiter The load that would wait for this one
+		 * @return Whether waiting for this load would be circular, i.e. the waiter or a load that requested it is this load or one that
+		 *         this load is waiting for
+		 */
+		boolean isWaitedOnBy(ToolkitLoad waiter) {
+			Set<ToolkitLoad> blocked = Collections.newSetFromMap(new IdentityHashMap<>());
+			for (ToolkitLoad ancestor = waiter; ancestor != null; ancestor = ancestor.theParent)
+				blocked.add(ancestor);
+			Set<ToolkitLoad> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+			ArrayDeque<ToolkitLoad> path = new ArrayDeque<>();
+			path.add(this);
+			while (!path.isEmpty()) {
+				ToolkitLoad load = path.poll();
+				if (blocked.contains(load))
+					return true;
+				if (visited.add(load))
+					path.addAll(load.theWaits);
+			}
+			return false;
+		}
+
+		QuickToolkit await() throws IOException, QuickParseException {
+			try {
+				return theResult.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof IOException)
+					throw (IOException) e.getCause();
+				else if (e.getCause() instanceof QuickParseException)
+					throw (QuickParseException) e.getCause();
+				else if (e.getCause() instanceof RuntimeException)
+					throw (RuntimeException) e.getCause();
+				throw e;
+			}
+		}
+	}
+
 	/** @return A builder for an environment */
 	public static Builder build() {
 		return new Builder();
@@ -180,6 +451,72 @@ public class QuickEnvironment implements QuickParseEnv {
 			theEnv.theContentCreator = new QuickContentCreator();
 			theEnv.theStyleParser = new DefaultStyleParser(theEnv);
 			theEnv.thePropertyParser = new AntlrPropertyParser(theEnv);
+			int processors = Runtime.getRuntime().availableProcessors();
+			theEnv.theLoadPool = processors > 1 ? new ForkJoinPool(processors) : null;
+			return this;
+		}
+
+		/**
+		 * @param parallelism The maximum number of threads to use to load toolkits, style sheets and templates for the environment. 1 or
+		 *        less loads everything on the thread that requests it.
+		 * @return This builder
+		 */
+		public Builder withLoadParallelism(int parallelism) {
+			if (isBuilt.get())
+				throw new IllegalStateException("The builder may not be changed after the environment is built");
+			if (theEnv.theLoadPool != null)
+				theEnv.theLoadPool.shutdown();
+			theEnv.theLoadPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+			return this;
+		}
+
+		/**
+		 * @param parallelism The maximum number of threads to use to paint large, independent elements of the environment's documents. 1
+		 *        or less (the default) paints everything on the event queue thread.
+		 * @return This builder
+		 */
+		public Builder withPaintParallelism(int parallelism) {
+			if (isBuilt.get())
+				throw new IllegalStateException("The builder may not be changed after the environment is built");
+			if (theEnv.thePaintPool != null)
+				theEnv.thePaintPool.shutdown();
+			theEnv.thePaintPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+			return this;
+		}
+
+		/**
+		 * @param workers The number of threads the environment's {@link QuickEnvironment#getCache() cache} should use to generate items
+		 * @return This builder
+		 */
+		public Builder withCacheWorkers(int workers) {
+			if (isBuilt.get())
+				throw new IllegalStateException("The builder may not be changed after the environment is built");
+			theEnv.theCache.setWorkerCount(workers);
+			return this;
+		}
+
+		/**
+		 * @param directory The directory for the environment's {@link QuickEnvironment#getCache() cache} to persist items in across
+		 *        processes
+		 * @param maxSize The maximum total size, in bytes, of the items to persist
+		 * @return This builder
+		 */
+		public Builder withDiskCache(java.io.File directory, long maxSize) {
+			if (isBuilt.get())
+				throw new IllegalStateException("The builder may not be changed after the environment is built");
+			theEnv.theCache.setDiskCache(new QuickDiskCache(directory, maxSize));
+			return this;
+		}
+
+		/**
+		 * @param preload Whether the environment should begin generating the template structures of templated widgets in each toolkit as
+		 *        soon as the toolkit is loaded, instead of when the template is first used
+		 * @return This builder
+		 */
+		public Builder withTemplatePreload(boolean preload) {
+			if (isBuilt.get())
+				throw new IllegalStateException("The builder may not be changed after the environment is built");
+			theEnv.isPreloadingTemplates = preload;
 			return this;
 		}
 
@@ -6,6 +6,8 @@ import java.awt.Rectangle;
 
 import org.qommons.ArrayUtils;
 import org.qommons.ProgramTracker;
+import org.qommons.Transaction;
+import org.quick.core.mgr.ElementBounds;
 import org.quick.util.QuickUtils;
 
 /** The event queue in Quick which makes sure elements's states stay up-to-date */
@@ -233,12 +235,16 @@ public class QuickEventQueue {
 				&& area.getHeight() >= element.bounds().getHeight())
 				area = null;
 			if(element == doc.getRoot() && area == null) {
-				QuickRendering render = new QuickRendering(element.bounds().getWidth(), element.bounds().getHeight());
+				QuickRendering render = doc.createRender(element.bounds().getWidth(), element.bounds().getHeight());
 				Graphics2D graphics = (Graphics2D) render.getImage().getGraphics();
 				if(doc.getDebugGraphics() != null)
 					graphics = new org.quick.util.AggregateGraphics(graphics, doc.getDebugGraphics());
 				render.setRoot(element.paint(graphics, area));
 				doc.setRender(render);
+				if (doc.isRenderPresented()) {
+					doc.graphicsUpdated(0, 0, render.getImage().getWidth(), render.getImage().getHeight());
+					return;
+				}
 				Graphics2D docGraphics = doc.getGraphics();
 				if (docGraphics != null) {
 					docGraphics.drawImage(render.getImage(), 0, 0, null);
@@ -255,7 +261,7 @@ public class QuickEventQueue {
 				element.getDocument().getRoot().repaint(null, false);
 				return;
 			}
-			QuickRendering newRender = render.clone();
+			QuickRendering newRender = doc.copyRender(render);
 			bound = newRender.getFor(element);
 			Point trans = bound.getDocLocation();
 			Graphics2D graphics = (Graphics2D) newRender.getImage().getGraphics();
@@ -268,29 +274,36 @@ public class QuickEventQueue {
 			} finally {
 				graphics.translate(-trans.x, -trans.y);
 			}
-			Graphics2D docGraphics = doc.getGraphics();
-			if(docGraphics != null) {
-				int x = trans.x;
-				if(x < 0)
-					x = 0;
-				int y = trans.y;
-				if(y < 0)
-					y = 0;
-				int w = newBound.getWidth();
-				if(x + w > newRender.getImage().getWidth())
-					w = newRender.getImage().getWidth() - trans.x;
-				int h = newBound.getHeight();
-				if(y + h > newRender.getImage().getHeight())
-					h = newRender.getImage().getHeight() - trans.y;
-				docGraphics.drawImage(newRender.getImage().getSubimage(x, y, w, h), x, y, null);
-				doc.graphicsUpdated();
-			}
 			if(bound.getParent() != null)
 				((java.util.List<QuickElementCapture>) bound.getParent().getChildren()).set(bound.getParent().getChildren().indexOf(bound),
 					newBound);
 			else
 				newRender.setRoot(newBound);
 			element.getDocument().setRender(newRender);
+			int x = trans.x;
+			if(x < 0)
+				x = 0;
+			int y = trans.y;
+			if(y < 0)
+				y = 0;
+			int w = newBound.getWidth();
+			if(x + w > newRender.getImage().getWidth())
+				w = newRender.getImage().getWidth() - trans.x;
+			int h = newBound.getHeight();
+			if(y + h > newRender.getImage().getHeight())
+				h = newRender.getImage().getHeight() - trans.y;
+			if(w <= 0 || h <= 0)
+				return;
+			if(doc.isRenderPresented()) {
+				// The presenter reads the new rendering itself, so only the dirty area needs to be reported
+				doc.graphicsUpdated(x, y, w, h);
+				return;
+			}
+			Graphics2D docGraphics = doc.getGraphics();
+			if(docGraphics != null) {
+				docGraphics.drawImage(newRender.getImage().getSubimage(x, y, w, h), x, y, null);
+				doc.graphicsUpdated(x, y, w, h);
+			}
 		}
 
 		@Override
@@ -367,7 +380,10 @@ public class QuickEventQueue {
 
 		@Override
 		protected void doHandleAction() {
-			theElement.doLayout();
+			// Children's bounds fire a single event each after the layout pass instead of one per field changed
+			try (Transaction t = ElementBounds.holdAll(theElement.ch())) {
+				theElement.doLayout();
+			}
 		}
 
 		@Override
@@ -436,10 +452,10 @@ public class QuickEventQueue {
 				} else
 					break;
 			}
-			if (parent != null)
-				parent.doLayout();
-			else
-				child.doLayout();
+			QuickElement toLayout = parent != null ? parent : child;
+			try (Transaction t = ElementBounds.holdAll(toLayout.ch())) {
+				toLayout.doLayout();
+			}
 		}
 
 		private static boolean isInPreferred(org.quick.core.layout.Orientation orient, QuickElement parent, QuickElement child) {
@@ -488,11 +504,70 @@ public class QuickEventQueue {
 		}
 	}
 
+	/** Represents a tick of a frame clock, such as the one that drives Quick's animations */
+	public static class FrameEvent extends AbstractEvent {
+		/** The priority of frame events. Frames are handled ahead of layout and paint so that their effects are rendered together. */
+		public static final int PRIORITY = 50;
+
+		private final long theFrameTime;
+
+		private final java.util.function.LongConsumer theAction;
+
+		/**
+		 * @param frameTime The time at which this frame is due
+		 * @param action The action to perform for the frame. It is passed the frame time.
+		 * @param postActions The actions to be performed after the event is handled successfully
+		 */
+		public FrameEvent(long frameTime, java.util.function.LongConsumer action, Runnable... postActions) {
+			super(PRIORITY, postActions);
+			theFrameTime = frameTime;
+			theAction = action;
+		}
+
+		/** @return The time at which this frame is due */
+		public long getFrameTime() {
+			return theFrameTime;
+		}
+
+		@Override
+		public boolean shouldHandle(long time) {
+			return time >= theFrameTime;
+		}
+
+		@Override
+		protected void doHandleAction() {
+			theAction.accept(theFrameTime);
+		}
+
+		@Override
+		public boolean isSupersededBy(Event evt) {
+			return evt instanceof FrameEvent && ((FrameEvent) evt).theAction == theAction
+				&& ((FrameEvent) evt).theFrameTime <= theFrameTime;
+		}
+
+		@Override
+		public void handleError(Throwable err) {
+			System.err.println("Error handling frame at " + theFrameTime);
+			err.printStackTrace();
+		}
+
+		@Override
+		public String toString() {
+			return "Frame at " + theFrameTime;
+		}
+	}
+
 	/** Represents a request to set an element's bounds */
 	public static class ReboundEvent extends AbstractEvent {
 		/** The priority of rebound events */
 		public static final int PRIORITY = 20;
 
+		/**
+		 * The time, in milliseconds, that a rebound event waits before it is handled. A newer rebound event for the same element discards
+		 * a waiting one, so a burst of resizes is only laid out once.
+		 */
+		public static final long SETTLE_TIME = 50;
+
 		private final QuickElement theElement;
 
 		private final Rectangle theBounds;
@@ -525,12 +600,12 @@ public class QuickEventQueue {
 
 		@Override
 		public boolean isSupersededBy(Event evt) {
-			return evt instanceof ReboundEvent && evt.getTime() > getTime();
+			return evt instanceof ReboundEvent && ((ReboundEvent) evt).theElement == theElement && evt.getTime() > getTime();
 		}
 
 		@Override
 		public boolean shouldHandle(long time) {
-			return time - getTime() > 50;
+			return time - getTime() > SETTLE_TIME;
 		}
 
 		@Override
@@ -585,20 +660,25 @@ public class QuickEventQueue {
 
 		@Override
 		protected void doHandleAction() {
+			// Only create a copy of the event for elements that have a listener that may be interested in it
+			long kind = org.quick.core.event.QuickEventKinds.of(theEvent);
 			if(theEvent.getCapture() == null) { // Non-positioned event
-				if(isDownward)
+				if(isDownward) {
 					for(QuickElement pathEl : QuickUtils.path(theEvent.getElement()))
-						pathEl.events().fire(theEvent.copyFor(pathEl));
-				else {
+						if(pathEl.events().isInterested(kind))
+							pathEl.events().fire(theEvent.copyFor(pathEl));
+				} else {
 					QuickElement el = theEvent.getElement();
 					while(el != null) {
-						el.events().fire(theEvent.copyFor(el));
+						if(el.events().isInterested(kind))
+							el.events().fire(theEvent.copyFor(el));
 						el = el.getParent().get();
 					}
 				}
 			} else
 				for(QuickEventPositionCapture el : theEvent.getCapture().iterate(!isDownward))
-					el.getElement().events().fire(theEvent.copyFor(el.getElement()));
+					if(el.getElement().events().isInterested(kind))
+						el.getElement().events().fire(theEvent.copyFor(el.getElement()));
 		}
 
 		@Override
@@ -644,13 +724,16 @@ public class QuickEventQueue {
 
 		@Override
 		protected void doHandleAction() {
-			if(isDownward)
+			long kind = org.quick.core.event.QuickEventKinds.of(theEvent);
+			if(isDownward) {
 				for(QuickElement pathEl : QuickUtils.path(theEvent.getElement()))
-					pathEl.events().fire(theEvent.copyFor(pathEl));
-			else {
+					if(pathEl.events().isInterested(kind))
+						pathEl.events().fire(theEvent.copyFor(pathEl));
+			} else {
 				QuickElement el = theEvent.getElement();
 				while(el != null) {
-					el.events().fire(theEvent.copyFor(el));
+					if(el.events().isInterested(kind))
+						el.events().fire(theEvent.copyFor(el));
 					el = el.getParent().get();
 				}
 			}
@@ -901,13 +984,18 @@ public class QuickEventQueue {
 				hasNewEvent = false;
 				boolean acted = false;
 				long now = System.currentTimeMillis();
+				long wake = now + getFrequency();
 				for(Event evt : events) {
 					if(isInterrupted) {
 						break;
 					}
 					if(evt.isFinished())
 						continue;
-					if(evt.shouldHandle(now)) {
+					if(!evt.shouldHandle(now)) {
+						// Wake up in time for frames that are due before the next regular pass
+						if(evt instanceof FrameEvent && ((FrameEvent) evt).getFrameTime() < wake)
+							wake = ((FrameEvent) evt).getFrameTime();
+					} else {
 						acted = true;
 						remove(evt, processEvents != null);
 						ProgramTracker.TrackNode handle = null;
@@ -925,8 +1013,8 @@ public class QuickEventQueue {
 				}
 				if(processEvents != null)
 					theTracker.end(processEvents);
-				if(!acted && !hasNewEvent && !isInterrupted)
-					Thread.sleep(getFrequency());
+				if(!acted && !hasNewEvent && !isInterrupted && wake > now)
+					Thread.sleep(wake - now);
 			} catch(InterruptedException e) {
 			}
 		}
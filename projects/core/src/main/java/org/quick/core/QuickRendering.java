@@ -1,21 +1,96 @@
 package org.quick.core;
 
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 
 import org.quick.util.QuickUtils;
 
 /** Represents a rendering of a Quick document and some state associated with the rendering */
 public class QuickRendering implements Cloneable {
+	/** The granularity, in pixels, to which backing images are over-allocated so that they can be reused when the document grows */
+	private static final int BACKING_STEP = 64;
+
+	private BufferedImage theBacking;
+
 	private BufferedImage theImage;
 
 	private QuickElementCapture theRoot;
 
+	private int theReaders;
+
+	private boolean isRecycled;
+
 	/**
 	 * @param width The width of the document to render
 	 * @param height The height of the document to render
 	 */
 	public QuickRendering(int width, int height) {
-		theImage = new BufferedImage(width, height, BufferedImage.TYPE_4BYTE_ABGR);
+		this(width, height, null);
+	}
+
+	/**
+	 * @param width The width of the document to render
+	 * @param height The height of the document to render
+	 * @param backing An image that is no longer used, which is cleared and rendered into if it is a suitable size. May be null.
+	 */
+	QuickRendering(int width, int height, BufferedImage backing) {
+		if(isReusable(backing, width, height)) {
+			theBacking = backing;
+			theImage = backing.getSubimage(0, 0, width, height);
+			Graphics2D graphics = theImage.createGraphics();
+			try {
+				graphics.setComposite(AlphaComposite.Clear);
+				graphics.fillRect(0, 0, width, height);
+			} finally {
+				graphics.dispose();
+			}
+		} else {
+			theBacking = new BufferedImage(grow(width), grow(height), BufferedImage.TYPE_4BYTE_ABGR);
+			theImage = theBacking.getSubimage(0, 0, width, height);
+		}
+	}
+
+	private static boolean isReusable(BufferedImage backing, int width, int height) {
+		if(backing == null || backing.getWidth() < width || backing.getHeight() < height)
+			return false;
+		// Don't hold on to a buffer that is much larger than needed, e.g. after the window shrinks from full screen
+		return (long) backing.getWidth() * backing.getHeight() <= 4L * grow(width) * grow(height);
+	}
+
+	private static int grow(int size) {
+		size += size / 4;
+		return Math.max(BACKING_STEP, (size + BACKING_STEP - 1) / BACKING_STEP * BACKING_STEP);
+	}
+
+	/**
+	 * Prevents this rendering's image from being recycled for a new rendering. Code that reads the image off the Quick event thread, e.g.
+	 * to present it on screen, must acquire the rendering first and {@link #release() release} it when done.
+	 *
+	 * @return Whether the rendering was acquired. If false, the rendering has been replaced and its image may already be reused, so the
+	 *         document's current rendering should be used instead.
+	 */
+	public synchronized boolean acquire() {
+		if(isRecycled)
+			return false;
+		theReaders++;
+		return true;
+	}
+
+	/** Releases this rendering after it has been {@link #acquire() acquired} */
+	public synchronized void release() {
+		theReaders--;
+	}
+
+	/**
+	 * Marks this rendering as retired, so that it can no longer be {@link #acquire() acquired}
+	 *
+	 * @return The image backing this rendering's {@link #getImage() image}, which may be larger than the rendering, to be reused for a new
+	 *         rendering. Null if the image is still being read.
+	 */
+	synchronized BufferedImage recycle() {
+		isRecycled = true;
+		return theReaders == 0 ? theBacking : null;
 	}
 
 	/** @param root A capture of the element structure that was rendered */
@@ -72,15 +147,37 @@ public class QuickRendering implements Cloneable {
 
 	@Override
 	public QuickRendering clone() {
+		return copy(null);
+	}
+
+	/**
+	 * @param backing An image that is no longer used, which the copy is drawn into if it is a suitable size. May be null.
+	 * @return A copy of this rendering
+	 */
+	QuickRendering copy(BufferedImage backing) {
 		QuickRendering ret;
 		try {
 			ret = (QuickRendering) super.clone();
 		} catch(CloneNotSupportedException e) {
 			throw new IllegalStateException(e);
 		}
-		ret.theImage = new BufferedImage(theImage.getWidth(), theImage.getHeight(), theImage.getType());
-		ret.theImage.getGraphics().drawImage(theImage, 0, 0, null);
+		int w = theImage.getWidth();
+		int h = theImage.getHeight();
+		if(isReusable(backing, w, h))
+			ret.theBacking = backing;
+		else
+			ret.theBacking = new BufferedImage(grow(w), grow(h), BufferedImage.TYPE_4BYTE_ABGR);
+		ret.theImage = ret.theBacking.getSubimage(0, 0, w, h);
+		Graphics2D graphics = ret.theImage.createGraphics();
+		try {
+			graphics.setComposite(AlphaComposite.Src);
+			graphics.drawImage(theImage, 0, 0, null);
+		} finally {
+			graphics.dispose();
+		}
 		ret.theRoot = theRoot.clone();
+		ret.theReaders = 0;
+		ret.isRecycled = false;
 		return ret;
 	}
 }
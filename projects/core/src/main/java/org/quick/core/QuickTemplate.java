@@ -208,7 +208,7 @@ public abstract class QuickTemplate extends QuickElement {
 
 		/** The property type for the role attribute */
 		public static final QuickPropertyType<AttachPoint<?>> roleType = QuickPropertyType.build("role", new TypeToken<AttachPoint<?>>(){})
-			.build();
+			.shareable().build();
 
 		/** The role attribute, defining how children added to a template are used */
 		public static class RoleAttribute extends QuickAttribute<AttachPoint<?>> {
@@ -1096,7 +1096,7 @@ public abstract class QuickTemplate extends QuickElement {
 		for (Map.Entry<String, String> att : structure.getWidgetStructure().getAttributes().entrySet()) {
 			if (!atts().isSet(att.getKey())) {
 				try {
-					atts().set(att.getKey(), att.getValue(), this);
+					atts().set(att.getKey(), structure.getWidgetStructure(), this);
 				} catch (QuickException e) {
 					msg().error("Templated root attribute " + att.getKey() + "=" + att.getValue() + " failed for templated widget "
 						+ theTemplateStructure.getDefiner().getName(), e);
@@ -1107,7 +1107,8 @@ public abstract class QuickTemplate extends QuickElement {
 				ImmutableStyle.Builder builder = ImmutableStyle.build(msg());
 				boolean mod = false;
 				try {
-					templateStyle = StyleAttributes.parseStyle(getDocument().getEnvironment().getPropertyParser(), this, att.getValue());
+					templateStyle = structure.getWidgetStructure()
+						.parseAttribute(StyleAttributes.style, getDocument().getEnvironment().getPropertyParser(), this).get();
 					for (StyleAttribute<?> styleAtt : templateStyle.attributes()) {
 						if (!elStyle.isSet(styleAtt)) {
 							mod = true;
@@ -1148,14 +1149,17 @@ public abstract class QuickTemplate extends QuickElement {
 				return null;
 			if (ap != null && !ap.implementation)
 				return null;
-			WidgetStructure implStruct = new WidgetStructure(cw.getParent(), cw.getClassView(), cw.getNamespace(), cw.getTagName());
-			for (Map.Entry<String, String> att : cw.getAttributes().entrySet()) {
-				if (!att.getKey().startsWith(TemplateStructure.TEMPLATE_PREFIX))
-					implStruct.addAttribute(att.getKey(), att.getValue());
-			}
-			for (QuickContent content : cw.getChildren())
-				implStruct.addChild(content);
-			implStruct.seal();
+			WidgetStructure implStruct = cw;
+			if (cw.getAttributes().keySet().stream().anyMatch(att -> att.startsWith(TemplateStructure.TEMPLATE_PREFIX))) {
+				implStruct = new WidgetStructure(cw.getParent(), cw.getClassView(), cw.getNamespace(), cw.getTagName());
+				for (Map.Entry<String, String> att : cw.getAttributes().entrySet()) {
+					if (!att.getKey().startsWith(TemplateStructure.TEMPLATE_PREFIX))
+						implStruct.addAttribute(att.getKey(), att.getValue());
+				}
+				for (QuickContent content : cw.getChildren())
+					implStruct.addChild(content);
+				implStruct.seal();
+			} // Otherwise use the template's own structure so that its parsed attribute values are shared between instances
 			ret = creator.getChild(parent, theTemplateContext, implStruct, false);
 			ret.atts().accept(theRoleWanter, template.role);
 			try {
@@ -1252,7 +1256,7 @@ public abstract class QuickTemplate extends QuickElement {
 					if (attr.getKey().startsWith(TemplateStructure.TEMPLATE_PREFIX))
 						continue;
 					try {
-						child.atts().set(attr.getKey(), attr.getValue(), child.getParent().get());
+						child.atts().set(attr.getKey(), (WidgetStructure) widgetStruct, child.getParent().get());
 					} catch (QuickException e) {
 						child.msg().error(
 							"Template-specified attribute " + attr.getKey() + "=" + attr.getValue() + " is not supported by content", e);
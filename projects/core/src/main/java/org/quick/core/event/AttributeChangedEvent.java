@@ -1,7 +1,5 @@
 package org.quick.core.event;
 
-import java.util.function.Function;
-
 import org.quick.core.QuickElement;
 import org.quick.core.event.boole.TypedPredicate;
 import org.quick.core.mgr.AttributeManager.AttributeHolder;
@@ -15,10 +13,10 @@ import org.quick.core.prop.QuickAttribute;
 public abstract class AttributeChangedEvent<T> extends QuickPropertyEvent<T> {
 	/** Filters events of this type */
 	@SuppressWarnings("hiding")
-	public static final Function<QuickEvent, AttributeChangedEvent<?>> base = value -> {
+	public static final QuickEventCondition<AttributeChangedEvent<?>> base = QuickEventCondition.of(QuickEventKinds.ATTRIBUTE, value -> {
 		return value instanceof AttributeChangedEvent && !((AttributeChangedEvent<?>) value).isOverridden() ? (AttributeChangedEvent<?>) value
 			: null;
-	};
+	});
 
 	/**
 	 * A filter for attribute change events on a particular attribute
@@ -51,15 +49,15 @@ public abstract class AttributeChangedEvent<T> extends QuickPropertyEvent<T> {
 	 * @param attr The attribute to listen for
 	 * @return A filter for change events to the given attribute
 	 */
-	public static <T> Function<QuickEvent, AttributeChangedEvent<T>> att(QuickAttribute<T> attr) {
-		return event -> {
+	public static <T> QuickEventCondition<AttributeChangedEvent<T>> att(QuickAttribute<T> attr) {
+		return QuickEventCondition.of(QuickEventKinds.ATTRIBUTE, event -> {
 			AttributeChangedEvent<?> attEvt = base.apply(event);
 			if(attEvt == null)
 				return null;
 			if(attEvt.getAttribute() != attr)
 				return null;
 			return (AttributeChangedEvent<T>) attEvt;
-		};
+		});
 	}
 
 	private final QuickAttribute<T> theAttr;
@@ -7,9 +7,9 @@ import org.quick.core.mgr.ElementBounds;
 /** Fired when an element's position or size changes */
 public abstract class BoundsChangedEvent extends QuickPropertyEvent<Rectangle> {
 	/** Filters events of this type */
-	public static final java.util.function.Function<QuickEvent, BoundsChangedEvent> bounds = value -> {
+	public static final QuickEventCondition<BoundsChangedEvent> bounds = QuickEventCondition.of(QuickEventKinds.BOUNDS, value -> {
 		return value instanceof BoundsChangedEvent && !((BoundsChangedEvent) value).isOverridden() ? (BoundsChangedEvent) value : null;
-	};
+	});
 
 	/**
 	 * @param el The element whose bounds changed
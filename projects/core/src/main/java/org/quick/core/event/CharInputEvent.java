@@ -8,9 +8,9 @@ import org.quick.core.QuickElement;
 /** This event represents a character of textual input, typically as a result of a keystroke or combination of keystrokes */
 public class CharInputEvent extends UserEvent {
 	/** Filters events of this type */
-	public static final java.util.function.Function<QuickEvent, CharInputEvent> charInput = value -> {
+	public static final QuickEventCondition<CharInputEvent> charInput = QuickEventCondition.of(QuickEventKinds.CHAR_INPUT, value -> {
 		return value instanceof CharInputEvent ? (CharInputEvent) value : null;
-	};
+	});
 
 	/** The control character representing a paste event (typically from the user pressing Ctrl+V) */
 	public static final char PASTE = 22;
@@ -54,6 +54,13 @@ public class FocusEventCondition extends UserEventCondition<FocusEvent> {
 		return focusEvt;
 	}
 
+	@Override
+	public long getEventKinds() {
+		if(isFocus == null)
+			return QuickEventKinds.FOCUS | QuickEventKinds.BLUR;
+		return isFocus.booleanValue() ? QuickEventKinds.FOCUS : QuickEventKinds.BLUR;
+	}
+
 	@Override
 	public FocusEventCondition withUsed() {
 		return (FocusEventCondition) super.withUsed();
@@ -28,6 +28,13 @@ public class KeyBoardEventCondition extends UserEventCondition<KeyBoardEvent> {
 		return kbEvt;
 	}
 
+	@Override
+	public long getEventKinds() {
+		if(isPress == null)
+			return QuickEventKinds.KEY;
+		return isPress.booleanValue() ? QuickEventKinds.KEY_PRESS : QuickEventKinds.KEY_RELEASE;
+	}
+
 	@Override
 	public KeyBoardEventCondition withUsed() {
 		return (KeyBoardEventCondition) super.withUsed();
@@ -41,6 +41,16 @@ public class MouseEventCondition extends PositionedUserEventCondition<MouseEvent
 		return mouseEvt;
 	}
 
+	@Override
+	public long getEventKinds() {
+		if(theTypes == null)
+			return QuickEventKinds.MOUSE;
+		long kinds = 0;
+		for(MouseEventType type : theTypes)
+			kinds |= QuickEventKinds.mouse(type);
+		return kinds;
+	}
+
 	@Override
 	protected MouseEventCondition clone() {
 		MouseEventCondition ret = (MouseEventCondition) super.clone();
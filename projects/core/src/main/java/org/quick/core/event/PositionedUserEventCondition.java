@@ -34,6 +34,11 @@ public class PositionedUserEventCondition<E extends PositionedUserEvent> extends
 		return (E) positionedApply(evt);
 	}
 
+	@Override
+	public long getEventKinds() {
+		return QuickEventKinds.POSITIONED;
+	}
+
 	@Override
 	protected PositionedUserEventCondition<E> clone() {
 		return (PositionedUserEventCondition<E>) super.clone();
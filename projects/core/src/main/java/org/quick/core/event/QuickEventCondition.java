@@ -1,9 +1,38 @@
 package org.quick.core.event;
 
+import java.util.function.Function;
+
 /**
  * Implementations of this interface provide advanced ways for programmers to filter {@link QuickEvent}s for listening.
  *
  * @param <E> The type of event this conditional is for
  */
-public interface QuickEventCondition<E extends QuickEvent> extends java.util.function.Function<QuickEvent, E> {
+public interface QuickEventCondition<E extends QuickEvent> extends Function<QuickEvent, E> {
+	/**
+	 * @return A mask of the {@link QuickEventKinds kinds} of events that this condition may accept. Events of other kinds must be rejected
+	 *         by the condition.
+	 */
+	default long getEventKinds() {
+		return QuickEventKinds.ALL;
+	}
+
+	/**
+	 * @param <E> The type of event the condition is for
+	 * @param kinds The {@link QuickEventKinds kinds} of events that the filter may accept
+	 * @param filter The filter for the condition
+	 * @return A condition that uses the given filter
+	 */
+	static <E extends QuickEvent> QuickEventCondition<E> of(long kinds, Function<QuickEvent, E> filter) {
+		return new QuickEventCondition<E>() {
+			@Override
+			public E apply(QuickEvent event) {
+				return filter.apply(event);
+			}
+
+			@Override
+			public long getEventKinds() {
+				return kinds;
+			}
+		};
+	}
 }
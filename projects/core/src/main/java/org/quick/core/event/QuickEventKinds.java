@@ -0,0 +1,77 @@
+package org.quick.core.event;
+
+import org.quick.core.event.MouseEvent.MouseEventType;
+
+/**
+ * Bit masks that classify {@link QuickEvent}s coarsely by kind. Each {@link QuickEventCondition} reports the kinds of events it may
+ * accept, so an element's {@link org.quick.core.mgr.QuickEventManager event manager} can tell cheaply whether any of its listeners may
+ * be interested in an event.
+ */
+public final class QuickEventKinds {
+	/** The first bit used for {@link MouseEvent}s. Each {@link MouseEventType} has its own bit starting here. */
+	private static final int MOUSE_SHIFT = 0;
+
+	/** All {@link MouseEvent}s */
+	public static final long MOUSE = ((1L << MouseEventType.values().length) - 1) << MOUSE_SHIFT;
+	/** {@link KeyBoardEvent}s for a key being pressed */
+	public static final long KEY_PRESS = 1L << 16;
+	/** {@link KeyBoardEvent}s for a key being released */
+	public static final long KEY_RELEASE = 1L << 17;
+	/** All {@link KeyBoardEvent}s */
+	public static final long KEY = KEY_PRESS | KEY_RELEASE;
+	/** {@link CharInputEvent}s */
+	public static final long CHAR_INPUT = 1L << 18;
+	/** {@link ScrollEvent}s */
+	public static final long SCROLL = 1L << 19;
+	/** {@link FocusEvent}s for an element gaining focus */
+	public static final long FOCUS = 1L << 20;
+	/** {@link FocusEvent}s for an element losing focus */
+	public static final long BLUR = 1L << 21;
+	/** {@link BoundsChangedEvent}s */
+	public static final long BOUNDS = 1L << 22;
+	/** {@link AttributeChangedEvent}s */
+	public static final long ATTRIBUTE = 1L << 23;
+	/** Events that are not of any other kind */
+	public static final long OTHER = 1L << 63;
+
+	/** All {@link PositionedUserEvent}s */
+	public static final long POSITIONED = MOUSE | SCROLL | OTHER;
+	/** All {@link UserEvent}s */
+	public static final long USER = MOUSE | KEY | CHAR_INPUT | SCROLL | FOCUS | BLUR | OTHER;
+	/** All events */
+	public static final long ALL = -1L;
+
+	private QuickEventKinds() {
+	}
+
+	/**
+	 * @param type The type of mouse event
+	 * @return The kind of mouse events of the given type
+	 */
+	public static long mouse(MouseEventType type) {
+		return 1L << (MOUSE_SHIFT + type.ordinal());
+	}
+
+	/**
+	 * @param event The event to classify
+	 * @return The kind bit of the event
+	 */
+	public static long of(QuickEvent event) {
+		if(event instanceof MouseEvent)
+			return mouse(((MouseEvent) event).getType());
+		else if(event instanceof KeyBoardEvent)
+			return ((KeyBoardEvent) event).wasPressed() ? KEY_PRESS : KEY_RELEASE;
+		else if(event instanceof CharInputEvent)
+			return CHAR_INPUT;
+		else if(event instanceof ScrollEvent)
+			return SCROLL;
+		else if(event instanceof FocusEvent)
+			return ((FocusEvent) event).isFocus() ? FOCUS : BLUR;
+		else if(event instanceof BoundsChangedEvent)
+			return BOUNDS;
+		else if(event instanceof AttributeChangedEvent)
+			return ATTRIBUTE;
+		else
+			return OTHER;
+	}
+}
@@ -15,6 +15,10 @@ import org.quick.core.QuickEventPositionCapture;
  * @see org.quick.core.QuickDocument.ScrollPolicy#MIXED
  */
 public class ScrollEvent extends PositionedUserEvent {
+	/** Filters scroll events */
+	public static final QuickEventCondition<ScrollEvent> scroll = QuickEventCondition.of(QuickEventKinds.SCROLL,
+		value -> value instanceof ScrollEvent ? (ScrollEvent) value : null);
+
 	/** Different types of scroll actions that may cause a ScrollEvent */
 	public static enum ScrollType {
 		/** Represents scrolling by a small unit, e.g. arrow keys or mouse wheel */
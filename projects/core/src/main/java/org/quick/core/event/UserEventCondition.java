@@ -47,6 +47,11 @@ public class UserEventCondition<E extends UserEvent> implements QuickEventCondit
 		return evt;
 	}
 
+	@Override
+	public long getEventKinds() {
+		return QuickEventKinds.USER;
+	}
+
 	/** @return A filter that accepts events that are {@link UserEvent#isUsed() used} as well as unused. */
 	public UserEventCondition<E> withUsed() {
 		if(isWithUsed)
@@ -1,8 +1,7 @@
 package org.quick.core.mgr;
 
-import java.util.IdentityHashMap;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.observe.*;
 import org.observe.assoc.ObservableMap;
@@ -13,61 +12,51 @@ import org.quick.core.QuickElement;
 import org.quick.core.QuickException;
 import org.quick.core.QuickParseEnv;
 import org.quick.core.event.AttributeChangedEvent;
+import org.quick.core.event.QuickEventKinds;
+import org.quick.core.parser.QuickPropertyParser;
+import org.quick.core.parser.WidgetStructure;
 import org.quick.core.prop.QuickAttribute;
 import org.quick.core.prop.QuickPropertyType;
 
 import com.google.common.reflect.TypeParameter;
 import com.google.common.reflect.TypeToken;
 
-/** Manages attribute information for an element */
+/**
+ * Manages attribute information for an element. Accepted attributes are kept in a compact table keyed by {@link QuickAttribute#getId()
+ * attribute ID}. Observable views of the accepted attributes and of each attribute's value are only created when they are requested.
+ */
 public class AttributeManager {
 	/**
-	 * Wraps an attribute and its metadata for this manager
+	 * Wraps an attribute and its metadata for this manager. The observable state of a holder is only created when it is first subscribed
+	 * to.
 	 *
 	 * @param <T> The type of the attribute to hold
 	 */
-	public class AttributeHolder<T> extends DefaultObservableValue<T> {
+	public class AttributeHolder<T> implements ObservableValue<T> {
 		private final QuickAttribute<T> theAttr;
 
-		private final Observer<ObservableValueEvent<T>> theController;
+		/** The order in which this holder's attribute was accepted, for resolving attributes by name */
+		private final int theAcceptOrder;
 
-		private IdentityHashMap<Object, Object> theNeeders;
+		private volatile Object [] theNeeders;
 
-		private IdentityHashMap<Object, Object> theWanters;
+		private volatile Object [] theWanters;
 
 		private boolean wasWanted;
 
 		private volatile T theLastGoodValue;
 		private volatile boolean isOVError;
-		private ObservableValue<ObservableValue<? extends T>> theContainerObservable;
+		private volatile ObservableValue<? extends T> theContainedObservable;
+		private Subscription theContainedSubscription;
+		private volatile DefaultObservableValue<T> theObservable;
+		private Observer<ObservableValueEvent<T>> theController;
+		private volatile DefaultObservableValue<ObservableValue<? extends T>> theContainerObservable;
 		private Observer<ObservableValueEvent<ObservableValue<? extends T>>> theContainerController;
-		private ObservableValue<? extends T> theContainedObservable;
 		private volatile int theStackChecker;
 
-		{
-			theController = control(null);
-			theContainerObservable = new DefaultObservableValue<ObservableValue<? extends T>>() {
-				private TypeToken<ObservableValue<? extends T>> theType;
-
-				@Override
-				public TypeToken<ObservableValue<? extends T>> getType() {
-					if (theType == null)
-						theType = new TypeToken<ObservableValue<? extends T>>() {}.where(new TypeParameter<T>() {},
-							theAttr.getType().getType());
-					return theType;
-				}
-
-				@Override
-				public ObservableValue<? extends T> get() {
-					return theContainedObservable;
-				}
-			};
-			theContainerController = ((DefaultObservableValue<ObservableValue<? extends T>>) theContainerObservable)
-				.control(null);
-		}
-
-		AttributeHolder(QuickAttribute<T> attr) {
+		AttributeHolder(QuickAttribute<T> attr, int acceptOrder) {
 			theAttr = attr;
+			theAcceptOrder = acceptOrder;
 		}
 
 		/** @return The attribute that this holder holds */
@@ -92,7 +81,33 @@ public class AttributeManager {
 
 		/** @return The holder of values for this attribute */
 		public final ObservableValue<ObservableValue<? extends T>> getContainer() {
-			return theContainerObservable;
+			DefaultObservableValue<ObservableValue<? extends T>> container = theContainerObservable;
+			if(container == null) {
+				synchronized(this) {
+					container = theContainerObservable;
+					if(container == null) {
+						container = new DefaultObservableValue<ObservableValue<? extends T>>() {
+							private TypeToken<ObservableValue<? extends T>> theType;
+
+							@Override
+							public TypeToken<ObservableValue<? extends T>> getType() {
+								if (theType == null)
+									theType = new TypeToken<ObservableValue<? extends T>>() {}.where(new TypeParameter<T>() {},
+										theAttr.getType().getType());
+								return theType;
+							}
+
+							@Override
+							public ObservableValue<? extends T> get() {
+								return theContainedObservable;
+							}
+						};
+						theContainerController = container.control(null);
+						theContainerObservable = container;
+					}
+				}
+			}
+			return container;
 		}
 
 		@Override
@@ -100,6 +115,51 @@ public class AttributeManager {
 			return theAttr.getType().getType();
 		}
 
+		@Override
+		public Subscription subscribe(Observer<? super ObservableValueEvent<T>> observer) {
+			return getObservable().subscribe(observer);
+		}
+
+		@Override
+		public boolean isSafe() {
+			return getObservable().isSafe();
+		}
+
+		private DefaultObservableValue<T> getObservable() {
+			DefaultObservableValue<T> observable = theObservable;
+			if(observable == null) {
+				synchronized(this) {
+					observable = theObservable;
+					if(observable == null) {
+						observable = new DefaultObservableValue<T>() {
+							@Override
+							public TypeToken<T> getType() {
+								return AttributeHolder.this.getType();
+							}
+
+							@Override
+							public T get() {
+								return AttributeHolder.this.get();
+							}
+
+							@Override
+							public ObservableValueEvent<T> createInitialEvent(T value) {
+								return AttributeHolder.this.createInitialEvent(value);
+							}
+
+							@Override
+							public ObservableValueEvent<T> createChangeEvent(T oldVal, T newVal, Object cause) {
+								return AttributeHolder.this.createChangeEvent(oldVal, newVal, cause);
+							}
+						};
+						theController = observable.control(null);
+						theObservable = observable;
+					}
+				}
+			}
+			return observable;
+		}
+
 		/**
 		 * Creates a {@link SettableValue} that reflect's this attribute's model value. The {@link SettableValue#isEnabled()} field will
 		 * only be null if the content of this this attribute is an enabled settable value. Calling
@@ -110,7 +170,8 @@ public class AttributeManager {
 		 * @return A settable value for setting this attribute's content value
 		 */
 		public final SettableValue<T> asSettable() {
-			return new SettableValue.SettableFlattenedObservableValue<T>(theContainerObservable, () -> AttributeHolder.this.get()) {
+			ObservableValue<ObservableValue<? extends T>> container = getContainer();
+			return new SettableValue.SettableFlattenedObservableValue<T>(container, () -> AttributeHolder.this.get()) {
 				@Override
 				public T get() {
 					return AttributeHolder.this.get();
@@ -161,8 +222,16 @@ public class AttributeManager {
 		 * @throws QuickException If the value cannot be parsed or cannot be set for the attribute
 		 */
 		public final T set(String valueStr, QuickParseEnv context) throws QuickException {
-			ObservableValue<? extends T> value = theElement.getDocument().getEnvironment().getPropertyParser().parseProperty(theAttr,
-				context, valueStr);
+			return set(valueStr, null, context);
+		}
+
+		final T set(String valueStr, WidgetStructure structure, QuickParseEnv context) throws QuickException {
+			QuickPropertyParser parser = theElement.getDocument().getEnvironment().getPropertyParser();
+			ObservableValue<? extends T> value = null;
+			if(structure != null)
+				value = structure.parseAttribute(theAttr, parser, context);
+			if(value == null)
+				value = parser.parseProperty(theAttr, context, valueStr);
 			setContainedObservable(value);
 			return value.get();
 		}
@@ -185,22 +254,38 @@ public class AttributeManager {
 				checkValue(value);
 			} catch(QuickException e) {
 				isOVError = true;
-				theController.onError(e);
+				if(theObservable != null)
+					theController.onError(e);
 				throw e;
 			}
 			isOVError = false;
-			T oldValue = theLastGoodValue;
-			ObservableValue<? extends T> oldObservable = theContainedObservable;
-			theContainedObservable = observable;
-			theLastGoodValue = value;
+			T oldValue;
+			ObservableValue<? extends T> oldObservable;
+			Subscription oldSubscription;
+			synchronized(this) {
+				oldValue = theLastGoodValue;
+				oldObservable = theContainedObservable;
+				oldSubscription = theContainedSubscription;
+				theContainedObservable = observable;
+				theContainedSubscription = null;
+				theLastGoodValue = value;
+			}
+			if(oldSubscription != null)
+				oldSubscription.unsubscribe();
 			fire(oldValue, value);
-			theContainerController.onNext(theContainerObservable.createChangeEvent(oldObservable, theContainedObservable, null));
-			observable.noInit().takeUntil(theContainerObservable.noInit()).act(evt -> {
+			if(theContainerObservable != null)
+				theContainerController.onNext(theContainerObservable.createChangeEvent(oldObservable, observable, null));
+			if(observable == null)
+				return;
+			Subscription subscription = observable.noInit().act(evt -> {
+				if(theContainedObservable != observable)
+					return;
 				try {
 					checkValue(evt.getValue());
 				} catch(QuickException e) {
 					isOVError = true;
-					theController.onError(e);
+					if(theObservable != null)
+						theController.onError(e);
 					return;
 				}
 				isOVError = false;
@@ -208,6 +293,14 @@ public class AttributeManager {
 				theLastGoodValue = evt.getValue();
 				fire(oldEventValue, evt.getValue());
 			});
+			synchronized(this) {
+				if(theContainedObservable == observable) {
+					theContainedSubscription = subscription;
+					subscription = null;
+				}
+			}
+			if(subscription != null) // Replaced while we were subscribing
+				subscription.unsubscribe();
 		}
 
 		private void checkValue(T value) throws QuickException {
@@ -226,6 +319,9 @@ public class AttributeManager {
 		private void fire(T oldValue, T value) {
 			theStackChecker++;
 			final int stackCheck = theStackChecker;
+			boolean elementInterested = theElement.events().isInterested(QuickEventKinds.ATTRIBUTE);
+			if(theObservable == null && !elementInterested)
+				return; // Nothing is listening, so don't bother creating the event
 			AttributeChangedEvent<T> evt;
 			try {
 				T old = oldValue == null ? null : theAttr.getType().cast((TypeToken<T>) TypeToken.of(oldValue.getClass()), oldValue);
@@ -238,34 +334,27 @@ public class AttributeManager {
 			} catch(Exception e) {
 				throw new IllegalStateException(toString() + ": " + e, e);
 			}
-			theController.onNext(evt);
-			theElement.events().fire(evt);
+			if(theObservable != null)
+				theController.onNext(evt);
+			if(elementInterested)
+				theElement.events().fire(evt);
 		}
 
 		synchronized void addWanter(Object wanter, boolean isNeeder) {
 			wasWanted = true;
-			IdentityHashMap<Object, Object> set = isNeeder ? theNeeders : theWanters;
-			if(set == null) {
-				set = new IdentityHashMap<>();
-				if(isNeeder)
-					theNeeders = set;
-				else
-					theWanters = set;
-			}
-			set.put(wanter, wanter);
+			if(isNeeder)
+				theNeeders = addIdentity(theNeeders, wanter);
+			else
+				theWanters = addIdentity(theWanters, wanter);
 		}
 
 		/** @return Whether this attribute is required in this manager */
 		public final boolean isRequired() {
-			IdentityHashMap<Object, Object> needers = theNeeders;
-			return needers != null && !needers.isEmpty();
+			return theNeeders != null;
 		}
 
 		final boolean isWanted() {
-			if(isRequired())
-				return true;
-			IdentityHashMap<Object, Object> wanters = theWanters;
-			return wanters != null && !wanters.isEmpty();
+			return theNeeders != null || theWanters != null;
 		}
 
 		final boolean wasWanted() {
@@ -273,18 +362,13 @@ public class AttributeManager {
 		}
 
 		synchronized final void unrequire(Object wanter) {
-			if(theNeeders != null)
-				theNeeders.remove(wanter);
-			if(theWanters == null)
-				theWanters = new IdentityHashMap<>();
-			theWanters.put(wanter, wanter);
+			theNeeders = removeIdentity(theNeeders, wanter);
+			theWanters = addIdentity(theWanters, wanter);
 		}
 
 		synchronized final void reject(Object rejecter) {
-			if(theNeeders != null)
-				theNeeders.remove(rejecter);
-			if(theWanters != null)
-				theWanters.remove(rejecter);
+			theNeeders = removeIdentity(theNeeders, rejecter);
+			theWanters = removeIdentity(theWanters, rejecter);
 		}
 
 		@Override
@@ -294,11 +378,15 @@ public class AttributeManager {
 	}
 
 	private static class RawAttributeValue {
+		final String name;
 		final String value;
+		final WidgetStructure structure;
 		final QuickParseEnv context;
 
-		RawAttributeValue(String val, QuickParseEnv ctx) {
+		RawAttributeValue(String nm, String val, WidgetStructure struct, QuickParseEnv ctx) {
+			name = nm;
 			value = val;
+			structure = struct;
 			context = ctx;
 		}
 
@@ -308,45 +396,184 @@ public class AttributeManager {
 		}
 	}
 
-	private ObservableMap<QuickAttribute<?>, AttributeHolder<?>> theAcceptedAttrs;
-	private ConcurrentHashMap<String, QuickAttribute<?>> theAttributesByName;
-	private ConcurrentHashMap<String, RawAttributeValue> theRawAttributes;
+	/**
+	 * An immutable open-addressing table of attribute holders keyed by {@link QuickAttribute#getId() attribute ID}. Attributes are only
+	 * accepted or rejected a few times in an element's life, so the table is copied on modification and read without locking.
+	 */
+	private static class AttributeTable {
+		static final AttributeTable EMPTY = new AttributeTable(new int[0], new AttributeHolder[0], 0);
+
+		/** Each attribute's ID plus one, or zero for empty slots */
+		final int [] ids;
+		final AttributeHolder<?> [] holders;
+		final int size;
+
+		private AttributeTable(int [] ids, AttributeHolder<?> [] holders, int size) {
+			this.ids = ids;
+			this.holders = holders;
+			this.size = size;
+		}
+
+		AttributeHolder<?> get(int id) {
+			if(size == 0)
+				return null;
+			int mask = ids.length - 1;
+			for(int i = id & mask;; i = (i + 1) & mask) {
+				int slot = ids[i];
+				if(slot == 0)
+					return null;
+				else if(slot == id + 1)
+					return holders[i];
+			}
+		}
+
+		AttributeTable with(AttributeHolder<?> holder) {
+			return rebuild(holder, -1);
+		}
+
+		AttributeTable without(int id) {
+			return get(id) == null ? this : rebuild(null, id);
+		}
+
+		private AttributeTable rebuild(AttributeHolder<?> add, int removeId) {
+			int newSize = size + (add != null ? 1 : 0) - (removeId >= 0 ? 1 : 0);
+			if(newSize == 0)
+				return EMPTY;
+			int capacity = 4;
+			while(capacity * 3 < newSize * 4) // Keep the load factor under 3/4
+				capacity <<= 1;
+			int [] newIds = new int[capacity];
+			AttributeHolder<?> [] newHolders = new AttributeHolder[capacity];
+			for(AttributeHolder<?> holder : holders)
+				if(holder != null && holder.getAttribute().getId() != removeId)
+					put(newIds, newHolders, holder);
+			if(add != null)
+				put(newIds, newHolders, add);
+			return new AttributeTable(newIds, newHolders, newSize);
+		}
+
+		private static void put(int [] ids, AttributeHolder<?> [] holders, AttributeHolder<?> holder) {
+			int id = holder.getAttribute().getId();
+			int mask = ids.length - 1;
+			int i = id & mask;
+			while(ids[i] != 0)
+				i = (i + 1) & mask;
+			ids[i] = id + 1;
+			holders[i] = holder;
+		}
+	}
+
+	private final QuickElement theElement;
+
+	private final Object theLock;
+
+	private volatile AttributeTable theTable;
+
+	private int theAcceptCount;
+
+	/** Values set by name for attributes that have not been accepted yet. Null when empty and after the element is initialized. */
+	private java.util.ArrayList<RawAttributeValue> theRawAttributes;
+
+	private boolean isReady;
 
-	private QuickElement theElement;
+	/** Observable view of the accepted attributes, only created when requested */
+	private volatile ObservableMap<QuickAttribute<?>, AttributeHolder<?>> theObservableAttrs;
 
 	/** @param element The element to manage attribute information for */
 	public AttributeManager(QuickElement element) {
-		theAcceptedAttrs = new ObservableMapImpl<>(new TypeToken<QuickAttribute<?>>() {}, new TypeToken<AttributeHolder<?>>() {});
-		theAttributesByName = new ConcurrentHashMap<>();
-		theRawAttributes = new ConcurrentHashMap<>();
 		theElement = element;
+		theLock = new Object();
+		theTable = AttributeTable.EMPTY;
 		theElement.life().runWhen(() -> {
 			setReady();
 		}, QuickConstants.CoreStage.STARTUP.toString(), 0);
 	}
 
 	private <T> AttributeHolder<T> getHolder(QuickAttribute<T> attr, boolean add) throws QuickException {
-		AttributeHolder<T> holder = (AttributeHolder<T>) theAcceptedAttrs.get(attr);
+		AttributeHolder<T> holder = (AttributeHolder<T>) theTable.get(attr.getId());
 		if(holder == null && add) {
-			if(theRawAttributes != null)
-				theRawAttributes.remove(attr.getName());
 			if (theElement.life().isAfter(QuickConstants.CoreStage.STARTUP.toString()) >= 0)
 				throw new QuickException("Attribute " + attr + " is not accepted in this element");
-			holder = new AttributeHolder<>(attr);
-			theAcceptedAttrs.put(attr, holder);
-			theAttributesByName.put(attr.getName(), attr);
+			synchronized(theLock) {
+				removeRaw(attr.getName());
+				holder = (AttributeHolder<T>) theTable.get(attr.getId());
+				if(holder == null) {
+					holder = new AttributeHolder<>(attr, theAcceptCount++);
+					addHolder(holder);
+				}
+			}
 		}
 		return holder;
 	}
 
+	/** Must be called while holding {@link #theLock} */
+	private void addHolder(AttributeHolder<?> holder) {
+		theTable = theTable.with(holder);
+		if(theObservableAttrs != null)
+			theObservableAttrs.put(holder.getAttribute(), holder);
+	}
+
+	/** Must be called while holding {@link #theLock} */
+	private void removeHolder(AttributeHolder<?> holder) {
+		if(theTable.get(holder.getAttribute().getId()) != holder)
+			return;
+		theTable = theTable.without(holder.getAttribute().getId());
+		if(theObservableAttrs != null)
+			theObservableAttrs.remove(holder.getAttribute());
+	}
+
+	/** Must be called while holding {@link #theLock} */
+	private RawAttributeValue removeRaw(String name) {
+		if(theRawAttributes == null)
+			return null;
+		for(int i = 0; i < theRawAttributes.size(); i++)
+			if(theRawAttributes.get(i).name.equals(name)) {
+				RawAttributeValue ret = theRawAttributes.remove(i);
+				if(theRawAttributes.isEmpty())
+					theRawAttributes = null;
+				return ret;
+			}
+		return null;
+	}
+
+	/**
+	 * @param name The name of the attribute to get
+	 * @return The most recently accepted attribute with the given name, or null if no such attribute is accepted
+	 */
+	public QuickAttribute<?> getAttribute(String name) {
+		AttributeHolder<?> found = null;
+		for(AttributeHolder<?> holder : theTable.holders)
+			if(holder != null && holder.getAttribute().getName().equals(name)
+				&& (found == null || holder.theAcceptOrder > found.theAcceptOrder))
+				found = holder;
+		return found == null ? null : found.getAttribute();
+	}
+
+	private ObservableMap<QuickAttribute<?>, AttributeHolder<?>> getObservableAttrs() {
+		ObservableMap<QuickAttribute<?>, AttributeHolder<?>> attrs = theObservableAttrs;
+		if(attrs == null) {
+			synchronized(theLock) {
+				attrs = theObservableAttrs;
+				if(attrs == null) {
+					attrs = new ObservableMapImpl<>(new TypeToken<QuickAttribute<?>>() {}, new TypeToken<AttributeHolder<?>>() {});
+					for(AttributeHolder<?> holder : theTable.holders)
+						if(holder != null)
+							attrs.put(holder.getAttribute(), holder);
+					theObservableAttrs = attrs;
+				}
+			}
+		}
+		return attrs;
+	}
+
 	/** @return All attributes accepted in this manager */
 	public ObservableSet<QuickAttribute<?>> getAllAttributes() {
-		return theAcceptedAttrs.keySet().immutable();
+		return getObservableAttrs().keySet().immutable();
 	}
 
 	/** @return A map of all attributes accepted in this manager to their current values */
 	public ObservableMap<QuickAttribute<?>, ?> getAllValues() {
-		return ObservableMap.flatten(theAcceptedAttrs).immutable();
+		return ObservableMap.flatten(getObservableAttrs()).immutable();
 	}
 
 	/**
@@ -355,7 +582,7 @@ public class AttributeManager {
 	 * @return An observable value for the given attribute in this manager, even if the attribute is not accepted
 	 */
 	public <T> ObservableValue<T> observe(QuickAttribute<T> attr) {
-		return ObservableValue.flatten(theAcceptedAttrs.observe(attr).mapV(
+		return ObservableValue.flatten(getObservableAttrs().observe(attr).mapV(
 			new TypeToken<AttributeHolder<T>>() {}.where(new TypeParameter<T>() {}, attr.getType().getType()),
 			h -> (AttributeHolder<T>) h));
 	}
@@ -395,18 +622,68 @@ public class AttributeManager {
 	 *             element has already been initialized and the value is not valid for the given attribute
 	 */
 	public final Object set(String attr, String value, QuickParseEnv context) throws QuickException {
-		QuickAttribute<?> attrObj = theAttributesByName.get(attr);
-		if(attrObj != null)
-			return set(attrObj, value, context);
-		else {
-			if(theElement.life().isAfter(QuickConstants.CoreStage.STARTUP.toString()) >= 0)
-				throw new QuickException("Attribute " + attr + " is not accepted in this element");
-			if(value == null)
-				theRawAttributes.remove(attr);
-			else
-				theRawAttributes.put(attr, new RawAttributeValue(value, context));
-			return null;
+		return set(attr, value, null, context);
+	}
+
+	/**
+	 * Sets an attribute typelessly from the structure of a widget. Values that the structure can share between the elements created from
+	 * it are not parsed again for this element.
+	 *
+	 * @param attr The name of the attribute to set
+	 * @param structure The widget structure to get the attribute's value from
+	 * @param context The context in which to parse and evaluate the attribute value string
+	 * @return The parsed value for the attribute, or null if the element has not been initialized
+	 * @throws QuickException If the attribute is not accepted in the element, the value is null and the attribute is required, or the
+	 *             element has already been initialized and the value is not valid for the given attribute
+	 * @see WidgetStructure#parseAttribute(QuickAttribute, QuickPropertyParser, QuickParseEnv)
+	 */
+	public final Object set(String attr, WidgetStructure structure, QuickParseEnv context) throws QuickException {
+		return set(attr, structure.getAttributes().get(attr), structure, context);
+	}
+
+	/**
+	 * Sets an attribute to a value that was parsed ahead of time, e.g. by
+	 * {@link WidgetStructure#parseAttribute(QuickAttribute, QuickPropertyParser, QuickParseEnv)} on another thread
+	 *
+	 * @param <T> The type of the attribute
+	 * @param attr The attribute that the value was parsed for
+	 * @param value The parsed value for the attribute
+	 * @return Whether the value was set. It is not set if the attribute is not the one accepted in this element by its name, in which case
+	 *         the value must be parsed again for the accepted attribute.
+	 * @throws QuickException If the value is not valid for the attribute
+	 */
+	public final <T> boolean setParsed(QuickAttribute<T> attr, ObservableValue<? extends T> value) throws QuickException {
+		if(getAttribute(attr.getName()) != attr)
+			return false;
+		AttributeHolder<T> holder = getHolder(attr, false);
+		if(holder == null)
+			return false;
+		holder.setContainedObservable(value);
+		return true;
+	}
+
+	private Object set(String attr, String value, WidgetStructure structure, QuickParseEnv context) throws QuickException {
+		QuickAttribute<?> attrObj = getAttribute(attr);
+		if(attrObj == null) {
+			synchronized(theLock) {
+				attrObj = getAttribute(attr);
+				if(attrObj == null) {
+					if(isReady)
+						throw new QuickException("Attribute " + attr + " is not accepted in this element");
+					removeRaw(attr);
+					if(value != null) {
+						if(theRawAttributes == null)
+							theRawAttributes = new java.util.ArrayList<>(4);
+						theRawAttributes.add(new RawAttributeValue(attr, value, structure, context));
+					}
+					return null;
+				}
+			}
 		}
+		AttributeHolder<?> holder = getHolder(attrObj);
+		if(holder == null)
+			throw new QuickException("Attribute " + attr + " not accepted");
+		return holder.set(value, structure, context);
 	}
 
 	/**
@@ -453,10 +730,10 @@ public class AttributeManager {
 	 * @return The value of the named attribute
 	 */
 	public final Object get(String name) {
-		QuickAttribute<?> attr = theAttributesByName.get(name);
+		QuickAttribute<?> attr = getAttribute(name);
 		if(attr == null)
 			return null;
-		AttributeHolder<?> holder = theAcceptedAttrs.get(attr);
+		AttributeHolder<?> holder = theTable.get(attr.getId());
 		if(holder == null)
 			return null;
 		return holder.get();
@@ -467,14 +744,18 @@ public class AttributeManager {
 	 * @return Whether an attribute with the given name is set in this attribute manager
 	 */
 	public final boolean isSet(String name) {
-		QuickAttribute<?> attr = theAttributesByName.get(name);
-		if(attr == null)
-			return false;
-		AttributeHolder<?> holder = theAcceptedAttrs.get(attr);
-		if(holder != null && holder.get() != null)
-			return true;
-		if(theRawAttributes != null && theRawAttributes.get(name) != null)
-			return true;
+		QuickAttribute<?> attr = getAttribute(name);
+		if(attr != null) {
+			AttributeHolder<?> holder = theTable.get(attr.getId());
+			if(holder != null && holder.get() != null)
+				return true;
+		}
+		synchronized(theLock) {
+			if(theRawAttributes != null)
+				for(RawAttributeValue raw : theRawAttributes)
+					if(raw.name.equals(name))
+						return true;
+		}
 		return false;
 	}
 
@@ -483,7 +764,7 @@ public class AttributeManager {
 	 * @return Whether a value is set in this attribute manager for the given attribute
 	 */
 	public final boolean isSet(QuickAttribute<?> attr) {
-		AttributeHolder<?> holder = theAcceptedAttrs.get(attr);
+		AttributeHolder<?> holder = theTable.get(attr.getId());
 		return holder != null && holder.get() != null;
 	}
 
@@ -507,7 +788,7 @@ public class AttributeManager {
 	 * @return The value of the attribute in this manager, or <code>def</code> if the attribute is not set
 	 */
 	public final <T> T get(QuickAttribute<T> attr, T def) {
-		AttributeHolder<T> storedAttr = (AttributeHolder<T>) theAcceptedAttrs.get(attr);
+		AttributeHolder<T> storedAttr = (AttributeHolder<T>) theTable.get(attr.getId());
 		if(storedAttr == null)
 			return def;
 		if(storedAttr.get() == null)
@@ -572,7 +853,7 @@ public class AttributeManager {
 	 */
 	public final AttributeManager unrequire(Object wanter, QuickAttribute<?>... attrs) {
 		for(QuickAttribute<?> attr : attrs) {
-			AttributeHolder<?> holder = theAcceptedAttrs.get(attr);
+			AttributeHolder<?> holder = theTable.get(attr.getId());
 			if(holder != null)
 				holder.unrequire(wanter);
 		}
@@ -643,18 +924,24 @@ public class AttributeManager {
 		throws QuickException {
 		if(require && initValue == null && theElement.life().isAfter(QuickConstants.CoreStage.STARTUP.toString()) > 0)
 			throw new IllegalStateException("Attributes may not be required without an initial value after an element is initialized");
-		AttributeHolder<T> holder = (AttributeHolder<T>) theAcceptedAttrs.get(attr);
+		AttributeHolder<T> holder = (AttributeHolder<T>) theTable.get(attr.getId());
+		RawAttributeValue strVal = null;
 		if(holder != null) {
 			holder.addWanter(wanter, require); // The attribute is already accepted
 		} else {
-			holder = new AttributeHolder<>(attr);
-			holder.addWanter(wanter, require);
-			theAcceptedAttrs.put(attr, holder);
-			theAttributesByName.put(attr.getName(), attr);
-			RawAttributeValue strVal = theRawAttributes.remove(attr.getName());
+			synchronized(theLock) {
+				holder = (AttributeHolder<T>) theTable.get(attr.getId());
+				if(holder == null) {
+					holder = new AttributeHolder<>(attr, theAcceptCount++);
+					holder.addWanter(wanter, require);
+					addHolder(holder);
+					strVal = removeRaw(attr.getName());
+				} else
+					holder.addWanter(wanter, require);
+			}
 			if(strVal != null) {
 				try {
-					holder.set(strVal.value, strVal.context);
+					holder.set(strVal.value, strVal.structure, strVal.context);
 				} catch(QuickException e) {
 					theElement.msg().error("Could not parse pre-set value \"" + strVal + "\" of attribute " + attr.getName(), e,
 						"attribute", attr);
@@ -675,12 +962,13 @@ public class AttributeManager {
 	 */
 	public final void reject(Object wanter, QuickAttribute<?>... attrs) {
 		for(QuickAttribute<?> attr : attrs) {
-			AttributeHolder<?> holder = theAcceptedAttrs.get(attr);
+			AttributeHolder<?> holder = theTable.get(attr.getId());
 			if(holder != null) {
 				holder.reject(wanter);
 				if(!holder.isWanted()) {
-					theAcceptedAttrs.remove(attr);
-					namedAttrRemoved(attr);
+					synchronized(theLock) {
+						removeHolder(holder);
+					}
 				}
 			}
 		}
@@ -688,7 +976,7 @@ public class AttributeManager {
 
 	/** @return The number of attributes set for this element */
 	public final int size() {
-		return theAcceptedAttrs.size();
+		return theTable.size;
 	}
 
 	/**
@@ -696,7 +984,7 @@ public class AttributeManager {
 	 * @return Whether the given attribute can be set in this element
 	 */
 	public final boolean isAccepted(QuickAttribute<?> attr) {
-		AttributeHolder<?> holder = theAcceptedAttrs.get(attr);
+		AttributeHolder<?> holder = theTable.get(attr.getId());
 		return holder != null;
 	}
 
@@ -705,7 +993,7 @@ public class AttributeManager {
 	 * @return Whether the given attribute is required in this element
 	 */
 	public final boolean isRequired(QuickAttribute<?> attr) {
-		AttributeHolder<?> holder = theAcceptedAttrs.get(attr);
+		AttributeHolder<?> holder = theTable.get(attr.getId());
 		return holder != null && holder.isRequired();
 	}
 
@@ -736,38 +1024,28 @@ public class AttributeManager {
 	/** @return An iterable to iterate through the metadata of each accepted attribute in this manager */
 	public Iterable<AttributeHolder<?>> holders() {
 		return () -> {
+			AttributeHolder<?> [] holders = theTable.holders;
 			return new Iterator<AttributeHolder<?>>() {
-				private final Iterator<AttributeHolder<?>> theWrapped = theAcceptedAttrs.values().iterator();
-
-				private AttributeHolder<?> theNext;
+				private int theIndex = advance(0);
 
-				private boolean calledNext = true;
+				private int advance(int index) {
+					while(index < holders.length && (holders[index] == null || !holders[index].isWanted()))
+						index++;
+					return index;
+				}
 
 				@Override
 				public boolean hasNext() {
-					if(!calledNext)
-						return theNext != null;
-					calledNext = false;
-					theNext = null;
-					while(theNext == null) {
-						if(!theWrapped.hasNext())
-							return false;
-						theNext = theWrapped.next();
-						if(!theNext.isWanted())
-							theNext = null;
-					}
-					return theNext != null;
+					return theIndex < holders.length;
 				}
 
 				@Override
 				public AttributeHolder<?> next() {
-					if(calledNext && !hasNext())
-						return theWrapped.next();
-					calledNext = true;
-					if(theNext == null)
-						return theWrapped.next();
-					else
-						return theNext;
+					if(!hasNext())
+						throw new java.util.NoSuchElementException();
+					AttributeHolder<?> ret = holders[theIndex];
+					theIndex = advance(theIndex + 1);
+					return ret;
 				}
 
 				@Override
@@ -779,45 +1057,54 @@ public class AttributeManager {
 	}
 
 	private void setReady() {
-		Iterator<AttributeHolder<?>> holders = holders().iterator();
-		while(holders.hasNext()) {
-			AttributeHolder<?> holder = holders.next();
+		java.util.List<RawAttributeValue> raws;
+		synchronized(theLock) {
+			isReady = true;
+			raws = theRawAttributes;
+			theRawAttributes = null;
+		}
+		for(AttributeHolder<?> holder : theTable.holders) {
+			if(holder == null)
+				continue;
 			if(!holder.wasWanted()) {
-				holders.remove();
-				namedAttrRemoved(holder.getAttribute());
+				synchronized(theLock) {
+					removeHolder(holder);
+				}
 				theElement.msg().error("Attribute " + holder.getAttribute() + " is not accepted in this element", "value", holder.get());
 			} else if(holder.isRequired() && holder.get() == null) {
 				theElement.msg().error("Attribute " + holder.getAttribute() + " is required but has no value in this element");
 			}
 		}
-		for(java.util.Map.Entry<String, RawAttributeValue> attr : theRawAttributes.entrySet())
-			theElement.msg().error("No attribute named " + attr.getKey() + " is accepted in this element", "value",
-				attr.getValue().value);
-		theRawAttributes = null;
+		if(raws != null)
+			for(RawAttributeValue attr : raws)
+				theElement.msg().error("No attribute named " + attr.name + " is accepted in this element", "value", attr.value);
 	}
 
-	private void namedAttrRemoved(QuickAttribute<?> attr) {
-		if(theAttributesByName.get(attr.getName()) != attr)
-			return;
-		/* Not sure how to tag this.  There *could* potentially be a fundamental problem with the way the attribute manager's guts are
-		 * structured here.  The potential problem is that if 3 or more attributes of the same name are accepted in an element and the last
-		 * one to be accepted is then rejected, the one that should be exposed by name would be the second attribute that was accepted.
-		 * The manager, however, keeps record only of the latest one added, so it has a roughly even chance of picking the right one among
-		 * the remaining attributes.
-		 *
-		 * The acceptance of multiple attributes with the same name was added to support the role attribute in templates, but that attribute
-		 * should never be rejected, so it isn't a problem for that.  Hopefully it will never be a problem for anybody, as fixing it the
-		 * right way in a concurrency-safe way will involve a bit more thought and perhaps a slight performance hit for locking.
-		 */
-		boolean found = false;
-		for(QuickAttribute<?> att : theAcceptedAttrs.keySet())
-			if(att != attr && att.getName().equals(attr.getName())) {
-				theAttributesByName.put(attr.getName(), att);
-				found = true;
-				break;
+	private static Object [] addIdentity(Object [] array, Object value) {
+		if(array == null)
+			return new Object[] {value};
+		for(Object o : array)
+			if(o == value)
+				return array;
+		Object [] ret = Arrays.copyOf(array, array.length + 1);
+		ret[array.length] = value;
+		return ret;
+	}
+
+	/** @return The array without the given value, or null if the array would be empty */
+	private static Object [] removeIdentity(Object [] array, Object value) {
+		if(array == null)
+			return null;
+		for(int i = 0; i < array.length; i++)
+			if(array[i] == value) {
+				if(array.length == 1)
+					return null;
+				Object [] ret = new Object[array.length - 1];
+				System.arraycopy(array, 0, ret, 0, i);
+				System.arraycopy(array, i + 1, ret, i, ret.length - i);
+				return ret;
 			}
-		if(!found)
-			theAttributesByName.remove(attr.getName());
+		return array;
 	}
 
 	@Override
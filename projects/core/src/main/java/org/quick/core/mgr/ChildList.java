@@ -1,22 +1,87 @@
 package org.quick.core.mgr;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 import org.observe.collect.impl.ObservableArrayList;
+import org.qommons.ArrayUtils;
 import org.quick.core.QuickElement;
 
 import com.google.common.reflect.TypeToken;
 
-/** A list that manages child elements for a parent element */
+/**
+ * A list that manages child elements for a parent element. The list caches its {@link #getZOrder() z-order}, which is invalidated when
+ * the list changes or when a child's {@link QuickElement#setZ(int) z-index} changes.
+ */
 public class ChildList extends ObservableArrayList<QuickElement> implements ElementList<QuickElement> {
+	/** The same order as {@link ElementList#sortByZ()} */
+	private static final Comparator<QuickElement> Z_ORDER = (ch1, ch2) -> ch2.getZ() - ch1.getZ();
+
 	private final QuickElement theParent;
 
+	private final Object theZLock;
+
+	private int theZStamp;
+
+	private volatile QuickElement [] theZOrder;
+
+	private volatile QuickElement [] theReverseZOrder;
+
 	/** @param parent The parent to manage the children of */
 	public ChildList(QuickElement parent) {
 		super(TypeToken.of(QuickElement.class));
 		theParent = parent;
+		theZLock = new Object();
+		simpleChanges().act(cause -> invalidateZOrder());
 	}
 
 	@Override
 	public QuickElement getParent() {
 		return theParent;
 	}
+
+	@Override
+	public QuickElement [] getZOrder() {
+		QuickElement [] zOrder = theZOrder;
+		if(zOrder == null) {
+			int stamp;
+			synchronized(theZLock) {
+				stamp = theZStamp;
+			}
+			zOrder = toArray(new QuickElement[0]);
+			Arrays.sort(zOrder, Z_ORDER); // Stable, so children with the same z-index stay in list order
+			synchronized(theZLock) {
+				if(stamp == theZStamp)
+					theZOrder = zOrder;
+			}
+		}
+		return zOrder;
+	}
+
+	@Override
+	public QuickElement [] getReverseZOrder() {
+		QuickElement [] reverse = theReverseZOrder;
+		if(reverse == null) {
+			int stamp;
+			synchronized(theZLock) {
+				stamp = theZStamp;
+			}
+			reverse = getZOrder().clone();
+			ArrayUtils.reverse(reverse);
+			synchronized(theZLock) {
+				if(stamp == theZStamp)
+					theReverseZOrder = reverse;
+			}
+		}
+		return reverse;
+	}
+
+	/** Discards this list's cached z-order. Called when the list changes or a child's z-index changes. */
+	public void invalidateZOrder() {
+		synchronized(theZLock) {
+			theZStamp++;
+			theZOrder = null;
+			theReverseZOrder = null;
+		}
+	}
 }
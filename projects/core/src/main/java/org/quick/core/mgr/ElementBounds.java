@@ -2,8 +2,10 @@ package org.quick.core.mgr;
 
 import java.awt.Rectangle;
 
+import org.observe.ObservableValue;
 import org.observe.ObservableValueEvent;
 import org.observe.Observer;
+import org.qommons.Transaction;
 import org.quick.core.QuickElement;
 import org.quick.core.event.BoundsChangedEvent;
 import org.quick.core.layout.Orientation;
@@ -11,7 +13,10 @@ import org.quick.core.layout.SizeGuide;
 
 import com.google.common.reflect.TypeToken;
 
-/** Bounds for an element. Contains some extra methods for easy access. */
+/**
+ * Bounds for an element. Contains some extra methods for easy access. The primitive accessors ({@link #getX()}, {@link #getWidth()},
+ * {@link #getBounds(Rectangle)}, etc.) do not allocate and should be preferred in painting and hit-testing code.
+ */
 public class ElementBounds extends org.observe.DefaultObservableValue<Rectangle> implements org.quick.core.layout.Bounds {
 	private final QuickElement theElement;
 
@@ -23,6 +28,17 @@ public class ElementBounds extends org.observe.DefaultObservableValue<Rectangle>
 	private int theW;
 	private int theH;
 
+	private ObservableValue<Integer> theObservableX;
+	private ObservableValue<Integer> theObservableY;
+	private ObservableValue<Integer> theObservableW;
+	private ObservableValue<Integer> theObservableH;
+
+	private int theHoldCount;
+	private int theHeldX;
+	private int theHeldY;
+	private int theHeldW;
+	private int theHeldH;
+
 	private final Observer<ObservableValueEvent<Rectangle>> theController;
 	private volatile int theStackChecker;
 
@@ -30,37 +46,40 @@ public class ElementBounds extends org.observe.DefaultObservableValue<Rectangle>
 	public ElementBounds(QuickElement element) {
 		theController = control(null);
 		theElement = element;
-		theHorizontalBounds = new ElementBoundsDimension(false);
-		theVerticalBounds = new ElementBoundsDimension(true);
 	}
 
 	/** @return The horizontal bounds */
 	public ElementBoundsDimension getHorizontal() {
+		// Created lazily since many elements never need them. The race is benign since the dimensions are stateless.
+		if (theHorizontalBounds == null)
+			theHorizontalBounds = new ElementBoundsDimension(false);
 		return theHorizontalBounds;
 	}
 
 	/** @return The horizontal bounds */
 	public ElementBoundsDimension h() {
-		return theHorizontalBounds;
+		return getHorizontal();
 	}
 
 	/** @return The vertical bounds */
 	public ElementBoundsDimension getVertical() {
+		if (theVerticalBounds == null)
+			theVerticalBounds = new ElementBoundsDimension(true);
 		return theVerticalBounds;
 	}
 
 	/** @return The vertical bounds */
 	public ElementBoundsDimension v() {
-		return theVerticalBounds;
+		return getVertical();
 	}
 
 	@Override
 	public ElementBoundsDimension get(Orientation orientation) {
 		switch (orientation) {
 		case horizontal:
-			return theHorizontalBounds;
+			return getHorizontal();
 		case vertical:
-			return theVerticalBounds;
+			return getVertical();
 		}
 		throw new IllegalStateException("Unrecognized orientation: " + orientation);
 	}
@@ -74,10 +93,9 @@ public class ElementBounds extends org.observe.DefaultObservableValue<Rectangle>
 	public void setX(int x) {
 		if(theX == x)
 			return;
-		Rectangle preBounds = new Rectangle(theX, theY, theW, theH);
+		int preX = theX;
 		theX = x;
-		fire(preBounds, new Rectangle(theX, theY, theW, theH));
-		theHorizontalBounds.setPosition(x);
+		changed(preX, theY, theW, theH);
 	}
 
 	/** @return {@link #getVertical()}.{@link org.quick.core.layout.BoundsDimension#getPosition() getPosition()} */
@@ -89,9 +107,9 @@ public class ElementBounds extends org.observe.DefaultObservableValue<Rectangle>
 	public void setY(int y) {
 		if(theY == y)
 			return;
-		Rectangle preBounds = new Rectangle(theX, theY, theW, theH);
+		int preY = theY;
 		theY = y;
-		fire(preBounds, new Rectangle(theX, theY, theW, theH));
+		changed(theX, preY, theW, theH);
 	}
 
 	/** @return The element's 2-dimensional position */
@@ -106,10 +124,10 @@ public class ElementBounds extends org.observe.DefaultObservableValue<Rectangle>
 	public void setPosition(int x, int y) {
 		if(theX == x && theY == y)
 			return;
-		Rectangle preBounds = new Rectangle(theX, theY, theW, theH);
+		int preX = theX, preY = theY;
 		theX = x;
 		theY = y;
-		fire(preBounds, new Rectangle(theX, theY, theW, theH));
+		changed(preX, preY, theW, theH);
 	}
 
 	/** @return {@link #getHorizontal()}.{@link org.quick.core.layout.BoundsDimension#getSize() getSize()} */
@@ -121,9 +139,9 @@ public class ElementBounds extends org.observe.DefaultObservableValue<Rectangle>
 	public void setWidth(int width) {
 		if(theW == width)
 			return;
-		Rectangle preBounds = new Rectangle(theX, theY, theW, theH);
+		int preW = theW;
 		theW = width;
-		fire(preBounds, new Rectangle(theX, theY, theW, theH));
+		changed(theX, theY, preW, theH);
 	}
 
 	/** @return {@link #getVertical()}.{@link org.quick.core.layout.BoundsDimension#getSize() getSize()} */
@@ -135,9 +153,9 @@ public class ElementBounds extends org.observe.DefaultObservableValue<Rectangle>
 	public void setHeight(int height) {
 		if(theH == height)
 			return;
-		Rectangle preBounds = new Rectangle(theX, theY, theW, theH);
+		int preH = theH;
 		theH = height;
-		fire(preBounds, new Rectangle(theX, theY, theW, theH));
+		changed(theX, theY, theW, preH);
 	}
 
 	/** @return The element's 2-dimensional size */
@@ -152,10 +170,10 @@ public class ElementBounds extends org.observe.DefaultObservableValue<Rectangle>
 	public void setSize(int width, int height) {
 		if(theW == width && theH == height)
 			return;
-		Rectangle preBounds = new Rectangle(theX, theY, theW, theH);
+		int preW = theW, preH = theH;
 		theW = width;
 		theH = height;
-		fire(preBounds, new Rectangle(theX, theY, theW, theH));
+		changed(theX, theY, preW, preH);
 	}
 
 	/** @return The element's rectangle bounds */
@@ -163,6 +181,17 @@ public class ElementBounds extends org.observe.DefaultObservableValue<Rectangle>
 		return new Rectangle(theX, theY, theW, theH);
 	}
 
+	/**
+	 * An allocation-free version of {@link #getBounds()}
+	 *
+	 * @param bounds The rectangle to fill with this bounds' values
+	 * @return The given rectangle
+	 */
+	public Rectangle getBounds(Rectangle bounds) {
+		bounds.setBounds(theX, theY, theW, theH);
+		return bounds;
+	}
+
 	@Override
 	public Rectangle get() {
 		return getBounds();
@@ -193,32 +222,109 @@ public class ElementBounds extends org.observe.DefaultObservableValue<Rectangle>
 		return TypeToken.of(Rectangle.class);
 	}
 
+	/**
+	 * Suspends change notifications for this bounds until the returned transaction is closed. Then a single event is fired if the bounds
+	 * changed at all in the meantime. Holds may be nested.
+	 *
+	 * @return The transaction to close to resume notifications. Closing it more than once has no further effect.
+	 */
+	public Transaction hold() {
+		if (theHoldCount++ == 0) {
+			theHeldX = theX;
+			theHeldY = theY;
+			theHeldW = theW;
+			theHeldH = theH;
+		}
+		return new Transaction() {
+			private boolean isClosed;
+
+			@Override
+			public void close() {
+				if (isClosed)
+					return;
+				isClosed = true;
+				if (--theHoldCount == 0 && (theHeldX != theX || theHeldY != theY || theHeldW != theW || theHeldH != theH))
+					fire(new Rectangle(theHeldX, theHeldY, theHeldW, theHeldH), new Rectangle(theX, theY, theW, theH));
+			}
+		};
+	}
+
+	/**
+	 * Holds the bounds of several elements at once, e.g. for all of an element's children for the duration of a layout pass
+	 *
+	 * @param elements The elements whose bounds to {@link #hold()}
+	 * @return The transaction to close to resume notifications for all the elements' bounds. Every hold is released even if a listener
+	 *         notified on release throws.
+	 */
+	public static Transaction holdAll(Iterable<? extends QuickElement> elements) {
+		java.util.ArrayList<Transaction> holds = new java.util.ArrayList<>();
+		try {
+			for (QuickElement element : elements)
+				holds.add(element.bounds().hold());
+		} catch (RuntimeException | Error e) {
+			try {
+				release(holds, 0);
+			} catch (RuntimeException | Error e2) {
+				e.addSuppressed(e2);
+			}
+			throw e;
+		}
+		if (holds.isEmpty())
+			return () -> {
+			};
+		return () -> release(holds, 0);
+	}
+
+	/** Closes each hold from the given index, making sure the rest are closed if one throws */
+	private static void release(java.util.List<Transaction> holds, int index) {
+		for (; index < holds.size(); index++) {
+			try {
+				holds.get(index).close();
+			} catch (RuntimeException | Error e) {
+				try {
+					release(holds, index + 1);
+				} catch (RuntimeException | Error e2) {
+					e.addSuppressed(e2);
+				}
+				throw e;
+			}
+		}
+	}
+
 	/** @return An observable value for this bounds' x-coordinate. Equivalent to <code>mapV(bounds->{return bounds.x;})</code>. */
 	public org.observe.ObservableValue<Integer> observeX() {
-		return mapV(bounds -> {
-			return bounds.x;
-		});
+		if (theObservableX == null)
+			theObservableX = mapV(bounds -> {
+				return bounds.x;
+			});
+		return theObservableX;
 	}
 
 	/** @return An observable value for this bounds' y-coordinate. Equivalent to <code>mapV(bounds->{return bounds.y;})</code>. */
 	public org.observe.ObservableValue<Integer> observeY() {
-		return mapV(bounds -> {
-			return bounds.y;
-		});
+		if (theObservableY == null)
+			theObservableY = mapV(bounds -> {
+				return bounds.y;
+			});
+		return theObservableY;
 	}
 
 	/** @return An observable value for this bounds' width. Equivalent to <code>mapV(bounds->{return bounds.width;})</code>. */
 	public org.observe.ObservableValue<Integer> observeW() {
-		return mapV(bounds -> {
-			return bounds.width;
-		});
+		if (theObservableW == null)
+			theObservableW = mapV(bounds -> {
+				return bounds.width;
+			});
+		return theObservableW;
 	}
 
 	/** @return An observable value for this bounds' height. Equivalent to <code>mapV(bounds->{return bounds.height;})</code>. */
 	public org.observe.ObservableValue<Integer> observeH() {
-		return mapV(bounds -> {
-			return bounds.height;
-		});
+		if (theObservableH == null)
+			theObservableH = mapV(bounds -> {
+				return bounds.height;
+			});
+		return theObservableH;
 	}
 
 	/**
@@ -231,12 +337,12 @@ public class ElementBounds extends org.observe.DefaultObservableValue<Rectangle>
 	public void setBounds(int x, int y, int width, int height) {
 		if(theX == x && theY == y && theW == width && theH == height)
 			return;
-		Rectangle preBounds = new Rectangle(theX, theY, theW, theH);
+		int preX = theX, preY = theY, preW = theW, preH = theH;
 		theX = x;
 		theY = y;
 		theW = width;
 		theH = height;
-		fire(preBounds, new Rectangle(theX, theY, theW, theH));
+		changed(preX, preY, preW, preH);
 	}
 
 	@Override
@@ -248,6 +354,12 @@ public class ElementBounds extends org.observe.DefaultObservableValue<Rectangle>
 			.append('}').toString();
 	}
 
+	private void changed(int preX, int preY, int preW, int preH) {
+		if (theHoldCount > 0)
+			return;
+		fire(new Rectangle(preX, preY, preW, preH), new Rectangle(theX, theY, theW, theH));
+	}
+
 	private final void fire(Rectangle preBounds, Rectangle newBounds) {
 		theStackChecker++;
 		final int stackCheck = theStackChecker;
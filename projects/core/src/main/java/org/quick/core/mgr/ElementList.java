@@ -55,6 +55,24 @@ public interface ElementList<E extends QuickElement> extends ObservableList<E> {
 		return sorted((ch1, ch2) -> ch2.getZ() - ch1.getZ());
 	}
 
+	/**
+	 * @return The children in this list, in the same order as {@link #sortByZ()}. Implementations may cache the array, so it must not be
+	 *         modified.
+	 */
+	default E [] getZOrder() {
+		return sortByZ().toArray();
+	}
+
+	/**
+	 * @return The children in this list, in the reverse order of {@link #getZOrder()}. Implementations may cache the array, so it must not
+	 *         be modified.
+	 */
+	default E [] getReverseZOrder() {
+		E [] children = getZOrder().clone();
+		org.qommons.ArrayUtils.reverse(children);
+		return children;
+	}
+
 	@Override
 	default ElementList<E> immutable() {
 		return new ImmutableElementList<>(this);
@@ -80,6 +98,16 @@ public interface ElementList<E extends QuickElement> extends ObservableList<E> {
 			return getWrapped().getParent();
 		}
 
+		@Override
+		public E [] getZOrder() {
+			return getWrapped().getZOrder();
+		}
+
+		@Override
+		public E [] getReverseZOrder() {
+			return getWrapped().getReverseZOrder();
+		}
+
 		@Override
 		public ImmutableElementList<E> immutable() {
 			return this;
@@ -1,17 +1,63 @@
 package org.quick.core.mgr;
 
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.observe.Observable;
+import org.observe.Observer;
+import org.observe.Subscription;
 import org.quick.core.QuickElement;
 import org.quick.core.event.QuickEvent;
+import org.quick.core.event.QuickEventCondition;
+import org.quick.core.event.QuickEventKinds;
 
-/** Manages events for an element */
+/**
+ * Manages events for an element. Listeners added through {@link #filterMap(QuickEventCondition)} are indexed by the
+ * {@link QuickEventCondition#getEventKinds() kinds} of events their conditions accept, so events that no listener is interested in are
+ * not delivered at all. Listeners subscribed to the manager directly are interested in all events. All listeners are notified in the order
+ * they were added.
+ */
 public class QuickEventManager extends org.observe.DefaultObservable<QuickEvent> {
+	private class IndexedListener<E extends QuickEvent> {
+		final QuickEventCondition<E> condition;
+
+		final long kinds;
+
+		final Observer<? super E> observer;
+
+		/**
+		 * @param cond The condition to filter events by, or null to accept all events
+		 * @param obs The observer to notify
+		 */
+		IndexedListener(QuickEventCondition<E> cond, Observer<? super E> obs) {
+			condition = cond;
+			kinds = cond == null ? QuickEventKinds.ALL : cond.getEventKinds();
+			observer = obs;
+		}
+
+		void fire(QuickEvent event) {
+			E filtered = condition == null ? (E) event : condition.apply(event);
+			if(filtered != null)
+				observer.onNext(filtered);
+		}
+	}
+
 	private final QuickElement theElement;
-	private org.observe.Observer<QuickEvent> theController;
+	private final CopyOnWriteArrayList<IndexedListener<?>> theListeners;
+	private volatile long theInterestedKinds;
 
 	/** @param element The element that events are being managed for */
 	public QuickEventManager(QuickElement element) {
 		theElement = element;
-		theController = control(null);
+		theListeners = new CopyOnWriteArrayList<>();
+	}
+
+	/**
+	 * @param kinds The {@link QuickEventKinds kinds} of events to test
+	 * @return Whether any listener on this manager may be interested in events of the given kinds. If this is false, events of the given
+	 *         kinds need not be created or {@link #fire(QuickEvent) fired} for this manager's element.
+	 */
+	public boolean isInterested(long kinds) {
+		return (theInterestedKinds & kinds) != 0;
 	}
 
 	/**
@@ -23,7 +69,59 @@ public class QuickEventManager extends org.observe.DefaultObservable<QuickEvent>
 			theElement.msg().error("The event[" + event + "] does not apply to this element");
 			return this;
 		}
-		theController.onNext(event);
+		long kind = QuickEventKinds.of(event);
+		if(!isInterested(kind))
+			return this;
+		for(IndexedListener<?> listener : theListeners)
+			if((listener.kinds & kind) != 0)
+				listener.fire(event);
 		return this;
 	}
+
+	/**
+	 * An optimized version of {@link #filterMap(java.util.function.Function)} for event conditions, whose listeners are only invoked for
+	 * the {@link QuickEventCondition#getEventKinds() kinds} of events the condition may accept
+	 *
+	 * @param <E> The type of events to listen for
+	 * @param condition The condition to filter events by
+	 * @return An observable that fires each event on this manager's element that passes the condition
+	 */
+	public <E extends QuickEvent> Observable<E> filterMap(QuickEventCondition<E> condition) {
+		return new Observable<E>() {
+			@Override
+			public Subscription subscribe(Observer<? super E> observer) {
+				return addListener(new IndexedListener<>(condition, observer));
+			}
+
+			@Override
+			public boolean isSafe() {
+				return QuickEventManager.this.isSafe();
+			}
+		};
+	}
+
+	@Override
+	public Subscription subscribe(Observer<? super QuickEvent> observer) {
+		return addListener(new IndexedListener<>(null, observer));
+	}
+
+	private Subscription addListener(IndexedListener<?> listener) {
+		synchronized(theListeners) {
+			theListeners.add(listener);
+			theInterestedKinds |= listener.kinds;
+		}
+		return () -> {
+			synchronized(theListeners) {
+				if(theListeners.remove(listener))
+					updateInterest();
+			}
+		};
+	}
+
+	private void updateInterest() {
+		long kinds = 0;
+		for(IndexedListener<?> listener : theListeners)
+			kinds |= listener.kinds;
+		theInterestedKinds = kinds;
+	}
 }
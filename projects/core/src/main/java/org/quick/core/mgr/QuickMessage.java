@@ -44,6 +44,12 @@ public class QuickMessage {
 
 	private java.util.Map<String, Object> theParams;
 
+	private volatile int theCount;
+
+	private volatile long theLastTime;
+
+	private long theNotifyTime;
+
 	private QuickMessage(QuickEnvironment env, QuickDocument doc, QuickElement anElement, Type aType, String aStage, String aText,
 		Throwable anException,
 		Object... params) {
@@ -62,6 +68,8 @@ public class QuickMessage {
 		stage = aStage;
 		text = aText;
 		exception = anException;
+		theCount = 1;
+		theLastTime = theNotifyTime = System.currentTimeMillis();
 		if(params != null && params.length > 0) {
 			theParams = new java.util.HashMap<>();
 			if(params.length % 2 != 0)
@@ -106,6 +114,46 @@ public class QuickMessage {
 		return theParams.keySet().toArray(new String[theParams.size()]);
 	}
 
+	/** @return The number of times this message has been recorded. Identical messages are recorded once, with a count. */
+	public int getCount() {
+		return theCount;
+	}
+
+	/** @return The time at which this message was last recorded */
+	public long getLastTime() {
+		return theLastTime;
+	}
+
+	/**
+	 * @param other The message to compare with
+	 * @return Whether the given message is a repeat of this one, i.e. whether it has the same source, type, text, and parameters
+	 */
+	boolean isRepeatOf(QuickMessage other) {
+		if(element != other.element || document != other.document || environment != other.environment || type != other.type
+			|| !text.equals(other.text) || !java.util.Objects.equals(theParams, other.theParams))
+			return false;
+		if(exception == null || other.exception == null)
+			return exception == other.exception;
+		return exception.getClass() == other.exception.getClass()
+			&& java.util.Objects.equals(exception.getMessage(), other.exception.getMessage());
+	}
+
+	/**
+	 * Records a repeat of this message
+	 *
+	 * @param notifyInterval The minimum time between notifications of repeats of this message
+	 * @return Whether listeners should be notified of this repeat
+	 */
+	synchronized boolean repeated(long notifyInterval) {
+		theCount++;
+		long now = System.currentTimeMillis();
+		theLastTime = now;
+		if(now - theNotifyTime < notifyInterval)
+			return false;
+		theNotifyTime = now;
+		return true;
+	}
+
 	@Override
 	public final boolean equals(Object o) {
 		return super.equals(o);
@@ -129,7 +177,11 @@ public class QuickMessage {
 				el = el.getParent().get();
 			}
 		}
-		return ret + ": " + text;
+		ret += ": " + text;
+		int count = theCount;
+		if(count > 1)
+			ret += " (x" + count + ")";
+		return ret;
 	}
 
 	/**
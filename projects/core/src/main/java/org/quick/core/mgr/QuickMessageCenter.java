@@ -8,9 +8,15 @@ import org.quick.core.QuickDocument;
 import org.quick.core.QuickElement;
 import org.quick.core.QuickEnvironment;
 import org.quick.core.event.QuickEvent;
+import org.quick.core.event.QuickEventKinds;
 import org.quick.core.mgr.QuickMessage.Type;
 
-/** Defines a center that can store Quick messages */
+/**
+ * Defines a center that can store Quick messages. Each center retains a bounded number of its own messages, counting repeats of identical
+ * messages instead of storing them again. Ancestor centers do not copy their descendants' messages, but gather them on demand through
+ * {@link #allMessages()} and {@link #getDeepWorstMessageType()}. Listeners are notified on a dispatch thread, so that recording a message,
+ * e.g. on the event thread, does not wait for them.
+ */
 public class QuickMessageCenter implements Iterable<QuickMessage> {
 	/** A message fired in an element when a message is added to or removed from it */
 	public static class QuickMessageEvent implements org.quick.core.event.QuickEvent {
@@ -58,16 +64,41 @@ public class QuickMessageCenter implements Iterable<QuickMessage> {
 		void messageReceived(QuickMessage msg);
 	}
 
+	/** The default maximum number of distinct messages that a message center retains */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	/** The minimum time, in milliseconds, between notifications to listeners of repeats of the same message */
+	public static final long REPEAT_NOTIFY_INTERVAL = 1000;
+
+	private static class DispatchHolder {
+		static final java.util.concurrent.ExecutorService DISPATCHER = java.util.concurrent.Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "Quick Message Dispatch");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/** The number of synchronous listeners in all message centers. While there are none, the recording thread doesn't visit ancestors. */
+	private static final java.util.concurrent.atomic.AtomicInteger SYNCHRONOUS_LISTENERS = new java.util.concurrent.atomic.AtomicInteger();
+
 	private final QuickEnvironment theEnvironment;
 
 	private final QuickDocument theDocument;
 
 	private final QuickElement theElement;
 
-	private final java.util.concurrent.ConcurrentLinkedQueue<QuickMessage> theMessages;
+	private final Object theLock;
+	private final java.util.ArrayDeque<QuickMessage> theMessages;
+	/** The most recent message for each type and text, for recognizing repeats */
+	private final java.util.HashMap<String, QuickMessage> theRepeatIndex;
+	private final java.util.Set<QuickDocument> theDocuments;
 	private java.util.concurrent.CopyOnWriteArrayList<QuickMessageListener> theListeners;
+	private java.util.concurrent.CopyOnWriteArrayList<QuickMessageListener> theSyncListeners;
 
-	private QuickMessage.Type theWorstMessageType;
+	private int theCapacity;
+	private long theDroppedCount;
+
+	private volatile QuickMessage.Type theWorstMessageType;
 
 	/**
 	 * Creates a message center
@@ -80,8 +111,29 @@ public class QuickMessageCenter implements Iterable<QuickMessage> {
 		theEnvironment = env;
 		theDocument = doc;
 		theElement = element;
-		theMessages = new java.util.concurrent.ConcurrentLinkedQueue<>();
+		theLock = new Object();
+		theMessages = new java.util.ArrayDeque<>();
+		theRepeatIndex = new java.util.HashMap<>();
 		theListeners = new java.util.concurrent.CopyOnWriteArrayList<>();
+		theSyncListeners = new java.util.concurrent.CopyOnWriteArrayList<>();
+		theCapacity = DEFAULT_CAPACITY;
+		if(element == null && doc == null)
+			theDocuments = java.util.Collections.synchronizedSet(java.util.Collections.newSetFromMap(new java.util.WeakHashMap<>()));
+		else
+			theDocuments = null;
+	}
+
+	/**
+	 * Registers a document with this environment-level message center so that the document's messages are included in this center's
+	 * {@link #allMessages() aggregate messages}. Documents are held weakly.
+	 *
+	 * @param doc The document to register
+	 * @throws IllegalStateException If this message center is not environment-level
+	 */
+	public void addDocument(QuickDocument doc) {
+		if(theDocuments == null)
+			throw new IllegalStateException("Documents may only be registered with an environment's message center");
+		theDocuments.add(doc);
 	}
 
 	/** @return This message center's environment */
@@ -107,6 +159,31 @@ public class QuickMessageCenter implements Iterable<QuickMessage> {
 		return theElement;
 	}
 
+	/** @return The maximum number of distinct messages that this message center retains */
+	public int getCapacity() {
+		return theCapacity;
+	}
+
+	/**
+	 * @param capacity The maximum number of distinct messages for this message center to retain. When a new message would exceed this
+	 *        capacity, the oldest message is dropped.
+	 * @return This message center, for chaining
+	 */
+	public QuickMessageCenter setCapacity(int capacity) {
+		if(capacity <= 0)
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		synchronized(theLock) {
+			theCapacity = capacity;
+			trim();
+		}
+		return this;
+	}
+
+	/** @return The number of messages that have been dropped from this message center because it was at capacity */
+	public long getDroppedCount() {
+		return theDroppedCount;
+	}
+
 	/**
 	 * Records a message in this message center
 	 *
@@ -117,30 +194,72 @@ public class QuickMessageCenter implements Iterable<QuickMessage> {
 	 * @param params Any parameters relevant to the message
 	 */
 	public void message(Type type, String text, QuickEvent cause, Throwable exception, Object... params) {
-		QuickMessage message;
+		QuickMessage toFire = store(createMessage(type, text, exception, params));
+		if(toFire != null)
+			fireListeners(toFire, cause);
+	}
+
+	private QuickMessage createMessage(Type type, String text, Throwable exception, Object... params) {
 		if(theElement != null)
-			message = new QuickMessage(theElement, type, theElement.life().getStage(), text, exception, params);
+			return new QuickMessage(theElement, type, theElement.life().getStage(), text, exception, params);
 		else if(theDocument != null)
-			message = new QuickMessage(theDocument, type, theDocument.getRoot().life().getStage(), text, exception, params);
+			return new QuickMessage(theDocument, type, theDocument.getRoot().life().getStage(), text, exception, params);
 		else
-			message = new QuickMessage(theEnvironment, type, org.quick.core.QuickConstants.CoreStage.READY.name(), text, exception, params);
-		message(message, cause);
+			return new QuickMessage(theEnvironment, type, org.quick.core.QuickConstants.CoreStage.READY.name(), text, exception, params);
+	}
+
+	/**
+	 * Stores a message in this center, or counts it as a repeat of a message already stored. Messages are not stored in ancestor centers,
+	 * which instead query their descendants on demand.
+	 *
+	 * @return The message that listeners should be notified of, or null if the message is a repeat that they should not be notified of yet
+	 */
+	private QuickMessage store(QuickMessage message) {
+		String key = message.type.name() + ':' + message.text;
+		synchronized(theLock) {
+			QuickMessage existing = theRepeatIndex.get(key);
+			if(existing != null && existing.isRepeatOf(message))
+				return existing.repeated(REPEAT_NOTIFY_INTERVAL) ? existing : null;
+			theMessages.add(message);
+			theRepeatIndex.put(key, message);
+			if(theWorstMessageType == null || message.type.compareTo(theWorstMessageType) > 0)
+				theWorstMessageType = message.type;
+			trim();
+			return message;
+		}
 	}
 
-	private void message(QuickMessage message, QuickEvent cause) {
-		theMessages.add(message);
-		if(theWorstMessageType == null || message.type.compareTo(theWorstMessageType) > 0)
-			theWorstMessageType = message.type;
-		fireListeners(message, cause);
+	private void trim() {
+		boolean reEval = false;
+		while(theMessages.size() > theCapacity) {
+			QuickMessage dropped = theMessages.removeFirst();
+			theDroppedCount++;
+			unindex(dropped);
+			if(dropped.type == theWorstMessageType)
+				reEval = true;
+		}
+		if(reEval)
+			reEvalWorstMessage();
+	}
+
+	private void unindex(QuickMessage message) {
+		String key = message.type.name() + ':' + message.text;
+		if(theRepeatIndex.get(key) == message)
+			theRepeatIndex.remove(key);
+	}
 
+	/** @return The message center of this center's parent element, document, or environment, or null if this center is environment-level */
+	private QuickMessageCenter getParentCenter() {
 		if(theElement != null) {
 			QuickElement parent = theElement.getParent().get();
-			if (parent != null)
-				parent.msg().message(message, cause);
-			else
-				theElement.getDocument().msg().message(message, cause);
+			if(parent != null)
+				return parent.msg();
+			QuickDocument doc = theElement.getDocument();
+			return doc == null ? null : doc.msg();
 		} else if(theDocument != null)
-			theEnvironment.msg().message(message, cause);
+			return theDocument.getEnvironment().msg();
+		else
+			return null;
 	}
 
 	/**
@@ -272,68 +391,146 @@ public class QuickMessageCenter implements Iterable<QuickMessage> {
 		return theWorstMessageType;
 	}
 
-	/** @return The number of messages in this message center */
+	/** @return The number of distinct messages in this message center */
 	public int getMessageCount() {
-		return theMessages.size();
+		synchronized(theLock) {
+			return theMessages.size();
+		}
 	}
 
-	/** @return The worst type of messages in this element and its children */
+	/**
+	 * @return The worst type of messages in this message center and its descendants--the children of an element, the root of a document, or
+	 *         the documents of an environment
+	 */
 	public QuickMessage.Type getDeepWorstMessageType() {
 		QuickMessage.Type ret = getWorstMessageType();
-		if(theElement == null)
-			return ret;
-		for(QuickElement child : theElement.getPhysicalChildren()) {
-			QuickMessage.Type childType = child.msg().getWorstMessageType();
-			if(ret == null || ret.compareTo(childType) < 0)
+		for(QuickMessageCenter child : getChildCenters()) {
+			if(ret == QuickMessage.Type.FATAL)
+				break;
+			QuickMessage.Type childType = child.getDeepWorstMessageType();
+			if(childType != null && (ret == null || ret.compareTo(childType) < 0))
 				ret = childType;
 		}
 		return ret;
 	}
 
-	/** @return All messages in this element or any of its children */
+	/**
+	 * @return All messages in this message center or any of its descendants--the children of an element, the root of a document, or the
+	 *         documents of an environment
+	 */
 	public Iterable<QuickMessage> allMessages() {
-		if(theElement == null)
+		java.util.List<QuickMessageCenter> children = getChildCenters();
+		if(children.isEmpty())
 			return this;
 		ArrayList<Iterable<QuickMessage>> centers = new ArrayList<>();
 		centers.add(this);
-		for(QuickElement child : theElement.getPhysicalChildren())
-			centers.add(child.msg().allMessages());
+		for(QuickMessageCenter child : children)
+			centers.add(child.allMessages());
 		return IterableUtils.iterable((Iterable<QuickMessage>[]) centers.toArray(new Iterable[centers.size()]));
 	}
 
-	/** @param listener The listener to be notified when a new message is received by this message center or one of its children */
+	private java.util.List<QuickMessageCenter> getChildCenters() {
+		if(theElement != null) {
+			java.util.List<QuickMessageCenter> ret = new ArrayList<>();
+			for(QuickElement child : theElement.getPhysicalChildren())
+				ret.add(child.msg());
+			return ret;
+		} else if(theDocument != null) {
+			QuickElement root = theDocument.getRoot();
+			return root == null ? java.util.Collections.emptyList() : java.util.Collections.singletonList(root.msg());
+		} else {
+			java.util.List<QuickMessageCenter> ret = new ArrayList<>();
+			synchronized(theDocuments) {
+				for(QuickDocument doc : theDocuments)
+					ret.add(doc.msg());
+			}
+			return ret;
+		}
+	}
+
+	/**
+	 * @param listener The listener to be notified when a new message is received by this message center or one of its descendants. Repeats
+	 *        of a message are reported at most once every {@link #REPEAT_NOTIFY_INTERVAL} milliseconds. The listener is notified on the
+	 *        message dispatch thread. If it throws an exception, the failure is recorded as an error in this message center, without
+	 *        notifying listeners of it.
+	 */
 	public void addListener(QuickMessageListener listener) {
-		theListeners.add(listener);
+		addListener(listener, false);
+	}
+
+	/**
+	 * @param listener The listener to be notified when a new message is received by this message center or one of its descendants
+	 * @param synchronous Whether to notify the listener on the thread recording each message, so that any exception it throws propagates
+	 *        to that thread, e.g. to fail a test on an error. This makes recording messages more expensive and should be reserved for such
+	 *        uses.
+	 * @see #addListener(QuickMessageListener)
+	 */
+	public void addListener(QuickMessageListener listener, boolean synchronous) {
+		if(synchronous) {
+			theSyncListeners.add(listener);
+			SYNCHRONOUS_LISTENERS.incrementAndGet();
+		} else
+			theListeners.add(listener);
 	}
 
 	/** @param listener The listener to stop receiving message notifications */
 	public void removeListener(QuickMessageListener listener) {
-		theListeners.remove(listener);
+		if(theSyncListeners.remove(listener))
+			SYNCHRONOUS_LISTENERS.decrementAndGet();
+		else
+			theListeners.remove(listener);
 	}
 
 	private void fireListeners(QuickMessage msg, QuickEvent cause) {
-		for(QuickMessageListener listener : theListeners)
-			listener.messageReceived(msg);
-		if(theElement != null)
-			theElement.events().fire(new QuickMessageEvent(theElement, msg, false, cause));
+		if(SYNCHRONOUS_LISTENERS.get() > 0) {
+			for(QuickMessageCenter center = this; center != null; center = center.getParentCenter())
+				for(QuickMessageListener listener : center.theSyncListeners)
+					listener.messageReceived(msg);
+		}
+		DispatchHolder.DISPATCHER.execute(() -> dispatch(msg, cause));
+	}
+
+	/** Notifies the listeners of this center and its ancestors of a message, on the dispatch thread */
+	private void dispatch(QuickMessage msg, QuickEvent cause) {
+		for(QuickMessageCenter center = this; center != null; center = center.getParentCenter()) {
+			for(QuickMessageListener listener : center.theListeners) {
+				try {
+					listener.messageReceived(msg);
+				} catch(RuntimeException | Error e) {
+					center.listenerFailed(listener, msg, e);
+				}
+			}
+			if(center.theElement != null && center.theElement.events().isInterested(QuickEventKinds.OTHER)) {
+				try {
+					center.theElement.events().fire(new QuickMessageEvent(center.theElement, msg, false, cause));
+				} catch(RuntimeException | Error e) {
+					center.listenerFailed("Message event listener", msg, e);
+				}
+			}
+		}
+	}
+
+	private void listenerFailed(Object listener, QuickMessage msg, Throwable e) {
+		// Listeners are not notified of the failure, so that a listener that fails on every message does not fail on its own failures
+		store(createMessage(QuickMessage.Type.ERROR, "Message listener " + listener + " failed on " + msg.type + ": " + msg.text, e));
 	}
 
 	private void reEvalWorstMessage() {
 		QuickMessage.Type type = null;
 		for(QuickMessage message : theMessages)
-			if(type == null || message.type.compareTo(type) > 0) {
+			if(type == null || message.type.compareTo(type) > 0)
 				type = message.type;
-				if(theWorstMessageType == type)
-					break; // worst message type hasn't changed
-			}
-		if(theWorstMessageType == null ? type != null : theWorstMessageType != type)
-			theWorstMessageType = type;
+		theWorstMessageType = type;
 	}
 
 	@Override
 	public Iterator<QuickMessage> iterator() {
+		ArrayList<QuickMessage> snapshot;
+		synchronized(theLock) {
+			snapshot = new ArrayList<>(theMessages);
+		}
 		return new Iterator<QuickMessage>() {
-			private Iterator<QuickMessage> theWrapped = theMessages.iterator();
+			private Iterator<QuickMessage> theWrapped = snapshot.iterator();
 
 			private QuickMessage theLastMessage;
 
@@ -351,11 +548,19 @@ public class QuickMessageCenter implements Iterable<QuickMessage> {
 
 			@Override
 			public void remove() {
-				theWrapped.remove();
-				if(theLastMessage.type == theWorstMessageType)
-					reEvalWorstMessage();
-				if(theElement != null)
-					theElement.events().fire(new QuickMessageEvent(theElement, theLastMessage, true, null));
+				if(theLastMessage == null)
+					throw new IllegalStateException("next() has not been called");
+				QuickMessage removed = theLastMessage;
+				theLastMessage = null;
+				synchronized(theLock) {
+					if(!theMessages.remove(removed))
+						return;
+					unindex(removed);
+					if(removed.type == theWorstMessageType)
+						reEvalWorstMessage();
+				}
+				if(theElement != null && theElement.events().isInterested(QuickEventKinds.OTHER))
+					theElement.events().fire(new QuickMessageEvent(theElement, removed, true, null));
 			}
 		};
 	}
@@ -364,7 +569,7 @@ public class QuickMessageCenter implements Iterable<QuickMessage> {
 	public String toString() {
 		StringBuilder ret = new StringBuilder();
 		ret.append('{');
-		for(QuickMessage message : theMessages) {
+		for(QuickMessage message : this) {
 			if(ret.length() > 1)
 				ret.append(',').append('\n');
 			ret.append(message);
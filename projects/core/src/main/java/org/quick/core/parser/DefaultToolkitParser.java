@@ -2,6 +2,8 @@ package org.quick.core.parser;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 
 import org.jdom2.Element;
@@ -47,6 +49,7 @@ public class DefaultToolkitParser implements QuickToolkitParser {
 		if (version == null)
 			throw new QuickParseException("No version element for toolkit at " + location);
 		builder.setVersion(Version.fromString(version));
+		List<URL> dependencies = new ArrayList<>();
 		for (Element el : rootEl.getChildren()) {
 			String elName = el.getName();
 			if (elName.equals("name") || elName.equals("description") || elName.equals("version"))
@@ -54,14 +57,11 @@ public class DefaultToolkitParser implements QuickToolkitParser {
 			if (elName.equals("dependencies"))
 				for (Element dEl : el.getChildren()) {
 					if (dEl.getName().equals("depends")) {
-						QuickToolkit dependency;
 						try {
-							dependency = theEnvironment.getToolkit(QuickUtils.resolveURL(location, dEl.getTextTrim()));
+							dependencies.add(QuickUtils.resolveURL(location, dEl.getTextTrim()));
 						} catch (QuickException e) {
-							throw new QuickParseException(
-								"Could not resolve or parse dependency " + dEl.getTextTrim() + " of toolkit " + location, e);
+							throw new QuickParseException("Could not resolve dependency " + dEl.getTextTrim() + " of toolkit " + location, e);
 						}
-						builder.addDependency(dependency);
 					} else if (dEl.getName().equals("classpath")) {
 						URL classPath;
 						try {
@@ -153,29 +153,40 @@ public class DefaultToolkitParser implements QuickToolkitParser {
 			else
 				throw new QuickParseException("Illegal element \"" + elName + "\" under \"" + rootEl.getName() + "\"");
 		}
+		// Independent dependencies are loaded in parallel
+		List<QuickToolkit> loadedDependencies;
+		try {
+			loadedDependencies = theEnvironment.getToolkits(dependencies);
+		} catch (QuickParseException e) {
+			throw new QuickParseException("Could not parse dependency of toolkit " + location, e);
+		}
+		for (QuickToolkit dependency : loadedDependencies)
+			builder.addDependency(dependency);
 		QuickToolkit toolkit = builder.build();
 		onBuild.accept(toolkit);
-		for (Element el : rootEl.getChildren("style-sheet")) {
+		// Style sheets are parsed in parallel, but added to the toolkit in the order they are declared
+		List<ImmutableStyleSheet> styleSheets = theEnvironment.loadAll(rootEl.getChildren("style-sheet"), el -> {
 			String ref = el.getAttributeValue("ref");
 			URL ssLoc;
 			try {
 				ssLoc = QuickUtils.resolveURL(location, ref);
 			} catch (QuickException e) {
-				ssLoc = null;
 				theEnvironment.getMessageCenter().error("Could not resolve style sheet location " + ref, e);
+				return null;
 			}
-			if (ssLoc != null) {
-				try {
-					ImmutableStyleSheet ret = theEnvironment.getStyleParser().parseStyleSheet(ssLoc, toolkit,
-						theEnvironment.getPropertyParser(), theEnvironment.cv(), theEnvironment.msg());
-					// If there are fatal errors, the parser will return log the errors and return null
-					if (ret != null) {
-						// ret.startAnimation();
-						builder.addStyleSheet(ret);
-					}
-				} catch (Exception e) {
-					theEnvironment.getMessageCenter().error("Could not read or parse style sheet at " + ref, e);
-				}
+			try {
+				// If there are fatal errors, the parser will return log the errors and return null
+				return theEnvironment.getStyleParser().parseStyleSheet(ssLoc, toolkit, theEnvironment.getPropertyParser(),
+					theEnvironment.cv(), theEnvironment.msg());
+			} catch (Exception e) {
+				theEnvironment.getMessageCenter().error("Could not read or parse style sheet at " + ref, e);
+				return null;
+			}
+		});
+		for (ImmutableStyleSheet ret : styleSheets) {
+			if (ret != null) {
+				// ret.startAnimation();
+				builder.addStyleSheet(ret);
 			}
 		}
 		return toolkit;
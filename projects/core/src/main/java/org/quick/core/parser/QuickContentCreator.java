@@ -3,6 +3,7 @@ package org.quick.core.parser;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.observe.ObservableValue;
@@ -10,11 +11,39 @@ import org.quick.core.*;
 import org.quick.core.model.DefaultQuickModel;
 import org.quick.core.model.QuickAppModel;
 import org.quick.core.model.QuickModelConfig;
+import org.quick.core.prop.DefaultExpressionContext;
 import org.quick.core.prop.ExpressionContext;
+import org.quick.core.prop.QuickAttribute;
 import org.quick.core.style.ImmutableStyleSheet;
+import org.quick.core.tags.QuickTagUtils;
 
 /** Creates active Quick content from parsed structures */
 public class QuickContentCreator {
+	private final int theParallelThreshold;
+
+	/** Creates a content creator that builds all content on the calling thread */
+	public QuickContentCreator() {
+		this(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a content creator that may build large documents in parallel. In parallel mode, the element classes of independent subtrees
+	 * of a structure are resolved, loaded and instantiated and their attribute values are parsed in parallel on the environment's
+	 * {@link QuickEnvironment#loadAll(List, java.util.function.Function) load pool}. Initializing the elements, setting the parsed
+	 * attribute values and adding the elements to their parents is still done on the calling thread, in the same order as when the content
+	 * is built serially, since these touch the observable state of the elements' ancestors.
+	 *
+	 * @param parallelThreshold The minimum number of elements a set of sibling subtrees must contain to be instantiated in parallel
+	 */
+	public QuickContentCreator(int parallelThreshold) {
+		theParallelThreshold = parallelThreshold;
+	}
+
+	/** @return The minimum number of elements a set of sibling subtrees must contain to be instantiated in parallel */
+	public int getParallelThreshold() {
+		return theParallelThreshold;
+	}
+
 	/**
 	 * Fills in a document with widget structure
 	 *
@@ -28,13 +57,17 @@ public class QuickContentCreator {
 		// Add the attributes
 		for (java.util.Map.Entry<String, String> att : content.getAttributes().entrySet()) {
 			try {
-				doc.getRoot().atts().set(att.getKey(), att.getValue(), doc);
+				doc.getRoot().atts().set(att.getKey(), content, doc);
 			} catch (QuickException e) {
 				doc.getRoot().msg().error("Could not set attribute \"" + att.getKey() + "\"", e, "attribute", att.getKey(), "value",
 					att.getValue());
 			}
 		}
 		// Add the children
+		if (isParallel(content.getChildren())) {
+			initAll(doc, doc.getRoot(), null, constructAll(doc, doc.getRoot(), null, content.getChildren()));
+			return;
+		}
 		ArrayList<QuickElement> elements = new ArrayList<>();
 		for (QuickContent child : content.getChildren()) {
 			if (child instanceof WidgetStructure)
@@ -61,41 +94,225 @@ public class QuickContentCreator {
 		throws QuickParseException {
 		// Create the element
 		QuickElement ret = createElement(doc, parent, structure);
-		// Add the attributes
-		QuickParseEnv parseEnv;
+		setAttributes(doc, parent, parentCtx, structure, ret);
+		if (withChildren) {
+			if (isParallel(structure.getChildren())) {
+				initAll(doc, ret, parentCtx, constructAll(doc, getParseEnv(doc, ret, parentCtx), parentCtx, structure.getChildren()));
+				return ret;
+			}
+			// Add the children
+			ArrayList<QuickElement> children = new ArrayList<>();
+			for (QuickContent childStruct : structure.getChildren()) {
+				QuickElement child = getChild(ret, parentCtx, childStruct, true);
+				if (child != null)
+					children.add(child);
+			}
+			ret.initChildren(children);
+		}
+		return ret;
+	}
+
+	/** @return The environment to parse the attribute values of the given parent's children in */
+	private static QuickParseEnv getParseEnv(QuickDocument doc, QuickElement parent, ExpressionContext parentCtx) {
 		if (parent != null) {
 			if (parentCtx == null)
-				parseEnv = parent;
+				return parent;
 			else
-				parseEnv = new SimpleParseEnv(parent.cv(), parent.msg(), parentCtx);
+				return new SimpleParseEnv(parent.cv(), parent.msg(), parentCtx);
 		} else {
 			if (parentCtx == null)
-				parseEnv = doc;
+				return doc;
 			else
-				parseEnv = new SimpleParseEnv(doc.cv(), doc.msg(), parentCtx);
+				return new SimpleParseEnv(doc.cv(), doc.msg(), parentCtx);
 		}
+	}
+
+	private void setAttributes(QuickDocument doc, QuickElement parent, ExpressionContext parentCtx, WidgetStructure structure,
+		QuickElement element) {
+		setAttributes(doc, parent, parentCtx, structure, element, Collections.emptyMap());
+	}
+
+	private void setAttributes(QuickDocument doc, QuickElement parent, ExpressionContext parentCtx, WidgetStructure structure,
+		QuickElement element, Map<String, ParsedAttribute> parsed) {
+		QuickParseEnv parseEnv = getParseEnv(doc, parent, parentCtx);
 		for (java.util.Map.Entry<String, String> att : structure.getAttributes().entrySet()) {
 			try {
-				ret.atts().set(att.getKey(), att.getValue(), parseEnv);
+				ParsedAttribute parsedAtt = parsed.get(att.getKey());
+				if (parsedAtt == null
+					|| !element.atts().setParsed((QuickAttribute<Object>) parsedAtt.attribute, (ObservableValue<Object>) parsedAtt.value))
+					element.atts().set(att.getKey(), structure, parseEnv);
 			} catch (QuickException e) {
-				ret.msg().error("Could not set attribute \"" + att.getKey() + "\"", e, "attribute", att.getKey(), "value", att.getValue());
+				element.msg().error("Could not set attribute \"" + att.getKey() + "\"", e, "attribute", att.getKey(), "value",
+					att.getValue());
 			}
 		}
-		if (withChildren) {
-			// Add the children
-			ArrayList<QuickElement> children = new ArrayList<>();
-			for (QuickContent childStruct : structure.getChildren()) {
-				QuickElement child = getChild(ret, parentCtx, childStruct, true);
-				if (child != null)
-					children.add(child);
+	}
+
+	/** An attribute value parsed before the element it is for has been initialized */
+	private static class ParsedAttribute {
+		final QuickAttribute<?> attribute;
+		final ObservableValue<?> value;
+
+		ParsedAttribute(QuickAttribute<?> att, ObservableValue<?> val) {
+			attribute = att;
+			value = val;
+		}
+	}
+
+	/** An element that has been instantiated, along with its descendants, but not yet initialized */
+	private static class PendingElement {
+		final QuickContent content;
+		/** Null for text content, which is created when it is initialized */
+		final QuickElement element;
+		final QuickToolkit toolkit;
+		final String namespace;
+		final List<PendingElement> children;
+		/** The values of the element's attributes that could be parsed before it is initialized, by attribute name */
+		final Map<String, ParsedAttribute> attributes;
+
+		PendingElement(QuickContent cont, QuickElement el, QuickToolkit tk, String ns) {
+			content = cont;
+			element = el;
+			toolkit = tk;
+			namespace = ns;
+			children = new ArrayList<>();
+			attributes = new HashMap<>();
+		}
+	}
+
+	private boolean isParallel(List<QuickContent> siblings) {
+		if (theParallelThreshold == Integer.MAX_VALUE || siblings.size() < 2)
+			return false;
+		int count = 0;
+		for (QuickContent sibling : siblings) {
+			count = countContent(sibling, count);
+			if (count >= theParallelThreshold)
+				return true;
+		}
+		return false;
+	}
+
+	/** Counts content, but stops as soon as the parallel threshold is reached */
+	private int countContent(QuickContent content, int count) {
+		count++;
+		if (content instanceof WidgetStructure) {
+			for (QuickContent child : ((WidgetStructure) content).getChildren()) {
+				if (count >= theParallelThreshold)
+					break;
+				count = countContent(child, count);
 			}
-			ret.initChildren(children);
 		}
-		return ret;
+		return count;
+	}
+
+	/**
+	 * Instantiates the elements for a list of sibling content and their descendants and parses their attribute values, in parallel if the
+	 * content is large enough
+	 */
+	private List<PendingElement> constructAll(QuickDocument doc, QuickParseEnv parseEnv, ExpressionContext parentCtx,
+		List<QuickContent> contents) throws QuickParseException {
+		List<PendingElement> pending = new ArrayList<>(contents.size());
+		if (!isParallel(contents)) {
+			for (QuickContent content : contents)
+				pending.add(construct(doc, parseEnv, parentCtx, content));
+			return pending;
+		}
+		List<Object> results = doc.getEnvironment().loadAll(contents, content -> {
+			try {
+				return construct(doc, parseEnv, parentCtx, content);
+			} catch (QuickParseException | RuntimeException e) {
+				return e;
+			}
+		});
+		for (Object result : results) {
+			if (result instanceof QuickParseException)
+				throw (QuickParseException) result;
+			else if (result instanceof RuntimeException)
+				throw (RuntimeException) result;
+			pending.add((PendingElement) result);
+		}
+		return pending;
+	}
+
+	private PendingElement construct(QuickDocument doc, QuickParseEnv parseEnv, ExpressionContext parentCtx, QuickContent content)
+		throws QuickParseException {
+		if (content instanceof WidgetStructure) {
+			WidgetStructure structure = (WidgetStructure) content;
+			PendingElement pending = instantiate(structure);
+			parseAttributes(doc, pending, parseEnv);
+			// The element's children are parsed in the environment the element will provide once it is initialized
+			ExpressionContext childCtx = parentCtx;
+			if (childCtx == null)
+				childCtx = DefaultExpressionContext.build().withParent(doc.getContext())//
+					.withValue("this", ObservableValue.constant(pending.element.getSelfModel())).build();
+			QuickParseEnv childEnv = new SimpleParseEnv(structure.getClassView(), pending.element.msg(), childCtx);
+			pending.children.addAll(constructAll(doc, childEnv, parentCtx, structure.getChildren()));
+			return pending;
+		} else
+			return new PendingElement(content, null, null, null);
+	}
+
+	/**
+	 * Parses the values of the attributes of a pending element that it is known to accept. Attributes that are accepted later, and values
+	 * that cannot be parsed, are parsed again when the element is initialized so that any errors are reported then.
+	 */
+	private static void parseAttributes(QuickDocument doc, PendingElement pending, QuickParseEnv parseEnv) {
+		WidgetStructure structure = (WidgetStructure) pending.content;
+		Map<String, QuickAttribute<?>> annotated = new HashMap<>();
+		try {
+			for (QuickTagUtils.AcceptedAttributeStruct<?> att : QuickTagUtils.getAcceptedAttributes(pending.element.getClass()))
+				annotated.put(att.attribute.getName(), att.attribute);
+		} catch (RuntimeException e) {
+			return; // Reported when the element is initialized
+		}
+		QuickPropertyParser parser = doc.getEnvironment().getPropertyParser();
+		for (String name : structure.getAttributes().keySet()) {
+			// Attributes accepted by annotation are accepted on initialization, after those accepted by the element's constructor
+			QuickAttribute<?> attr = annotated.get(name);
+			if (attr == null)
+				attr = pending.element.atts().getAttribute(name);
+			if (attr == null)
+				continue;
+			try {
+				ObservableValue<?> value = structure.parseAttribute(attr, parser, parseEnv);
+				if (value != null)
+					pending.attributes.put(name, new ParsedAttribute(attr, value));
+			} catch (QuickParseException | RuntimeException e) {
+				// Parsed again and reported when the attribute is set
+			}
+		}
+	}
+
+	/** Initializes instantiated elements and adds them to their parent, on the calling thread */
+	private void initAll(QuickDocument doc, QuickElement parent, ExpressionContext parentCtx, List<PendingElement> pending)
+		throws QuickParseException {
+		ArrayList<QuickElement> children = new ArrayList<>(pending.size());
+		for (PendingElement child : pending) {
+			QuickElement element;
+			if (child.element == null)
+				element = getChild(parent, parentCtx, child.content, false);
+			else {
+				WidgetStructure structure = (WidgetStructure) child.content;
+				element = child.element;
+				element.init(doc, child.toolkit, structure.getClassView(), parent, child.namespace, structure.getTagName());
+				setAttributes(doc, parent, parentCtx, structure, element, child.attributes);
+				initAll(doc, element, parentCtx, child.children);
+			}
+			if (element != null)
+				children.add(element);
+		}
+		parent.initChildren(children);
 	}
 
 	QuickElement createElement(QuickDocument doc, QuickElement parent, WidgetStructure structure)
 		throws QuickParseException {
+		PendingElement pending = instantiate(structure);
+		pending.element.init(doc, pending.toolkit, structure.getClassView(), parent, pending.namespace, structure.getTagName());
+		return pending.element;
+	}
+
+	/** Resolves, loads and instantiates the element class for a structure, without initializing the element */
+	private PendingElement instantiate(WidgetStructure structure) throws QuickParseException {
 		String ns = structure.getNamespace();
 		if (ns != null && ns.length() == 0)
 			ns = null;
@@ -132,8 +349,7 @@ public class QuickContentCreator {
 		} catch (Throwable e) {
 			throw new QuickParseException("Could not instantiate Quick element class " + className, e);
 		}
-		ret.init(doc, toolkit, structure.getClassView(), parent, ns, structure.getTagName());
-		return ret;
+		return new PendingElement(structure, ret, toolkit, ns);
 	}
 
 	/**
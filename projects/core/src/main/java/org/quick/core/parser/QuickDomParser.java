@@ -6,8 +6,10 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.jdom2.Attribute;
 import org.jdom2.CDATA;
@@ -46,6 +48,7 @@ public class QuickDomParser implements QuickDocumentParser {
 			throw new QuickParseException("Could not parse document XML", e);
 		}
 
+		prefetchToolkits(rootEl, location);
 		QuickClassView classView = getClassView(cv, rootEl, msg, location);
 		if (rootEl.getTextTrim().length() > 0)
 			msg.warn("Text found under root element: " + rootEl.getTextTrim());
@@ -59,22 +62,29 @@ public class QuickDomParser implements QuickDocumentParser {
 			if (headEl[0].getTextTrim().length() > 0)
 				msg.warn("Text found in head section: " + headEl[0].getTextTrim());
 			title = headEl[0].getChildTextTrim("title");
-			for (Element styleSheetEl : headEl[0].getChildren("style-sheet")) {
+			List<Element> styleSheetEls = headEl[0].getChildren("style-sheet");
+			Map<Element, URL> styleSheetLocations = new LinkedHashMap<>();
+			for (Element styleSheetEl : styleSheetEls) {
 				String ref = styleSheetEl.getAttributeValue("ref");
-				URL ssLoc;
 				try {
-					ssLoc = QuickUtils.resolveURL(location, ref);
+					styleSheetLocations.put(styleSheetEl, QuickUtils.resolveURL(location, ref));
 				} catch (QuickException e) {
 					msg.error("Could not resolve style sheet location " + ref, e, "element", styleSheetEl);
 					return null;
 				}
+			}
+			// Style sheets are parsed in parallel, but applied in the order they are declared
+			for (ImmutableStyleSheet styleSheet : theEnvironment.loadAll(styleSheetEls, styleSheetEl -> {
+				URL ref = styleSheetLocations.get(styleSheetEl);
 				try {
-					ImmutableStyleSheet styleSheet = theEnvironment.getStyleParser().parseStyleSheet(ssLoc, null,
-						theEnvironment.getPropertyParser(), classView, msg);
-					styleSheets.add(styleSheet);
+					return theEnvironment.getStyleParser().parseStyleSheet(ref, null, theEnvironment.getPropertyParser(), classView, msg);
 				} catch (Exception e) {
 					msg.error("Could not read or parse style sheet at " + ref, e, "element", styleSheetEl);
+					return null;
 				}
+			})) {
+				if (styleSheet != null)
+					styleSheets.add(styleSheet);
 			}
 			for (Element modelEl : headEl[0].getChildren("model")) {
 				String name = modelEl.getAttributeValue("name");
@@ -107,6 +117,36 @@ public class QuickDomParser implements QuickDocumentParser {
 		return new QuickDocumentStructure(location, head, content);
 	}
 
+	/**
+	 * Loads all toolkits referenced by namespaces anywhere in a document up front, so that independent toolkits can be loaded in parallel
+	 * instead of one at a time as they are encountered. Errors are ignored here and reported when the namespaces are actually mapped.
+	 *
+	 * @param xml The root XML element of the document
+	 * @param location The location of the XML file
+	 */
+	protected void prefetchToolkits(Element xml, URL location) {
+		Set<URL> toolkits = new LinkedHashSet<>();
+		addToolkitLocations(xml, location, toolkits);
+		theEnvironment.loadAll(new ArrayList<>(toolkits), tkLoc -> {
+			try {
+				return theEnvironment.getToolkit(tkLoc);
+			} catch (IOException | QuickException | RuntimeException e) {
+				return null;
+			}
+		});
+	}
+
+	private static void addToolkitLocations(Element xml, URL location, Set<URL> toolkits) {
+		for (org.jdom2.Namespace ns : xml.getNamespacesIntroduced()) {
+			try {
+				toolkits.add(QuickUtils.resolveURL(location, ns.getURI()));
+			} catch (QuickException e) {
+			}
+		}
+		for (Element child : xml.getChildren())
+			addToolkitLocations(child, location, toolkits);
+	}
+
 	/**
 	 * Creates a fully-initialized class view
 	 *
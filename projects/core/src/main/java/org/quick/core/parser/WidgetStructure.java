@@ -1,12 +1,76 @@
 package org.quick.core.parser;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.observe.ObservableValue;
 import org.quick.core.QuickClassView;
-
-/** Represents the structure of a widget as defined in XML */
+import org.quick.core.QuickParseEnv;
+import org.quick.core.prop.ExpressionContext;
+import org.quick.core.prop.ExpressionFunction;
+import org.quick.core.prop.QuickAttribute;
+import org.quick.core.prop.Unit;
+
+/**
+ * Represents the structure of a widget as defined in XML. Once sealed, a structure may be instantiated many times (e.g. as part of a
+ * template), so attribute values that can be shared between its instances are only {@link #parseAttribute(QuickAttribute,
+ * QuickPropertyParser, QuickParseEnv) parsed} once.
+ */
 public class WidgetStructure extends QuickContent implements org.qommons.Sealable {
+	/** Marks an attribute whose value depends on the parse environment, so it cannot be shared */
+	private static final Object NOT_SHARED = new Object();
+
+	/** A parsed attribute value, with the class view it was parsed with */
+	private static class SharedValue {
+		final QuickClassView classView;
+		final ObservableValue<?> value;
+
+		SharedValue(QuickClassView cv, ObservableValue<?> val) {
+			classView = cv;
+			value = val;
+		}
+	}
+
+	/** Passes through to an expression context, noting whether any of its values were used */
+	private static class RecordingContext implements ExpressionContext {
+		private final ExpressionContext theWrapped;
+		volatile boolean isUsed;
+
+		RecordingContext(ExpressionContext wrapped) {
+			theWrapped = wrapped;
+		}
+
+		@Override
+		public ObservableValue<?> getVariable(String name) {
+			ObservableValue<?> ret = theWrapped == null ? null : theWrapped.getVariable(name);
+			if(ret != null)
+				isUsed = true;
+			return ret;
+		}
+
+		@Override
+		public <T extends Collection<ExpressionFunction<?>>> T getFunctions(String name, T functions) {
+			int preSize = functions.size();
+			if(theWrapped != null)
+				theWrapped.getFunctions(name, functions);
+			if(functions.size() != preSize)
+				isUsed = true;
+			return functions;
+		}
+
+		@Override
+		public <T extends Collection<Unit<?, ?>>> T getUnits(String name, T units) {
+			int preSize = units.size();
+			if(theWrapped != null)
+				theWrapped.getUnits(name, units);
+			if(units.size() != preSize)
+				isUsed = true;
+			return units;
+		}
+	}
+
 	private final String theNamespace;
 
 	private final String theTagName;
@@ -19,6 +83,8 @@ public class WidgetStructure extends QuickContent implements org.qommons.Sealabl
 
 	private boolean isSealed;
 
+	private ConcurrentHashMap<QuickAttribute<?>, Object> theParsedAttributes;
+
 	/**
 	 * @param parent This structure's parent
 	 * @param classView The class view for this widget
@@ -69,6 +135,38 @@ public class WidgetStructure extends QuickContent implements org.qommons.Sealabl
 		theAttributes.put(attName, attValue);
 	}
 
+	/**
+	 * Parses the value of an attribute in this structure for an element created from it. If this structure is sealed, the attribute's type
+	 * is {@link org.quick.core.prop.QuickPropertyType#isShareable() shareable} and the value's parsing does not use anything from the
+	 * parse environment's expression context, the parsed value is kept and shared by all elements created from this structure afterward
+	 * with the same class view. Such values are immutable, so an element that later sets a different value merely replaces its reference
+	 * to the shared one.
+	 *
+	 * @param <T> The type of the attribute
+	 * @param attr The attribute to parse the value for
+	 * @param parser The parser to parse the value with
+	 * @param parseEnv The environment to parse the value in
+	 * @return The parsed value, or null if the attribute's name is not set in this structure
+	 * @throws QuickParseException If the value cannot be parsed
+	 */
+	public <T> ObservableValue<? extends T> parseAttribute(QuickAttribute<T> attr, QuickPropertyParser parser, QuickParseEnv parseEnv)
+		throws QuickParseException {
+		String text = theAttributes.get(attr.getName());
+		if(text == null)
+			return null;
+		if(!isSealed || !attr.getType().isShareable())
+			return parser.parseProperty(attr, parseEnv, text);
+		Object shared = theParsedAttributes.get(attr);
+		if(shared instanceof SharedValue && ((SharedValue) shared).classView == parseEnv.cv())
+			return (ObservableValue<? extends T>) ((SharedValue) shared).value;
+		else if(shared != null) // Not shareable, or parsed with a different class view, which may resolve names differently
+			return parser.parseProperty(attr, parseEnv, text);
+		RecordingContext ctx = new RecordingContext(parseEnv.getContext());
+		ObservableValue<? extends T> value = parser.parseProperty(attr, new SimpleParseEnv(parseEnv.cv(), parseEnv.msg(), ctx), text);
+		theParsedAttributes.putIfAbsent(attr, ctx.isUsed ? NOT_SHARED : new SharedValue(parseEnv.cv(), value));
+		return value;
+	}
+
 	/** @param widget The content to add as a child of this widget */
 	public void addChild(QuickContent widget) {
 		if(isSealed)
@@ -83,7 +181,10 @@ public class WidgetStructure extends QuickContent implements org.qommons.Sealabl
 
 	@Override
 	public void seal() {
+		if(isSealed)
+			return;
 		isSealed = true;
+		theParsedAttributes = new ConcurrentHashMap<>();
 		theAttributes = java.util.Collections.unmodifiableMap(theAttributes);
 		theChildren = java.util.Collections.unmodifiableList(theChildren);
 	}
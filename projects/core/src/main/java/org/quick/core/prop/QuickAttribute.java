@@ -15,12 +15,51 @@ import org.observe.ObservableValue;
  * @param <T> The java type of the attribute
  */
 public class QuickAttribute<T> extends QuickProperty<T> {
+	/**
+	 * The attribute holding the ID for each set of equal attributes. Held weakly so that attributes built dynamically (e.g. by models) can
+	 * be collected.
+	 */
+	private static final java.util.WeakHashMap<QuickAttribute<?>, java.lang.ref.WeakReference<QuickAttribute<?>>> CANONICAL = //
+		new java.util.WeakHashMap<>();
+	private static final java.util.concurrent.atomic.AtomicInteger NEXT_ID = new java.util.concurrent.atomic.AtomicInteger();
+
+	private volatile int theId = -1;
+	/** Keeps the registered attribute with this attribute's ID reachable for as long as this attribute is */
+	@SuppressWarnings("unused")
+	private QuickAttribute<?> theCanonical;
+
 	/** @see QuickProperty#QuickProperty(String, QuickPropertyType, PropertyValidator, List) */
 	protected QuickAttribute(String name, QuickPropertyType<T> type, PropertyValidator<T> validator,
 		List<Function<String, ObservableValue<?>>> valueSuppliers) {
 		super(name, type, validator, valueSuppliers);
 	}
 
+	/**
+	 * @return A non-negative integer identifying this attribute. Attributes that are {@link #equals(Object) equal} share the same ID while
+	 *         any of them is reachable. IDs are assigned in the order attributes are first used and are only meaningful within a single
+	 *         virtual machine.
+	 */
+	public final int getId() {
+		int id = theId;
+		if(id < 0) {
+			synchronized(CANONICAL) {
+				if(theId < 0) {
+					java.lang.ref.WeakReference<QuickAttribute<?>> ref = CANONICAL.get(this);
+					QuickAttribute<?> canonical = ref == null ? null : ref.get();
+					if(canonical == null) {
+						canonical = this;
+						theId = NEXT_ID.getAndIncrement();
+						CANONICAL.put(this, new java.lang.ref.WeakReference<>(this));
+					} else
+						theId = canonical.theId;
+					theCanonical = canonical;
+				}
+				id = theId;
+			}
+		}
+		return id;
+	}
+
 	@Override
 	public final String getPropertyTypeName() {
 		return "attribute";
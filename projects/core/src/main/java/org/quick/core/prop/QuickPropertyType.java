@@ -65,10 +65,12 @@ public final class QuickPropertyType<T> {
 	private final List<TypeMapping<?, ?>> theMappings;
 	private final ExpressionContext theContext;
 	private final Function<? super T, String> thePrinter;
+	private final boolean isShareable;
+	private final java.util.concurrent.ConcurrentHashMap<ConversionKey, Conversion> theConversions;
 
 	private QuickPropertyType(String name, TypeToken<T> type, PropertySelfParser<T> parser, boolean parseSelfByDefault,
 		boolean directivesAllowed, Function<Integer, String> replacementGen, List<TypeMapping<?, ?>> mappings,
-		Function<? super T, String> printer, ExpressionContext ctx) {
+		Function<? super T, String> printer, ExpressionContext ctx, boolean shareable) {
 		theName = name;
 		theType = type;
 		theParser = parser;
@@ -78,6 +80,8 @@ public final class QuickPropertyType<T> {
 		theMappings = Collections.unmodifiableList(new ArrayList<>(mappings));
 		theContext = ctx;
 		thePrinter = printer;
+		isShareable = shareable;
+		theConversions = new java.util.concurrent.ConcurrentHashMap<>();
 	}
 
 	/** @return This property type's name */
@@ -119,6 +123,15 @@ public final class QuickPropertyType<T> {
 		return theContext;
 	}
 
+	/**
+	 * @return Whether values of this type are immutable, so that a value parsed once from a widget structure may be shared by all the
+	 *         elements created from the structure
+	 * @see org.quick.core.parser.WidgetStructure#parseAttribute(QuickAttribute, QuickPropertyParser, QuickParseEnv)
+	 */
+	public boolean isShareable() {
+		return isShareable;
+	}
+
 	/**
 	 * @param type The type to check
 	 * @return Whether objects of the given type can be converted to items of this property's type
@@ -141,16 +154,8 @@ public final class QuickPropertyType<T> {
 	 * @return Whether this property knows how to convert from items of the from type to items of the to type
 	 */
 	public boolean canConvert(TypeToken<?> from, TypeToken<?> to) {
-		if (QuickUtils.isAssignableFrom(to, from))
-			return true;
-		for (TypeMapping<?, ?> mapping : theMappings) {
-			if (QuickUtils.isAssignableFrom(mapping.getFromType(), from) && QuickUtils.isAssignableFrom(to, mapping.getToType()))
-				return true;
-			else if (mapping.getReverseMap() != null && QuickUtils.isAssignableFrom(mapping.getToType(), from)
-				&& QuickUtils.isAssignableFrom(to, mapping.getFromType()))
-				return true;
-		}
-		return false;
+		Conversion conversion = getConversion(from, to);
+		return conversion.isAssignable || conversion.mapping != null;
 	}
 
 	/**
@@ -193,18 +198,50 @@ public final class QuickPropertyType<T> {
 	 * @throws QuickException If an exception occurs in a conversion that should succeed
 	 */
 	public <F, X> X convert(TypeToken<F> fromType, F value, TypeToken<X> toType) throws QuickException {
-		if (toType.getRawType().isAssignableFrom(fromType.getRawType()))
+		Conversion conversion = getConversion(fromType, toType);
+		if (conversion.isRawAssignable)
 			return (X) value;
-		if (QuickUtils.isAssignableFrom(toType, fromType))
+		else if (conversion.isAssignable)
 			return QuickUtils.convert(toType, value);
+		else if (conversion.mapping == null)
+			return null;
+		else if (conversion.isReverse)
+			return doReverseCast(conversion.mapping, value, toType);
+		else
+			return doCast(conversion.mapping, value, toType);
+	}
+
+	/**
+	 * Resolving a conversion involves generic type reflection, so the result is remembered for each pair of types
+	 *
+	 * @param from The type to convert from
+	 * @param to The type to convert to
+	 * @return The conversion between the given types
+	 */
+	private Conversion getConversion(TypeToken<?> from, TypeToken<?> to) {
+		ConversionKey key = new ConversionKey(from, to);
+		Conversion conversion = theConversions.get(key);
+		if (conversion == null) {
+			conversion = resolveConversion(from, to);
+			Conversion existing = theConversions.putIfAbsent(key, conversion);
+			if (existing != null)
+				conversion = existing;
+		}
+		return conversion;
+	}
+
+	private Conversion resolveConversion(TypeToken<?> from, TypeToken<?> to) {
+		boolean rawAssignable = to.getRawType().isAssignableFrom(from.getRawType());
+		if (QuickUtils.isAssignableFrom(to, from))
+			return new Conversion(rawAssignable, true, null, false);
 		for (TypeMapping<?, ?> mapping : theMappings) {
-			if (QuickUtils.isAssignableFrom(mapping.getFromType(), fromType) && QuickUtils.isAssignableFrom(toType, mapping.getToType()))
-				return doCast(mapping, value, toType);
-			else if (mapping.getReverseMap() != null && QuickUtils.isAssignableFrom(mapping.getToType(), fromType)
-				&& QuickUtils.isAssignableFrom(toType, mapping.getFromType()))
-				return doReverseCast(mapping, value, toType);
+			if (QuickUtils.isAssignableFrom(mapping.getFromType(), from) && QuickUtils.isAssignableFrom(to, mapping.getToType()))
+				return new Conversion(rawAssignable, false, mapping, false);
+			else if (mapping.getReverseMap() != null && QuickUtils.isAssignableFrom(mapping.getToType(), from)
+				&& QuickUtils.isAssignableFrom(to, mapping.getFromType()))
+				return new Conversion(rawAssignable, false, mapping, true);
 		}
-		return null;
+		return new Conversion(rawAssignable, false, null, false);
 	}
 
 	private static <F, X> X doCast(TypeMapping<F, ?> mapping, Object value, TypeToken<X> toType) throws QuickException {
@@ -247,6 +284,50 @@ public final class QuickPropertyType<T> {
 		return theName;
 	}
 
+	private static class ConversionKey {
+		private final TypeToken<?> theFrom;
+		private final TypeToken<?> theTo;
+		private final int hashCode;
+
+		ConversionKey(TypeToken<?> from, TypeToken<?> to) {
+			theFrom = from;
+			theTo = to;
+			hashCode = from.hashCode() * 31 + to.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ConversionKey))
+				return false;
+			ConversionKey other = (ConversionKey) obj;
+			return hashCode == other.hashCode && theFrom.equals(other.theFrom) && theTo.equals(other.theTo);
+		}
+	}
+
+	/** A resolved conversion between two types */
+	private static class Conversion {
+		/** Whether values of the source type are already instances of the target type's raw type */
+		final boolean isRawAssignable;
+		/** Whether values of the source type may be assigned to the target type, possibly with primitive conversion */
+		final boolean isAssignable;
+		/** The mapping to convert with, or null if the types are assignable or not convertible */
+		final TypeMapping<?, ?> mapping;
+		/** Whether {@link #mapping} is to be used in reverse */
+		final boolean isReverse;
+
+		Conversion(boolean rawAssignable, boolean assignable, TypeMapping<?, ?> map, boolean reverse) {
+			isRawAssignable = rawAssignable;
+			isAssignable = assignable;
+			mapping = map;
+			isReverse = reverse;
+		}
+	}
+
 	/**
 	 * Builds a value property
 	 *
@@ -274,6 +355,7 @@ public final class QuickPropertyType<T> {
 		private final List<TypeMapping<?, ?>> theMappings;
 		private DefaultExpressionContext.Builder theCtxBuilder;
 		private Function<? super T, String> thePrinter;
+		private boolean isShareable;
 
 		private Builder(String name, TypeToken<T> type) {
 			theName = name;
@@ -379,13 +461,24 @@ public final class QuickPropertyType<T> {
 			return this;
 		}
 
+		/**
+		 * Marks a property type's values as immutable, so that a value parsed once from a widget structure may be shared by all the
+		 * elements created from the structure. Types whose parsing creates a new mutable object each time must not be shareable.
+		 *
+		 * @return This builder
+		 */
+		public Builder<T> shareable() {
+			isShareable = true;
+			return this;
+		}
+
 		/** @return The new property type */
 		public QuickPropertyType<T> build() {
 			if (isSelfParsingByDefault && theParser == null)
 				throw new IllegalArgumentException("Cannot parse self by default with no parser");
 			return new QuickPropertyType<>(theName, theType, theParser, isSelfParsingByDefault, allowsDirectives,
 				theReferenceReplacementGenerator,
-				theMappings, thePrinter, theCtxBuilder.build());
+				theMappings, thePrinter, theCtxBuilder.build(), isShareable);
 		}
 	}
 
@@ -393,24 +486,25 @@ public final class QuickPropertyType<T> {
 	public static final QuickPropertyType<String> string = QuickPropertyType.build("string", TypeToken.of(String.class))
 		.withParser((parser, env, s) -> ObservableValue.constant(TypeToken.of(String.class), s), true)//
 		.map(TypeToken.of(CharSequence.class), seq -> seq.toString(), s -> s)//
-		.build();
+		.shareable().build();
 
 	/** The default property type for boolean-valued properties */
-	public static final QuickPropertyType<Boolean> boole = QuickPropertyType.build("boolean", TypeToken.of(Boolean.class)).build();
+	public static final QuickPropertyType<Boolean> boole = QuickPropertyType.build("boolean", TypeToken.of(Boolean.class)).shareable()
+		.build();
 
 	/** The default property type for integer-valued properties */
 	public static final QuickPropertyType<Integer> integer = QuickPropertyType.build("integer", TypeToken.of(Integer.class))
 		.map(TypeToken.of(Number.class), num -> num.intValue(), i -> i)//
 		.map(TypeToken.of(Long.class), l -> l.intValue(), i -> Long.valueOf(i))//
 		.map(TypeToken.of(Character.class), c -> (int) c.charValue(), null)//
-		.build();
+		.shareable().build();
 
 	/** The default property type for floating-point-valued properties */
 	public static final QuickPropertyType<Double> floating = QuickPropertyType.build("float", TypeToken.of(Double.class))
 		.map(TypeToken.of(Number.class), num -> num.doubleValue(), d -> d)//
 		.map(TypeToken.of(Long.class), l -> l.doubleValue(), null)//
 		.map(TypeToken.of(Character.class), c -> (double) c.charValue(), null)//
-		.build();
+		.shareable().build();
 
 	/** The default property type for time-instant-valued properties */
 	public static final QuickPropertyType<Instant> instant = QuickPropertyType.build("instant", TypeToken.of(Instant.class))
@@ -422,7 +516,7 @@ public final class QuickPropertyType<T> {
 			cal.setTimeInMillis(inst.toEpochMilli());
 			return cal;
 		})//
-		.build();
+		.shareable().build();
 
 	private static Instant parseInstant(String s) throws QuickParseException {
 		try {
@@ -455,7 +549,8 @@ public final class QuickPropertyType<T> {
 		Builder<Duration> durationBuilder = QuickPropertyType.build("duration", dType)//
 			.withParser((parser, env, s) -> ObservableValue.constant(dType, parseDuration(s)), true)//
 			.withToString(d -> toString(d))//
-			.map(TypeToken.of(Long.class), l -> Duration.ofMillis(l), d -> d.toMillis());
+			.map(TypeToken.of(Long.class), l -> Duration.ofMillis(l), d -> d.toMillis())//
+			.shareable();
 		durationBuilder.buildContext(ctx -> {
 			for (Map.Entry<String, ChronoUnit> unit : SUPPORTED_CHRONO_UNITS.entrySet())
 				ctx.withUnit(unit.getKey(), TypeToken.of(Long.class), dType, l -> Duration.of(l, unit.getValue()),
@@ -529,6 +624,7 @@ public final class QuickPropertyType<T> {
 		Builder<Color> colorBuilder = QuickPropertyType.build("color", TypeToken.of(Color.class))//
 			.withParser((parser, env, s) -> ObservableValue.constant(TypeToken.of(Color.class), Colors.parseColor(s)), true)//
 			.withToString(c -> Colors.toString(c))//
+			.shareable()//
 			.buildContext(ctx -> {
 				ctx//
 					.withValueGetter(name -> {
@@ -639,6 +735,7 @@ public final class QuickPropertyType<T> {
 		}
 		Builder<T> builder = build("enum " + enumType.getName(), TypeToken.of(enumType))//
 			.withToString(v -> QuickUtils.javaToXML(v.name()))//
+			.shareable()//
 			.buildContext(ctx -> {
 				ctx//
 					.withValueGetter(s -> {
@@ -685,14 +782,15 @@ public final class QuickPropertyType<T> {
 				if (!type.isAssignableFrom(res))
 					throw new QuickParseException("Type " + s + " is not compatible with type " + type.getName());
 				return ObservableValue.constant(typeToken, type.asSubclass(type));
-			}, true);
+			}, true).shareable();
 		if (builder != null)
 			builder.accept(build);
 		return build.build();
 	}
 
 	/**
-	 * Creates a property type that instantiates a type
+	 * Creates a property type that instantiates a type. Each parse creates a new instance, so values of the type are not
+	 * {@link #isShareable() shareable}.
 	 *
 	 * @param <T> The compile-time type of the super class of the type of values to produce
 	 * @param type The super class of the type of values to produce
@@ -793,5 +891,5 @@ public final class QuickPropertyType<T> {
 					+ (toolkit == null ? "mapped namespaces" : ("toolkit \"" + toolkit.getName())) + "\"'s URL: \"" + content + "\"");
 			}
 		}, true)//
-		.build();
+		.shareable().build();
 }
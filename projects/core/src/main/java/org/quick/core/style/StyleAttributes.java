@@ -27,6 +27,7 @@ public class StyleAttributes {
 				return (ObservableValue<QuickStyle>) parser.parseProperty(directiveStyle, env, str);
 			return ObservableValue.constant(TypeToken.of(QuickStyle.class), parseStyle(parser, env, str));
 		}, true).noDirectives()//
+		.shareable()//
 		.withToString(style2 -> {
 			StringBuilder ret = new StringBuilder();
 			for (StyleAttribute<?> attr : style2.attributes()) {
@@ -49,6 +50,7 @@ public class StyleAttributes {
 				groups.add(s.trim());
 			return ObservableValue.constant(new TypeToken<Set<String>>() {}, Collections.unmodifiableSet(groups));
 		}, true)//
+		.shareable()//
 		.map(TypeToken.of(String.class), str -> {
 			String[] split = str.split(",");
 			LinkedHashSet<String> groups = new LinkedHashSet<>();
@@ -4,6 +4,8 @@ package org.quick.motion;
 public interface Animation
 {
 	/**
+	 * Called from a frame of the {@link AnimationManager}'s clock, on the Quick event queue thread
+	 *
 	 * @param time The amount of time since this animation was started
 	 * @return Whether the animation has finished
 	 */
@@ -1,7 +1,16 @@
 package org.quick.motion;
 
-/** Manages animations in Quick */
+import org.quick.core.QuickEventQueue;
+
+/**
+ * Manages animations in Quick. Animations are driven by a single frame clock that ticks on the {@link QuickEventQueue Quick event queue}.
+ * All animations that are due in a frame are updated together, so the repaints they request are queued at the same time and handled in
+ * the same pass of the queue.
+ */
 public class AnimationManager {
+	/** The default interval between frames, in milliseconds */
+	public static final long DEFAULT_FRAME_INTERVAL = 16;
+
 	private static class AnimationHolder {
 		final Animation animation;
 
@@ -18,6 +27,13 @@ public class AnimationManager {
 			frequency = anim.getMaxFrequency();
 			startTime = System.currentTimeMillis();
 		}
+
+		/** @return The earliest time at which this animation should next be updated */
+		long getNextRun() {
+			if(actualTimesRun == 0)
+				return startTime;
+			return startTime + timesRun * frequency;
+		}
 	}
 
 	private static AnimationManager theInstance = new AnimationManager();
@@ -29,17 +45,30 @@ public class AnimationManager {
 
 	private AnimationHolder [] theAnimations;
 
-	private Object theLock;
+	private final Object theLock;
+
+	private volatile long theFrameInterval;
 
-	private AnimationThread theThread;
+	/** The time of the frame currently scheduled on the event queue, or -1 if no frame is scheduled */
+	private long theScheduledFrame;
 
 	private volatile boolean isShuttingDown;
 
-	volatile boolean isInterrupted;
+	private volatile long theFrameCount;
+
+	private volatile long theDroppedFrames;
+
+	private volatile long theOverBudgetFrames;
+
+	private volatile long theLastFrameDuration;
+
+	private volatile long theTotalFrameDuration;
 
 	private AnimationManager() {
 		theAnimations = new AnimationHolder[0];
 		theLock = new Object();
+		theFrameInterval = DEFAULT_FRAME_INTERVAL;
+		theScheduledFrame = -1;
 	}
 
 	/** @param animation The animation to run */
@@ -48,17 +77,112 @@ public class AnimationManager {
 		synchronized(theLock) {
 			theAnimations = org.qommons.ArrayUtils.add(theAnimations, holder);
 		}
-		start();
-		isInterrupted = true;
-		if(theThread != null)
-			theThread.interrupt();
+		scheduleFrame(holder.startTime);
+	}
+
+	/** @return The interval between frames of this manager's clock, in milliseconds */
+	public long getFrameInterval() {
+		return theFrameInterval;
+	}
+
+	/**
+	 * @param interval The interval between frames of this manager's clock, in milliseconds. This is also the time budget for updating all
+	 *        animations in a frame.
+	 */
+	public void setFrameInterval(long interval) {
+		if(interval <= 0)
+			throw new IllegalArgumentException("Frame interval must be positive: " + interval);
+		theFrameInterval = interval;
+	}
+
+	/** @return The number of frames that have run */
+	public long getFrameCount() {
+		return theFrameCount;
+	}
+
+	/** @return The number of frames that were skipped because a frame ran late by at least one frame interval */
+	public long getDroppedFrames() {
+		return theDroppedFrames;
+	}
+
+	/** @return The number of frames whose animation updates took longer than the {@link #getFrameInterval() frame interval} */
+	public long getOverBudgetFrames() {
+		return theOverBudgetFrames;
+	}
+
+	/** @return The time taken to update all animations in the most recent frame, in nanoseconds */
+	public long getLastFrameDuration() {
+		return theLastFrameDuration;
+	}
+
+	/** @return The average time taken to update all animations in a frame, in nanoseconds */
+	public long getAverageFrameDuration() {
+		long count = theFrameCount;
+		return count == 0 ? 0 : theTotalFrameDuration / count;
+	}
+
+	/** Resets this manager's frame statistics */
+	public void resetStats() {
+		theFrameCount = 0;
+		theDroppedFrames = 0;
+		theOverBudgetFrames = 0;
+		theLastFrameDuration = 0;
+		theTotalFrameDuration = 0;
+	}
+
+	/** @param time The time at or after which the next frame is needed */
+	private void scheduleFrame(long time) {
+		long interval = theFrameInterval;
+		long frameTime = (time + interval - 1) / interval * interval; // Snap to the clock so frames are shared between animations
+		synchronized(theLock) {
+			if(isShuttingDown || (theScheduledFrame >= 0 && theScheduledFrame <= frameTime))
+				return;
+			theScheduledFrame = frameTime;
+		}
+		QuickEventQueue.get().scheduleEvent(new QuickEventQueue.FrameEvent(frameTime, this::runFrame), false);
 	}
 
-	/** Starts the animation thread */
-	private void start() {
-		if(theThread != null)
-			return;
-		new AnimationThread().start();
+	private void runFrame(long frameTime) {
+		synchronized(theLock) {
+			if(theScheduledFrame == frameTime)
+				theScheduledFrame = -1;
+		}
+		long startNanos = System.nanoTime();
+		long now = System.currentTimeMillis();
+		long interval = theFrameInterval;
+		if(now - frameTime >= interval)
+			theDroppedFrames += (now - frameTime) / interval;
+		long next = -1;
+		for(AnimationHolder anim : theAnimations) {
+			if(now < anim.getNextRun()) {
+				if(next < 0 || anim.getNextRun() < next)
+					next = anim.getNextRun();
+				continue;
+			}
+			anim.timesRun = (anim.frequency == 0 ? 0 : (int) ((now - anim.startTime) / anim.frequency)) + 1;
+			anim.actualTimesRun++;
+			try {
+				if(anim.animation.update(now - anim.startTime)) {
+					remove(anim);
+					continue;
+				}
+			} catch(RuntimeException | Error e) {
+				System.err.println("Error running animation " + anim.animation);
+				e.printStackTrace();
+				remove(anim);
+				continue;
+			}
+			if(next < 0 || anim.getNextRun() < next)
+				next = anim.getNextRun();
+		}
+		long duration = System.nanoTime() - startNanos;
+		theFrameCount++;
+		theLastFrameDuration = duration;
+		theTotalFrameDuration += duration;
+		if(duration > interval * 1000000)
+			theOverBudgetFrames++;
+		if(next >= 0)
+			scheduleFrame(Math.max(next, frameTime + interval));
 	}
 
 	private void remove(AnimationHolder animation) {
@@ -75,70 +199,13 @@ public class AnimationManager {
 		isShuttingDown = true;
 	}
 
-	/** @return Whether this event queue is currently running */
+	/** @return Whether this manager has animations running */
 	public boolean isRunning() {
-		return theThread != null;
+		return theAnimations.length > 0;
 	}
 
-	/** @return Whether this event queue is shutting down. Not currently used. */
+	/** @return Whether this manager is shutting down. Not currently used. */
 	public boolean isShuttingDown() {
 		return isShuttingDown;
 	}
-
-	private class AnimationThread extends Thread {
-		AnimationThread() {
-			super("Quick Motion");
-		}
-
-		/**
-		 * The queue threads action is to go through the events in the queue. When an event is come to, the dirty paint or layout state of
-		 * the element is checked. If not dirty, remove the event and do nothing. If the dirty time is <=10ms ago, skip the event so that it
-		 * is checked again the next 50ms. Heavy, multiple-op processes on elements from external threads will cause few layout/redraw
-		 * actions this way, but after ops finish, layout/redraw will happen within 60ms, average 35ms.
-		 */
-		@SuppressWarnings("synthetic-access")
-		@Override
-		public void run() {
-			synchronized(theLock) {
-				if(theThread != null)
-					return;
-				theThread = this;
-			}
-			while(!isShuttingDown())
-				try {
-					isInterrupted = false;
-					AnimationHolder [] animations = theAnimations;
-					boolean acted = false;
-					long now = System.currentTimeMillis();
-					long next = now + 1000;
-					for(AnimationHolder anim : animations) {
-						if(anim.actualTimesRun != 0 && (now - anim.startTime) / anim.actualTimesRun < anim.frequency) {
-							long animNext = anim.startTime + (anim.timesRun + 1) * anim.frequency;
-							if(animNext < next)
-								next = animNext;
-							continue;
-						}
-						int times = anim.frequency == 0 ? 0 : (int) ((now - anim.startTime) / anim.frequency);
-						anim.timesRun = times + 1;
-						anim.actualTimesRun++;
-						try {
-							if(anim.animation.update(now - anim.startTime))
-								remove(anim);
-						} catch(RuntimeException | Error e) {
-							System.err.println("Error running animation " + anim.animation);
-							e.printStackTrace();
-							remove(anim);
-						}
-						now = System.currentTimeMillis();
-						if(next > now + anim.frequency)
-							next = now + anim.frequency;
-					}
-					if(!acted && !isInterrupted && next > now)
-						Thread.sleep(next - now);
-				} catch(InterruptedException e) {
-				}
-			theThread = null;
-			isShuttingDown = false;
-		}
-	}
 }
@@ -22,7 +22,19 @@ public class QuickTestUtils {
 	 * @throws QuickParseException If the resource or others linked to it contained fatal errors
 	 */
 	public static QuickDocument parseDoc(URL url) throws QuickParseException, IOException {
-		QuickEnvironment env = QuickEnvironment.build().withDefaults().build();
+		return parseDoc(url, QuickEnvironment.build().withDefaults().build());
+	}
+
+	/**
+	 * A utility method to quickly parse a document XML in a particular environment
+	 *
+	 * @param url The URL location of the XML document
+	 * @param env The environment to parse the document in
+	 * @return The parsed document
+	 * @throws IOException If the resource or others linked to it could not be found or read
+	 * @throws QuickParseException If the resource or others linked to it contained fatal errors
+	 */
+	public static QuickDocument parseDoc(URL url, QuickEnvironment env) throws QuickParseException, IOException {
 		env.msg().addListener(msg -> {
 			switch (msg.type) {
 			case FATAL:
@@ -34,7 +46,7 @@ public class QuickTestUtils {
 				System.out.println(msg);
 				break;
 			}
-		});
+		}, true);
 		QuickDocumentStructure docStruct = env.getDocumentParser().parseDocument(url, new java.io.InputStreamReader(url.openStream()),
 			env.cv(), env.msg());
 		QuickHeadSection head = env.getContentCreator().createHeadFromStructure(docStruct.getHead(), env.getPropertyParser(), env);
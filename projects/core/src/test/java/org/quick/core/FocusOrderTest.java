@@ -0,0 +1,150 @@
+package org.quick.core;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.observe.collect.ObservableList;
+import org.quick.QuickTestUtils;
+
+/** Tests the focus traversal order maintained by {@link FocusOrder} */
+public class FocusOrderTest {
+	private QuickDocument theDoc;
+
+	private QuickElement element(QuickElement parent, boolean focusable, QuickElement... children) {
+		QuickElement element = new QuickElement() {};
+		element.init(theDoc, null, theDoc.cv(), parent, null, null);
+		element.setFocusable(focusable);
+		element.initChildren(Arrays.asList(children));
+		return element;
+	}
+
+	private QuickElement createRoot() {
+		theDoc = QuickTestUtils.createDocument();
+		QuickElement root = theDoc.getRoot();
+		root.init(theDoc, null, theDoc.cv(), null, null, null);
+		return root;
+	}
+
+	private static ObservableList<QuickElement> ch(QuickElement element) {
+		return (ObservableList<QuickElement>) element.ch();
+	}
+
+	/** Checks the traversal order in both directions, including the wrap-around at each end */
+	private void assertOrder(QuickElement... expected) {
+		FocusOrder order = theDoc.getFocusOrder();
+		assertSame(expected[0], order.getFirst());
+		assertSame(expected[expected.length - 1], order.getLast());
+		for (int i = 0; i < expected.length; i++) {
+			assertSame("After " + i, expected[(i + 1) % expected.length], order.next(expected[i]));
+			assertSame("Before " + i, expected[(i + expected.length - 1) % expected.length], order.previous(expected[i]));
+		}
+	}
+
+	/** Tests that children are visited before their parent, and that elements that are not focusable are skipped */
+	@Test
+	public void testOrder() {
+		QuickElement root = createRoot();
+		QuickElement a1 = element(null, true);
+		QuickElement a2 = element(null, true);
+		QuickElement a = element(null, true, a1, a2);
+		QuickElement b1 = element(null, true);
+		QuickElement b = element(null, false, b1);
+		QuickElement c = element(null, true);
+		root.initChildren(Arrays.asList(a, b, c));
+		assertOrder(a1, a2, a, b1, c);
+
+		// Elements that are not focusable are placed by their position in the tree
+		assertSame(c, theDoc.getFocusOrder().next(b));
+		assertSame(b1, theDoc.getFocusOrder().previous(b));
+	}
+
+	/** Tests the order as subtrees are added and removed */
+	@Test
+	public void testAddRemove() {
+		QuickElement root = createRoot();
+		QuickElement a1 = element(null, true);
+		QuickElement a = element(null, true, a1);
+		QuickElement b = element(null, false);
+		QuickElement c = element(null, true);
+		root.initChildren(Arrays.asList(a, b, c));
+		assertOrder(a1, a, c);
+
+		QuickElement d1 = element(null, true);
+		QuickElement d = element(b, true, d1);
+		ch(b).add(d);
+		assertOrder(a1, a, d1, d, c);
+
+		QuickElement a0 = element(a, true);
+		ch(a).add(0, a0);
+		assertOrder(a0, a1, a, d1, d, c);
+
+		ch(root).remove(a);
+		assertOrder(d1, d, c);
+		// An element that has been removed continues from the start
+		assertSame(d1, theDoc.getFocusOrder().next(a));
+		assertSame(c, theDoc.getFocusOrder().previous(a1));
+
+		ch(b).remove(d);
+		assertOrder(c);
+		ch(root).remove(c);
+		assertNull(theDoc.getFocusOrder().getFirst());
+		assertNull(theDoc.getFocusOrder().getLast());
+		assertNull(theDoc.getFocusOrder().next(b));
+		assertNull(theDoc.getFocusOrder().previous(b));
+	}
+
+	/** Tests that changing an element's z-index moves it and its descendants in the order */
+	@Test
+	public void testSetZ() {
+		QuickElement root = createRoot();
+		QuickElement a = element(null, true);
+		QuickElement b1 = element(null, true);
+		QuickElement b2 = element(null, true);
+		QuickElement b = element(null, true, b1, b2);
+		QuickElement c = element(null, true);
+		root.initChildren(Arrays.asList(a, b, c));
+		assertOrder(a, b1, b2, b, c);
+
+		c.setZ(1);
+		assertOrder(c, a, b1, b2, b);
+		b2.setZ(1);
+		assertOrder(c, a, b2, b1, b);
+		b.setZ(2);
+		assertOrder(b2, b1, b, c, a);
+		c.setZ(0);
+		b.setZ(0);
+		assertOrder(a, b2, b1, b, c);
+	}
+
+	/** Tests that elements enter and leave the order as their focusability changes */
+	@Test
+	public void testSetFocusable() {
+		QuickElement root = createRoot();
+		QuickElement a1 = element(null, true);
+		QuickElement a = element(null, false, a1);
+		QuickElement b = element(null, false);
+		QuickElement c = element(null, true);
+		root.initChildren(Arrays.asList(a, b, c));
+		assertOrder(a1, c);
+
+		a.setFocusable(true);
+		assertOrder(a1, a, c);
+		b.setFocusable(true);
+		assertOrder(a1, a, b, c);
+		a1.setFocusable(false);
+		assertOrder(a, b, c);
+		c.setFocusable(false);
+		assertOrder(a, b);
+		a.setFocusable(false);
+		b.setFocusable(false);
+		assertNull(theDoc.getFocusOrder().getFirst());
+
+		// A single focusable element wraps around to itself
+		b.setFocusable(true);
+		assertOrder(b);
+		assertSame(b, theDoc.getFocusOrder().next(a1));
+	}
+}
@@ -0,0 +1,354 @@
+package org.quick.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.quick.core.QuickCache.CacheException;
+import org.quick.core.QuickCache.CacheItemType;
+import org.quick.core.QuickCache.PersistentItemType;
+
+/** Tests {@link QuickCache} */
+public class QuickCacheTest {
+	/** A folder for the disk tier test */
+	@Rule
+	public TemporaryFolder theFolder = new TemporaryFolder();
+
+	private static class SizedType implements CacheItemType<String, String, RuntimeException> {
+		final int theSize;
+
+		int generated;
+
+		SizedType(int size) {
+			theSize = size;
+		}
+
+		@Override
+		public synchronized String generate(QuickEnvironment env, String key) {
+			generated++;
+			return key;
+		}
+
+		@Override
+		public int size(String value) {
+			return theSize;
+		}
+	}
+
+	private static class PersistentType extends SizedType implements PersistentItemType<String, String, RuntimeException> {
+		String theValidator;
+
+		PersistentType() {
+			super(10);
+		}
+
+		@Override
+		public String getPersistentKey(String key) {
+			return "test:" + key;
+		}
+
+		@Override
+		public String getValidator(String key) {
+			return theValidator;
+		}
+
+		@Override
+		public void write(String value, OutputStream out) throws IOException {
+			out.write(value.getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public String read(String key, ByteBuffer data) {
+			byte [] bytes = new byte[data.remaining()];
+			data.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Tests that items of one type are not evicted by items of another
+	 *
+	 * @throws CacheException Should not happen
+	 */
+	@Test
+	public void testBudgetsPerType() throws CacheException {
+		QuickCache cache = new QuickCache();
+		SizedType small = new SizedType(10);
+		SizedType big = new SizedType(1000);
+		cache.setBudget(small, 100);
+		cache.setBudget(big, 2000);
+		for (int i = 0; i < 5; i++)
+			cache.getAndWait(null, small, "small" + i, true);
+		for (int i = 0; i < 10; i++)
+			cache.getAndWait(null, big, "big" + i, true);
+		for (int i = 0; i < 5; i++)
+			assertNotNull(cache.getAndWait(null, small, "small" + i, true));
+		assertEquals(5, cache.getStats(small).getEntryCount());
+		assertEquals(0, cache.getStats(small).getEvictions());
+		assertEquals(5, small.generated);
+		assertEquals(5, cache.getStats(small).getHits());
+		assertEquals(2, cache.getStats(big).getEntryCount());
+	}
+
+	/**
+	 * Tests that a frequently used item is not evicted by items that are only requested once
+	 *
+	 * @throws CacheException Should not happen
+	 */
+	@Test
+	public void testFrequencyAdmission() throws CacheException {
+		QuickCache cache = new QuickCache();
+		SizedType type = new SizedType(10);
+		cache.setBudget(type, 20);
+		for (int i = 0; i < 5; i++)
+			cache.getAndWait(null, type, "hot", true);
+		cache.getAndWait(null, type, "warm", true);
+		cache.getAndWait(null, type, "warm", true);
+		for (int i = 0; i < 10; i++)
+			cache.getAndWait(null, type, "cold" + i, true);
+		assertNotNull(cache.getAndWait(null, type, "hot", false));
+		assertNotNull(cache.getAndWait(null, type, "warm", false));
+		assertNull(cache.getAndWait(null, type, "cold0", false));
+		assertEquals(10, cache.getStats(type).getRejections());
+		assertEquals(2, cache.getStats(type).getEntryCount());
+	}
+
+	/**
+	 * Tests that evicted items of a type that spills to soft references can be recovered without being generated again
+	 *
+	 * @throws CacheException Should not happen
+	 */
+	@Test
+	public void testSoftSpill() throws CacheException {
+		QuickCache cache = new QuickCache();
+		SizedType type = new SizedType(10) {
+			@Override
+			public boolean spillsToSoftReference() {
+				return true;
+			}
+		};
+		cache.setBudget(type, 10);
+		cache.getAndWait(null, type, "a", true);
+		cache.getAndWait(null, type, "a", true);
+		cache.getAndWait(null, type, "b", true);
+		cache.getAndWait(null, type, "b", true);
+		cache.getAndWait(null, type, "b", true); // b is now more frequent than a and evicts it
+		assertEquals(1, cache.getStats(type).getEvictions());
+		assertEquals("a", cache.getAndWait(null, type, "a", true));
+		assertEquals(2, type.generated);
+		// b was not admitted the first two times it was generated or recovered, so it was recovered from its spill twice. Then a once.
+		assertEquals(3, cache.getStats(type).getSpillHits());
+	}
+
+	/**
+	 * Tests that a new item which would need to evict several items is not admitted, and evicts nothing, if any of them is used more often
+	 *
+	 * @throws CacheException Should not happen
+	 */
+	@Test
+	public void testAdmissionEvictsNothingWhenRejected() throws CacheException {
+		QuickCache cache = new QuickCache();
+		SizedType type = new SizedType(0) {
+			@Override
+			public int size(String value) {
+				return value.length() * 10;
+			}
+		};
+		cache.setBudget(type, 20);
+		cache.getAndWait(null, type, "x", true);
+		for (int i = 0; i < 5; i++)
+			cache.getAndWait(null, type, "y", true);
+		// zz is used more often than x, the least recently used item, but less often than y, which would also need to be evicted
+		cache.getAndWait(null, type, "zz", true);
+		cache.getAndWait(null, type, "zz", true);
+		assertNotNull(cache.getAndWait(null, type, "x", false));
+		assertNotNull(cache.getAndWait(null, type, "y", false));
+		assertNull(cache.getAndWait(null, type, "zz", false));
+		assertEquals(0, cache.getStats(type).getEvictions());
+		assertEquals(2, cache.getStats(type).getRejections());
+	}
+
+	/**
+	 * Tests that looking at a spilled item without generating it does not discard it
+	 *
+	 * @throws CacheException Should not happen
+	 */
+	@Test
+	public void testPeekSpilled() throws CacheException {
+		QuickCache cache = new QuickCache();
+		SizedType type = new SizedType(10) {
+			@Override
+			public boolean spillsToSoftReference() {
+				return true;
+			}
+		};
+		cache.setBudget(type, 10);
+		cache.getAndWait(null, type, "a", true);
+		cache.getAndWait(null, type, "a", true);
+		cache.getAndWait(null, type, "b", true); // Rejected and spilled
+		assertEquals("b", cache.getAndWait(null, type, "b", false));
+		assertEquals("b", cache.getAndWait(null, type, "b", false));
+		assertEquals("b", cache.getAndWait(null, type, "b", true));
+		assertEquals(2, type.generated);
+	}
+
+	/**
+	 * Tests that the types without budgets of their own share the total budget
+	 *
+	 * @throws CacheException Should not happen
+	 */
+	@Test
+	public void testTotalBudget() throws CacheException {
+		QuickCache cache = new QuickCache().setTotalBudget(100);
+		SizedType first = new SizedType(10);
+		SizedType second = new SizedType(10);
+		for (int i = 0; i < 10; i++)
+			cache.getAndWait(null, first, "first" + i, true);
+		assertEquals(100, cache.getStats(first).getSize());
+		for (int i = 0; i < 10; i++)
+			cache.getAndWait(null, second, "second" + i, true);
+		assertEquals(50, cache.getBudget(first));
+		assertEquals(50, cache.getBudget(second));
+		assertEquals(50, cache.getStats(first).getSize());
+		assertEquals(5, cache.getStats(first).getEvictions());
+
+		SizedType own = new SizedType(10);
+		cache.setBudget(own, 40);
+		assertEquals(30, cache.getBudget(first));
+		assertEquals(30, cache.getStats(first).getSize());
+		assertEquals(30, cache.getBudget(second));
+	}
+
+	/**
+	 * Tests that a type reserving a share of the total budget keeps its items when other types are used
+	 *
+	 * @throws CacheException Should not happen
+	 */
+	@Test
+	public void testBudgetShare() throws CacheException {
+		QuickCache cache = new QuickCache().setTotalBudget(100);
+		SizedType reserved = new SizedType(10) {
+			@Override
+			public double getBudgetShare() {
+				return .5;
+			}
+		};
+		for (int i = 0; i < 5; i++)
+			cache.getAndWait(null, reserved, "reserved" + i, true);
+		assertEquals(50, cache.getBudget(reserved));
+
+		SizedType first = new SizedType(10);
+		SizedType second = new SizedType(10);
+		cache.getAndWait(null, first, "first", true);
+		cache.getAndWait(null, second, "second", true);
+		assertEquals(25, cache.getBudget(first));
+		assertEquals(25, cache.getBudget(second));
+		assertEquals(50, cache.getBudget(reserved));
+		assertEquals(5, cache.getStats(reserved).getEntryCount());
+		assertEquals(0, cache.getStats(reserved).getEvictions());
+
+		cache.setTotalBudget(200);
+		assertEquals(100, cache.getBudget(reserved));
+		assertEquals(50, cache.getBudget(first));
+		// A budget set explicitly overrides the share
+		cache.setBudget(reserved, 20);
+		assertEquals(20, cache.getBudget(reserved));
+		assertEquals(90, cache.getBudget(first));
+		assertEquals(2, cache.getStats(reserved).getEntryCount());
+	}
+
+	/**
+	 * Tests that persistent items are read from the disk tier by a new cache instead of being generated again
+	 *
+	 * @throws CacheException Should not happen
+	 */
+	@Test
+	public void testDiskTier() throws CacheException {
+		PersistentType type = new PersistentType();
+		QuickCache cache = new QuickCache().setDiskCache(new QuickDiskCache(theFolder.getRoot(), 1000000));
+		assertEquals("persisted", cache.getAndWait(null, type, "persisted", true));
+		assertEquals(1, type.generated);
+
+		QuickCache restarted = new QuickCache().setDiskCache(new QuickDiskCache(theFolder.getRoot(), 1000000));
+		assertEquals("persisted", restarted.getAndWait(null, type, "persisted", true));
+		assertEquals(1, type.generated);
+		assertEquals(1, restarted.getStats(type).getDiskHits());
+	}
+
+	/**
+	 * Tests that a persisted item is generated again when the validator of its source changes
+	 *
+	 * @throws CacheException Should not happen
+	 */
+	@Test
+	public void testDiskTierValidator() throws CacheException {
+		PersistentType type = new PersistentType();
+		type.theValidator = "v1";
+		QuickCache cache = new QuickCache().setDiskCache(new QuickDiskCache(theFolder.getRoot(), 1000000));
+		cache.getAndWait(null, type, "validated", true);
+		assertEquals(1, type.generated);
+
+		QuickCache restarted = new QuickCache().setDiskCache(new QuickDiskCache(theFolder.getRoot(), 1000000));
+		restarted.getAndWait(null, type, "validated", true);
+		assertEquals(1, type.generated);
+
+		type.theValidator = "v2";
+		QuickCache changed = new QuickCache().setDiskCache(new QuickDiskCache(theFolder.getRoot(), 1000000));
+		changed.getAndWait(null, type, "validated", true);
+		assertEquals(2, type.generated);
+		assertEquals(0, changed.getStats(type).getDiskHits());
+
+		// The regenerated item replaced the stale one
+		QuickCache restartedAgain = new QuickCache().setDiskCache(new QuickDiskCache(theFolder.getRoot(), 1000000));
+		restartedAgain.getAndWait(null, type, "validated", true);
+		assertEquals(2, type.generated);
+	}
+
+	/**
+	 * Tests that temporary files left over from unfinished writes are deleted when a disk cache is opened
+	 *
+	 * @throws IOException If the temporary files cannot be created
+	 */
+	@Test
+	public void testOrphanedTempFiles() throws IOException {
+		java.io.File orphan = theFolder.newFile("entry.qc12345.tmp");
+		orphan.setLastModified(System.currentTimeMillis() - 3600000);
+		java.io.File inProgress = theFolder.newFile("entry.qc67890.tmp");
+		new QuickDiskCache(theFolder.getRoot(), 1000000);
+		assertFalse(orphan.exists());
+		assertTrue(inProgress.exists());
+	}
+
+	/**
+	 * Tests that small entries are copied out of their files rather than mapped, so that the files can be replaced and removed while the
+	 * data is still in use
+	 *
+	 * @throws IOException If the entries cannot be written or read
+	 */
+	@Test
+	public void testSmallEntriesCopied() throws IOException {
+		QuickDiskCache disk = new QuickDiskCache(theFolder.getRoot(), 1000000);
+		disk.write("key", "v1", out -> out.write("first".getBytes(StandardCharsets.UTF_8)));
+		ByteBuffer data = disk.read("key", "v1");
+		assertFalse(data.isDirect());
+		disk.write("key", "v2", out -> out.write("second".getBytes(StandardCharsets.UTF_8)));
+		assertNull(disk.read("key", "v1"));
+		assertEquals("second", StandardCharsets.UTF_8.decode(disk.read("key", "v2")).toString());
+		assertTrue(disk.remove("key"));
+		assertFalse(disk.remove("key"));
+		assertNull(disk.read("key", "v2"));
+		assertEquals(0, disk.getSize());
+		// The data read before is still intact
+		assertEquals("first", StandardCharsets.UTF_8.decode(data).toString());
+	}
+}
@@ -0,0 +1,47 @@
+package org.quick.test;
+
+import org.observe.Observable;
+import org.quick.core.*;
+
+/** Measures the approximate heap footprint of initialized Quick elements. This is a benchmark, not a unit test. */
+public class ElementFootprintBenchmark {
+	/**
+	 * Runs the benchmark
+	 *
+	 * @param args May contain the number of elements to create (default 100,000)
+	 */
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		QuickEnvironment env = QuickEnvironment.build().withDefaults().build();
+		QuickDocument doc = new QuickDocument(env, null, QuickHeadSection.build().build(), new QuickClassView(env, env.cv(), null),
+			Observable.empty);
+		QuickToolkit core = doc.getEnvironment().getCoreToolkit();
+
+		QuickElement[] elements = new QuickElement[count];
+		long before = usedMemory();
+		long start = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			QuickTextElement el = new QuickTextElement("");
+			el.init(doc, core, doc.getClassView(), null, null, null);
+			elements[i] = el;
+		}
+		long time = System.nanoTime() - start;
+		long after = usedMemory();
+		System.out.println(count + " text elements: " + ((after - before) / count) + " bytes and " + (time / count)
+			+ "ns per element (" + ((after - before) / 1024 / 1024) + "MB total)");
+		if (elements[count - 1] == null)
+			throw new IllegalStateException(); // Keep the elements reachable through the measurement
+	}
+
+	private static long usedMemory() {
+		Runtime rt = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+			}
+		}
+		return rt.totalMemory() - rt.freeMemory();
+	}
+}
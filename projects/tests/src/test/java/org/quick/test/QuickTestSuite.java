@@ -5,6 +5,13 @@ import org.junit.runners.Suite;
 import org.observe.ObserveTests;
 import org.quick.PropertyTest;
 import org.quick.base.layout.LayoutTests;
+import org.quick.base.widget.ParallelContentTest;
+import org.quick.base.widget.ScrollPaneTest;
+import org.quick.base.widget.TemplateInstancesTest;
+import org.quick.base.widget.TreeTest;
+import org.quick.base.widget.VirtualContainerTest;
+import org.quick.core.FocusOrderTest;
+import org.quick.core.QuickCacheTest;
 import org.quick.core.model.QuickDocumentTest;
 import org.quick.core.style.StylesTest;
 import org.quick.core.util.CompoundListenerTest;
@@ -17,7 +24,14 @@ import org.quick.core.util.CompoundListenerTest;
 	StylesTest.class, //
 	CompoundListenerTest.class, //
 	QuickDocumentTest.class, //
-	LayoutTests.class//
+	LayoutTests.class, //
+	TemplateInstancesTest.class, //
+	ParallelContentTest.class, //
+	ScrollPaneTest.class, //
+	TreeTest.class, //
+	VirtualContainerTest.class, //
+	FocusOrderTest.class, //
+	QuickCacheTest.class//
 })
 public class QuickTestSuite {
 }